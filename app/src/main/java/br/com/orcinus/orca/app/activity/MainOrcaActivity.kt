@@ -15,6 +15,8 @@
 
 package br.com.orcinus.orca.app.activity
 
+import android.os.Bundle
+import androidx.lifecycle.lifecycleScope
 import br.com.orcinus.orca.app.module.core.MastodonCoreModule
 import br.com.orcinus.orca.app.module.feature.profiledetails.MainProfileDetailsModule
 import br.com.orcinus.orca.core.mastodon.MastodonCoreModule
@@ -24,6 +26,7 @@ import br.com.orcinus.orca.core.mastodon.notification.NotificationLock
 import br.com.orcinus.orca.core.module.CoreModule
 import br.com.orcinus.orca.std.image.android.AsyncImageLoader
 import br.com.orcinus.orca.std.injector.Injector
+import java.io.File
 import java.lang.ref.WeakReference
 
 /**
@@ -40,14 +43,47 @@ internal class MainOrcaActivity : OrcaActivity<MastodonCoreModule>() {
   /** Provider of [AsyncImageLoader]s for loading avatars, covers and other images. */
   private val imageLoaderProvider by lazy { AsyncImageLoader.Provider(WeakReference(this)) }
 
+  /**
+   * [Requester] to be injected, whose requests are sent to the instance in which the user has been
+   * authorized.
+   */
+  private val requester by lazy {
+    Requester.create(
+      MastodonAuthorizationViewModel.getDomain(this).uri,
+      cacheDirectory = File(cacheDir, HTTP_CACHE_DIRECTORY_NAME)
+    )
+  }
+
+  override fun onCreate(savedInstanceState: Bundle?) {
+    prewarm()
+    super.onCreate(savedInstanceState)
+  }
+
   override fun inject() {
     super.inject()
-    Injector.injectLazily {
-      Requester.create(MastodonAuthorizationViewModel.getDomain(this@MainOrcaActivity).uri)
-    }
+    Injector.injectLazily { requester }
   }
 
-  override fun createCoreModule() = MastodonCoreModule(this, notificationLock, imageLoaderProvider)
+  override fun createCoreModule() =
+    MastodonCoreModule(this, notificationLock, imageLoaderProvider, lifecycleScope)
 
   override fun createProfileDetailsModule() = MainProfileDetailsModule(this)
+
+  /**
+   * Starts opening a connection to the instance in which the user has been authorized (if they
+   * have) while the layout is inflated and authentication is unlocked, rather than only when the
+   * first page of the timeline is requested.
+   *
+   * @see Requester.prewarm
+   */
+  private fun prewarm() {
+    if (MastodonAuthorizationViewModel.getDomainOrNull(this) != null) {
+      requester.prewarm(lifecycleScope)
+    }
+  }
+
+  companion object {
+    /** Name of the directory, within that of the cache, in which HTTP responses are written. */
+    private const val HTTP_CACHE_DIRECTORY_NAME = "http"
+  }
 }
@@ -28,11 +28,13 @@ import br.com.orcinus.orca.std.image.SomeImageLoaderProvider
 import br.com.orcinus.orca.std.injector.module.injection.immediateInjectionOf
 import br.com.orcinus.orca.std.injector.module.injection.lazyInjectionOf
 import java.net.URI
+import kotlinx.coroutines.CoroutineScope
 
 internal fun MastodonCoreModule(
   context: Context,
   notificationLock: NotificationLock,
-  imageLoaderProvider: SomeImageLoaderProvider<URI>
+  imageLoaderProvider: SomeImageLoaderProvider<URI>,
+  coroutineScope: CoroutineScope
 ): MastodonCoreModule {
   val actorProvider = SharedPreferencesActorProvider(context, MainImageLoaderProviderFactory)
   val authorizer = MastodonAuthorizer(context)
@@ -49,7 +51,8 @@ internal fun MastodonCoreModule(
         actorProvider,
         authenticationLock,
         termMuter,
-        imageLoaderProvider
+        imageLoaderProvider,
+        coroutineScope
       )
     },
     immediateInjectionOf(authenticationLock),
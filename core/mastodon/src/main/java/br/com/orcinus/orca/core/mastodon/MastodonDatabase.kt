@@ -25,10 +25,17 @@ import br.com.orcinus.orca.core.mastodon.feed.profile.cache.storage.style.Mastod
 import br.com.orcinus.orca.core.mastodon.feed.profile.cache.storage.style.MastodonStyleEntityDao
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.cache.storage.MastodonPostEntity
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.cache.storage.MastodonPostEntityDao
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor.PageCursor
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor.PageCursorDao
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor.PageCursorTableMigration
 import br.com.orcinus.orca.core.mastodon.feed.profile.search.cache.storage.MastodonProfileSearchResultEntity
 import br.com.orcinus.orca.core.mastodon.feed.profile.search.cache.storage.MastodonProfileSearchResultEntityDao
+import br.com.orcinus.orca.core.mastodon.feed.timeline.TimelineEntry
+import br.com.orcinus.orca.core.mastodon.feed.timeline.TimelineEntryDao
+import br.com.orcinus.orca.core.mastodon.feed.timeline.TimelineEntryTableMigration
 import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.Request
 import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.RequestDao
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.RequestIDMigration
 
 /** [RoomDatabase] in which core-Mastodon-related persistence operations will take place. */
 @Database(
@@ -38,9 +45,11 @@ import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.R
       MastodonProfileEntity::class,
       MastodonProfileSearchResultEntity::class,
       MastodonPostEntity::class,
-      Request::class
+      Request::class,
+      PageCursor::class,
+      TimelineEntry::class
     ],
-  version = 1
+  version = 4
 )
 internal abstract class MastodonDatabase : RoomDatabase() {
   /** DAO for operating on [Mastodon style entities][MastodonStyleEntity]. */
@@ -61,6 +70,12 @@ internal abstract class MastodonDatabase : RoomDatabase() {
   /** DAO for operating on [Request]s. */
   abstract val requestDao: RequestDao
 
+  /** DAO for operating on [PageCursor]s. */
+  abstract val pageCursorDao: PageCursorDao
+
+  /** DAO for operating on [TimelineEntry]s. */
+  abstract val timelineEntryDao: TimelineEntryDao
+
   companion object {
     private lateinit var instance: MastodonDatabase
 
@@ -85,6 +100,7 @@ internal abstract class MastodonDatabase : RoomDatabase() {
      */
     private fun build(context: Context): MastodonDatabase {
       return Room.databaseBuilder(context, MastodonDatabase::class.java, "mastodon-database")
+        .addMigrations(RequestIDMigration, PageCursorTableMigration, TimelineEntryTableMigration)
         .build()
     }
   }
@@ -100,10 +100,21 @@ private constructor(
     @JvmStatic
     @Throws(IllegalStateException::class)
     fun getDomain(context: Context): Domain {
-      return getPreferences(context).getString(DOMAIN_PREFERENCE_KEY, null)?.let(::Domain)
+      return getDomainOrNull(context)
         ?: error("Cannot retrieve the instance domain because it has not been persisted yet.")
     }
 
+    /**
+     * Gets the [Domain] that's been persisted when the user was authorized, or `null` if
+     * authorization hasn't completed yet.
+     *
+     * @param context [Context] through which the persisted [Domain] is retrieved.
+     */
+    @JvmStatic
+    fun getDomainOrNull(context: Context): Domain? {
+      return getPreferences(context).getString(DOMAIN_PREFERENCE_KEY, null)?.let(::Domain)
+    }
+
     /**
      * Creates a [ViewModelProvider.Factory] that provides a [MastodonAuthorizationViewModel].
      *
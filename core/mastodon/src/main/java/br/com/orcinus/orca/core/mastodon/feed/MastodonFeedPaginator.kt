@@ -16,6 +16,9 @@
 package br.com.orcinus.orca.core.mastodon.feed
 
 import android.content.Context
+import br.com.orcinus.orca.core.auth.AuthenticationLock
+import br.com.orcinus.orca.core.auth.SomeAuthenticationLock
+import br.com.orcinus.orca.core.auth.actor.Actor
 import br.com.orcinus.orca.core.auth.actor.ActorProvider
 import br.com.orcinus.orca.core.feed.profile.Profile
 import br.com.orcinus.orca.core.feed.profile.post.Post
@@ -23,17 +26,30 @@ import br.com.orcinus.orca.core.mastodon.feed.profile.MastodonProfilePostPaginat
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.MastodonPost
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.MastodonPostPaginator
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.MastodonStatusesPaginator
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.page.Page
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.stat.comment.MastodonCommentPaginator
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.status.MastodonStatus
+import br.com.orcinus.orca.core.mastodon.feed.timeline.TimelineEntryDao
 import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
 import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
 import br.com.orcinus.orca.std.image.SomeImageLoaderProvider
 import java.net.URI
+import kotlinx.coroutines.CoroutineScope
 
 /**
  * [MastodonPostPaginator] that paginates through [MastodonPost]s of the feed.
  *
+ * Each page received from the API is merged into the home timeline persisted by the
+ * [timelineEntryDao], marking as gaps the points at which pages that have not been received after
+ * one another meet; the newest contiguous portion of it can then be [restore]d before any request
+ * is sent.
+ *
+ * @param authenticationLock [AuthenticationLock] that authenticates the HTTP requests performed
+ *   when paginating.
+ * @param coroutineScope [CoroutineScope] in which the [Post]s emitted upon pagination are shared.
  * @property profilePostPaginatorProvider Paginates through the [Post]s of converted [Profile]s.
+ * @property timelineEntryDao [TimelineEntryDao] by which the timeline of the current [Actor] is
+ *   persisted.
  */
 internal class MastodonFeedPaginator(
   override val context: Context,
@@ -41,22 +57,67 @@ internal class MastodonFeedPaginator(
   override val actorProvider: ActorProvider,
   private val profilePostPaginatorProvider: MastodonProfilePostPaginator.Provider,
   override val commentPaginatorProvider: MastodonCommentPaginator.Provider,
-  override val imageLoaderProvider: SomeImageLoaderProvider<URI>
-) : MastodonStatusesPaginator() {
+  override val imageLoaderProvider: SomeImageLoaderProvider<URI>,
+  private val timelineEntryDao: TimelineEntryDao,
+  authenticationLock: SomeAuthenticationLock,
+  coroutineScope: CoroutineScope
+) : MastodonStatusesPaginator(authenticationLock, coroutineScope) {
+  /**
+   * Page whose [MastodonStatus]es have been received most recently, associated to the ID of the
+   * oldest of them (or `null` if there were none). When the page that succeeds it is received, the
+   * gap that follows such [MastodonStatus] is closed, since that page is the one to which it links;
+   * any other one (as the preceding page, when paginating backwards) is not known to be contiguous.
+   */
+  private var lastReceivedPage: Pair<Int, String?>? = null
+
   override fun HostedURLBuilder.buildInitialRoute(): URI {
     return path("api").path("v1").path("timelines").path("home").build()
   }
 
-  override fun List<MastodonStatus>.toPosts(): List<Post> {
-    return map {
-      it.toPost(
-        context,
-        requester,
-        actorProvider,
-        profilePostPaginatorProvider,
-        commentPaginatorProvider,
-        imageLoaderProvider
-      )
+  override fun convert(status: MastodonStatus): Post {
+    return status.toPost(
+      context,
+      requester,
+      actorProvider,
+      profilePostPaginatorProvider,
+      commentPaginatorProvider,
+      imageLoaderProvider
+    )
+  }
+
+  override suspend fun onStatusesReceived(@Page page: Int, statuses: List<MastodonStatus>) {
+    val owner = findTimelineOwner() ?: return
+    val precedingStatusID =
+      lastReceivedPage?.takeIf { (receivedPage, _) -> receivedPage == page - 1 }?.second
+    lastReceivedPage = page to statuses.lastOrNull()?.id
+    timelineEntryDao.merge(owner, statuses, precedingStatusID, MAX_TIMELINE_ENTRY_COUNT)
+  }
+
+  /**
+   * Converts the newest contiguous [MastodonStatus]es of the persisted timeline of the current
+   * [Actor] into [Post]s. No request is sent; an empty [List] is returned if nothing has been
+   * persisted or the [Actor] is not [authenticated][Actor.Authenticated].
+   */
+  suspend fun restore(): List<Post> {
+    val owner = findTimelineOwner() ?: return emptyList()
+    return timelineEntryDao.selectWindow(owner, RESTORED_WINDOW_SIZE).map {
+      convert(it.toStatus())
     }
   }
+
+  /**
+   * Obtains the ID of the current [Actor] if it is [authenticated][Actor.Authenticated], by which
+   * its timeline is told apart from those of others.
+   */
+  private suspend fun findTimelineOwner(): String? {
+    return (actorProvider.provide() as? Actor.Authenticated)?.id
+  }
+
+  companion object {
+    /** Maximum amount of [MastodonStatus]es of the timeline that are kept persisted. */
+    private const val MAX_TIMELINE_ENTRY_COUNT = 400
+
+    /** Maximum amount of [MastodonStatus]es that are restored from the persisted timeline. */
+    private const val RESTORED_WINDOW_SIZE = 40
+  }
 }
@@ -21,10 +21,23 @@ import br.com.orcinus.orca.core.feed.FeedProvider
 import br.com.orcinus.orca.core.feed.profile.post.Post
 import br.com.orcinus.orca.core.feed.profile.post.content.TermMuter
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.page.Page
+import kotlinx.atomicfu.AtomicBoolean
+import kotlinx.atomicfu.atomic
+import kotlinx.coroutines.cancelAndJoin
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.channelFlow
+import kotlinx.coroutines.flow.runningReduce
+import kotlinx.coroutines.launch
 
 /**
  * [FeedProvider] that requests the feed's [Post]s to the API.
  *
+ * Upon the first provision of the first page, the newest contiguous [Post]s of the persisted
+ * timeline are emitted as its first snapshot while those of the API are requested concurrently,
+ * being replaced by the latter once they have been received; because the restored [Post]s never go
+ * past a gap, they are always in chronological order, and gaps are filled as the pages that follow
+ * are provided and merged into the timeline.
+ *
  * @property actorProvider [ActorProvider] by which the current [Actor] will be provided.
  * @property postPaginator [MastodonFeedPaginator] that will paginate through the [Post]s in the
  *   feed.
@@ -35,6 +48,34 @@ internal constructor(
   override val termMuter: TermMuter,
   private val postPaginator: MastodonFeedPaginator
 ) : FeedProvider() {
-  override suspend fun onProvision(@Page page: Int) =
-    postPaginator.paginateTo(page).getValueOrThrow()
+  /** [AtomicBoolean] that determines whether the persisted timeline has yet to be emitted. */
+  private val isRestorable = atomic(true)
+
+  override suspend fun onProvision(@Page page: Int): Flow<List<Post>> {
+    val postsFlow =
+      postPaginator.paginateTo(page).getValueOrThrow().runningReduce { accumulator, posts ->
+        accumulator + posts
+      }
+    return if (page == 0 && isRestorable.getAndSet(false)) {
+      postsFlow.precededByRestoredPosts()
+    } else {
+      postsFlow
+    }
+  }
+
+  /**
+   * Emits the [Post]s of the persisted timeline, if any, as a snapshot that precedes (and is
+   * replaced by) the ones emitted by this [Flow]. Restoring them does not delay the collection of
+   * this [Flow]; if it emits before they have been restored, restoration is cancelled, since the
+   * [Post]s received from the API supersede them.
+   */
+  private fun Flow<List<Post>>.precededByRestoredPosts() = channelFlow {
+    val restoration = launch {
+      postPaginator.restore().takeUnless(List<Post>::isEmpty)?.let { send(it) }
+    }
+    collect { posts ->
+      restoration.cancelAndJoin()
+      send(posts)
+    }
+  }
 }
@@ -24,10 +24,12 @@ import java.net.URI
 import kotlinx.coroutines.flow.Flow
 
 /**
- * [Profile] whose [Post]s are obtained through pagination performed by the [postPaginator].
+ * [Profile] whose [Post]s are obtained through pagination performed by a
+ * [MastodonProfilePostPaginator].
  *
  * @param postPaginatorProvider [MastodonProfilePostPaginator.Provider] by which a
- *   [MastodonProfilePostPaginator] for paginating through the [Post]s will be provided.
+ *   [MastodonProfilePostPaginator] for paginating through the [Post]s will be provided upon each
+ *   obtainance, rather than held onto, so that its lifecycle is dictated by the provider.
  */
 internal data class MastodonProfile(
   private val postPaginatorProvider: MastodonProfilePostPaginator.Provider,
@@ -40,12 +42,7 @@ internal data class MastodonProfile(
   override val followingCount: Int,
   override val uri: URI
 ) : Profile {
-  private lateinit var postPaginator: MastodonProfilePostPaginator
-
   override suspend fun onPostsObtainance(page: Int): Flow<List<Post>> {
-    if (!::postPaginator.isInitialized) {
-      postPaginator = postPaginatorProvider.provide(id)
-    }
-    return postPaginator.paginateTo(page).getValueOrThrow()
+    return postPaginatorProvider.provide(id).paginateTo(page).getValueOrThrow()
   }
 }
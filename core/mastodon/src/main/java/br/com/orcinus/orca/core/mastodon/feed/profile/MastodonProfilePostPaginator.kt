@@ -16,6 +16,8 @@
 package br.com.orcinus.orca.core.mastodon.feed.profile
 
 import android.content.Context
+import br.com.orcinus.orca.core.auth.AuthenticationLock
+import br.com.orcinus.orca.core.auth.SomeAuthenticationLock
 import br.com.orcinus.orca.core.auth.actor.ActorProvider
 import br.com.orcinus.orca.core.feed.profile.post.Post
 import br.com.orcinus.orca.core.mastodon.feed.profile.account.MastodonAccount
@@ -27,10 +29,14 @@ import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
 import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
 import br.com.orcinus.orca.std.image.SomeImageLoaderProvider
 import java.net.URI
+import kotlinx.coroutines.CoroutineScope
 
 /**
  * [MastodonPostPaginator] that paginates through a [MastodonAccount]'s [MastodonStatus]es.
  *
+ * @param authenticationLock [AuthenticationLock] that authenticates the HTTP requests performed
+ *   when paginating.
+ * @param coroutineScope [CoroutineScope] in which the [Post]s emitted upon pagination are shared.
  * @property id ID of the [MastodonAccount].
  * @see MastodonAccount.id
  */
@@ -40,8 +46,10 @@ internal class MastodonProfilePostPaginator(
   override val actorProvider: ActorProvider,
   override val commentPaginatorProvider: MastodonCommentPaginator.Provider,
   override val imageLoaderProvider: SomeImageLoaderProvider<URI>,
+  authenticationLock: SomeAuthenticationLock,
+  coroutineScope: CoroutineScope,
   private val id: String
-) : MastodonStatusesPaginator() {
+) : MastodonStatusesPaginator(authenticationLock, coroutineScope) {
   /** Provides a [MastodonProfilePostPaginator] through [provide]. */
   fun interface Provider {
     /**
@@ -58,16 +66,14 @@ internal class MastodonProfilePostPaginator(
     return path("api").path("v1").path("accounts").path(id).path("statuses").build()
   }
 
-  override fun List<MastodonStatus>.toPosts(): List<Post> {
-    return map {
-      it.toPost(
-        context,
-        requester,
-        actorProvider,
-        profilePostPaginatorProvider = { this@MastodonProfilePostPaginator },
-        commentPaginatorProvider,
-        imageLoaderProvider
-      )
-    }
+  override fun convert(status: MastodonStatus): Post {
+    return status.toPost(
+      context,
+      requester,
+      actorProvider,
+      profilePostPaginatorProvider = { this@MastodonProfilePostPaginator },
+      commentPaginatorProvider,
+      imageLoaderProvider
+    )
   }
 }
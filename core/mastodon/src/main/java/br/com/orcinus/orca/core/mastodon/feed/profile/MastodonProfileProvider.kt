@@ -22,11 +22,11 @@ import br.com.orcinus.orca.core.mastodon.R
 import br.com.orcinus.orca.platform.autos.i18n.ReadableThrowable
 import br.com.orcinus.orca.platform.cache.Cache
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.flowOf
 
 /**
  * [ProfileProvider] that either requests [MastodonProfile]s to the API or retrieves cached ones if
- * they're available.
+ * they're available. Cached [MastodonProfile]s are provided immediately and, in case they are
+ * stale, are then revalidated and provided again if they have changed.
  *
  * @param cache [Cache] of [MastodonProfile] by which [MastodonProfile]s will be obtained.
  */
@@ -38,8 +38,7 @@ internal constructor(private val cache: Cache<Profile>, private val context: Con
   }
 
   override suspend fun onProvision(id: String): Flow<Profile> {
-    val profile = cache.get(id)
-    return flowOf(profile)
+    return cache.observe(id)
   }
 
   override fun createNonexistentProfileException(): NonexistentProfileException {
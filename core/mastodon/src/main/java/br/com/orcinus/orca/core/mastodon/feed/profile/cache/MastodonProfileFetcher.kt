@@ -24,15 +24,21 @@ import br.com.orcinus.orca.core.mastodon.feed.profile.MastodonProfilePostPaginat
 import br.com.orcinus.orca.core.mastodon.feed.profile.account.MastodonAccount
 import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
 import br.com.orcinus.orca.core.mastodon.instance.requester.authentication.authenticated
+import br.com.orcinus.orca.core.mastodon.instance.requester.scheduling.RequestPriority
 import br.com.orcinus.orca.platform.cache.Fetcher
 import br.com.orcinus.orca.std.func.monad.flatMap
 import br.com.orcinus.orca.std.image.ImageLoader
 import br.com.orcinus.orca.std.image.SomeImageLoaderProvider
 import io.ktor.client.call.body
 import java.net.URI
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.withContext
 
 /**
- * [Fetcher] for [MastodonProfile]s.
+ * [Fetcher] for [MastodonProfile]s. Multiple ones are requested at once through the multi-ID
+ * `/api/v1/accounts` endpoint, in concurrent batches of at most [MAX_IDS_PER_REQUEST] and with a
+ * [RequestPriority.PREFETCH] priority.
  *
  * @property context [Context] with which a fetched [MastodonAccount] will be converted into a
  *   [Profile].
@@ -61,4 +67,47 @@ internal class MastodonProfileFetcher(
           .toProfile(context, requester, avatarLoaderProvider, postPaginatorProvider)
       }
       .getValueOrThrow()
+
+  @Throws(AuthenticationLock.FailedAuthenticationException::class)
+  override suspend fun onFetchAll(keys: List<String>) =
+    withContext(RequestPriority.PREFETCH) {
+      keys
+        .chunked(MAX_IDS_PER_REQUEST)
+        .map { ids -> async { requestAll(ids) } }
+        .awaitAll()
+        .fold(HashMap<String, Profile>(keys.size)) { profiles, chunk ->
+          profiles.apply { putAll(chunk) }
+        }
+    }
+
+  /**
+   * Requests the [Profile]s whose IDs are the given ones in a single request.
+   *
+   * @param ids IDs of the [Profile]s to be requested, whose amount should not exceed
+   *   [MAX_IDS_PER_REQUEST].
+   */
+  @Throws(AuthenticationLock.FailedAuthenticationException::class)
+  private suspend fun requestAll(ids: List<String>) =
+    requester
+      .authenticated()
+      .get({ path("api").path("v1").path("accounts").query().parameter("id[]", ids).build() })
+      .map { response ->
+        response
+          .body<List<MastodonAccount>>()
+          .map {
+            it
+              .toProfile(context, requester, avatarLoaderProvider, postPaginatorProvider)
+              .getValueOrThrow()
+          }
+          .associateBy(Profile::id)
+      }
+      .getValueOrThrow()
+
+  companion object {
+    /**
+     * Maximum amount of IDs that can be specified in a single request to the multi-ID
+     * `/api/v1/accounts` endpoint, beyond which the API rejects the request.
+     */
+    private const val MAX_IDS_PER_REQUEST = 40
+  }
 }
@@ -58,6 +58,14 @@ internal interface MastodonProfileEntityDao {
    */
   @Insert(onConflict = OnConflictStrategy.REPLACE) suspend fun insert(entity: MastodonProfileEntity)
 
+  /**
+   * Inserts all of the [entities] in a single transaction.
+   *
+   * @param entities [Mastodon profile entities][MastodonProfileEntity] to be inserted.
+   */
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  suspend fun insertAll(entities: List<MastodonProfileEntity>)
+
   /**
    * Deletes the [MastodonProfileEntity] identified as [id].
    *
@@ -65,6 +73,13 @@ internal interface MastodonProfileEntityDao {
    */
   @Query("DELETE FROM profiles WHERE id = :id") suspend fun delete(id: String)
 
+  /**
+   * Deletes the [Mastodon profile entities][MastodonProfileEntity] identified as any of the [ids].
+   *
+   * @param ids IDs of the [Mastodon profile entities][MastodonProfileEntity] to be deleted.
+   */
+  @Query("DELETE FROM profiles WHERE id IN (:ids)") suspend fun deleteByIDs(ids: List<String>)
+
   /** Deletes all [Mastodon profile entities][MastodonProfileEntity]. */
   @Query("DELETE FROM profiles") suspend fun deleteAll()
 }
@@ -52,10 +52,19 @@ internal class MastodonProfileStorage(
     entityDao.insert(entity)
   }
 
+  override suspend fun onStoreAll(values: Map<String, Profile>) {
+    val entities = values.map { (key, value) -> value.toMastodonProfileEntity().copy(id = key) }
+    entityDao.insertAll(entities)
+  }
+
   override suspend fun onContains(key: String): Boolean {
     return entityDao.count(key) > 0
   }
 
+  override fun onRepresent(key: String, value: Profile): Any {
+    return value.toMastodonProfileEntity().copy(id = key)
+  }
+
   override suspend fun onGet(key: String): Profile {
     return entityDao
       .selectByID(key)
@@ -67,6 +76,10 @@ internal class MastodonProfileStorage(
     entityDao.delete(key)
   }
 
+  override suspend fun onRemoveAll(keys: List<String>) {
+    entityDao.deleteByIDs(keys)
+  }
+
   override suspend fun onClear() {
     entityDao.deleteAll()
   }
@@ -48,4 +48,14 @@ internal interface MastodonStyleEntityDao {
    * @param entities [Mastodon style entities][MastodonStyleEntity] to be deleted.
    */
   @Delete suspend fun delete(entities: List<MastodonStyleEntity>)
+
+  /**
+   * Deletes the [Mastodon style entities][MastodonStyleEntity] whose parents are identified as any
+   * of the [parentIDs].
+   *
+   * @param parentIDs IDs of the parents whose [Mastodon style entities][MastodonStyleEntity] are
+   *   to be deleted.
+   */
+  @Query("DELETE FROM styles WHERE parent_id IN (:parentIDs)")
+  suspend fun deleteByParentIDs(parentIDs: List<String>)
 }
@@ -19,17 +19,16 @@ import br.com.orcinus.orca.core.feed.profile.post.Post
 import br.com.orcinus.orca.core.feed.profile.post.PostProvider
 import br.com.orcinus.orca.platform.cache.Cache
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.flowOf
 
 /**
  * [PostProvider] that either requests [Post]s to the API or retrieves cached ones if they're
- * available.
+ * available. Cached [Post]s are provided immediately and, in case they are stale, are then
+ * revalidated and provided again if they have changed.
  *
  * @param cache [Cache] of [Post]s by which [Post]s will be obtained.
  */
 class MastodonPostProvider internal constructor(private val cache: Cache<Post>) : PostProvider() {
   override suspend fun onProvide(id: String): Flow<Post> {
-    val post = cache.get(id)
-    return flowOf(post)
+    return cache.observe(id)
   }
 }
@@ -16,6 +16,7 @@
 package br.com.orcinus.orca.core.mastodon.feed.profile.post.cache
 
 import android.content.Context
+import br.com.orcinus.orca.core.auth.AuthenticationLock
 import br.com.orcinus.orca.core.auth.actor.Actor
 import br.com.orcinus.orca.core.auth.actor.ActorProvider
 import br.com.orcinus.orca.core.feed.profile.Profile
@@ -31,9 +32,13 @@ import br.com.orcinus.orca.std.image.ImageLoader
 import br.com.orcinus.orca.std.image.SomeImageLoaderProvider
 import io.ktor.client.call.body
 import java.net.URI
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
 
 /**
- * [Fetcher] that requests [Post]s to the API.
+ * [Fetcher] that requests [Post]s to the API. Multiple [Post]s are requested at once through the
+ * multi-ID `/api/v1/statuses` endpoint, in concurrent batches of at most [MAX_IDS_PER_REQUEST].
  *
  * @property context [Context] with which a fetched [MastodonStatus] will be converted into a
  *   [Post].
@@ -75,4 +80,49 @@ internal class MastodonPostFetcher(
           )
       }
       .getValueOrThrow()
+
+  @Throws(AuthenticationLock.FailedAuthenticationException::class)
+  override suspend fun onFetchAll(keys: List<String>) = coroutineScope {
+    keys
+      .chunked(MAX_IDS_PER_REQUEST)
+      .map { ids -> async { requestAll(ids) } }
+      .awaitAll()
+      .fold(HashMap<String, Post>(keys.size)) { posts, chunk -> posts.apply { putAll(chunk) } }
+  }
+
+  /**
+   * Requests the [Post]s whose IDs are the given ones in a single request.
+   *
+   * @param ids IDs of the [Post]s to be requested, whose amount should not exceed
+   *   [MAX_IDS_PER_REQUEST].
+   */
+  @Throws(AuthenticationLock.FailedAuthenticationException::class)
+  private suspend fun requestAll(ids: List<String>) =
+    requester
+      .authenticated()
+      .get({ path("api").path("v1").path("statuses").query().parameter("id[]", ids).build() })
+      .map { response ->
+        response
+          .body<List<MastodonStatus>>()
+          .map {
+            it.toPost(
+              context,
+              requester,
+              actorProvider,
+              profilePostPaginatorProvider,
+              commentPaginatorProvider,
+              imageLoaderProvider
+            )
+          }
+          .associateBy(Post::id)
+      }
+      .getValueOrThrow()
+
+  companion object {
+    /**
+     * Maximum amount of IDs that can be specified in a single request to the multi-ID
+     * `/api/v1/statuses` endpoint, beyond which the API rejects the request.
+     */
+    private const val MAX_IDS_PER_REQUEST = 40
+  }
 }
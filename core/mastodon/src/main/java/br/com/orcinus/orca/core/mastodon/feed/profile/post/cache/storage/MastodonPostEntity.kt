@@ -91,6 +91,8 @@ internal data class MastodonPostEntity(
    *   [Profile]s.
    * @param requester [Requester] by which [Stat]-related requests are performed.
    * @param profileCache [Cache] from which the [Author]'s [Profile] will be retrieved.
+   * @param profiles [Profile]s that have already been obtained, associated to their IDs. Those of
+   *   the [Author] and of the reposter that are absent are retrieved from the [profileCache].
    * @param dao [MastodonPostEntityDao] that will select the persisted
    *   [Mastodon style entities][MastodonStyleEntity].
    * @param actorProvider [ActorProvider] for determining whether ownership of the resulting [Post]
@@ -108,13 +110,14 @@ internal data class MastodonPostEntity(
     context: Context,
     requester: Requester<*>,
     profileCache: Cache<Profile>,
+    profiles: Map<String, Profile>,
     dao: MastodonPostEntityDao,
     actorProvider: ActorProvider,
     profilePostPaginatorProvider: MastodonProfilePostPaginator.Provider,
     commentPaginatorProvider: MastodonCommentPaginator.Provider,
     imageLoaderProvider: SomeImageLoaderProvider<URI>
   ): Post {
-    val author = profileCache.get(authorID).toAuthor()
+    val author = (profiles[authorID] ?: profileCache.get(authorID)).toAuthor()
     val domain = Injector.from<CoreModule>().instanceProvider().provide().domain
     val styles = dao.selectWithStylesByID(id).styles.map(MastodonStyleEntity::toStyle)
     val text = Markdown.styled(text, styles)
@@ -148,7 +151,7 @@ internal data class MastodonPostEntity(
         uri
       )
       .`if`<Post>(reposterID != null) {
-        val reposter = profileCache.get(reposterID!!).toAuthor()
+        val reposter = (profiles[reposterID] ?: profileCache.get(reposterID!!)).toAuthor()
         Repost(this, reposter)
       }
   }
@@ -42,6 +42,14 @@ internal interface MastodonPostEntityDao {
   @Query("SELECT * FROM posts WHERE id = :id")
   suspend fun selectByID(id: String): MastodonPostEntity
 
+  /**
+   * Selects the [Mastodon post entities][MastodonPostEntity] identified as any of the [ids].
+   *
+   * @param ids IDs of the [Mastodon post entities][MastodonPostEntity] to be selected.
+   */
+  @Query("SELECT * FROM posts WHERE id IN (:ids)")
+  suspend fun selectByIDs(ids: List<String>): List<MastodonPostEntity>
+
   /**
    * Selects the [MastodonPostEntity] identified as [id] alongside its associated
    * [Mastodon style entities][MastodonStyleEntity].
@@ -59,6 +67,14 @@ internal interface MastodonPostEntityDao {
    */
   @Insert(onConflict = OnConflictStrategy.REPLACE) suspend fun insert(entity: MastodonPostEntity)
 
+  /**
+   * Inserts all of the [entities].
+   *
+   * @param entities [Mastodon post entities][MastodonPostEntity] to be inserted.
+   */
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  suspend fun insertAll(entities: List<MastodonPostEntity>)
+
   /**
    * Deletes the [MastodonPostEntity] identified as [id].
    *
@@ -66,6 +82,13 @@ internal interface MastodonPostEntityDao {
    */
   @Query("DELETE FROM posts WHERE id = :id") suspend fun delete(id: String)
 
+  /**
+   * Deletes the [Mastodon post entities][MastodonPostEntity] identified as any of the [ids].
+   *
+   * @param ids IDs of the [Mastodon post entities][MastodonPostEntity] to be deleted.
+   */
+  @Query("DELETE FROM posts WHERE id IN (:ids)") suspend fun deleteByIDs(ids: List<String>)
+
   /** Deletes all [Mastodon post entities][MastodonPostEntity]. */
   @Query("DELETE FROM posts") suspend fun deleteAll()
 }
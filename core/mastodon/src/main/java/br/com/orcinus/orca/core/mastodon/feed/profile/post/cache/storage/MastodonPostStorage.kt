@@ -16,13 +16,16 @@
 package br.com.orcinus.orca.core.mastodon.feed.profile.post.cache.storage
 
 import android.content.Context
+import androidx.room.withTransaction
 import br.com.orcinus.orca.core.auth.actor.Actor
 import br.com.orcinus.orca.core.auth.actor.ActorProvider
 import br.com.orcinus.orca.core.feed.profile.Profile
+import br.com.orcinus.orca.core.feed.profile.post.Author
 import br.com.orcinus.orca.core.feed.profile.post.Post
 import br.com.orcinus.orca.core.feed.profile.post.content.Content
 import br.com.orcinus.orca.core.feed.profile.post.content.highlight.Highlight
 import br.com.orcinus.orca.core.feed.profile.post.stat.Stat
+import br.com.orcinus.orca.core.mastodon.MastodonDatabase
 import br.com.orcinus.orca.core.mastodon.feed.profile.MastodonProfilePostPaginator
 import br.com.orcinus.orca.core.mastodon.feed.profile.account.MastodonAccount
 import br.com.orcinus.orca.core.mastodon.feed.profile.cache.storage.style.MastodonStyleEntity
@@ -46,6 +49,8 @@ import java.net.URI
  *   [Mastodon post entities][MastodonPostEntity] will be converted to [Post]s.
  * @property profilePostPaginatorProvider Paginates through the [Post]s of [Profile]s that are
  *   obtained by the [Stat]s.
+ * @property database [MastodonDatabase] in which multiple [Post]s are stored in a single
+ *   transaction.
  * @property postEntityDao [MastodonStyleEntityDao] that will perform SQL transactions on
  *   [Mastodon post entities][MastodonPostEntity].
  * @property styleEntityDao [MastodonStyleEntityDao] for inserting and deleting
@@ -66,6 +71,7 @@ internal class MastodonPostStorage(
   private val requester: Requester<*>,
   private val profileCache: Cache<Profile>,
   private val profilePostPaginatorProvider: MastodonProfilePostPaginator.Provider,
+  private val database: MastodonDatabase,
   private val postEntityDao: MastodonPostEntityDao,
   private val styleEntityDao: MastodonStyleEntityDao,
   private val actorProvider: ActorProvider,
@@ -79,23 +85,37 @@ internal class MastodonPostStorage(
     styleEntityDao.insert(styleEntities)
   }
 
+  override suspend fun onStoreAll(values: Map<String, Post>) {
+    val postEntities = values.values.map { MastodonPostEntity.from(it) }
+    val styleEntities =
+      values.values.flatMap { value ->
+        value.content.text.styles.map { it.toHttpStyleEntity(value.id) }
+      }
+    database.withTransaction {
+      postEntityDao.insertAll(postEntities)
+      styleEntityDao.insert(styleEntities)
+    }
+  }
+
   override suspend fun onContains(key: String): Boolean {
     return postEntityDao.count(key) > 0
   }
 
+  override fun onRepresent(key: String, value: Post): Any {
+    return MastodonPostEntity.from(value) to
+      value.content.text.styles.map { it.toHttpStyleEntity(value.id) }
+  }
+
   override suspend fun onGet(key: String): Post {
-    return postEntityDao
-      .selectByID(key)
-      .toPost(
-        context,
-        requester,
-        profileCache,
-        postEntityDao,
-        actorProvider,
-        profilePostPaginatorProvider,
-        commentPaginatorProvider,
-        coverLoaderProvider
-      )
+    val postEntity = postEntityDao.selectByID(key)
+    val profiles = profileCache.getAll(postEntity.profileIDs)
+    return toPost(postEntity, profiles)
+  }
+
+  override suspend fun onGetAll(keys: List<String>): Map<String, Post> {
+    val postEntities = keys.chunked(MAX_IDS_PER_QUERY).flatMap { postEntityDao.selectByIDs(it) }
+    val profiles = profileCache.getAll(postEntities.flatMap { it.profileIDs })
+    return postEntities.associate { it.id to toPost(it, profiles) }
   }
 
   override suspend fun onRemove(key: String) {
@@ -104,7 +124,44 @@ internal class MastodonPostStorage(
     postEntityDao.delete(key)
   }
 
+  override suspend fun onRemoveAll(keys: List<String>) {
+    database.withTransaction {
+      styleEntityDao.deleteByParentIDs(keys)
+      postEntityDao.deleteByIDs(keys)
+    }
+  }
+
   override suspend fun onClear() {
     postEntityDao.deleteAll()
   }
+
+  /**
+   * Converts the [postEntity] into a [Post].
+   *
+   * @param postEntity [MastodonPostEntity] to be converted.
+   * @param profiles [Profile]s of the [Author]s that have already been obtained, associated to
+   *   their IDs.
+   */
+  private suspend fun toPost(postEntity: MastodonPostEntity, profiles: Map<String, Profile>): Post {
+    return postEntity.toPost(
+      context,
+      requester,
+      profileCache,
+      profiles,
+      postEntityDao,
+      actorProvider,
+      profilePostPaginatorProvider,
+      commentPaginatorProvider,
+      coverLoaderProvider
+    )
+  }
+
+  companion object {
+    /** Maximum amount of IDs by which [Post]s are selected in a single query. */
+    private const val MAX_IDS_PER_QUERY = 512
+
+    /** IDs of the [Profile]s of the [Author] and, if any, of the reposter of the [Post]. */
+    private val MastodonPostEntity.profileIDs
+      get() = listOfNotNull(authorID, reposterID)
+  }
 }
@@ -16,13 +16,27 @@
 package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination
 
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.type.KTypeCreator
+import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
 import io.ktor.client.call.DoubleReceiveException
 import io.ktor.client.call.NoTransformationFoundException
 import io.ktor.client.call.body
 import io.ktor.client.statement.HttpResponse
+import io.ktor.client.statement.bodyAsChannel
 import io.ktor.util.reflect.TypeInfo
+import io.ktor.utils.io.jvm.javaio.toInputStream
 import kotlin.reflect.KType
 import kotlin.reflect.javaType
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.asFlow
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.serialization.DeserializationStrategy
+import kotlinx.serialization.ExperimentalSerializationApi
+import kotlinx.serialization.json.DecodeSequenceMode
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.decodeToSequence
 
 /**
  * Receives the payload as being a [T].
@@ -42,3 +56,30 @@ internal suspend fun <T : Any> HttpResponse.body(typeCreator: KTypeCreator<T>):
 
   return body(typeInfo)
 }
+
+/**
+ * Decodes the payload, which is expected to be a JSON array, element by element, emitting each of
+ * them as soon as it has been decoded instead of decoding the entire array into a [List] first.
+ * Decoding is performed on [Dispatchers.IO] and buffered, which allows for the collector to process
+ * an element while the following ones are still being decoded.
+ *
+ * Only the decoding is incremental: responses returned by a [Requester] have had their payload
+ * saved into memory by the time they are returned, so the elements are read from that saved
+ * payload rather than from the network as it is received.
+ *
+ * @param T Element of the array.
+ * @param json [Json] by which each element is decoded.
+ * @param deserializer [DeserializationStrategy] for decoding an element.
+ */
+internal fun <T> HttpResponse.bodyAsFlow(
+  json: Json,
+  deserializer: DeserializationStrategy<T>
+): Flow<T> {
+  return flow {
+      bodyAsChannel().toInputStream().use {
+        @OptIn(ExperimentalSerializationApi::class)
+        emitAll(json.decodeToSequence(it, deserializer, DecodeSequenceMode.ARRAY_WRAPPED).asFlow())
+      }
+    }
+    .flowOn(Dispatchers.IO)
+}
@@ -21,11 +21,14 @@ import br.com.orcinus.orca.core.auth.AuthenticationLock
 import br.com.orcinus.orca.core.auth.SomeAuthenticationLock
 import br.com.orcinus.orca.core.feed.Pages
 import br.com.orcinus.orca.core.feed.profile.post.Post
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor.PageCursor
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor.PageCursorDao
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.page.Page
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.type.KTypeCreator
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.type.kTypeCreatorOf
 import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
 import br.com.orcinus.orca.core.mastodon.instance.requester.authentication.authenticated
+import br.com.orcinus.orca.core.mastodon.instance.requester.scheduling.RequestPriority
 import br.com.orcinus.orca.core.module.CoreModule
 import br.com.orcinus.orca.core.module.authenticationLock
 import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
@@ -37,13 +40,19 @@ import io.ktor.client.statement.request
 import io.ktor.http.LinkHeader
 import io.ktor.http.toURI
 import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
+import kotlin.math.abs
 import kotlinx.atomicfu.atomic
+import kotlinx.coroutines.CancellationException
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
 import kotlinx.coroutines.DelicateCoroutinesApi
 import kotlinx.coroutines.GlobalScope
 import kotlinx.coroutines.InternalCoroutinesApi
 import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.async
+import kotlinx.coroutines.cancel
 import kotlinx.coroutines.channels.Channel
 import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.flow.Flow
@@ -140,16 +149,39 @@ internal inline val @Suppress("UnusedReceiverParameter") LinkHeader.Rel.Previous
  * otherwise, this behavior can simply be delegated to a default [KTypeCreator], obtainable through
  * the [kTypeCreatorOf] factory method.
  *
+ * ##### Read-ahead
+ *
+ * Once a page has been received, the pages linked as the next ones are fetched in the background
+ * with [RequestPriority.PREFETCH], up to [readAheadCount] of them. When pagination is then
+ * performed to one of those, the response that has been read ahead is handed over instead of a
+ * request being sent, so that reaching the end of the loaded [Post]s doesn't stall on a round trip.
+ * Pages that have been read ahead but are no longer linked from the last paginated one are
+ * discarded, and all ongoing read-aheads are cancelled when the [coroutineScope] is.
+ *
+ * ##### Page cursors
+ *
+ * The route of each page that is paginated through, and that of the one linked as its next, are
+ * indexed as [PageCursor]s by the [pageCursorDao] (if any). Pagination to a following page that is
+ * not adjacent to the current one then starts from the closest indexed page that precedes it,
+ * which, in case the target page itself has been indexed, is requested directly; only the pages
+ * from that one onwards are emitted. When a page is found to link to a route other than the indexed
+ * one (e.g., because new [Post]s have been published since it was indexed), the cursors of the
+ * pages after it are invalidated, and are rebuilt as pagination goes through them again. Only the
+ * cursors of the [PageCursorDao.MAX_OWNER_COUNT] most recently paginated initial routes are kept.
+ *
  * @param T DTO that is returned by the API.
  * @property authenticationLock [AuthenticationLock] that authenticates the HTTP requests performed
  *   upon pagination.
  * @property coroutineScope [CoroutineScope] in which paginations are performed and their respective
  *   HTTP requests for fetching the [Post]s in the page are sent.
+ * @property readAheadCount Amount of pages succeeding the last paginated one that are fetched in
+ *   advance.
  * @see buildInitialRoute
  */
 internal abstract class MastodonPostPaginator<T : Any>(
   private val authenticationLock: SomeAuthenticationLock,
-  private val coroutineScope: CoroutineScope
+  private val coroutineScope: CoroutineScope,
+  private val readAheadCount: Int = DEFAULT_READ_AHEAD_COUNT
 ) : KTypeCreator<T> {
   /** [Requester] by which HTTP requests that require authentication can be performed. */
   private val authenticatedRequester by lazy { requester.authenticated(authenticationLock) }
@@ -166,14 +198,36 @@ internal abstract class MastodonPostPaginator<T : Any>(
   private val initialRouter: HostedURLBuilder.() -> URI = { buildInitialRoute() }
 
   /**
-   * Receives each page sent upon pagination.
+   * Page to which pagination is performed.
+   *
+   * @property page Page whose [Post]s are obtained.
+   * @property route Route of the [page] from a [PageCursor], to which the request is sent instead
+   *   of the one linked by the previous page; or `null` if it should be routed as usual.
+   */
+  private class Destination(@Page val page: Int, val route: URI? = null)
+
+  /**
+   * Receives each [Destination] sent upon pagination.
    *
    * A rendezvous [Channel] is preferred over a [SharedFlow] because the latter employs conflation,
    * preventing slow collections from receiving all emitted values and allowing them only to receive
    * the latest ones. This is an issue specifically for pagination in which pₙ ≠ p₀, since each page
    * in the range is sent immediately, one after another.
    */
-  private val pageChannel = Channel<Int>()
+  private val pageChannel = Channel<Destination>()
+
+  /**
+   * [CoroutineScope] in which pages are read ahead. Its [Job] is not a child of that of the
+   * [coroutineScope] (so that a failed read-ahead does not cancel it), and is instead cancelled
+   * when the [coroutineScope] is.
+   */
+  private val readAheadScope = coroutineScope + SupervisorJob() + RequestPriority.PREFETCH
+
+  /** Responses to requests for pages that have been read ahead, associated to their routes. */
+  private val readAheadResponses = ConcurrentHashMap<URI, Deferred<HttpResponse>>()
+
+  /** [Job] by which the links from the last paginated page are followed for reading ahead. */
+  private var readAheadJob: Job? = null
 
   /** Page set upon pagination; essentially, p₀. */
   private var currentPage by atomic(Pages.NONE)
@@ -182,29 +236,47 @@ internal abstract class MastodonPostPaginator<T : Any>(
   private val postsFlow =
     pageChannel
       .receiveAsFlow()
-      .runningFold<_, Pagination?>(null) { previousPagination, page ->
+      .runningFold<_, Pagination?>(null) { previousPagination, destination ->
         @Suppress("UNCHECKED_CAST")
         val router =
-          previousPagination
-            ?.let { createSubsequentRouter(previousPagination, page) }
-            .`if`({ this === Unrouted }) {
-              return@runningFold null
-            } as (HostedURLBuilder.() -> URI)?
+          destination.route?.let<_, HostedURLBuilder.() -> URI> { route -> { route } }
+            ?: previousPagination
+              ?.let { createSubsequentRouter(previousPagination, destination.page) }
+              .`if`({ this === Unrouted }) {
+                return@runningFold null
+              } as (HostedURLBuilder.() -> URI)?
             ?: initialRouter
 
-        Pagination(
-          page,
-          coroutineScope.async { authenticatedRequester.get(router).getValueOrThrow() }
-        )
+        val route = requester.absolute(router)
+        val responseDeferred =
+          readAheadResponses.remove(route)?.takeUnless(Deferred<*>::isCancelled)
+            ?: coroutineScope.async { authenticatedRequester.get(router).getValueOrThrow() }
+        Pagination(destination.page, responseDeferred).also(::readAhead)
       }
       .filterNotNull()
       .onEach(::onWillPaginate)
-      .map { it.responseDeferred.await().body(this@MastodonPostPaginator).toPosts() }
+      .map { pagination ->
+        pagination.responseDeferred
+          .await()
+          .also { index(pagination.page, it) }
+          .receivePosts(pagination.page)
+      }
       .shareIn(coroutineScope + Job(), SharingStarted.Eagerly)
 
   /** [Requester] by which requests will be performed. */
   protected abstract val requester: Requester<*>
 
+  /**
+   * [PageCursorDao] by which the routes of the pages are indexed, or `null` if they shouldn't be
+   * (in which case pagination always goes through every page between the current one and the
+   * target one).
+   */
+  protected open val pageCursorDao: PageCursorDao?
+    get() = null
+
+  /** [String] representation of the initial route, by which the [PageCursor]s are owned. */
+  private val pageCursorOwner by lazy { "${requester.absolute(initialRouter)}" }
+
   /** Page from which the next pagination will start. */
   @VisibleForTesting
   inline val initialPage
@@ -234,9 +306,12 @@ internal abstract class MastodonPostPaginator<T : Any>(
   constructor() : this(Injector.from<CoreModule>().authenticationLock(), GlobalScope + Job())
 
   init {
+    require(readAheadCount >= 0) { "Read-ahead count should not be negative ($readAheadCount)." }
     @OptIn(InternalCoroutinesApi::class)
     coroutineScope.coroutineContext.job.invokeOnCompletion(onCancelling = true) {
       pageChannel.close(it)
+      readAheadScope.cancel()
+      readAheadResponses.clear()
       currentPage = Pages.NONE
     }
   }
@@ -250,11 +325,18 @@ internal abstract class MastodonPostPaginator<T : Any>(
     Pages.validate(page).map {
       channelFlow {
         val initialPage = this@MastodonPostPaginator.initialPage
-        val pages = if (initialPage <= page) initialPage..page else initialPage downTo page
-        val pageCount = countPages(initialPage, targetPage = pages.last)
+        val cursor = findStartingCursor(initialPage, targetPage = page)
+        val destinations =
+          if (cursor == null) {
+            val pages = if (initialPage <= page) initialPage..page else initialPage downTo page
+            pages.map(::Destination)
+          } else {
+            listOf(Destination(cursor.page, URI(cursor.route))) +
+              (cursor.page + 1..page).map(::Destination)
+          }
         coroutineScope {
-          launch { postsFlow.take(pageCount).collect(::send) }
-          launch { pages.forEach { setPage(it) } }
+          launch { postsFlow.take(destinations.size).collect(::send) }
+          launch { destinations.forEach { setDestination(it) } }
         }
       }
     }
@@ -284,6 +366,17 @@ internal abstract class MastodonPostPaginator<T : Any>(
   /** Converts the DTO returned by the API into [Post]s. */
   protected abstract fun T.toPosts(): List<Post>
 
+  /**
+   * Receives the [Post]s in the payload of this [HttpResponse]. By default, the entire payload is
+   * decoded into a [T] and only then converted into [Post]s.
+   *
+   * @param page Page whose payload is this [HttpResponse]'s.
+   * @see toPosts
+   */
+  protected open suspend fun HttpResponse.receivePosts(@Page page: Int): List<Post> {
+    return body(this@MastodonPostPaginator).toPosts()
+  }
+
   /**
    * Callback called whenever pagination will be performed.
    *
@@ -322,11 +415,8 @@ internal abstract class MastodonPostPaginator<T : Any>(
     suspend fun createLinkedRouter(rel: String) =
       previousPagination.responseDeferred
         .await()
-        .headers
-        .filterIsLink()
-        .find { it.parameter(LinkHeader.Parameters.Rel) == rel }
-        ?.uri
-        ?.let<_, HostedURLBuilder.() -> URI> { { URI(it) } }
+        .findLink(rel)
+        ?.let<_, HostedURLBuilder.() -> URI> { route -> { route } }
         ?: Unrouted
 
     /** Produces a router for performing a refresh. */
@@ -345,15 +435,117 @@ internal abstract class MastodonPostPaginator<T : Any>(
   }
 
   /**
-   * Sets [page] as the current one by sending it to the [Channel] and changing the atomic property.
+   * Follows the links to the next pages from the response of the [pagination], fetching up to
+   * [readAheadCount] of them in the background. Responses to pages that have already been read
+   * ahead are reused, and those to pages that are no longer linked are cancelled and discarded.
+   *
+   * @param pagination [Pagination] from which pages are read ahead.
+   */
+  private fun readAhead(pagination: Pagination) {
+    if (readAheadCount == 0) {
+      return
+    }
+    readAheadJob?.cancel()
+    readAheadJob =
+      readAheadScope.launch {
+        val routes = hashSetOf<URI>()
+        var responseDeferred = pagination.responseDeferred
+        while (routes.size < readAheadCount) {
+          val route =
+            try {
+              responseDeferred.await().findLink(LinkHeader.Rel.Next)
+            } catch (exception: CancellationException) {
+              throw exception
+            } catch (exception: Exception) {
+              null
+            } ?: break
+          if (!routes.add(route)) {
+            break
+          }
+          responseDeferred =
+            readAheadResponses.computeIfAbsent(route) {
+              readAheadScope.async { authenticatedRequester.get({ route }).getValueOrThrow() }
+            }
+        }
+        readAheadResponses.entries.removeIf { (route, deferred) ->
+          (route !in routes).also { isUnlinked -> if (isUnlinked) deferred.cancel() }
+        }
+      }
+  }
+
+  /**
+   * Finds the [URI] linked in the headers of this [HttpResponse] with the given relationship to
+   * the page whose [Post]s it contains.
+   *
+   * @param rel Description of the relationship between the page of this [HttpResponse] and that
+   *   of the linked [URI]. According to the Mastodon API documentation as of v1, can be either
+   *   [LinkHeader.Rel.Previous] or [LinkHeader.Rel.Next].
+   */
+  private fun HttpResponse.findLink(rel: String): URI? {
+    return headers
+      .filterIsLink()
+      .find { it.parameter(LinkHeader.Parameters.Rel) == rel }
+      ?.uri
+      ?.let(::URI)
+  }
+
+  /**
+   * Sets the page of the [destination] as the current one by sending it to the [Channel] and
+   * changing the atomic property.
    *
-   * @param page Page to be set.
+   * @param destination [Destination] to be set.
    * @see currentPage
    * @see pageChannel
    */
-  private suspend fun setPage(@Page page: Int) {
-    pageChannel.send(page)
-    currentPage = page
+  private suspend fun setDestination(destination: Destination) {
+    pageChannel.send(destination)
+    currentPage = destination.page
+  }
+
+  /**
+   * Finds the [PageCursor] of the page from which pagination to the target one should start, in
+   * case it is closer to the target page than the initial one is. Pagination to an adjacent or a
+   * preceding page always starts from the initial one.
+   *
+   * @param initialPage Page from which pagination would otherwise start.
+   * @param targetPage Page to which pagination is performed.
+   */
+  private suspend fun findStartingCursor(
+    @Page initialPage: Int,
+    @Page targetPage: Int
+  ): PageCursor? {
+    val distance = targetPage - initialPage
+    if (distance <= 1) {
+      return null
+    }
+    return pageCursorDao?.selectFloor(pageCursorOwner, targetPage)?.takeIf {
+      targetPage - it.page < distance
+    }
+  }
+
+  /**
+   * Indexes the route to which the request for the [page] has been sent and the one linked in the
+   * [response] as that of the next page. The cursors of the pages after one whose route differs
+   * from the indexed one are invalidated, given that they've been linked by a page whose contents
+   * have since changed.
+   *
+   * @param page Page to which the [response] has been received.
+   * @param response [HttpResponse] to the request for the [page].
+   */
+  private suspend fun index(@Page page: Int, response: HttpResponse) {
+    val pageCursorDao = pageCursorDao ?: return
+    val route = "${response.request.url.toURI()}"
+    val nextRoute = response.findLink(LinkHeader.Rel.Next)?.let { "$it" }
+    for ((indexedPage, indexedRoute) in listOf(page to route, page + 1 to nextRoute)) {
+      if (indexedRoute == null) {
+        break
+      }
+      if (pageCursorDao.select(pageCursorOwner, indexedPage)?.route != indexedRoute) {
+        pageCursorDao.deleteAfter(pageCursorOwner, indexedPage)
+        pageCursorDao.insert(PageCursor(pageCursorOwner, indexedPage, indexedRoute))
+      }
+    }
+    pageCursorDao.access(pageCursorOwner)
   }
 
   /**
@@ -367,5 +559,10 @@ internal abstract class MastodonPostPaginator<T : Any>(
    * @see Pages.validate
    */
   private fun countPages(@Page initialPage: Int, @Page targetPage: Int) =
-    if (initialPage == targetPage) 1 else initialPage + targetPage + 1
+    abs(targetPage - initialPage) + 1
+
+  companion object {
+    /** Amount of pages that are read ahead by default. */
+    const val DEFAULT_READ_AHEAD_COUNT = 1
+  }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination
+
+import br.com.orcinus.orca.core.feed.profile.post.Post
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.job
+import kotlinx.coroutines.plus
+
+/**
+ * Bounded pool of [MastodonPostPaginator]s, each identified by the ID of the structure through
+ * whose [Post]s it paginates (such as those of a profile or the comments of a post).
+ *
+ * A [MastodonPostPaginator] is only created when it is first obtained, and is reused by subsequent
+ * obtainances for as long as it is pooled. Each one paginates in its own [CoroutineScope], whose
+ * [Job] is a child of that of the [coroutineScope]: when the pool is full, the least recently
+ * obtained [MastodonPostPaginator] is evicted and has its [CoroutineScope] cancelled, and all of
+ * them are cancelled alongside the [coroutineScope]. This way, the amount of live pagination
+ * pipelines is bounded by the [maxSize] rather than by the amount of structures that have been
+ * loaded.
+ *
+ * Because an evicted [MastodonPostPaginator] can no longer paginate, it should not be held by those
+ * that obtain it; rather, it should be obtained again from the pool upon each pagination.
+ *
+ * @param P [MastodonPostPaginator] that is pooled.
+ * @property coroutineScope [CoroutineScope] by which the [MastodonPostPaginator]s are owned.
+ * @property maxSize Maximum amount of [MastodonPostPaginator]s that are kept alive at once.
+ * @property create Creates a [MastodonPostPaginator] that paginates in the given [CoroutineScope]
+ *   through the [Post]s of the structure identified by the given ID.
+ * @throws IllegalArgumentException If the [maxSize] is not positive.
+ */
+internal class MastodonPostPaginatorPool<P : MastodonPostPaginator<*>>(
+  private val coroutineScope: CoroutineScope,
+  private val maxSize: Int = DEFAULT_MAX_SIZE,
+  private val create: (id: String, coroutineScope: CoroutineScope) -> P
+) {
+  /**
+   * Pooled [Entry]s, associated to the IDs of the structures of their [MastodonPostPaginator]s and
+   * ordered from the least to the most recently obtained one.
+   */
+  private val entries =
+    object : LinkedHashMap<String, Entry<P>>(maxSize, 1f, true) {
+      override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Entry<P>>?): Boolean {
+        return (size > maxSize).also { isFull -> if (isFull) eldest?.value?.job?.cancel() }
+      }
+    }
+
+  /** Amount of [MastodonPostPaginator]s that are currently pooled. */
+  val size
+    get() = synchronized(entries) { entries.size }
+
+  /**
+   * [MastodonPostPaginator] that is pooled.
+   *
+   * @param P [MastodonPostPaginator] that is pooled.
+   * @property paginator [MastodonPostPaginator] that paginates in the scope of the [job].
+   * @property job [Job] by which the [CoroutineScope] of the [paginator] is cancelled upon its
+   *   eviction.
+   */
+  private class Entry<P : MastodonPostPaginator<*>>(val paginator: P, val job: Job)
+
+  init {
+    require(maxSize > 0) { "Maximum size should be positive ($maxSize)." }
+    coroutineScope.coroutineContext.job.invokeOnCompletion { synchronized(entries, entries::clear) }
+  }
+
+  /**
+   * Obtains the [MastodonPostPaginator] of the structure identified as [id], creating it in case it
+   * isn't pooled.
+   *
+   * @param id ID of the structure whose [Post]s are paginated through.
+   */
+  fun obtain(id: String): P {
+    return synchronized(entries) {
+      entries
+        .getOrPut(id) {
+          val job = Job(coroutineScope.coroutineContext.job)
+          Entry(create(id, coroutineScope + job), job)
+        }
+        .paginator
+    }
+  }
+
+  companion object {
+    /** Default maximum amount of [MastodonPostPaginator]s that are kept alive at once. */
+    const val DEFAULT_MAX_SIZE = 32
+  }
+}
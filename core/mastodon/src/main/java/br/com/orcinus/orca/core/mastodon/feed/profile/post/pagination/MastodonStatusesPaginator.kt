@@ -16,13 +16,20 @@
 package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination
 
 import android.content.Context
+import androidx.annotation.EmptySuper
+import br.com.orcinus.orca.core.auth.AuthenticationLock
+import br.com.orcinus.orca.core.auth.SomeAuthenticationLock
 import br.com.orcinus.orca.core.auth.actor.Actor
 import br.com.orcinus.orca.core.auth.actor.ActorProvider
 import br.com.orcinus.orca.core.feed.profile.post.Post
+import br.com.orcinus.orca.core.mastodon.MastodonDatabase
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.page.Page
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.stat.comment.MastodonCommentPaginator
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.status.MastodonStatus
+import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
 import br.com.orcinus.orca.std.image.ImageLoader
 import br.com.orcinus.orca.std.image.SomeImageLoaderProvider
+import io.ktor.client.statement.HttpResponse
 import java.net.URI
 import kotlin.reflect.KClass
 import kotlin.reflect.KType
@@ -30,9 +37,26 @@ import kotlin.reflect.KTypeProjection
 import kotlin.reflect.KVariance
 import kotlin.reflect.full.createType
 import kotlin.reflect.typeOf
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.flow.toList
 
-/** [MastodonPostPaginator] that receives a [List] of [MastodonStatus]es from the API. */
-internal abstract class MastodonStatusesPaginator : MastodonPostPaginator<List<MastodonStatus>>() {
+/**
+ * [MastodonPostPaginator] that receives a [List] of [MastodonStatus]es from the API.
+ *
+ * Rather than decoding the whole [List] before converting it, each [MastodonStatus] is converted
+ * into a [Post] as soon as it has been decoded from the received payload, while the following ones
+ * are still being decoded.
+ *
+ * @param authenticationLock [AuthenticationLock] that authenticates the HTTP requests performed
+ *   when paginating.
+ * @param coroutineScope [CoroutineScope] in which the [Post]s emitted upon pagination are shared.
+ */
+internal abstract class MastodonStatusesPaginator(
+  authenticationLock: SomeAuthenticationLock,
+  coroutineScope: CoroutineScope
+) : MastodonPostPaginator<List<MastodonStatus>>(authenticationLock, coroutineScope) {
   /**
    * [Context] with which [MastodonStatus]es will be converted into [Post]s.
    *
@@ -62,6 +86,42 @@ internal abstract class MastodonStatusesPaginator : MastodonPostPaginator<List<M
    */
   protected abstract val imageLoaderProvider: SomeImageLoaderProvider<URI>
 
+  override val pageCursorDao
+    get() = MastodonDatabase.getInstance(context).pageCursorDao
+
+  /**
+   * Converts the [status] into a [Post].
+   *
+   * @param status [MastodonStatus] to be converted.
+   */
+  protected abstract fun convert(status: MastodonStatus): Post
+
+  final override fun List<MastodonStatus>.toPosts(): List<Post> {
+    return map(::convert)
+  }
+
+  final override suspend fun HttpResponse.receivePosts(@Page page: Int): List<Post> {
+    val statuses = mutableListOf<MastodonStatus>()
+    val posts =
+      bodyAsFlow(Requester.normalizedJson, MastodonStatus.serializer())
+        .onEach(statuses::add)
+        .map(::convert)
+        .toList()
+    onStatusesReceived(page, statuses)
+    return posts
+  }
+
+  /**
+   * Callback called whenever all of the [MastodonStatus]es of a page have been received and
+   * converted into [Post]s.
+   *
+   * @param page Page in which the [statuses] have been received.
+   * @param statuses [MastodonStatus]es of the page, in the order in which they were received.
+   */
+  @EmptySuper
+  protected open suspend fun onStatusesReceived(@Page page: Int, statuses: List<MastodonStatus>) =
+    Unit
+
   @Suppress("UNCHECKED_CAST")
   final override val kClass = List::class as KClass<List<MastodonStatus>>
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor
+
+import androidx.room.Entity
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.MastodonPostPaginator
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.page.Page
+
+/**
+ * Route of a page through which a [MastodonPostPaginator] has paginated, by which that page can
+ * later be requested directly instead of by following the links from the initial one.
+ *
+ * Mastodon paginates by ID cursors (`max_id`, `min_id` and `since_id`), which are included as query
+ * parameters of the routes linked in the headers of each response; the whole route is stored
+ * instead of the cursors themselves so that any other parameter of it (such as `limit`) is kept.
+ *
+ * Because profile routes include the ID of the account, there may be as many paginations as there
+ * are visited profiles; thus, only the [PageCursor]s of the most recently accessed ones are kept.
+ *
+ * @property owner [String] representation of the initial route of the [MastodonPostPaginator], by
+ *   which pages of distinct paginations are told apart.
+ * @property page Page whose route this is.
+ * @property route [String] representation of the route to which the request for the page is sent.
+ * @property lastAccess Ordinal of the last access to the pagination, greater than those of the
+ *   paginations that have been accessed before it.
+ * @see PageCursorDao.access
+ */
+@Entity(tableName = "page_cursors", primaryKeys = ["owner", "page"])
+internal data class PageCursor(
+  val owner: String,
+  @Page val page: Int,
+  val route: String,
+  val lastAccess: Long = 0
+)
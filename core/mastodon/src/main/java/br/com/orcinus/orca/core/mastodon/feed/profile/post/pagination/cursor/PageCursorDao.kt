@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.page.Page
+
+/** DAO by which [PageCursor]-related read and write operations are performed. */
+@Dao
+internal abstract class PageCursorDao {
+  /**
+   * Selects the [PageCursor] of a page.
+   *
+   * @param owner [String] representation of the initial route of the pagination.
+   * @param page Page whose [PageCursor] is selected.
+   */
+  @Query("SELECT * FROM page_cursors WHERE owner = :owner AND page = :page")
+  abstract suspend fun select(owner: String, @Page page: Int): PageCursor?
+
+  /**
+   * Selects the [PageCursor] of the greatest page that is lesser than or equal to the given one.
+   *
+   * @param owner [String] representation of the initial route of the pagination.
+   * @param page Page above which [PageCursor]s are not selected.
+   */
+  @Query(
+    "SELECT * FROM page_cursors WHERE owner = :owner AND page <= :page ORDER BY page DESC LIMIT 1"
+  )
+  abstract suspend fun selectFloor(owner: String, @Page page: Int): PageCursor?
+
+  /**
+   * Inserts the [cursor], replacing the one of the same page.
+   *
+   * @param cursor [PageCursor] to be inserted.
+   */
+  @Insert(onConflict = OnConflictStrategy.REPLACE) abstract suspend fun insert(cursor: PageCursor)
+
+  /**
+   * Deletes the [PageCursor]s of the pages that succeed the given one.
+   *
+   * @param owner [String] representation of the initial route of the pagination.
+   * @param page Page after which [PageCursor]s are deleted.
+   */
+  @Query("DELETE FROM page_cursors WHERE owner = :owner AND page > :page")
+  abstract suspend fun deleteAfter(owner: String, @Page page: Int)
+
+  /**
+   * Marks the pagination as the most recently accessed one and deletes the [PageCursor]s of those
+   * that are not among the [MAX_OWNER_COUNT] most recently accessed, keeping the table from
+   * growing indefinitely as distinct paginations (such as those of each visited profile) are
+   * indexed.
+   *
+   * @param owner [String] representation of the initial route of the pagination.
+   */
+  @Transaction
+  open suspend fun access(owner: String) {
+    touch(owner)
+    deleteLeastRecentlyAccessed(retainedOwnerCount = MAX_OWNER_COUNT)
+  }
+
+  /**
+   * Sets the [PageCursor.lastAccess] of the [PageCursor]s of the pagination to one that is greater
+   * than that of any other.
+   *
+   * @param owner [String] representation of the initial route of the pagination.
+   */
+  @Query(
+    "UPDATE page_cursors SET lastAccess = (SELECT IFNULL(MAX(lastAccess), 0) + 1 FROM " +
+      "page_cursors) WHERE owner = :owner"
+  )
+  abstract suspend fun touch(owner: String)
+
+  /**
+   * Deletes the [PageCursor]s of the paginations that are not among the most recently accessed
+   * ones.
+   *
+   * @param retainedOwnerCount Amount of most recently accessed paginations whose [PageCursor]s are
+   *   kept.
+   */
+  @Query(
+    "DELETE FROM page_cursors WHERE owner NOT IN (SELECT owner FROM page_cursors GROUP BY owner " +
+      "ORDER BY MAX(lastAccess) DESC LIMIT :retainedOwnerCount)"
+  )
+  abstract suspend fun deleteLeastRecentlyAccessed(retainedOwnerCount: Int)
+
+  companion object {
+    /** Maximum amount of paginations whose [PageCursor]s are kept. */
+    const val MAX_OWNER_COUNT = 64
+  }
+}
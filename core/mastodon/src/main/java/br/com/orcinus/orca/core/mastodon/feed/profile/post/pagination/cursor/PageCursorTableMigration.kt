@@ -0,0 +1,30 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+
+/** [Migration] that creates the table in which [PageCursor]s are persisted. */
+internal object PageCursorTableMigration : Migration(startVersion = 2, endVersion = 3) {
+  override fun migrate(db: SupportSQLiteDatabase) {
+    db.execSQL(
+      "CREATE TABLE IF NOT EXISTS `page_cursors` (`owner` TEXT NOT NULL, `page` INTEGER NOT " +
+        "NULL, `route` TEXT NOT NULL, `lastAccess` INTEGER NOT NULL, PRIMARY KEY(`owner`, " +
+        "`page`))"
+    )
+  }
+}
@@ -16,6 +16,8 @@
 package br.com.orcinus.orca.core.mastodon.feed.profile.post.stat.comment
 
 import android.content.Context
+import br.com.orcinus.orca.core.auth.AuthenticationLock
+import br.com.orcinus.orca.core.auth.SomeAuthenticationLock
 import br.com.orcinus.orca.core.auth.actor.Actor
 import br.com.orcinus.orca.core.auth.actor.ActorProvider
 import br.com.orcinus.orca.core.feed.profile.Profile
@@ -30,6 +32,7 @@ import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
 import br.com.orcinus.orca.std.image.ImageLoader
 import br.com.orcinus.orca.std.image.SomeImageLoaderProvider
 import java.net.URI
+import kotlinx.coroutines.CoroutineScope
 
 /**
  * [MastodonPostPaginator] for paginating through the comments of a [Post].
@@ -40,6 +43,9 @@ import java.net.URI
  * @property profilePostPaginatorProvider Paginates through the [Post]s of converted [Profile]s.
  * @property imageLoaderProvider [ImageLoader.Provider] that provides the [ImageLoader] by which
  *   images will be loaded from a [URI].
+ * @param authenticationLock [AuthenticationLock] that authenticates the HTTP requests performed
+ *   when paginating.
+ * @param coroutineScope [CoroutineScope] in which the [Post]s emitted upon pagination are shared.
  * @property id ID of the original [Post].
  * @see Post.comment
  * @see Post.id
@@ -52,8 +58,12 @@ internal class MastodonCommentPaginator(
   private val actorProvider: ActorProvider,
   private val profilePostPaginatorProvider: MastodonProfilePostPaginator.Provider,
   private val imageLoaderProvider: SomeImageLoaderProvider<URI>,
+  authenticationLock: SomeAuthenticationLock,
+  coroutineScope: CoroutineScope,
   private val id: String
-) : MastodonPostPaginator<MastodonContext>(), KTypeCreator<MastodonContext> by kTypeCreatorOf() {
+) :
+  MastodonPostPaginator<MastodonContext>(authenticationLock, coroutineScope),
+  KTypeCreator<MastodonContext> by kTypeCreatorOf() {
   /** Provides a [MastodonProfilePostPaginator] through [provide]. */
   fun interface Provider {
     /**
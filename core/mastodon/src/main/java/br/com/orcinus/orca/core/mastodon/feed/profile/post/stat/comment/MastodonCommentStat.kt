@@ -29,7 +29,9 @@ import br.com.orcinus.orca.core.mastodon.instance.requester.authentication.authe
  *
  * @param count Initial amount of [Profile]s by which the [MastodonPost] has been favorited.
  * @property paginatorProvider Provides the [MastodonCommentPaginator] by which pagination is
- *   performed when the comments are requested to be obtained.
+ *   performed when the comments are requested to be obtained. It is provided upon each request
+ *   rather than held onto, so that none is created for [MastodonPost]s whose comments are never
+ *   obtained and its lifecycle is dictated by the provider.
  * @property requester [Requester] by which the network calls are made.
  * @property id ID of the [MastodonPost].
  * @see MastodonPost.id
@@ -40,10 +42,7 @@ internal class MastodonCommentStat(
   private val id: String,
   count: Int
 ) : AddableStat<Post>(count) {
-  /** [MastodonCommentPaginator] for the specified [Post]. */
-  private val paginator = paginatorProvider.provide(id)
-
-  override fun get(page: Int) = paginator.paginateTo(page).getValueOrThrow()
+  override fun get(page: Int) = paginatorProvider.provide(id).paginateTo(page).getValueOrThrow()
 
   override suspend fun onAddition(element: Post) {
     requester.authenticated().post({ path("api").path("v1").path("statuses").build() }) {
@@ -65,7 +65,7 @@ import kotlinx.serialization.Serializable
  */
 @Serializable
 internal data class MastodonStatus(
-  private val id: String,
+  val id: String,
   private val createdAt: String,
   private val account: MastodonAccount,
   private val reblogsCount: Int,
@@ -18,6 +18,7 @@ package br.com.orcinus.orca.core.mastodon.feed.profile.type.editable
 import br.com.orcinus.orca.core.feed.profile.type.editable.Editor
 import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
 import br.com.orcinus.orca.core.mastodon.instance.requester.authentication.authenticated
+import br.com.orcinus.orca.core.mastodon.instance.requester.upload.MediaUploader
 import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
 import br.com.orcinus.orca.std.image.SomeImageLoader
 import br.com.orcinus.orca.std.markdown.Markdown
@@ -29,6 +30,7 @@ import io.ktor.utils.io.streams.asInput
 import java.net.URI
 import java.nio.file.Path
 import kotlin.io.path.name
+import kotlinx.coroutines.flow.collect
 
 /**
  * [Editor] whose actions communicate with the Mastodon API.
@@ -50,7 +52,7 @@ internal class MastodonEditor(private val requester: Requester<*>) : Editor {
     val contentDisposition = "form-data; name=\"avatar\" filename=\"${file.name}\""
     val headers = Headers.build { append(HttpHeaders.ContentDisposition, contentDisposition) }
     val form = formData { append("avatar", inputProvider, headers) }
-    requester.authenticated().post(editRoute, form)
+    MediaUploader(requester.authenticated()).upload(editRoute, form).collect()
   }
 
   override suspend fun setName(name: String) {
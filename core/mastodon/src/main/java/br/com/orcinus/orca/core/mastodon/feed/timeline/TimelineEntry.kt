@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.timeline
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import br.com.orcinus.orca.core.auth.actor.Actor
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.status.MastodonStatus
+import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
+
+/**
+ * [MastodonStatus] of the home timeline of an [Actor] that has been persisted, by which the
+ * timeline can be displayed before it is requested to the API.
+ *
+ * The [MastodonStatus] is stored whole rather than only its ID because, otherwise, converting it
+ * into a post would require that its author be fetched.
+ *
+ * @property owner ID of the [authenticated][Actor.Authenticated] [Actor] whose timeline this entry
+ *   is in.
+ * @property statusID ID of the [MastodonStatus].
+ * @property sortKey [statusID] left-padded with zeroes, by which entries are ordered. Mastodon IDs
+ *   are numeric [String]s of variable length, which would not be ordered chronologically if they
+ *   were compared lexicographically as they are.
+ * @property status JSON representation of the [MastodonStatus].
+ * @property isFollowedByGap Whether the [MastodonStatus] that is older than this one in the
+ *   timeline might not have been persisted, which is the case when the pages in which each of them
+ *   was received were not contiguous.
+ */
+@Entity(tableName = "timeline_entries", primaryKeys = ["owner", "status_id"])
+internal data class TimelineEntry(
+  val owner: String,
+  @ColumnInfo(name = "status_id") val statusID: String,
+  @ColumnInfo(name = "sort_key") val sortKey: String,
+  val status: String,
+  @ColumnInfo(name = "is_followed_by_gap") val isFollowedByGap: Boolean
+) {
+  /** Decodes the [status]. */
+  fun toStatus(): MastodonStatus {
+    return Requester.normalizedJson.decodeFromString(MastodonStatus.serializer(), status)
+  }
+
+  companion object {
+    /** Length of the [sortKey]s, which is that of the greatest unsigned 64-bit integer. */
+    private const val SORT_KEY_LENGTH = 20
+
+    /**
+     * Creates a [TimelineEntry] for the [status].
+     *
+     * @param owner ID of the [authenticated][Actor.Authenticated] [Actor] whose timeline the
+     *   [status] is in.
+     * @param status [MastodonStatus] to be persisted.
+     * @param isFollowedByGap Whether the [MastodonStatus] that is older than the [status] in the
+     *   timeline might not have been persisted.
+     */
+    fun of(owner: String, status: MastodonStatus, isFollowedByGap: Boolean): TimelineEntry {
+      val encodedStatus =
+        Requester.normalizedJson.encodeToString(MastodonStatus.serializer(), status)
+      return TimelineEntry(owner, status.id, sortKeyOf(status.id), encodedStatus, isFollowedByGap)
+    }
+
+    /**
+     * Obtains the key by which the [MastodonStatus] identified by the given ID is ordered.
+     *
+     * @param statusID ID of the [MastodonStatus].
+     */
+    fun sortKeyOf(statusID: String): String {
+      return statusID.padStart(SORT_KEY_LENGTH, '0')
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.timeline
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import androidx.room.Transaction
+import br.com.orcinus.orca.core.auth.actor.Actor
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.status.MastodonStatus
+
+/** DAO by which [TimelineEntry]-related read and write operations are performed. */
+@Dao
+internal abstract class TimelineEntryDao {
+  /**
+   * Selects the newest [TimelineEntry]s of a timeline, ordered from the newest to the oldest one.
+   *
+   * @param owner ID of the [authenticated][Actor.Authenticated] [Actor] whose timeline it is.
+   * @param count Maximum amount of [TimelineEntry]s to be selected.
+   */
+  @Query(
+    "SELECT * FROM timeline_entries WHERE owner = :owner ORDER BY sort_key DESC LIMIT :count"
+  )
+  abstract suspend fun selectNewest(owner: String, count: Int): List<TimelineEntry>
+
+  /**
+   * Selects the [TimelineEntry] of a [MastodonStatus].
+   *
+   * @param owner ID of the [authenticated][Actor.Authenticated] [Actor] whose timeline it is.
+   * @param statusID ID of the [MastodonStatus].
+   */
+  @Query("SELECT * FROM timeline_entries WHERE owner = :owner AND status_id = :statusID")
+  abstract suspend fun select(owner: String, statusID: String): TimelineEntry?
+
+  /**
+   * Selects the newest [TimelineEntry] that is older than the given one.
+   *
+   * @param owner ID of the [authenticated][Actor.Authenticated] [Actor] whose timeline it is.
+   * @param sortKey [TimelineEntry.sortKey] below which [TimelineEntry]s are selected.
+   */
+  @Query(
+    "SELECT * FROM timeline_entries WHERE owner = :owner AND sort_key < :sortKey ORDER BY " +
+      "sort_key DESC LIMIT 1"
+  )
+  abstract suspend fun selectNextOlder(owner: String, sortKey: String): TimelineEntry?
+
+  /**
+   * Inserts the [entries], replacing those of the same [MastodonStatus]es.
+   *
+   * @param entries [TimelineEntry]s to be inserted.
+   */
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  abstract suspend fun insertAll(entries: List<TimelineEntry>)
+
+  /**
+   * Marks the [TimelineEntry] of a [MastodonStatus] as not being followed by a gap.
+   *
+   * @param owner ID of the [authenticated][Actor.Authenticated] [Actor] whose timeline it is.
+   * @param statusID ID of the [MastodonStatus].
+   */
+  @Query(
+    "UPDATE timeline_entries SET is_followed_by_gap = 0 WHERE owner = :owner AND status_id = " +
+      ":statusID"
+  )
+  abstract suspend fun closeGap(owner: String, statusID: String)
+
+  /**
+   * Deletes the [TimelineEntry]s whose [sort keys][TimelineEntry.sortKey] are within the given
+   * range.
+   *
+   * @param owner ID of the [authenticated][Actor.Authenticated] [Actor] whose timeline it is.
+   * @param oldestSortKey Lower bound of the range (inclusive).
+   * @param newestSortKey Upper bound of the range (inclusive).
+   */
+  @Query(
+    "DELETE FROM timeline_entries WHERE owner = :owner AND sort_key BETWEEN :oldestSortKey AND " +
+      ":newestSortKey"
+  )
+  abstract suspend fun deleteBetween(owner: String, oldestSortKey: String, newestSortKey: String)
+
+  /**
+   * Deletes the [TimelineEntry]s of a timeline that are older than the newest ones.
+   *
+   * @param owner ID of the [authenticated][Actor.Authenticated] [Actor] whose timeline it is.
+   * @param count Amount of the newest [TimelineEntry]s to be kept.
+   */
+  @Query(
+    "DELETE FROM timeline_entries WHERE owner = :owner AND sort_key NOT IN (SELECT sort_key " +
+      "FROM timeline_entries WHERE owner = :owner ORDER BY sort_key DESC LIMIT :count)"
+  )
+  abstract suspend fun trim(owner: String, count: Int)
+
+  /**
+   * Selects the newest [TimelineEntry]s of a timeline up to the first one that is followed by a
+   * gap (inclusive), which are those known to be contiguous.
+   *
+   * @param owner ID of the [authenticated][Actor.Authenticated] [Actor] whose timeline it is.
+   * @param count Maximum amount of [TimelineEntry]s to be selected.
+   */
+  open suspend fun selectWindow(owner: String, count: Int): List<TimelineEntry> {
+    val entries = selectNewest(owner, count)
+    val gapIndex = entries.indexOfFirst(TimelineEntry::isFollowedByGap)
+    return if (gapIndex == -1) entries else entries.subList(0, gapIndex + 1)
+  }
+
+  /**
+   * Merges a page of [MastodonStatus]es received from the API into the timeline.
+   *
+   * [TimelineEntry]s previously inserted within the range of the page are replaced by those of the
+   * [statuses], which removes the ones of [MastodonStatus]es that have since been deleted. The
+   * oldest of the [statuses] keeps its gap marker if it had been inserted before; otherwise, it is
+   * marked as followed by a gap if an older [TimelineEntry] exists, since the page that links to it
+   * has not been received yet.
+   *
+   * @param owner ID of the [authenticated][Actor.Authenticated] [Actor] whose timeline it is.
+   * @param statuses [MastodonStatus]es of the page, ordered from the newest to the oldest one.
+   * @param precedingStatusID ID of the oldest [MastodonStatus] of the page that links to this one,
+   *   whose gap is closed by it; or `null` if this is the first page or that one is unknown.
+   * @param maxCount Maximum amount of [TimelineEntry]s to be kept in the timeline.
+   */
+  @Transaction
+  open suspend fun merge(
+    owner: String,
+    statuses: List<MastodonStatus>,
+    precedingStatusID: String?,
+    maxCount: Int
+  ) {
+    precedingStatusID?.let { closeGap(owner, it) }
+    if (statuses.isEmpty()) {
+      return
+    }
+    val oldestStatusID = statuses.last().id
+    val oldestSortKey = TimelineEntry.sortKeyOf(oldestStatusID)
+    val newestSortKey = TimelineEntry.sortKeyOf(statuses.first().id)
+    val isOldestFollowedByGap =
+      select(owner, oldestStatusID)?.isFollowedByGap
+        ?: (selectNextOlder(owner, oldestSortKey) != null)
+    deleteBetween(owner, oldestSortKey, newestSortKey)
+    insertAll(
+      statuses.mapIndexed { index, status ->
+        TimelineEntry.of(owner, status, isOldestFollowedByGap && index == statuses.lastIndex)
+      }
+    )
+    trim(owner, maxCount)
+  }
+}
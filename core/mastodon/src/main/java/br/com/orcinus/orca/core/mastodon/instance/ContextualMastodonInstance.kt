@@ -37,16 +37,19 @@ import br.com.orcinus.orca.core.mastodon.feed.profile.post.MastodonPost
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.MastodonPostProvider
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.cache.MastodonPostFetcher
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.cache.storage.MastodonPostStorage
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.MastodonPostPaginatorPool
 import br.com.orcinus.orca.core.mastodon.feed.profile.post.stat.comment.MastodonCommentPaginator
 import br.com.orcinus.orca.core.mastodon.feed.profile.search.MastodonProfileSearcher
 import br.com.orcinus.orca.core.mastodon.feed.profile.search.cache.MastodonProfileSearchResultsFetcher
 import br.com.orcinus.orca.core.mastodon.feed.profile.search.cache.storage.MastodonProfileSearchResultsStorage
 import br.com.orcinus.orca.platform.cache.Cache
+import br.com.orcinus.orca.platform.cache.EvictionPolicy
 import br.com.orcinus.orca.platform.cache.Fetcher
 import br.com.orcinus.orca.std.image.ImageLoader
 import br.com.orcinus.orca.std.image.SomeImageLoaderProvider
 import br.com.orcinus.orca.std.injector.Injector
 import java.net.URI
+import kotlinx.coroutines.CoroutineScope
 
 /**
  * [MastodonInstance] that authorizes the user and caches all fetched structures through the given
@@ -56,6 +59,8 @@ import java.net.URI
  * @param actorProvider [ActorProvider] that will provide [Actor]s to the [authenticator], the
  *   [authenticationLock] and the [feedProvider].
  * @param termMuter [TermMuter] by which [Post]s with muted terms will be filtered out.
+ * @param coroutineScope [CoroutineScope] by which the paginators are owned; once it is cancelled,
+ *   so are all of them.
  * @property domain Unique identifier of the server.
  * @property authorizer [MastodonAuthorizer] by which the user will be authorized.
  * @property imageLoaderProvider [ImageLoader.Provider] that provides the [ImageLoader] by which
@@ -69,43 +74,62 @@ internal class ContextualMastodonInstance(
   actorProvider: ActorProvider,
   override val authenticationLock: MastodonAuthenticationLock,
   termMuter: TermMuter,
-  internal val imageLoaderProvider: SomeImageLoaderProvider<URI>
+  internal val imageLoaderProvider: SomeImageLoaderProvider<URI>,
+  coroutineScope: CoroutineScope
 ) : MastodonInstance<MastodonAuthorizer, MastodonAuthenticator>(domain, authorizer) {
   /** [MastodonDatabase] in which cached structures will be persisted. */
   private val database = MastodonDatabase.getInstance(context)
 
   /**
-   * [MastodonProfilePostPaginator.Provider] that provides the [MastodonProfilePostPaginator] to be
-   * used by [profileFetcher], [profileStorage] and [profileSearchResultsFetcher].
+   * [MastodonPostPaginatorPool] by which the [MastodonProfilePostPaginator]s provided by the
+   * [profilePostPaginatorProvider] are created lazily and kept alive.
    */
-  private val profilePostPaginatorProvider: MastodonProfilePostPaginator.Provider =
-    MastodonProfilePostPaginator.Provider {
+  private val profilePostPaginatorPool =
+    MastodonPostPaginatorPool(coroutineScope) { id, paginatorScope ->
       MastodonProfilePostPaginator(
         context,
         requester = Injector.get(),
         actorProvider,
-        commentPaginatorProvider::provide,
+        commentPaginatorProvider,
         imageLoaderProvider,
-        it
+        authenticationLock,
+        paginatorScope,
+        id
       )
     }
 
   /**
-   * [MastodonCommentPaginator.Provider] that provides the [MastodonProfilePostPaginator] to be used
-   * by [postFetcher], [feedPostPaginator], [profilePostPaginatorProvider] and [postStorage].
+   * [MastodonPostPaginatorPool] by which the [MastodonCommentPaginator]s provided by the
+   * [commentPaginatorProvider] are created lazily and kept alive.
    */
-  private val commentPaginatorProvider =
-    MastodonCommentPaginator.Provider {
+  private val commentPaginatorPool =
+    MastodonPostPaginatorPool(coroutineScope) { id, paginatorScope ->
       MastodonCommentPaginator(
         context,
         requester = Injector.get(),
         actorProvider,
         profilePostPaginatorProvider,
         imageLoaderProvider,
-        it
+        authenticationLock,
+        paginatorScope,
+        id
       )
     }
 
+  /**
+   * [MastodonProfilePostPaginator.Provider] that provides the [MastodonProfilePostPaginator] to be
+   * used by [profileFetcher], [profileStorage] and [profileSearchResultsFetcher].
+   */
+  private val profilePostPaginatorProvider =
+    MastodonProfilePostPaginator.Provider(profilePostPaginatorPool::obtain)
+
+  /**
+   * [MastodonCommentPaginator.Provider] that provides the [MastodonProfilePostPaginator] to be used
+   * by [postFetcher], [feedPostPaginator], [profilePostPaginatorProvider] and [postStorage].
+   */
+  private val commentPaginatorProvider =
+    MastodonCommentPaginator.Provider(commentPaginatorPool::obtain)
+
   /** [MastodonPostFetcher] by which [Post]s will be fetched from the API. */
   private val postFetcher =
     MastodonPostFetcher(
@@ -128,7 +152,10 @@ internal class ContextualMastodonInstance(
       actorProvider,
       profilePostPaginatorProvider,
       commentPaginatorProvider,
-      imageLoaderProvider
+      imageLoaderProvider,
+      database.timelineEntryDao,
+      authenticationLock,
+      coroutineScope
     )
 
   /** [MastodonProfileFetcher] by which [MastodonProfile]s will be fetched from the API. */
@@ -151,7 +178,13 @@ internal class ContextualMastodonInstance(
 
   /** [Cache] that decides how to obtain [MastodonProfile]s. */
   private val profileCache =
-    Cache.of(context, name = "profile-cache", profileFetcher, profileStorage)
+    Cache.of(
+      context,
+      name = "profile-cache",
+      profileFetcher,
+      profileStorage,
+      evictionPolicy = EvictionPolicy(maxEntryCount = MAX_STORED_PROFILE_COUNT)
+    )
 
   /**
    * [MastodonProfileSearchResultsFetcher] by which [ProfileSearchResult]s will be fetched from the
@@ -175,7 +208,8 @@ internal class ContextualMastodonInstance(
       context,
       name = "profile-search-results-cache",
       profileSearchResultsFetcher,
-      profileSearchResultsStorage
+      profileSearchResultsStorage,
+      evictionPolicy = EvictionPolicy(maxEntryCount = MAX_STORED_PROFILE_SEARCH_RESULT_COUNT)
     )
 
   /** [MastodonPostStorage] that will store fetched [MastodonPost]s. */
@@ -185,6 +219,7 @@ internal class ContextualMastodonInstance(
       requester = Injector.get(),
       profileCache,
       profilePostPaginatorProvider,
+      database,
       database.postEntityDao,
       database.styleEntityDao,
       actorProvider,
@@ -193,10 +228,28 @@ internal class ContextualMastodonInstance(
     )
 
   /** [Cache] that decides how to obtain [MastodonPost]s. */
-  private val postCache = Cache.of(context, name = "post-cache", postFetcher, postStorage)
+  private val postCache =
+    Cache.of(
+      context,
+      name = "post-cache",
+      postFetcher,
+      postStorage,
+      evictionPolicy = EvictionPolicy(maxEntryCount = MAX_STORED_POST_COUNT)
+    )
 
   override val feedProvider = MastodonFeedProvider(actorProvider, termMuter, feedPostPaginator)
   override val profileProvider = MastodonProfileProvider(profileCache, context)
   override val profileSearcher = MastodonProfileSearcher(profileSearchResultsCache)
   override val postProvider = MastodonPostProvider(postCache)
+
+  companion object {
+    /** Maximum amount of [MastodonProfile]s that are kept stored. */
+    private const val MAX_STORED_PROFILE_COUNT = 1_024
+
+    /** Maximum amount of queries whose [ProfileSearchResult]s are kept stored. */
+    private const val MAX_STORED_PROFILE_SEARCH_RESULT_COUNT = 64
+
+    /** Maximum amount of [MastodonPost]s that are kept stored. */
+    private const val MAX_STORED_POST_COUNT = 2_048
+  }
 }
@@ -30,6 +30,7 @@ import br.com.orcinus.orca.core.mastodon.auth.authorization.viewmodel.MastodonAu
 import br.com.orcinus.orca.std.image.ImageLoader
 import br.com.orcinus.orca.std.image.SomeImageLoaderProvider
 import java.net.URI
+import kotlinx.coroutines.CoroutineScope
 
 /**
  * [InstanceProvider] that provides a [ContextualMastodonInstance].
@@ -44,6 +45,8 @@ import java.net.URI
  * @param termMuter [TermMuter] by which [Post]s with muted terms will be filtered out.
  * @param imageLoaderProvider [ImageLoader.Provider] that provides the [ImageLoader] by which image
  *   will be loaded.
+ * @param coroutineScope [CoroutineScope] by which the paginators of the
+ *   [ContextualMastodonInstance] are owned.
  */
 class MastodonInstanceProvider(
   private val context: Context,
@@ -52,7 +55,8 @@ class MastodonInstanceProvider(
   private val actorProvider: ActorProvider,
   private val authenticationLock: MastodonAuthenticationLock,
   private val termMuter: TermMuter,
-  private val imageLoaderProvider: SomeImageLoaderProvider<URI>
+  private val imageLoaderProvider: SomeImageLoaderProvider<URI>,
+  private val coroutineScope: CoroutineScope
 ) : InstanceProvider {
   /** [MastodonInstance] to be provided. */
   private val instance by lazy {
@@ -64,7 +68,8 @@ class MastodonInstanceProvider(
       actorProvider,
       authenticationLock,
       termMuter,
-      imageLoaderProvider
+      imageLoaderProvider,
+      coroutineScope
     )
   }
 
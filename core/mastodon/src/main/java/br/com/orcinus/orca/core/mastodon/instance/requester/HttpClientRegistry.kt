@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.authentication.authenticated
+import br.com.orcinus.orca.core.mastodon.instance.requester.cache.ResponseCache
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.MetricsRecorder
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.MetricsSink
+import br.com.orcinus.orca.core.mastodon.instance.requester.resilience.CircuitBreaker
+import br.com.orcinus.orca.core.mastodon.instance.requester.resilience.RetryPolicy
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.resumable
+import br.com.orcinus.orca.core.mastodon.instance.requester.scheduling.RateLimiter
+import br.com.orcinus.orca.core.mastodon.instance.requester.scheduling.RequestScheduler
+import io.ktor.client.HttpClient
+import io.ktor.client.HttpClientConfig
+import io.ktor.client.engine.HttpClientEngine
+import io.ktor.client.engine.HttpClientEngineFactory
+import io.ktor.client.engine.cio.CIO
+import io.ktor.client.engine.cio.CIOEngineConfig
+import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Process-wide registry of [HttpClient]s, by which [Requester]s that send requests to the same
+ * origin share a single [HttpClient] (and, thus, a single [HttpClientEngine] and its pool of
+ * kept-alive connections) instead of each creating their own.
+ *
+ * Because [Requester]s decorated by [authenticated] or [resumable] are created with the same
+ * origin, [Logger], [HttpClientEngineFactory] and [ResponseCache] as those they decorate, they
+ * obtain the same [HttpClient] as the latter, layering their behavior on top of it. [Requester]s
+ * with distinct [ResponseCache]s (or with none) never share an [HttpClient], since the cache is
+ * installed into it.
+ *
+ * Each created [HttpClient] has its own [CircuitBreaker] installed, by which requests fail fast
+ * while the instance is unhealthy and idempotent ones are retried according to a [RetryPolicy];
+ * and, beneath it, its own [RequestScheduler] and [RateLimiter], by which the amount of requests
+ * in flight to its origin (from the moment each is sent until its response body has been received)
+ * is capped and the rate at which they're sent is kept within the budget advertised by the
+ * instance. A [MetricsRecorder] is installed beneath all of them, measuring the
+ * requests that reach the network.
+ */
+@InternalRequesterApi
+internal object HttpClientRegistry {
+  /** Maximum amount of time during which an idle connection is kept alive by a CIO engine. */
+  private const val KEEP_ALIVE_TIME_IN_MILLISECONDS = 60_000L
+
+  /** Maximum amount of concurrent connections to a single origin opened by a CIO engine. */
+  private const val MAX_CONNECTIONS_PER_ROUTE = 8
+
+  /** [HttpClient]s that have been created, associated to the [Key]s by which they're shared. */
+  private val clients = ConcurrentHashMap<Key, HttpClient>()
+
+  /** Amount of [HttpClient]s that have been created. */
+  val size
+    get() = clients.size
+
+  /**
+   * Identifies an [HttpClient] that can be shared.
+   *
+   * @property origin Scheme and authority of the [URI]s to which requests are sent.
+   * @property logger [Logger] by which received responses are logged.
+   * @property clientEngineFactory [HttpClientEngineFactory] that creates the [HttpClientEngine]
+   *   powering the [HttpClient].
+   * @property responseCache [ResponseCache] by which responses are cached on the disk.
+   * @property metricsSink [MetricsSink] into which measurements of requests are recorded.
+   */
+  private data class Key(
+    val origin: URI,
+    val logger: Logger,
+    val clientEngineFactory: HttpClientEngineFactory<*>,
+    val responseCache: ResponseCache?,
+    val metricsSink: MetricsSink
+  )
+
+  /**
+   * Obtains the [HttpClient] associated to the origin of the [baseURI], the [logger], the
+   * [clientEngineFactory], the [responseCache] and the [metricsSink], creating it in case it hasn't
+   * been created yet.
+   *
+   * @param baseURI [URI] from which routes are constructed.
+   * @param logger [Logger] by which received responses are logged.
+   * @param clientEngineFactory [HttpClientEngineFactory] that creates the [HttpClientEngine]
+   *   powering the [HttpClient].
+   * @param responseCache [ResponseCache] by which responses are cached on the disk, or `null` if
+   *   they shouldn't be.
+   * @param metricsSink [MetricsSink] into which measurements of requests are recorded.
+   * @param configure Configures the [HttpClient] when it's created.
+   */
+  fun obtain(
+    baseURI: URI,
+    logger: Logger,
+    clientEngineFactory: HttpClientEngineFactory<*>,
+    responseCache: ResponseCache?,
+    metricsSink: MetricsSink,
+    configure: HttpClientConfig<*>.() -> Unit
+  ): HttpClient {
+    val origin = URI(baseURI.scheme, baseURI.authority, null, null, null)
+    val key = Key(origin, logger, clientEngineFactory, responseCache, metricsSink)
+    return clients.computeIfAbsent(key) {
+      create(clientEngineFactory, metricsSink) {
+        responseCache?.install(this)
+        configure()
+      }
+    }
+  }
+
+  /**
+   * Creates an [HttpClient] into which a [CircuitBreaker], a [RequestScheduler], a [RateLimiter]
+   * and a [MetricsRecorder] are installed, each wrapped by the previous ones: each attempt of a
+   * retried request is scheduled and limited on its own, and only the time spent on the network is
+   * measured as such. In case the [clientEngineFactory] is [CIO], its engine is configured to keep
+   * connections alive for longer than it does by default, allowing for them (and their TLS
+   * sessions) to be reused across bursts of requests.
+   *
+   * @param clientEngineFactory [HttpClientEngineFactory] that creates the [HttpClientEngine]
+   *   powering the [HttpClient].
+   * @param metricsSink [MetricsSink] into which measurements of requests are recorded.
+   * @param configure Configures the [HttpClient].
+   */
+  private fun create(
+    clientEngineFactory: HttpClientEngineFactory<*>,
+    metricsSink: MetricsSink,
+    configure: HttpClientConfig<*>.() -> Unit
+  ): HttpClient {
+    return if (clientEngineFactory === CIO) {
+      HttpClient(CIO) {
+        engine { keepConnectionsAlive() }
+        CircuitBreaker().install(this, RetryPolicy())
+        RequestScheduler().install(this, RateLimiter())
+        MetricsRecorder(metricsSink).install(this)
+        configure()
+      }
+    } else {
+      HttpClient(clientEngineFactory) {
+        CircuitBreaker().install(this, RetryPolicy())
+        RequestScheduler().install(this, RateLimiter())
+        MetricsRecorder(metricsSink).install(this)
+        configure()
+      }
+    }
+  }
+
+  /** Configures the pool of connections of a CIO engine to keep them alive for reuse. */
+  private fun CIOEngineConfig.keepConnectionsAlive() {
+    endpoint {
+      keepAliveTime = KEEP_ALIVE_TIME_IN_MILLISECONDS
+      maxConnectionsPerRoute = MAX_CONNECTIONS_PER_ROUTE
+    }
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester
+
+import io.ktor.client.statement.HttpResponse
+import io.ktor.client.statement.bodyAsChannel
+import io.ktor.http.contentLength
+
+/**
+ * Counts the bytes of the body of this [HttpResponse], which is expected to have been saved. The
+ * `Content-Length` is taken as the count when it has been declared; otherwise, the saved body is
+ * read and discarded as it is counted, without being copied into an array.
+ */
+@InternalRequesterApi
+internal suspend fun HttpResponse.countBodyBytes(): Long {
+  return contentLength() ?: bodyAsChannel().discard(max = Long.MAX_VALUE)
+}
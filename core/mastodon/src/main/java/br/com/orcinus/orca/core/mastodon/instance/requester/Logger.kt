@@ -16,24 +16,41 @@
 package br.com.orcinus.orca.core.mastodon.instance.requester
 
 import android.util.Log
+import br.com.orcinus.orca.core.mastodon.BuildConfig
 import io.ktor.client.HttpClient
 import io.ktor.client.HttpClientConfig
+import io.ktor.client.call.HttpClientCall
 import io.ktor.client.plugins.HttpResponseValidator
 import io.ktor.client.plugins.observer.ResponseObserver
 import io.ktor.client.request.HttpRequest
-import io.ktor.client.request.forms.FormDataContent
 import io.ktor.client.statement.HttpResponse
-import io.ktor.client.statement.bodyAsText
+import io.ktor.client.statement.bodyAsChannel
 import io.ktor.client.statement.request
 import io.ktor.http.isSuccess
+import io.ktor.utils.io.core.readBytes
+import io.ktor.utils.io.readRemaining
+import kotlin.random.Random
 
 /** Logs messages with different severity levels. */
 abstract class Logger @InternalRequesterApi internal constructor() {
-  /** [Logger] that forwards logs to the Android [Log]. */
+  /**
+   * [Policy] that determines what is logged about each [HttpResponse]. Can be changed at any time,
+   * affecting the responses received from then on.
+   */
+  @Volatile var policy = Policy.default
+
+  /**
+   * [Logger] that forwards logs to the Android [Log]. Responses are logged verbosely in debug
+   * builds, while nothing is logged in release ones.
+   */
   object Android : Logger() {
     /** Tag by which sent logs will be tagged. */
     const val TAG = "Requester"
 
+    init {
+      policy = if (BuildConfig.DEBUG) Policy.verbose else Policy.off
+    }
+
     override fun info(info: String) {
       Log.i(TAG, info)
     }
@@ -43,20 +60,105 @@ abstract class Logger @InternalRequesterApi internal constructor() {
     }
   }
 
+  /** Amount of information that is logged about each [HttpResponse]. */
+  enum class Level {
+    /** Denotes that nothing is logged. */
+    OFF,
+
+    /**
+     * Denotes that only the status, the method, the URL and the headers are logged, without the
+     * body ever being read.
+     */
+    HEADERS,
+
+    /**
+     * Denotes that, in addition to what is logged at the [HEADERS] level, the bodies of sampled
+     * responses are read and logged.
+     */
+    BODIES
+  }
+
   /**
-   * Observes and logs each [HttpResponse] sent to the [HttpClient].
+   * Determines what is logged about each [HttpResponse].
+   *
+   * @property level [Level] of the information to be logged.
+   * @property maxBodyByteCount Maximum amount of bytes of a body to be logged, after which it is
+   *   truncated.
+   * @property bodySamplingRate Probability, from 0 to 1, of the body of a response being logged
+   *   when the [level] is [Level.BODIES] and its route is not in [routeBodySamplingRates].
+   * @property routeBodySamplingRates Probabilities, from 0 to 1, of the bodies of responses being
+   *   logged when the [level] is [Level.BODIES], associated to the prefixes of the paths of the
+   *   routes to which they apply. The longest matching prefix prevails.
+   * @throws IllegalArgumentException If the [maxBodyByteCount] is negative or any of the rates is
+   *   not within 0 and 1.
+   */
+  class Policy(
+    val level: Level,
+    val maxBodyByteCount: Long = DEFAULT_MAX_BODY_BYTE_COUNT,
+    val bodySamplingRate: Double = 1.0,
+    val routeBodySamplingRates: Map<String, Double> = emptyMap()
+  ) {
+    init {
+      require(maxBodyByteCount >= 0) { "Maximum body byte count cannot be negative." }
+      require(
+        bodySamplingRate in 0.0..1.0 && routeBodySamplingRates.values.all { it in 0.0..1.0 }
+      ) {
+        "Sampling rates should be within 0 and 1."
+      }
+    }
+
+    /**
+     * Returns whether the body of a response to a request sent to the route whose path is the
+     * given one should be logged.
+     *
+     * @param path Path of the route to which the request was sent.
+     */
+    internal fun samplesBodyOf(path: String): Boolean {
+      if (level != Level.BODIES) {
+        return false
+      }
+      val rate =
+        routeBodySamplingRates.entries
+          .filter { (prefix, _) -> path.startsWith(prefix) }
+          .maxByOrNull { (prefix, _) -> prefix.length }
+          ?.value ?: bodySamplingRate
+      return rate >= 1.0 || (rate > 0.0 && Random.nextDouble() < rate)
+    }
+
+    companion object {
+      /** Default maximum amount of bytes of a body to be logged. */
+      const val DEFAULT_MAX_BODY_BYTE_COUNT = 4_096L
+
+      /** [Policy] by which nothing is logged. */
+      val off = Policy(Level.OFF)
+
+      /** [Policy] by which only metadata of responses is logged, with their bodies never read. */
+      val default = Policy(Level.HEADERS)
+
+      /** [Policy] by which responses are logged in their entirety, including their bodies. */
+      val verbose = Policy(Level.BODIES, maxBodyByteCount = Long.MAX_VALUE)
+    }
+  }
+
+  /**
+   * Observes and logs each [HttpResponse] sent to the [HttpClient] according to the [policy].
+   * Messages are only built for responses that are actually logged, and bodies are only read when
+   * they are sampled.
    *
    * @param clientConfig [HttpClientConfig] whose [HttpResponse]s will be logged.
    */
   @InternalRequesterApi
   internal fun start(clientConfig: HttpClientConfig<*>) {
-    clientConfig.ResponseObserver {
-      val message = it.format()
-      val logging = if (it.status.isSuccess()) ::info else ::error
-      logging(message)
+    clientConfig.install(ResponseObserver) {
+      onResponse { response -> log(response.status.isSuccess()) { response.format() } }
+      filter(::filter)
     }
     clientConfig.HttpResponseValidator {
-      handleResponseExceptionWithRequest { cause, _ -> cause.message?.let(::error) }
+      handleResponseExceptionWithRequest { cause, _ ->
+        if (policy.level != Level.OFF) {
+          cause.message?.let(::error)
+        }
+      }
     }
   }
 
@@ -77,18 +179,66 @@ abstract class Logger @InternalRequesterApi internal constructor() {
   /**
    * Converts this [HttpResponse] into a formatted [String] which contains relevant information
    * regarding both the [HttpRequest] that originated this [HttpResponse] and this [HttpResponse]
-   * itself.
+   * itself, including at most [Policy.maxBodyByteCount] bytes of its body.
    */
   @InternalRequesterApi
   internal suspend fun HttpResponse.format(): String {
-    val requestContent = request.content
-    val requestFormDataParamsAsString =
-      if (requestContent is FormDataContent) " (${requestContent.formData})" else ""
-    return """
-      ${status.value} on ${request.method.value} ${request.url} $requestFormDataParamsAsString
-      $headers
-      ${bodyAsText()}
-    """
-      .trimIndent()
+    return "${formatMetadata()}\n${formatBody()}"
+  }
+
+  /**
+   * Decides whether the body of the response of the [call] should be observed. Responses whose
+   * bodies are not sampled have only their metadata logged (unless the [Level] is [Level.OFF]),
+   * without their bodies being read.
+   *
+   * @param call [HttpClientCall] whose response has been received.
+   */
+  private fun filter(call: HttpClientCall): Boolean {
+    val policy = policy
+    if (policy.level == Level.OFF) {
+      return false
+    }
+    if (policy.samplesBodyOf(call.request.url.encodedPath)) {
+      return true
+    }
+    log(call.response.status.isSuccess()) { call.response.formatMetadata() }
+    return false
+  }
+
+  /**
+   * Builds and logs a message either as information or as an error.
+   *
+   * @param isSuccessful Whether the message refers to a successful response.
+   * @param message Builds the message to be logged.
+   */
+  private inline fun log(isSuccessful: Boolean, message: () -> String) {
+    if (isSuccessful) info(message()) else error(message())
+  }
+
+  /**
+   * Formats the status, the method, the URL and the headers of this [HttpResponse]. Parameters of
+   * form-encoded [HttpRequest]s are left out, since they may contain credentials (such as the
+   * OAuth code and client secret).
+   */
+  private fun HttpResponse.formatMetadata(): String {
+    return "${status.value} on ${request.method.value} ${request.url}\n$headers"
+  }
+
+  /**
+   * Reads at most [Policy.maxBodyByteCount] bytes of the body of this [HttpResponse] and formats
+   * them as text, denoting whether it has been truncated. One byte beyond the maximum is read, so
+   * that a body that is exactly as long as the maximum isn't deemed truncated.
+   */
+  private suspend fun HttpResponse.formatBody(): String {
+    val maxByteCount = policy.maxBodyByteCount
+    val limit = if (maxByteCount == Long.MAX_VALUE) maxByteCount else maxByteCount + 1
+    val packet = bodyAsChannel().readRemaining(limit)
+    try {
+      val isTruncated = packet.remaining > maxByteCount
+      val body = packet.readBytes(packet.remaining.coerceAtMost(maxByteCount).toInt())
+      return if (isTruncated) "${body.decodeToString()}… (truncated)" else body.decodeToString()
+    } finally {
+      packet.close()
+    }
   }
 }
@@ -18,8 +18,16 @@ package br.com.orcinus.orca.core.mastodon.instance.requester
 import androidx.annotation.CallSuper
 import br.com.orcinus.orca.core.auth.actor.Actor
 import br.com.orcinus.orca.core.mastodon.instance.requester.authentication.authenticated
+import br.com.orcinus.orca.core.mastodon.instance.requester.cache.ResponseCache
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.InMemoryMetricsSink
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.MetricsRecorder
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.MetricsSink
+import br.com.orcinus.orca.core.mastodon.instance.requester.resilience.CircuitBreaker
 import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.ResumableRequester
 import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.resumable
+import br.com.orcinus.orca.core.mastodon.instance.requester.scheduling.RateLimiter
+import br.com.orcinus.orca.core.mastodon.instance.requester.scheduling.RequestPriority
+import br.com.orcinus.orca.core.mastodon.instance.requester.scheduling.RequestScheduler
 import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
 import br.com.orcinus.orca.std.func.monad.Maybe
 import io.ktor.client.HttpClient
@@ -27,13 +35,13 @@ import io.ktor.client.HttpClientConfig
 import io.ktor.client.engine.HttpClientEngine
 import io.ktor.client.engine.HttpClientEngineFactory
 import io.ktor.client.engine.cio.CIO
-import io.ktor.client.plugins.HttpRequestRetry
 import io.ktor.client.plugins.contentnegotiation.ContentNegotiation
 import io.ktor.client.request.HttpRequestBuilder
 import io.ktor.client.request.delete
 import io.ktor.client.request.forms.FormDataContent
 import io.ktor.client.request.forms.submitFormWithBinaryData
 import io.ktor.client.request.get
+import io.ktor.client.request.head
 import io.ktor.client.request.post
 import io.ktor.client.request.setBody
 import io.ktor.client.statement.HttpResponse
@@ -42,7 +50,13 @@ import io.ktor.http.Parameters
 import io.ktor.http.content.PartData
 import io.ktor.serialization.kotlinx.json.json
 import io.ktor.util.StringValuesBuilder
+import java.io.File
 import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.launch
 import kotlinx.serialization.ExperimentalSerializationApi
 import kotlinx.serialization.json.Json
 import kotlinx.serialization.json.JsonNamingStrategy
@@ -61,6 +75,10 @@ import kotlinx.serialization.json.JsonNamingStrategy
  * @property clientEngineFactory [HttpClientEngineFactory] that creates the [HttpClientEngine]
  *   powering the underlying [client].
  * @property baseURI [URI] from which routes are constructed.
+ * @property responseCache [ResponseCache] installed into the underlying [client], which is shared
+ *   only with [Requester]s whose requests are sent to the same origin through the same
+ *   [ResponseCache].
+ * @property metricsSink [MetricsSink] into which measurements of the requests are recorded.
  * @see delete
  * @see get
  * @see post
@@ -69,17 +87,64 @@ open class Requester<E : Exception>
 internal constructor(
   @get:InternalRequesterApi internal val logger: Logger,
   @get:InternalRequesterApi internal val baseURI: URI,
-  @get:InternalRequesterApi internal val clientEngineFactory: HttpClientEngineFactory<*>
+  @get:InternalRequesterApi internal val clientEngineFactory: HttpClientEngineFactory<*>,
+  @get:InternalRequesterApi internal val responseCache: ResponseCache? = null,
+  @get:InternalRequesterApi
+  internal val metricsSink: MetricsSink = InMemoryMetricsSink.default
 ) {
-  /** [HttpClient] that will be responsible for sending HTTP requests. */
+  /**
+   * [HttpClient] that will be responsible for sending HTTP requests, shared with other
+   * [Requester]s (including those decorating this one) whose requests are sent to the same origin.
+   *
+   * @see HttpClientRegistry
+   */
   @InternalRequesterApi
   internal val client =
-    HttpClient(clientEngineFactory) {
+    HttpClientRegistry.obtain(baseURI, logger, clientEngineFactory, responseCache, metricsSink) {
       logger.start(this)
       normalizeJsonKeys()
-      retryAfterFailures()
     }
 
+  /**
+   * [RequestScheduler] by which the requests sent by the [client] to its origin are scheduled.
+   *
+   * @see HttpClientRegistry
+   */
+  @InternalRequesterApi
+  internal val scheduler
+    get() = client.attributes[RequestScheduler.attributeKey]
+
+  /**
+   * [RateLimiter] by which the requests sent by the [client] to its origin are limited, whose
+   * [RateLimiter.budget] can be observed for backing off before requests start being delayed.
+   *
+   * @see HttpClientRegistry
+   */
+  @InternalRequesterApi
+  internal val rateLimiter
+    get() = client.attributes[RateLimiter.attributeKey]
+
+  /**
+   * [MetricsRecorder] by which measurements of the requests sent by the [client] are recorded into
+   * the [metricsSink], through which decorating requesters report the overhead they add.
+   *
+   * @see HttpClientRegistry
+   */
+  @InternalRequesterApi
+  internal val metrics
+    get() = client.attributes[MetricsRecorder.attributeKey]
+
+  /**
+   * [CircuitBreaker] by which requests sent by the [client] to its origin fail fast while the
+   * instance is unhealthy, whose [CircuitBreaker.transitions] can be observed for reacting to it
+   * becoming unhealthy or recovering.
+   *
+   * @see HttpClientRegistry
+   */
+  @InternalRequesterApi
+  internal val circuitBreaker
+    get() = client.attributes[CircuitBreaker.attributeKey]
+
   /**
    * Modifications that have been applied to a request to be performed.
    *
@@ -279,10 +344,12 @@ internal constructor(
     build: HttpRequestBuilder.() -> Unit
   ) =
     Maybe.successful<E, _>(
-      client.delete("$route") {
-        config.applyTo(this)
-        build(this)
-      }
+      client
+        .delete("$route") {
+          config.applyTo(this)
+          build(this)
+        }
+        .also { metrics.recordBody(route, it) }
     )
 
   /**
@@ -300,10 +367,12 @@ internal constructor(
     build: HttpRequestBuilder.() -> Unit
   ) =
     Maybe.successful<E, _>(
-      client.get("$route") {
-        config.applyTo(this)
-        build(this)
-      }
+      client
+        .get("$route") {
+          config.applyTo(this)
+          build(this)
+        }
+        .also { metrics.recordBody(route, it) }
     )
 
   /**
@@ -321,10 +390,12 @@ internal constructor(
     build: HttpRequestBuilder.() -> Unit
   ) =
     Maybe.successful<E, _>(
-      client.post("$route") {
-        config.applyTo(this)
-        build(this)
-      }
+      client
+        .post("$route") {
+          config.applyTo(this)
+          build(this)
+        }
+        .also { metrics.recordBody(route, it) }
     )
 
   /**
@@ -342,8 +413,8 @@ internal constructor(
     route: URI,
     form: List<PartData>,
     build: HttpRequestBuilder.() -> Unit
-  ) =
-    Maybe.successful<E, _>(
+  ): Maybe<E, HttpResponse> {
+    val response =
       if (form.isEmpty()) {
         client.post("$route") {
           config.applyTo(this)
@@ -355,7 +426,33 @@ internal constructor(
           build(this)
         }
       }
-    )
+    metrics.recordBody(route, response)
+    return Maybe.successful(response)
+  }
+
+  /**
+   * Opens a connection to the origin of the [baseURI] ahead of the first request, so that the DNS
+   * lookup and the TCP and TLS handshakes that it requires are performed off of its critical path.
+   *
+   * A `HEAD` request whose response is discarded is sent with a [RequestPriority.PREFETCH]
+   * priority; the connection through which it's sent is then kept alive by the pool of the shared
+   * [client] and reused by the requests that follow. Failures are ignored, given that those
+   * requests would go through the same setup regardless.
+   *
+   * @param scope [CoroutineScope] in which the connection is opened.
+   */
+  fun prewarm(scope: CoroutineScope): Job {
+    return scope.launch(RequestPriority.PREFETCH) {
+      try {
+        val route = absolute(prewarmingRoute)
+        metrics.measure(route, PREWARMING_SPAN_NAME) { client.head("$route") }
+      } catch (exception: CancellationException) {
+        throw exception
+      } catch (exception: Exception) {
+        // The requests that follow will open a connection of their own.
+      }
+    }
+  }
 
   /**
    * Returns an absolute [URI] based on the given routing.
@@ -372,30 +469,32 @@ internal constructor(
    */
   @InternalRequesterApi
   private fun HttpClientConfig<*>.normalizeJsonKeys() {
-    install(ContentNegotiation) {
-      json(
-        Json {
-          ignoreUnknownKeys = true
-
-          @OptIn(ExperimentalSerializationApi::class)
-          namingStrategy = JsonNamingStrategy.SnakeCase
-        }
-      )
-    }
-  }
-
-  /** Configures retrying behavior on requests that fail due to server errors. */
-  private fun HttpClientConfig<*>.retryAfterFailures() {
-    install(HttpRequestRetry) {
-      exponentialDelay()
-      retryOnServerErrors(2)
-    }
+    install(ContentNegotiation) { json(normalizedJson) }
   }
 
   companion object {
     /** Lambda in which a request being built isn't modified. */
     private val noOpRequestBuild: HttpRequestBuilder.() -> Unit = {}
 
+    /** Name of the span of the request by which a connection is prewarmed. */
+    private const val PREWARMING_SPAN_NAME = "prewarming"
+
+    /** Builds the route to which the request by which a connection is prewarmed is sent. */
+    private val prewarmingRoute: HostedURLBuilder.() -> URI = {
+      path("api").path("v1").path("instance").build()
+    }
+
+    /**
+     * [Json] by which payloads are (de)serialized, ignoring unknown keys and mapping known ones'
+     * names to snake case.
+     */
+    internal val normalizedJson = Json {
+      ignoreUnknownKeys = true
+
+      @OptIn(ExperimentalSerializationApi::class)
+      namingStrategy = JsonNamingStrategy.SnakeCase
+    }
+
     /**
      * Creates a [Requester].
      *
@@ -404,5 +503,30 @@ internal constructor(
     @JvmStatic
     fun create(baseURI: URI) =
       Requester<Exception>(Logger.Android, baseURI, clientEngineFactory = CIO)
+
+    /**
+     * [ResponseCache]s that have been created, associated to the absolute paths of the directories
+     * in which they write responses.
+     */
+    private val responseCaches = ConcurrentHashMap<File, ResponseCache>()
+
+    /**
+     * Creates a [Requester] whose responses are cached on the disk and revalidated conditionally.
+     * [Requester]s created with the same [cacheDirectory] share a single [ResponseCache] (and,
+     * therefore, a single [HttpClient] per origin).
+     *
+     * @param baseURI [URI] from which routes are constructed.
+     * @param cacheDirectory [File] in which responses are written.
+     * @see ResponseCache
+     */
+    @JvmStatic
+    fun create(baseURI: URI, cacheDirectory: File) =
+      Requester<Exception>(
+        Logger.Android,
+        baseURI,
+        clientEngineFactory = CIO,
+        responseCache =
+          responseCaches.computeIfAbsent(cacheDirectory.absoluteFile) { ResponseCache(it) }
+      )
   }
 }
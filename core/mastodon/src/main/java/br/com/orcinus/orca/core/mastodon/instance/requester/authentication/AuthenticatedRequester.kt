@@ -16,13 +16,17 @@
 package br.com.orcinus.orca.core.mastodon.instance.requester.authentication
 
 import br.com.orcinus.orca.core.auth.AuthenticationLock
+import br.com.orcinus.orca.core.auth.AuthenticationLock.FailedAuthenticationException
 import br.com.orcinus.orca.core.auth.SomeAuthenticationLock
 import br.com.orcinus.orca.core.auth.actor.Actor
 import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
 import br.com.orcinus.orca.core.mastodon.instance.requester.Logger
 import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
+import br.com.orcinus.orca.core.mastodon.instance.requester.cache.ResponseCache
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.MetricsSink
 import br.com.orcinus.orca.core.module.CoreModule
 import br.com.orcinus.orca.core.module.authenticationLock
+import br.com.orcinus.orca.std.func.monad.Maybe
 import br.com.orcinus.orca.std.func.monad.flatten
 import br.com.orcinus.orca.std.injector.Injector
 import io.ktor.client.engine.HttpClientEngine
@@ -41,6 +45,8 @@ import java.net.URI
  *   powering the underlying [client].
  * @property baseURI [URI] from which routes are constructed.
  * @property lock [AuthenticationLock] for unlocking requests made by an unauthenticated [Actor].
+ * @property responseCache [ResponseCache] by which responses are cached on the disk.
+ * @property metricsSink [MetricsSink] into which measurements of the requests are recorded.
  */
 private class AuthenticatedRequester
 @InternalRequesterApi
@@ -48,66 +54,64 @@ constructor(
   logger: Logger,
   baseURI: URI,
   clientEngineFactory: HttpClientEngineFactory<*>,
-  val lock: SomeAuthenticationLock
+  val lock: SomeAuthenticationLock,
+  responseCache: ResponseCache?,
+  metricsSink: MetricsSink
 ) :
   Requester<AuthenticationLock.FailedAuthenticationException>(
     logger,
     baseURI,
-    clientEngineFactory
+    clientEngineFactory,
+    responseCache,
+    metricsSink
   ) {
   override suspend fun delete(
     config: Configuration,
     route: URI,
     build: HttpRequestBuilder.() -> Unit
   ) =
-    lock
-      .scheduleUnlock {
-        super.delete(
-          config,
-          route,
-          build = {
-            bearerAuth(it.accessToken)
-            build()
-          }
-        )
-      }
-      .flatten()
+    unlock(route) {
+      super.delete(
+        config,
+        route,
+        build = {
+          bearerAuth(it.accessToken)
+          build()
+        }
+      )
+    }
 
   override suspend fun get(
     config: Configuration,
     route: URI,
     build: HttpRequestBuilder.() -> Unit
   ) =
-    lock
-      .scheduleUnlock {
-        super.get(
-          config,
-          route,
-          build = {
-            bearerAuth(it.accessToken)
-            build()
-          }
-        )
-      }
-      .flatten()
+    unlock(route) {
+      super.get(
+        config,
+        route,
+        build = {
+          bearerAuth(it.accessToken)
+          build()
+        }
+      )
+    }
 
   override suspend fun post(
     config: Configuration,
     route: URI,
     build: HttpRequestBuilder.() -> Unit
   ) =
-    lock
-      .scheduleUnlock {
-        super.post(
-          config,
-          route,
-          build = {
-            bearerAuth(it.accessToken)
-            build()
-          }
-        )
-      }
-      .flatten()
+    unlock(route) {
+      super.post(
+        config,
+        route,
+        build = {
+          bearerAuth(it.accessToken)
+          build()
+        }
+      )
+    }
 
   override suspend fun post(
     config: Configuration,
@@ -115,19 +119,42 @@ constructor(
     form: List<PartData>,
     build: HttpRequestBuilder.() -> Unit
   ) =
-    lock
+    unlock(route) {
+      super.post(
+        config,
+        route,
+        form,
+        build = {
+          bearerAuth(it.accessToken)
+          build()
+        }
+      )
+    }
+
+  /**
+   * Unlocks the [lock] for a request, recording the time spent until it is unlocked (which
+   * includes that of an authentication, if one is required) as a span of the [route].
+   *
+   * @param route [URI] to which the request is sent.
+   * @param send Sends the request on behalf of the authenticated [Actor].
+   */
+  private suspend fun unlock(
+    route: URI,
+    send: suspend (Actor.Authenticated) -> Maybe<FailedAuthenticationException, HttpResponse>
+  ): Maybe<FailedAuthenticationException, HttpResponse> {
+    val mark = metrics.markNow()
+    return lock
       .scheduleUnlock {
-        super.post(
-          config,
-          route,
-          form,
-          build = {
-            bearerAuth(it.accessToken)
-            build()
-          }
-        )
+        metrics.recordSpan(route, UNLOCKING_SPAN_NAME, mark)
+        send(it)
       }
       .flatten()
+  }
+
+  companion object {
+    /** Name of the span of the time spent until the [lock] is unlocked for a request. */
+    private const val UNLOCKING_SPAN_NAME = "unlocking"
+  }
 }
 
 /**
@@ -148,4 +175,11 @@ internal fun Requester<*>.authenticated(
   lock: SomeAuthenticationLock
 ): Requester<AuthenticationLock.FailedAuthenticationException> =
   (this as? AuthenticatedRequester)?.takeIf { it.lock == lock }
-    ?: AuthenticatedRequester(logger, baseURI, clientEngineFactory, lock)
+    ?: AuthenticatedRequester(
+      logger,
+      baseURI,
+      clientEngineFactory,
+      lock,
+      responseCache,
+      metricsSink
+    )
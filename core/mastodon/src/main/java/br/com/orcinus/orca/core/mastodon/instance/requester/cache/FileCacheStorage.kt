@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.cache
+
+import io.ktor.client.plugins.cache.storage.CacheStorage
+import io.ktor.client.plugins.cache.storage.CachedResponseData
+import io.ktor.http.HeadersBuilder
+import io.ktor.http.HttpProtocolVersion
+import io.ktor.http.HttpStatusCode
+import io.ktor.http.Url
+import io.ktor.util.date.GMTDate
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.security.MessageDigest
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+
+/**
+ * [CacheStorage] that writes cached responses to files in the [directory], evicting the least
+ * recently used ones whenever the sum of their sizes exceeds the [maxByteCount].
+ *
+ * All of the variants of the responses to a given [Url] (that is, those that differ by the values
+ * of the headers listed in their `Vary` header) are written to the same file. Recency is tracked
+ * by the last-modified time of each file, so that it is kept across instances.
+ *
+ * @property directory [File] in which responses are written.
+ * @property maxByteCount Maximum sum of the sizes of the files.
+ * @throws IllegalArgumentException If the [maxByteCount] is not positive.
+ */
+internal class FileCacheStorage(private val directory: File, private val maxByteCount: Long) :
+  CacheStorage {
+  /** [Mutex] by which reads and writes are synchronized. */
+  private val mutex = Mutex()
+
+  /**
+   * Sizes of the files, associated to their names and ordered from least to most recently used.
+   * Lazily loaded from the [directory] the first time it is accessed.
+   */
+  private var index: LinkedHashMap<String, Long>? = null
+
+  /** Sum of the sizes of the files in the [directory]. */
+  @Volatile
+  var byteCount = 0L
+    private set
+
+  init {
+    require(maxByteCount > 0) { "Maximum byte count should be positive ($maxByteCount)." }
+  }
+
+  override suspend fun store(url: Url, data: CachedResponseData) {
+    access { index ->
+      val name = nameOf(url)
+      val variants = read(name).filterNot { it.varyKeys == data.varyKeys } + data
+      write(index, name, variants)
+      trim(index)
+    }
+  }
+
+  override suspend fun find(url: Url, varyKeys: Map<String, String>): CachedResponseData? {
+    return findAll(url).find { data ->
+      varyKeys.all { (key, value) -> data.varyKeys[key] == value }
+    }
+  }
+
+  override suspend fun findAll(url: Url): Set<CachedResponseData> {
+    return access { index ->
+      val name = nameOf(url)
+      read(name).toSet().also { if (it.isNotEmpty()) touch(index, name) }
+    }
+  }
+
+  /** Deletes all of the files. */
+  suspend fun clear() {
+    access { index ->
+      index.keys.forEach { File(directory, it).delete() }
+      index.clear()
+      byteCount = 0
+    }
+  }
+
+  /**
+   * Performs the [operation] on the I/O dispatcher while locked.
+   *
+   * @param T Result of the [operation].
+   * @param operation Operation to be performed with the index of the files.
+   */
+  private suspend fun <T> access(operation: (index: LinkedHashMap<String, Long>) -> T): T {
+    return withContext(Dispatchers.IO) { mutex.withLock { operation(loadIndex()) } }
+  }
+
+  /** Obtains the index of the files, loading it from the [directory] if it hasn't been yet. */
+  private fun loadIndex(): LinkedHashMap<String, Long> {
+    return index
+      ?: LinkedHashMap<String, Long>(16, .75f, /* accessOrder = */ true).also { index ->
+        directory.mkdirs()
+        directory
+          .listFiles()
+          .orEmpty()
+          .filter { it.isFile && !it.name.endsWith(TEMPORARY_FILE_SUFFIX) }
+          .sortedBy(File::lastModified)
+          .forEach {
+            index[it.name] = it.length()
+            byteCount += it.length()
+          }
+        this.index = index
+      }
+  }
+
+  /**
+   * Marks the file named [name] as the most recently used one.
+   *
+   * @param index Index of the files.
+   * @param name Name of the file that has been used.
+   */
+  private fun touch(index: LinkedHashMap<String, Long>, name: String) {
+    index[name]
+    File(directory, name).setLastModified(System.currentTimeMillis())
+  }
+
+  /**
+   * Reads the variants written to the file named [name]. A file that cannot be read is deleted.
+   *
+   * @param name Name of the file to be read.
+   */
+  private fun read(name: String): List<CachedResponseData> {
+    val file = File(directory, name)
+    if (!file.exists()) {
+      return emptyList()
+    }
+    return try {
+      DataInputStream(file.inputStream().buffered()).use { input ->
+        List(input.readInt()) { input.readResponseData() }
+      }
+    } catch (exception: IOException) {
+      file.delete()
+      emptyList()
+    }
+  }
+
+  /**
+   * Writes the [variants] to the file named [name], replacing its previous content.
+   *
+   * @param index Index of the files.
+   * @param name Name of the file to be written to.
+   * @param variants Responses to the same [Url] to be written.
+   */
+  private fun write(
+    index: LinkedHashMap<String, Long>,
+    name: String,
+    variants: List<CachedResponseData>
+  ) {
+    val file = File(directory, name)
+    val temporaryFile = File(directory, "$name$TEMPORARY_FILE_SUFFIX")
+    DataOutputStream(temporaryFile.outputStream().buffered()).use { output ->
+      output.writeInt(variants.size)
+      variants.forEach { output.writeResponseData(it) }
+    }
+    if (!temporaryFile.renameTo(file)) {
+      temporaryFile.delete()
+      return
+    }
+    index.remove(name)?.let { byteCount -= it }
+    index[name] = file.length()
+    byteCount += file.length()
+  }
+
+  /**
+   * Deletes the least recently used files until the sum of their sizes no longer exceeds the
+   * [maxByteCount].
+   *
+   * @param index Index of the files.
+   */
+  private fun trim(index: LinkedHashMap<String, Long>) {
+    val iterator = index.iterator()
+    while (byteCount > maxByteCount && iterator.hasNext()) {
+      val (name, size) = iterator.next()
+      File(directory, name).delete()
+      iterator.remove()
+      byteCount -= size
+    }
+  }
+
+  /**
+   * Obtains the name of the file to which the responses to the [url] are written.
+   *
+   * @param url [Url] to which the responses have been received.
+   */
+  private fun nameOf(url: Url): String {
+    return MessageDigest.getInstance("SHA-256").digest("$url".toByteArray()).joinToString("") {
+      "%02x".format(it)
+    }
+  }
+
+  /** Writes the [data] to this [DataOutputStream]. */
+  private fun DataOutputStream.writeResponseData(data: CachedResponseData) {
+    writeUTF("${data.url}")
+    writeInt(data.statusCode.value)
+    writeUTF(data.statusCode.description)
+    writeLong(data.requestTime.timestamp)
+    writeLong(data.responseTime.timestamp)
+    writeUTF(data.version.name)
+    writeInt(data.version.major)
+    writeInt(data.version.minor)
+    writeLong(data.expires.timestamp)
+    val headerNames = data.headers.names()
+    writeInt(headerNames.size)
+    for (headerName in headerNames) {
+      val values = data.headers.getAll(headerName).orEmpty()
+      writeUTF(headerName)
+      writeInt(values.size)
+      values.forEach(::writeUTF)
+    }
+    writeInt(data.varyKeys.size)
+    for ((key, value) in data.varyKeys) {
+      writeUTF(key)
+      writeUTF(value)
+    }
+    writeInt(data.body.size)
+    write(data.body)
+  }
+
+  /** Reads [CachedResponseData] from this [DataInputStream]. */
+  private fun DataInputStream.readResponseData(): CachedResponseData {
+    val url = Url(readUTF())
+    val statusCode = HttpStatusCode(readInt(), readUTF())
+    val requestTime = GMTDate(readLong())
+    val responseTime = GMTDate(readLong())
+    val version = HttpProtocolVersion(readUTF(), readInt(), readInt())
+    val expires = GMTDate(readLong())
+    val headers =
+      HeadersBuilder()
+        .apply { repeat(readInt()) { appendAll(readUTF(), List(readInt()) { readUTF() }) } }
+        .build()
+    val varyKeys = buildMap { repeat(readInt()) { put(readUTF(), readUTF()) } }
+    val body = ByteArray(readInt()).also(::readFully)
+    return CachedResponseData(
+      url,
+      statusCode,
+      requestTime,
+      responseTime,
+      version,
+      expires,
+      headers,
+      varyKeys,
+      body
+    )
+  }
+
+  companion object {
+    /** Suffix of the name of a file to which responses are written before it replaces another. */
+    private const val TEMPORARY_FILE_SUFFIX = ".tmp"
+  }
+}
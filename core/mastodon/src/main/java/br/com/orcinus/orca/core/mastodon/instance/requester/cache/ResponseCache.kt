@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.cache
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import io.ktor.client.HttpClient
+import io.ktor.client.HttpClientConfig
+import io.ktor.client.plugins.cache.HttpCache
+import io.ktor.client.statement.HttpReceivePipeline
+import io.ktor.http.HttpStatusCode
+import io.ktor.util.pipeline.PipelinePhase
+import java.io.File
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.update
+
+/**
+ * HTTP cache by which responses are written to the disk alongside their validators (`ETag` and
+ * `Last-Modified` headers), allowing for those that are fresh (as per their `Cache-Control` header)
+ * to be served without a request being sent and for stale ones to be revalidated conditionally
+ * (through `If-None-Match` and `If-Modified-Since`), with their bodies being read from the disk
+ * when the server replies that they haven't been modified.
+ *
+ * Responses that may be shared are written to a directory distinct from that of those that are
+ * private.
+ *
+ * @param directory [File] in which responses are written.
+ * @param maxByteCount Maximum amount of bytes that can be written to each of the directories.
+ * @see install
+ */
+internal class ResponseCache(directory: File, maxByteCount: Long = DEFAULT_MAX_BYTE_COUNT) {
+  /** [MutableStateFlow] to which [Statistics] are emitted whenever a response is received. */
+  private val statisticsFlow = MutableStateFlow(Statistics.empty)
+
+  /** [FileCacheStorage] to which responses that may be shared are written. */
+  @InternalRequesterApi
+  internal val publicStorage = FileCacheStorage(File(directory, "public"), maxByteCount)
+
+  /** [FileCacheStorage] to which private responses are written. */
+  @InternalRequesterApi
+  internal val privateStorage = FileCacheStorage(File(directory, "private"), maxByteCount)
+
+  /** [StateFlow] to which [Statistics] regarding the served responses are emitted. */
+  val statistics = statisticsFlow.asStateFlow()
+
+  /**
+   * Information about the responses that have been served.
+   *
+   * @property hitCount Amount of responses that have been served from the disk, either because they
+   *   were fresh or because they have been revalidated.
+   * @property revalidationCount Amount of responses that have been revalidated, to which the server
+   *   has replied with a 304 (Not Modified) status.
+   */
+  data class Statistics(val hitCount: Long, val revalidationCount: Long) {
+    companion object {
+      /** [Statistics] of a [ResponseCache] from which no response has been served. */
+      val empty = Statistics(hitCount = 0, revalidationCount = 0)
+    }
+  }
+
+  /**
+   * Installs this [ResponseCache] into the [HttpClient] being configured.
+   *
+   * @param config Configuration of the [HttpClient] into which this [ResponseCache] is installed.
+   */
+  fun install(config: HttpClientConfig<*>) {
+    config.install(HttpCache) {
+      publicStorage(publicStorage)
+      privateStorage(privateStorage)
+    }
+    config.install(STATISTICS_PLUGIN_KEY) { countServedResponses() }
+  }
+
+  /** Deletes all of the responses that have been written. */
+  suspend fun clear() {
+    publicStorage.clear()
+    privateStorage.clear()
+  }
+
+  /**
+   * Updates the [statistics] whenever a response is served from the disk by this [HttpClient] or is
+   * revalidated.
+   */
+  private fun HttpClient.countServedResponses() {
+    monitor.subscribe(HttpCache.HttpResponseFromCache) {
+      statisticsFlow.update { it.copy(hitCount = it.hitCount.inc()) }
+    }
+    val revalidationPhase = PipelinePhase(REVALIDATION_PHASE_NAME)
+    receivePipeline.insertPhaseBefore(HttpReceivePipeline.State, revalidationPhase)
+    receivePipeline.intercept(revalidationPhase) { response ->
+      if (response.status == HttpStatusCode.NotModified) {
+        statisticsFlow.update { it.copy(revalidationCount = it.revalidationCount.inc()) }
+      }
+    }
+  }
+
+  companion object {
+    /** Key under which the counting of served responses is installed into an [HttpClient]. */
+    private const val STATISTICS_PLUGIN_KEY = "ResponseCacheStatistics"
+
+    /** Name of the phase in which responses to conditional requests are counted. */
+    private const val REVALIDATION_PHASE_NAME = "ResponseCacheRevalidation"
+
+    /** Default maximum amount of bytes that can be written to each of the directories. */
+    const val DEFAULT_MAX_BYTE_COUNT = 16L * 1_024 * 1_024
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.metrics
+
+import kotlin.time.Duration
+import kotlin.time.DurationUnit
+
+/**
+ * Distribution of [Duration]s among buckets of exponentially growing upper bounds, by which
+ * percentiles are estimated without the [Duration]s themselves being kept. Not thread-safe.
+ *
+ * @see upperBoundsInMilliseconds
+ */
+internal class Histogram {
+  /** Amount of [Duration]s in each bucket, the last of which is unbounded. */
+  private val bucketCounts = LongArray(upperBoundsInMilliseconds.size + 1)
+
+  /** Amount of [Duration]s that have been added. */
+  private var count = 0L
+
+  /** Sum of the [Duration]s that have been added, in milliseconds. */
+  private var sumInMilliseconds = 0.0
+
+  /** Longest [Duration] that has been added, in milliseconds. */
+  private var maxInMilliseconds = 0.0
+
+  /**
+   * Adds the [duration] to the bucket within whose bounds it is.
+   *
+   * @param duration [Duration] to be added.
+   */
+  fun add(duration: Duration) {
+    val milliseconds = duration.toDouble(DurationUnit.MILLISECONDS)
+    val index = upperBoundsInMilliseconds.indexOfFirst { milliseconds <= it }
+    bucketCounts[if (index == -1) upperBoundsInMilliseconds.size else index]++
+    count++
+    sumInMilliseconds += milliseconds
+    maxInMilliseconds = maxOf(maxInMilliseconds, milliseconds)
+  }
+
+  /** Creates a [MetricsSnapshot.Distribution] of the current state of this [Histogram]. */
+  fun snapshot(): MetricsSnapshot.Distribution {
+    return MetricsSnapshot.Distribution(
+      count,
+      sumInMilliseconds,
+      maxInMilliseconds,
+      bucketCounts.toList()
+    )
+  }
+
+  companion object {
+    /** Upper bounds (inclusive) of the buckets, in milliseconds. */
+    val upperBoundsInMilliseconds =
+      listOf(1, 2, 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000).map(Int::toDouble)
+  }
+}
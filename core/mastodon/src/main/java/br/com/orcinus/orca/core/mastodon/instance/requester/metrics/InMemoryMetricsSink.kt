@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.metrics
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import kotlinx.serialization.json.Json
+
+/**
+ * [MetricsSink] that aggregates [Measurement]s in memory per route template: latencies and spans
+ * into [Histogram]s, and transferred bytes, status codes and retries into counters.
+ *
+ * @see snapshot
+ * @see export
+ */
+@InternalRequesterApi
+internal class InMemoryMetricsSink : MetricsSink {
+  /** Lock by which access to the [routes] is synchronized. */
+  private val lock = Any()
+
+  /** [Route]s associated to their templates. */
+  private val routes = hashMapOf<String, Route>()
+
+  /** Aggregated metrics of the requests sent to a route. */
+  private class Route {
+    /** [Histogram]s of the durations of each [Measurement.Phase]. */
+    val latencies = hashMapOf<Measurement.Phase, Histogram>()
+
+    /** [Histogram]s of the durations of the spans, associated to their names. */
+    val spans = hashMapOf<String, Histogram>()
+
+    /** Amount of bytes sent in the bodies of requests. */
+    var sentByteCount = 0L
+
+    /** Amount of bytes received in the bodies of responses. */
+    var receivedByteCount = 0L
+
+    /** Amount of responses with each status code. */
+    val statusCounts = hashMapOf<Int, Long>()
+
+    /** Amount of attempts that have been sent again after failing. */
+    var retryCount = 0L
+
+    /** Creates a [MetricsSnapshot.Route] of the current state of this [Route]. */
+    fun snapshot(): MetricsSnapshot.Route {
+      return MetricsSnapshot.Route(
+        latencies.mapValues { (_, histogram) -> histogram.snapshot() },
+        spans.mapValues { (_, histogram) -> histogram.snapshot() },
+        sentByteCount,
+        receivedByteCount,
+        statusCounts.toMap(),
+        retryCount
+      )
+    }
+  }
+
+  override fun record(measurement: Measurement) {
+    synchronized(lock) {
+      val route = routes.getOrPut(measurement.route, ::Route)
+      when (measurement) {
+        is Measurement.Latency ->
+          route.latencies.getOrPut(measurement.phase, ::Histogram).add(measurement.duration)
+        is Measurement.Span ->
+          route.spans.getOrPut(measurement.name, ::Histogram).add(measurement.duration)
+        is Measurement.Transfer -> {
+          route.sentByteCount += measurement.sentByteCount
+          route.receivedByteCount += measurement.receivedByteCount
+        }
+        is Measurement.Status ->
+          route.statusCounts.merge(measurement.code, 1L) { count, _ -> count + 1 }
+        is Measurement.Retry -> route.retryCount++
+      }
+    }
+  }
+
+  /** Creates a [MetricsSnapshot] of the metrics that have been aggregated so far. */
+  fun snapshot(): MetricsSnapshot {
+    return synchronized(lock) {
+      MetricsSnapshot(routes.mapValues { (_, route) -> route.snapshot() })
+    }
+  }
+
+  /**
+   * Exports the metrics that have been aggregated so far as JSON, to be attached to a report or
+   * sent elsewhere.
+   *
+   * @see snapshot
+   */
+  fun export(): String {
+    return Json.encodeToString(MetricsSnapshot.serializer(), snapshot())
+  }
+
+  /** Discards the metrics that have been aggregated so far. */
+  fun clear() {
+    synchronized(lock) { routes.clear() }
+  }
+
+  companion object {
+    /** [InMemoryMetricsSink] into which requesters record by default. */
+    val default = InMemoryMetricsSink()
+  }
+}
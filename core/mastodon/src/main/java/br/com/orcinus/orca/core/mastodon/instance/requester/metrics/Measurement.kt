@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.metrics
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import kotlin.time.Duration
+
+/**
+ * Measurement of a request, recorded into a [MetricsSink].
+ *
+ * @see MetricsRecorder
+ */
+@InternalRequesterApi
+internal sealed class Measurement {
+  /** Template of the route to which the request was sent (see [RouteTemplate]). */
+  abstract val route: String
+
+  /** Phase of a request whose duration is measured. */
+  enum class Phase {
+    /** Time spent waiting for a slot in the queue of the scheduler. */
+    QUEUE,
+
+    /**
+     * Time from sending the request until its response headers are received, which, for the first
+     * request through a connection, includes resolving the host and performing the TCP and TLS
+     * handshakes.
+     */
+    FIRST_BYTE,
+
+    /** Time from receiving the response headers until the whole body is received. */
+    BODY
+  }
+
+  /**
+   * Duration of a [Phase] of a request.
+   *
+   * @property phase [Phase] that has been measured.
+   * @property duration Amount of time taken by the [phase].
+   */
+  data class Latency(override val route: String, val phase: Phase, val duration: Duration) :
+    Measurement()
+
+  /**
+   * Duration of an operation performed on behalf of a request by a decorating requester, such as
+   * waiting for authentication to be unlocked or journaling the request.
+   *
+   * @property name Name of the operation.
+   * @property duration Amount of time taken by the operation.
+   */
+  data class Span(override val route: String, val name: String, val duration: Duration) :
+    Measurement()
+
+  /**
+   * Amounts of bytes transferred by a request.
+   *
+   * @property sentByteCount Amount of bytes of the body of the request.
+   * @property receivedByteCount Amount of bytes of the body of the response.
+   */
+  data class Transfer(
+    override val route: String,
+    val sentByteCount: Long,
+    val receivedByteCount: Long
+  ) : Measurement()
+
+  /**
+   * Status code with which a request has been responded to.
+   *
+   * @property code Value of the status code.
+   */
+  data class Status(override val route: String, val code: Int) : Measurement()
+
+  /** Attempt of a request that has failed being sent again. */
+  data class Retry(override val route: String) : Measurement()
+}
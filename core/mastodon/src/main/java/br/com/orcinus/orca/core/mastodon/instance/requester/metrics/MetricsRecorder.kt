@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.metrics
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.HttpClientRegistry
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
+import br.com.orcinus.orca.core.mastodon.instance.requester.countBodyBytes
+import io.ktor.client.HttpClient
+import io.ktor.client.HttpClientConfig
+import io.ktor.client.plugins.HttpSend
+import io.ktor.client.plugins.plugin
+import io.ktor.client.statement.HttpResponse
+import io.ktor.http.content.OutgoingContent
+import io.ktor.util.AttributeKey
+import java.net.URI
+import kotlin.time.TimeMark
+import kotlin.time.TimeSource
+
+/**
+ * Records [Measurement]s of the requests sent by an [HttpClient] into a [sink], grouped by the
+ * templates of their routes (see [RouteTemplate]).
+ *
+ * Once installed, it measures each attempt of a request that is actually sent (that is, isn't
+ * served from a cache): the time until its response headers are received, the status of its
+ * response and the size of its body. The remaining [Measurement]s are reported by the parts of the
+ * requester stack in which they're known: the time spent in the queue by the scheduler, retries by
+ * the circuit breaker, the time taken to receive the body by the [Requester] and the overhead of
+ * decorating requesters as [spans][measure].
+ *
+ * Because an [HttpClient] is shared by [HttpClientRegistry] among the requesters whose requests are
+ * sent to the same origin, a [MetricsRecorder] is installed into each created [HttpClient].
+ *
+ * @property sink [MetricsSink] into which [Measurement]s are recorded.
+ * @property timeSource [TimeSource] by which durations are measured.
+ * @see install
+ */
+@InternalRequesterApi
+internal class MetricsRecorder(
+  val sink: MetricsSink,
+  private val timeSource: TimeSource = TimeSource.Monotonic
+) {
+  /** Marks the current time, from which a duration is measured. */
+  fun markNow(): TimeMark {
+    return timeSource.markNow()
+  }
+
+  /**
+   * Records the time elapsed since the [mark] as the duration of the [phase] of a request.
+   *
+   * @param path Path to which the request has been sent.
+   * @param phase [Measurement.Phase] that has been measured.
+   * @param mark [TimeMark] of when the [phase] started.
+   */
+  fun recordLatency(path: String, phase: Measurement.Phase, mark: TimeMark) {
+    sink.record(Measurement.Latency(RouteTemplate.of(path), phase, mark.elapsedNow()))
+  }
+
+  /**
+   * Records that an attempt of a request that has failed is being sent again.
+   *
+   * @param path Path to which the request has been sent.
+   */
+  fun recordRetry(path: String) {
+    sink.record(Measurement.Retry(RouteTemplate.of(path)))
+  }
+
+  /**
+   * Records the time taken to receive the body of the [response] and its size, given that it has
+   * been received through the network by an [HttpClient] into which this [MetricsRecorder] has been
+   * installed. The body is expected to have been saved (as it is by the [HttpClient] when the
+   * request is sent through anything other than a streaming statement), since it is read again for
+   * its size to be known in case a `Content-Length` has not been declared.
+   *
+   * @param route [URI] to which the request has been sent.
+   * @param response [HttpResponse] whose body has been received.
+   */
+  suspend fun recordBody(route: URI, response: HttpResponse) {
+    val mark = response.call.attributes.getOrNull(firstByteMarkKey) ?: return
+    val template = RouteTemplate.of(route.rawPath.orEmpty())
+    sink.record(Measurement.Latency(template, Measurement.Phase.BODY, mark.elapsedNow()))
+    val receivedByteCount = response.countBodyBytes()
+    sink.record(Measurement.Transfer(template, sentByteCount = 0, receivedByteCount))
+  }
+
+  /**
+   * Performs the [operation] on behalf of a request, recording its duration as a span.
+   *
+   * @param T Result of the [operation].
+   * @param route [URI] to which the request is sent.
+   * @param name Name of the span.
+   * @param operation Operation to be measured.
+   */
+  suspend fun <T> measure(route: URI, name: String, operation: suspend () -> T): T {
+    val mark = markNow()
+    try {
+      return operation()
+    } finally {
+      recordSpan(route, name, mark)
+    }
+  }
+
+  /**
+   * Records the time elapsed since the [mark] as the duration of a span of a request, for when it
+   * doesn't enclose a single operation (and, thus, cannot be [measure]d).
+   *
+   * @param route [URI] to which the request is sent.
+   * @param name Name of the span.
+   * @param mark [TimeMark] of when the span started.
+   */
+  fun recordSpan(route: URI, name: String, mark: TimeMark) {
+    val template = RouteTemplate.of(route.rawPath.orEmpty())
+    sink.record(Measurement.Span(template, name, mark.elapsedNow()))
+  }
+
+  /**
+   * Installs this [MetricsRecorder] into the [HttpClient] being configured. It should be installed
+   * after the other plugins that intercept the sending of requests, since those installed earlier
+   * wrap the ones installed later: being the innermost, it measures only the time spent by each
+   * attempt on the network, excluding that in which it waits in a queue, is held back by a rate
+   * limiter or is backed off before being retried.
+   *
+   * @param config Configuration of the [HttpClient] into which this [MetricsRecorder] is installed.
+   */
+  fun install(config: HttpClientConfig<*>) {
+    config.install(PLUGIN_KEY) {
+      attributes.put(attributeKey, this@MetricsRecorder)
+      plugin(HttpSend).intercept { request ->
+        val template = RouteTemplate.of(request.url.encodedPath)
+        val mark = markNow()
+        val call = execute(request)
+        sink.record(Measurement.Latency(template, Measurement.Phase.FIRST_BYTE, mark.elapsedNow()))
+        sink.record(Measurement.Status(template, call.response.status.value))
+        (request.body as? OutgoingContent)?.contentLength?.let {
+          sink.record(Measurement.Transfer(template, sentByteCount = it, receivedByteCount = 0))
+        }
+        call.attributes.put(firstByteMarkKey, markNow())
+        call
+      }
+    }
+  }
+
+  companion object {
+    /** Key under which a [MetricsRecorder] is installed into an [HttpClient]. */
+    private const val PLUGIN_KEY = "MetricsRecorder"
+
+    /** [AttributeKey] of the [TimeMark] of when the headers of a response have been received. */
+    private val firstByteMarkKey = AttributeKey<TimeMark>("FirstByteMark")
+
+    /** [AttributeKey] by which the [MetricsRecorder] installed into an [HttpClient] is stored. */
+    val attributeKey = AttributeKey<MetricsRecorder>(PLUGIN_KEY)
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.metrics
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+
+/**
+ * Destination of the [Measurement]s of requests, which may aggregate them in memory (as
+ * [InMemoryMetricsSink] does) or forward them elsewhere.
+ *
+ * [record] is called on the path of the requests, so implementations should return quickly and are
+ * required to be thread-safe.
+ */
+@InternalRequesterApi
+internal fun interface MetricsSink {
+  /**
+   * Records the [measurement].
+   *
+   * @param measurement [Measurement] to be recorded.
+   */
+  fun record(measurement: Measurement)
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.metrics
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import kotlinx.serialization.Serializable
+
+/**
+ * Immutable copy of the metrics aggregated by an [InMemoryMetricsSink].
+ *
+ * @property routes [Route]s associated to their templates (see [RouteTemplate]).
+ */
+@InternalRequesterApi
+@Serializable
+internal data class MetricsSnapshot(val routes: Map<String, Route>) {
+  /**
+   * Metrics of the requests sent to a route.
+   *
+   * @property latencies [Distribution]s of the durations of each [Measurement.Phase].
+   * @property spans [Distribution]s of the durations of operations performed by decorating
+   *   requesters, associated to their names.
+   * @property sentByteCount Amount of bytes sent in the bodies of requests.
+   * @property receivedByteCount Amount of bytes received in the bodies of responses.
+   * @property statusCounts Amount of responses with each status code.
+   * @property retryCount Amount of attempts that have been sent again after failing.
+   */
+  @Serializable
+  data class Route(
+    val latencies: Map<Measurement.Phase, Distribution>,
+    val spans: Map<String, Distribution>,
+    val sentByteCount: Long,
+    val receivedByteCount: Long,
+    val statusCounts: Map<Int, Long>,
+    val retryCount: Long
+  )
+
+  /**
+   * Distribution of durations.
+   *
+   * @property count Amount of durations.
+   * @property sumInMilliseconds Sum of the durations, in milliseconds.
+   * @property maxInMilliseconds Longest duration, in milliseconds.
+   * @property bucketCounts Amount of durations within each bucket, whose upper bounds are those of
+   *   [Histogram.upperBoundsInMilliseconds] followed by an unbounded one.
+   */
+  @Serializable
+  data class Distribution(
+    val count: Long,
+    val sumInMilliseconds: Double,
+    val maxInMilliseconds: Double,
+    val bucketCounts: List<Long>
+  ) {
+    /** Average of the durations, in milliseconds. */
+    val meanInMilliseconds
+      get() = if (count == 0L) 0.0 else sumInMilliseconds / count
+
+    /**
+     * Estimates the duration below which the given [fraction] of the durations are, as the upper
+     * bound of the bucket in which it is (or the longest duration, if it's in the unbounded one).
+     *
+     * @param fraction Fraction of the durations, from 0 to 1.
+     */
+    fun percentileInMilliseconds(fraction: Double): Double {
+      val rank = fraction * count
+      var cumulativeCount = 0L
+      for ((index, bucketCount) in bucketCounts.withIndex()) {
+        cumulativeCount += bucketCount
+        if (cumulativeCount >= rank && cumulativeCount > 0) {
+          val upperBound = Histogram.upperBoundsInMilliseconds.getOrNull(index)
+          return upperBound?.coerceAtMost(maxInMilliseconds) ?: maxInMilliseconds
+        }
+      }
+      return maxInMilliseconds
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.metrics
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+
+/**
+ * Converts paths into templates by which the [Measurement]s of requests to the same kind of
+ * resource are grouped, replacing segments that identify a specific resource (such as the ID of a
+ * status in `/api/v1/statuses/109876543210/favourite`) by a placeholder.
+ */
+@InternalRequesterApi
+internal object RouteTemplate {
+  /** Placeholder by which identifying segments are replaced. */
+  const val PLACEHOLDER = ":id"
+
+  /** Minimum length of a hexadecimal segment for it to be considered an identifier. */
+  private const val MIN_HEXADECIMAL_ID_LENGTH = 16
+
+  /**
+   * Converts the [path] into a template.
+   *
+   * @param path Path of a request, without its query.
+   */
+  fun of(path: String): String {
+    return path
+      .split('/')
+      .joinToString("/") { segment -> if (isIdentifying(segment)) PLACEHOLDER else segment }
+  }
+
+  /**
+   * Returns whether the [segment] identifies a specific resource, which is the case for numeric
+   * ones and for long hexadecimal ones (such as UUIDs).
+   *
+   * @param segment Segment of a path.
+   */
+  private fun isIdentifying(segment: String): Boolean {
+    return segment.isNotEmpty() && segment.all(Char::isDigit) ||
+      segment.length >= MIN_HEXADECIMAL_ID_LENGTH &&
+        segment.all { it.isDigit() || it in 'a'..'f' || it in 'A'..'F' || it == '-' }
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resilience
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.HttpClientRegistry
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.MetricsRecorder
+import io.ktor.client.HttpClient
+import io.ktor.client.HttpClientConfig
+import io.ktor.client.call.HttpClientCall
+import io.ktor.client.plugins.HttpSend
+import io.ktor.client.plugins.plugin
+import io.ktor.util.AttributeKey
+import java.io.IOException
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.seconds
+import kotlin.time.TimeMark
+import kotlin.time.TimeSource
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharedFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asSharedFlow
+import kotlinx.coroutines.flow.asStateFlow
+
+/**
+ * Stops requests from being sent to an instance that is failing, so that screens fail fast instead
+ * of each hammering it (and waiting for it to time out) while it's unhealthy.
+ *
+ * The circuit starts [closed][State.CLOSED], letting every request through. After
+ * [failureThreshold] consecutive failures (server errors or I/O errors), it [opens][State.OPEN] and
+ * requests fail with an [OpenCircuitException] without being sent. Once the [openDuration] passes,
+ * it becomes [half-open][State.HALF_OPEN] and lets a single trial request through, closing again
+ * if it succeeds and reopening if it fails.
+ *
+ * Because an [HttpClient] is shared by [HttpClientRegistry] among the requesters whose requests are
+ * sent to the same origin, installing a [CircuitBreaker] into each created [HttpClient] gives each
+ * instance a circuit of its own.
+ *
+ * @property failureThreshold Amount of consecutive failures after which the circuit opens.
+ * @property openDuration Amount of time for which the circuit stays open before a trial request is
+ *   let through.
+ * @property timeSource [TimeSource] by which the time for which the circuit has been open is
+ *   measured.
+ * @throws IllegalArgumentException If the [failureThreshold] or the [openDuration] is not positive.
+ * @see install
+ */
+@InternalRequesterApi
+internal class CircuitBreaker(
+  private val failureThreshold: Int = DEFAULT_FAILURE_THRESHOLD,
+  private val openDuration: Duration = DEFAULT_OPEN_DURATION,
+  private val timeSource: TimeSource = TimeSource.Monotonic
+) {
+  /** Lock by which access to the state of the circuit is synchronized. */
+  private val lock = Any()
+
+  /** Amount of failures that have happened in a row while the circuit has been closed. */
+  private var consecutiveFailureCount = 0
+
+  /** [TimeMark] of when the circuit stops being open. */
+  private var closingMark: TimeMark? = null
+
+  /** Whether the trial request of the half-open circuit is in flight. */
+  private var isTrialInFlight = false
+
+  /** [MutableStateFlow] to which the current [State] is emitted. */
+  private val stateFlow = MutableStateFlow(State.CLOSED)
+
+  /** [MutableSharedFlow] to which [Transition]s are emitted. */
+  private val transitionFlow =
+    MutableSharedFlow<Transition>(
+      extraBufferCapacity = TRANSITION_BUFFER_CAPACITY,
+      onBufferOverflow = BufferOverflow.DROP_OLDEST
+    )
+
+  /** [StateFlow] to which the current [State] of the circuit is emitted. */
+  val state = stateFlow.asStateFlow()
+
+  /** [SharedFlow] to which each change in the [State] of the circuit is emitted. */
+  val transitions = transitionFlow.asSharedFlow()
+
+  /** State of a circuit. */
+  enum class State {
+    /** Requests are sent. */
+    CLOSED,
+
+    /** Requests fail fast without being sent. */
+    OPEN,
+
+    /** A single trial request is sent, whose outcome determines whether the circuit closes. */
+    HALF_OPEN
+  }
+
+  /**
+   * Change in the [State] of a circuit.
+   *
+   * @property from [State] in which the circuit was.
+   * @property to [State] in which the circuit is.
+   */
+  data class Transition(val from: State, val to: State)
+
+  /**
+   * [IOException] thrown when a request is not sent because the circuit is open.
+   *
+   * @property remainingTime Amount of time until a trial request is let through.
+   */
+  class OpenCircuitException(val remainingTime: Duration) :
+    IOException("Instance is unhealthy; requests are halted for $remainingTime.")
+
+  init {
+    require(failureThreshold > 0) { "Failure threshold should be positive ($failureThreshold)." }
+    require(openDuration.isPositive()) { "Open duration should be positive ($openDuration)." }
+  }
+
+  /**
+   * Performs the [operation] in case the circuit allows for it, recording whether it has failed.
+   *
+   * @param T Result of the [operation].
+   * @param operation Sends the request.
+   * @param isFailure Determines whether the result of the [operation] denotes a failure.
+   * @throws OpenCircuitException If the circuit is open.
+   */
+  suspend fun <T> guard(operation: suspend () -> T, isFailure: (T) -> Boolean): T {
+    val isTrial = admit()
+    val result =
+      try {
+        operation()
+      } catch (exception: CancellationException) {
+        if (isTrial) synchronized(lock) { isTrialInFlight = false }
+        throw exception
+      } catch (exception: IOException) {
+        record(isTrial, hasFailed = true)
+        throw exception
+      }
+    record(isTrial, isFailure(result))
+    return result
+  }
+
+  /**
+   * Installs this [CircuitBreaker] into the [HttpClient] being configured, by which requests that
+   * are actually sent (that is, aren't served from a cache) are guarded.
+   *
+   * @param config Configuration of the [HttpClient] into which this [CircuitBreaker] is installed.
+   * @param retryPolicy [RetryPolicy] by which failed requests are sent again while the circuit is
+   *   closed, each attempt of which is guarded on its own and goes through the plugins installed
+   *   afterwards (such as the scheduler) again; retries are recorded by the [MetricsRecorder]
+   *   installed into the same [HttpClient], if any.
+   */
+  fun install(config: HttpClientConfig<*>, retryPolicy: RetryPolicy? = null) {
+    config.install(PLUGIN_KEY) {
+      attributes.put(attributeKey, this@CircuitBreaker)
+      plugin(HttpSend).intercept { request ->
+        val metricsRecorder = attributes.getOrNull(MetricsRecorder.attributeKey)
+        if (retryPolicy == null) {
+          guard({ execute(request) }, ::isFailure)
+        } else {
+          retryPolicy.retry(
+            request,
+            canRetry = { state.value == State.CLOSED },
+            onRetry = { metricsRecorder?.recordRetry(request.url.encodedPath) }
+          ) { attempt ->
+            guard({ execute(attempt) }, ::isFailure)
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Lets a request through in case the circuit allows for it.
+   *
+   * @return Whether the request is the trial of a half-open circuit.
+   * @throws OpenCircuitException If the circuit is open.
+   */
+  private fun admit(): Boolean {
+    synchronized(lock) {
+      when (stateFlow.value) {
+        State.CLOSED -> return false
+        State.OPEN -> {
+          val closingMark = closingMark!!
+          if (!closingMark.hasPassedNow()) throw OpenCircuitException(-closingMark.elapsedNow())
+          transitionTo(State.HALF_OPEN)
+        }
+        State.HALF_OPEN -> if (isTrialInFlight) throw OpenCircuitException(Duration.ZERO)
+      }
+      isTrialInFlight = true
+      return true
+    }
+  }
+
+  /**
+   * Records the outcome of a request, changing the [State] of the circuit accordingly.
+   *
+   * @param isTrial Whether the request was the trial of a half-open circuit.
+   * @param hasFailed Whether the request has failed.
+   */
+  private fun record(isTrial: Boolean, hasFailed: Boolean) {
+    synchronized(lock) {
+      when {
+        isTrial -> {
+          isTrialInFlight = false
+          if (hasFailed) open() else close()
+        }
+        stateFlow.value != State.CLOSED -> return
+        hasFailed -> if (++consecutiveFailureCount >= failureThreshold) open()
+        else -> consecutiveFailureCount = 0
+      }
+    }
+  }
+
+  /** Opens the circuit. Should be called while locked. */
+  private fun open() {
+    closingMark = timeSource.markNow() + openDuration
+    transitionTo(State.OPEN)
+  }
+
+  /** Closes the circuit. Should be called while locked. */
+  private fun close() {
+    consecutiveFailureCount = 0
+    closingMark = null
+    transitionTo(State.CLOSED)
+  }
+
+  /**
+   * Changes the [State] of the circuit, emitting the [Transition]. Should be called while locked.
+   *
+   * @param state [State] to which the circuit transitions.
+   */
+  private fun transitionTo(state: State) {
+    val previous = stateFlow.value
+    if (previous != state) {
+      stateFlow.value = state
+      transitionFlow.tryEmit(Transition(previous, state))
+    }
+  }
+
+  /**
+   * Returns whether the [call] has failed because of the instance.
+   *
+   * @param call [HttpClientCall] whose response is checked.
+   */
+  private fun isFailure(call: HttpClientCall): Boolean {
+    return call.response.status.value >= 500
+  }
+
+  companion object {
+    /** Key under which a [CircuitBreaker] is installed into an [HttpClient]. */
+    private const val PLUGIN_KEY = "CircuitBreaker"
+
+    /** Amount of [Transition]s kept for collectors that are slower than the circuit. */
+    private const val TRANSITION_BUFFER_CAPACITY = 16
+
+    /** Default amount of consecutive failures after which the circuit opens. */
+    const val DEFAULT_FAILURE_THRESHOLD = 5
+
+    /** Default amount of time for which the circuit stays open. */
+    val DEFAULT_OPEN_DURATION = 30.seconds
+
+    /** [AttributeKey] by which the [CircuitBreaker] installed into an [HttpClient] is stored. */
+    val attributeKey = AttributeKey<CircuitBreaker>(PLUGIN_KEY)
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resilience
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import io.ktor.client.call.HttpClientCall
+import io.ktor.client.request.HttpRequestBuilder
+import io.ktor.http.HttpMethod
+import java.io.IOException
+import kotlin.random.Random
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.seconds
+import kotlinx.coroutines.delay
+
+/**
+ * Determines which failed requests are sent again and how long to wait before each attempt.
+ *
+ * Only requests that are idempotent are retried: those whose method is defined as such by HTTP
+ * (`GET`, `HEAD`, `OPTIONS`, `PUT` and `DELETE`) and those to which an `Idempotency-Key` header
+ * has been attached, by which the instance recognizes an attempt of a request it has already
+ * processed. Others (such as a `POST` that favourites or reblogs a post) are sent only once, since
+ * sending them again after a failure whose effects are unknown could perform them twice.
+ *
+ * Waits are jittered and decorrelated: each one is a random amount of time between the [baseDelay]
+ * and thrice the previous one (capped at the [maxDelay]), so that clients which failed at the same
+ * time spread their attempts out instead of retrying in lockstep.
+ *
+ * @property maxRetryCount Maximum amount of times that a request is sent again.
+ * @property baseDelay Minimum amount of time to wait before an attempt.
+ * @property maxDelay Maximum amount of time to wait before an attempt.
+ * @property random [Random] by which waits are jittered.
+ * @throws IllegalArgumentException If the [maxRetryCount] is negative or the [baseDelay] is not
+ *   positive or is greater than the [maxDelay].
+ * @see retry
+ */
+@InternalRequesterApi
+internal class RetryPolicy(
+  private val maxRetryCount: Int = DEFAULT_MAX_RETRY_COUNT,
+  private val baseDelay: Duration = DEFAULT_BASE_DELAY,
+  private val maxDelay: Duration = DEFAULT_MAX_DELAY,
+  private val random: Random = Random.Default
+) {
+  init {
+    require(maxRetryCount >= 0) { "Maximum retry count should not be negative ($maxRetryCount)." }
+    require(baseDelay.isPositive() && baseDelay <= maxDelay) {
+      "Base delay ($baseDelay) should be positive and not greater than $maxDelay."
+    }
+  }
+
+  /**
+   * Returns whether the [request] can be sent again after a failure.
+   *
+   * @param request [HttpRequestBuilder] of the request.
+   */
+  fun isRetryable(request: HttpRequestBuilder): Boolean {
+    return request.method in idempotentMethods || IDEMPOTENCY_KEY_HEADER_NAME in request.headers
+  }
+
+  /**
+   * Calculates the amount of time to wait before the next attempt.
+   *
+   * @param previousDelay Amount of time waited before the previous attempt; zero if there was none.
+   */
+  fun delayAfter(previousDelay: Duration): Duration {
+    val upperBound = (previousDelay * 3).coerceIn(baseDelay, maxDelay)
+    val range = (upperBound - baseDelay).inWholeMilliseconds
+    return baseDelay + random.nextLong(range + 1).milliseconds
+  }
+
+  /**
+   * Sends the [request], sending it again while it fails with a server error or an [IOException]
+   * and it [is retryable][isRetryable].
+   *
+   * @param request [HttpRequestBuilder] of the request.
+   * @param canRetry Determines whether another attempt is allowed, which is checked after each
+   *   failure.
+   * @param onRetry Listens to a failed request being about to be sent again.
+   * @param send Sends the given request.
+   * @return [HttpClientCall] of the last attempt.
+   */
+  suspend fun retry(
+    request: HttpRequestBuilder,
+    canRetry: () -> Boolean = { true },
+    onRetry: () -> Unit = {},
+    send: suspend (HttpRequestBuilder) -> HttpClientCall
+  ): HttpClientCall {
+    val isRetryable = isRetryable(request)
+    var attempt = request
+    var retryCount = 0
+    var previousDelay = Duration.ZERO
+    fun mayRetry() = isRetryable && retryCount < maxRetryCount && canRetry()
+    while (true) {
+      val call =
+        try {
+          send(attempt)
+        } catch (exception: IOException) {
+          if (!mayRetry()) throw exception
+          null
+        }
+      if (call != null && (call.response.status.value < 500 || !mayRetry())) {
+        return call
+      }
+      previousDelay = delayAfter(previousDelay)
+      delay(previousDelay)
+      onRetry()
+      attempt = HttpRequestBuilder().takeFrom(request)
+      retryCount++
+    }
+  }
+
+  companion object {
+    /** Name of the header by which a request is identified for it to be processed only once. */
+    const val IDEMPOTENCY_KEY_HEADER_NAME = "Idempotency-Key"
+
+    /** Default maximum amount of times that a request is sent again. */
+    const val DEFAULT_MAX_RETRY_COUNT = 2
+
+    /** Default minimum amount of time to wait before an attempt. */
+    val DEFAULT_BASE_DELAY = 500.milliseconds
+
+    /** Default maximum amount of time to wait before an attempt. */
+    val DEFAULT_MAX_DELAY = 10.seconds
+
+    /** [HttpMethod]s that are defined by HTTP as idempotent. */
+    private val idempotentMethods =
+      setOf(HttpMethod.Get, HttpMethod.Head, HttpMethod.Options, HttpMethod.Put, HttpMethod.Delete)
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.Request
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.RequestDao
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlinx.coroutines.CoroutineExceptionHandler
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.NonCancellable
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+
+/**
+ * Write-behind journal of the [Request]s that are ongoing, by which they're persisted for them to
+ * be resumed in case they get interrupted.
+ *
+ * Insertions and deletions are not written immediately; rather, they're held in memory and written
+ * in a single transaction once the [window] elapses after the first pending one has been made,
+ * coalescing the writes (and the syncs to the file system) of the requests performed within that
+ * period. A [Request] that both starts and finishes within the same window is never written.
+ *
+ * Writes are committed in the order in which their windows elapse. A write that fails has its
+ * insertions and deletions put back as pending, to be retried by the next one; if it was made in
+ * the background, the failure is not propagated.
+ *
+ * @param requestDao [RequestDao] by which [Request]s are written and read.
+ * @param window Amount of time during which insertions and deletions are held before being
+ *   written.
+ */
+@InternalRequesterApi
+internal class RequestJournal(
+  private val requestDao: RequestDao,
+  private val window: Duration = DEFAULT_WINDOW
+) {
+  /**
+   * [CoroutineScope] in which pending insertions and deletions are written. Failures are ignored,
+   * given that the entries of a failed write are kept pending.
+   */
+  private val coroutineScope =
+    CoroutineScope(SupervisorJob() + Dispatchers.IO + CoroutineExceptionHandler { _, _ -> })
+
+  /** [Mutex] by which access to the pending insertions and deletions is synchronized. */
+  private val mutex = Mutex()
+
+  /**
+   * [Mutex] by which writes are serialized, preventing a deletion from being committed before the
+   * insertion of the same [Request] that has been drained in a prior window.
+   */
+  private val writeMutex = Mutex()
+
+  /** [Request]s that are yet to be inserted, associated to their IDs. */
+  private val pendingInsertions = LinkedHashMap<Long, Request>()
+
+  /** [Request]s that are yet to be deleted, associated to their IDs. */
+  private val pendingDeletions = LinkedHashMap<Long, Request>()
+
+  /** IDs of the [Request]s that are known to have been written. */
+  private val persistedIDs = HashSet<Long>()
+
+  /** [Job] that writes the pending insertions and deletions once the [window] elapses. */
+  private var flushJob: Job? = null
+
+  /**
+   * Finds the [Request] identified as [id], either among the pending insertions or among those
+   * that have been written.
+   *
+   * @param id ID of the [Request] to be found.
+   */
+  suspend fun find(id: Long): Request? {
+    return mutex.withLock { pendingInsertions[id] }
+      ?: requestDao.selectByID(id)?.also { mutex.withLock { persistedIDs += it.id } }
+  }
+
+  /**
+   * Schedules the insertion of the [request].
+   *
+   * @param request [Request] that is about to be performed.
+   */
+  suspend fun record(request: Request) {
+    mutex.withLock {
+      pendingDeletions -= request.id
+      pendingInsertions[request.id] = request
+      scheduleFlush()
+    }
+  }
+
+  /**
+   * Schedules the deletion of the [request], discarding its pending insertion in case it hasn't
+   * been written yet.
+   *
+   * @param request [Request] that has been performed.
+   */
+  suspend fun erase(request: Request) {
+    mutex.withLock {
+      pendingInsertions -= request.id
+      if (request.id in persistedIDs) {
+        pendingDeletions[request.id] = request
+        scheduleFlush()
+      }
+    }
+  }
+
+  /** Writes all pending insertions and deletions and then selects all of the [Request]s. */
+  suspend fun selectAll(): List<Request> {
+    flush()
+    return requestDao.selectAll().also { requests ->
+      mutex.withLock { requests.mapTo(persistedIDs, Request::id) }
+    }
+  }
+
+  /**
+   * Writes all pending insertions and deletions in a single transaction, after any write that is
+   * already being performed has finished. In case it fails, they're put back as pending.
+   */
+  suspend fun flush() {
+    writeMutex.withLock {
+      val (insertions, deletions) =
+        mutex.withLock {
+          flushJob = null
+          val insertions = pendingInsertions.values.toList()
+          val deletions = pendingDeletions.values.toList()
+          pendingInsertions.clear()
+          pendingDeletions.clear()
+          insertions.mapTo(persistedIDs, Request::id)
+          deletions.forEach { persistedIDs -= it.id }
+          insertions to deletions
+        }
+      if (insertions.isEmpty() && deletions.isEmpty()) {
+        return
+      }
+      try {
+        requestDao.apply(insertions, deletions)
+      } catch (throwable: Throwable) {
+        withContext(NonCancellable) { mutex.withLock { requeue(insertions, deletions) } }
+        throw throwable
+      }
+    }
+  }
+
+  /**
+   * Puts the insertions and deletions of a failed write back as pending, unless they've been
+   * superseded while it was being performed. Should be called while locked.
+   *
+   * @param insertions [Request]s whose insertion has failed.
+   * @param deletions [Request]s whose deletion has failed.
+   */
+  private fun requeue(insertions: List<Request>, deletions: List<Request>) {
+    for (insertion in insertions) {
+      persistedIDs -= insertion.id
+
+      // The Request has been erased after the write started; since it was not inserted, there is
+      // nothing to delete.
+      if (pendingDeletions.remove(insertion.id) == null) {
+        pendingInsertions.putIfAbsent(insertion.id, insertion)
+      }
+    }
+    for (deletion in deletions) {
+      persistedIDs += deletion.id
+      if (deletion.id !in pendingInsertions) {
+        pendingDeletions.putIfAbsent(deletion.id, deletion)
+      }
+    }
+  }
+
+  /** Launches the [flushJob] in case it hasn't been launched yet. Should be called while locked. */
+  private fun scheduleFlush() {
+    if (flushJob == null) {
+      flushJob =
+        coroutineScope.launch {
+          delay(window)
+          flush()
+        }
+    }
+  }
+
+  companion object {
+    /** Default amount of time during which insertions and deletions are held. */
+    val DEFAULT_WINDOW = 50.milliseconds
+  }
+}
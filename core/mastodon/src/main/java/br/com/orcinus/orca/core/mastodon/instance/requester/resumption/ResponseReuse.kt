@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption
+
+import androidx.annotation.VisibleForTesting
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import br.com.orcinus.orca.core.mastodon.instance.requester.countBodyBytes
+import io.ktor.client.statement.HttpResponse
+import java.lang.ref.SoftReference
+import kotlin.time.Duration
+
+/**
+ * Bounded, thread-safe holder of [HttpResponse]s that are eligible for reuse, associated to the IDs
+ * of the requests to which they've been received.
+ *
+ * Each [HttpResponse] is considered alive for [timeToLive], counted from the moment in which it has
+ * been received, and the least recently reused ones are evicted whenever either the
+ * [maxEntryCount] or the [maxByteCount] is exceeded. [HttpResponse]s are also softly referenced,
+ * allowing for them to be reclaimed by the garbage collector when the memory is low.
+ *
+ * @param elapsedTimeProvider [ResumableRequester.ElapsedTimeProvider] by which the times of receipt
+ *   and of reuse are provided.
+ * @param timeToLive [Duration] for which an [HttpResponse] is alive after having been received.
+ * @param maxEntryCount Maximum amount of [HttpResponse]s that can be held.
+ * @param maxByteCount Maximum sum of the lengths of the contents of the held [HttpResponse]s.
+ * @throws IllegalArgumentException If either the [maxEntryCount] or the [maxByteCount] is not
+ *   positive.
+ */
+@InternalRequesterApi
+internal class ResponseReuse(
+  private val elapsedTimeProvider: ResumableRequester.ElapsedTimeProvider,
+  private val timeToLive: Duration,
+  private val maxEntryCount: Int = DEFAULT_MAX_ENTRY_COUNT,
+  private val maxByteCount: Long = DEFAULT_MAX_BYTE_COUNT
+) {
+  /** [Entry]s associated to the IDs of the requests, ordered from least to most recently used. */
+  private val entries = LinkedHashMap<Long, Entry>(16, .75f, /* accessOrder = */ true)
+
+  /** Sum of the byte counts of the [entries]. Should only be accessed while synchronized. */
+  private var currentByteCount = 0L
+
+  /** Sum of the lengths of the contents of the [HttpResponse]s that are currently held. */
+  @VisibleForTesting
+  val byteCount
+    get() = synchronized(entries) { currentByteCount }
+
+  /** Amount of [HttpResponse]s that are currently held. */
+  @VisibleForTesting
+  val size
+    get() = synchronized(entries) { entries.size }
+
+  /**
+   * Softly referenced [HttpResponse] alongside metadata about its receipt.
+   *
+   * @property receiptTime Time that had been elapsed when the [HttpResponse] was received.
+   * @property byteCount Length of the content of the [HttpResponse].
+   */
+  private class Entry(response: HttpResponse, val receiptTime: Duration, val byteCount: Long) {
+    /** [SoftReference] to the [HttpResponse], which is cleared when the memory is low. */
+    val reference = SoftReference(response)
+  }
+
+  init {
+    require(maxEntryCount > 0) { "Maximum entry count should be positive ($maxEntryCount)." }
+    require(maxByteCount > 0) { "Maximum byte count should be positive ($maxByteCount)." }
+  }
+
+  /**
+   * Obtains the [HttpResponse] that has been received to the request identified as [id], in case
+   * it is alive and hasn't been reclaimed.
+   *
+   * @param id ID of the request.
+   */
+  fun get(id: Long): HttpResponse? {
+    val now = elapsedTimeProvider.provide()
+    return synchronized(entries) {
+      val entry = entries[id] ?: return null
+      val response = entry.reference.get()
+      if (response == null || now - entry.receiptTime > timeToLive) {
+        remove(id)
+        null
+      } else {
+        response
+      }
+    }
+  }
+
+  /**
+   * Holds the [response] for reuse, evicting the least recently reused ones if either limit is
+   * exceeded. [HttpResponse]s whose content is longer than the [maxByteCount] are not held.
+   *
+   * The length of the content is the one declared by the `Content-Length` header or, in case it is
+   * absent (as it is from chunked responses), that of the body that has been saved.
+   *
+   * @param id ID of the request to which the [response] has been received.
+   * @param response [HttpResponse] to be held, whose body has been saved.
+   */
+  suspend fun put(id: Long, response: HttpResponse) {
+    val entry = Entry(response, elapsedTimeProvider.provide(), response.countBodyBytes())
+    synchronized(entries) {
+      remove(id)
+      if (entry.byteCount > maxByteCount) {
+        return
+      }
+      entries[id] = entry
+      currentByteCount += entry.byteCount
+      trim()
+    }
+  }
+
+  /** Stops holding all of the [HttpResponse]s. */
+  fun clear() {
+    synchronized(entries) {
+      entries.clear()
+      currentByteCount = 0
+    }
+  }
+
+  /**
+   * Removes the [Entry] associated to the [id]. Should be called while synchronized.
+   *
+   * @param id ID of the request whose [Entry] is to be removed.
+   */
+  private fun remove(id: Long) {
+    entries.remove(id)?.let { currentByteCount -= it.byteCount }
+  }
+
+  /**
+   * Evicts reclaimed [Entry]s and, then, the least recently reused ones until both limits are
+   * respected. Should be called while synchronized.
+   */
+  private fun trim() {
+    val iterator = entries.values.iterator()
+    while (iterator.hasNext()) {
+      val entry = iterator.next()
+      if (
+        entry.reference.get() == null ||
+          entries.size > maxEntryCount ||
+          currentByteCount > maxByteCount
+      ) {
+        iterator.remove()
+        currentByteCount -= entry.byteCount
+      }
+    }
+  }
+
+  companion object {
+    /** Default maximum amount of [HttpResponse]s that can be held. */
+    const val DEFAULT_MAX_ENTRY_COUNT = 64
+
+    /** Default maximum sum of the lengths of the contents of the held [HttpResponse]s. */
+    const val DEFAULT_MAX_BYTE_COUNT = 2L * 1_024 * 1_024
+  }
+}
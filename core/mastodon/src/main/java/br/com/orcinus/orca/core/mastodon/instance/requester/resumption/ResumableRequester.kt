@@ -21,10 +21,14 @@ import br.com.orcinus.orca.core.mastodon.MastodonDatabase
 import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
 import br.com.orcinus.orca.core.mastodon.instance.requester.Logger
 import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
+import br.com.orcinus.orca.core.mastodon.instance.requester.cache.ResponseCache
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.MetricsSink
 import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.Request
 import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.RequestDao
-import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.headers.form.PartDataKSerializer
 import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.headers.strings.serializer
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool.FormSpool
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool.SpooledPart
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool.SpooledPartKSerializer
 import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
 import br.com.orcinus.orca.std.func.monad.Maybe
 import br.com.orcinus.orca.std.injector.Injector
@@ -32,12 +36,13 @@ import br.com.orcinus.orca.std.injector.module.Module
 import io.ktor.client.engine.HttpClientEngine
 import io.ktor.client.engine.HttpClientEngineFactory
 import io.ktor.client.request.HttpRequestBuilder
-import io.ktor.client.request.forms.formData
 import io.ktor.client.statement.HttpResponse
 import io.ktor.http.Parameters
 import io.ktor.http.content.PartData
 import io.ktor.util.StringValues
+import java.io.File
 import java.net.URI
+import java.util.concurrent.ConcurrentHashMap
 import kotlin.contracts.ExperimentalContracts
 import kotlin.contracts.InvocationKind
 import kotlin.contracts.contract
@@ -57,33 +62,59 @@ import kotlinx.serialization.json.Json
  * automatically retried after a call to [resume]. They're also reusable, which means that ones that
  * have been performed repeatedly (within the period whose duration is defined by [timeToLive])
  * won't be performed again and the previously obtained response will be reused instead for maximum
- * saving of resources.
+ * saving of resources. Reused responses are held in a bounded [ResponseReuse], which may also
+ * reclaim them when the memory is low.
+ *
+ * Only requests whose methods are not idempotent (DELETE and POST) are journaled for resumption;
+ * GET ones, which can be safely performed again whenever needed, are never persisted. Journaling
+ * is write-behind, with the writes of requests performed in quick succession being coalesced (see
+ * [RequestJournal]). The contents of binary parts of `multipart/form-data` bodies are spooled to
+ * files by the [formSpool], and only references to them are journaled; the spooled files are also
+ * what the bodies are streamed from when the requests are sent.
  *
  * @property elapsedTimeProvider [ResumableRequester.ElapsedTimeProvider] with which each request
  *   will be timestamped.
  * @property requestDao [RequestDao] for performing read and write operations on [Request]s.
+ * @property formSpool [FormSpool] to which binary parts of forms are written.
  * @property logger [Logger] by which received [HttpResponse]s will be logged.
  * @property clientEngineFactory [HttpClientEngineFactory] that creates the [HttpClientEngine]
  *   powering the underlying [client].
  * @property baseURI [URI] from which routes are constructed.
+ * @property responseCache [ResponseCache] by which responses are cached on the disk.
+ * @property metricsSink [MetricsSink] into which measurements of the requests are recorded, along
+ *   with the time spent journaling them and spooling their forms.
  */
 internal class ResumableRequester
 @InternalRequesterApi
 constructor(
   @InternalRequesterApi val elapsedTimeProvider: ElapsedTimeProvider,
   @InternalRequesterApi val requestDao: RequestDao,
+  @InternalRequesterApi val formSpool: FormSpool,
   logger: Logger,
   baseURI: URI,
-  clientEngineFactory: HttpClientEngineFactory<*>
-) : Requester<Exception>(logger, baseURI, clientEngineFactory) {
-  /** Responses that are currently ongoing. */
-  private val progress = hashMapOf<Request, Deferred<HttpResponse>>()
+  clientEngineFactory: HttpClientEngineFactory<*>,
+  responseCache: ResponseCache?,
+  metricsSink: MetricsSink
+) : Requester<Exception>(logger, baseURI, clientEngineFactory, responseCache, metricsSink) {
+  /** [RequestJournal] by which non-idempotent requests are persisted for resumption. */
+  private val journal = RequestJournal(requestDao)
+
+  /** [Progress] of the responses that are currently ongoing, associated to the IDs of requests. */
+  private val progress = ConcurrentHashMap<Long, Progress>()
 
   /**
    * Responses to previously performed requests that haven't yet become stale (that is, are alive)
    * and are eligible for reuse.
    */
-  private val reuse = hashMapOf<Request, HttpResponse>()
+  private val reuse = ResponseReuse(elapsedTimeProvider, timeToLive)
+
+  /**
+   * Response that is currently ongoing.
+   *
+   * @property request Metadata of the request to which the response is to be received.
+   * @property deferred [Deferred] by which the response is awaited.
+   */
+  private class Progress(val request: Request, val deferred: Deferred<HttpResponse>)
 
   /**
    * Provider of the current Unix timestamp.
@@ -115,7 +146,7 @@ constructor(
     route: URI,
     build: HttpRequestBuilder.() -> Unit
   ) =
-    prepareForResumption(Request.MethodName.DELETE, config, formData(), route) {
+    prepareForResumption(Request.MethodName.DELETE, config, emptyList(), route) {
       super.delete(config, route, build)
     }
 
@@ -124,7 +155,7 @@ constructor(
     route: URI,
     build: HttpRequestBuilder.() -> Unit
   ) =
-    prepareForResumption(Request.MethodName.GET, config, formData(), route) {
+    prepareForResumption(Request.MethodName.GET, config, emptyList(), route) {
       super.get(config, route, build)
     }
 
@@ -133,7 +164,7 @@ constructor(
     route: URI,
     build: HttpRequestBuilder.() -> Unit
   ) =
-    prepareForResumption(Request.MethodName.POST, config, formData(), route) {
+    prepareForResumption(Request.MethodName.POST, config, emptyList(), route) {
       super.post(config, route, build)
     }
 
@@ -142,10 +173,12 @@ constructor(
     route: URI,
     form: List<PartData>,
     build: HttpRequestBuilder.() -> Unit
-  ) =
-    prepareForResumption(Request.MethodName.POST, config, formData(), route) {
-      super.post(config, route, form, build)
+  ): Maybe<Exception, HttpResponse> {
+    val spooledForm = metrics.measure(route, SPOOLING_SPAN_NAME) { formSpool.spool(form) }
+    return prepareForResumption(Request.MethodName.POST, config, spooledForm, route) {
+      super.post(config, route, formSpool.load(spooledForm), build)
     }
+  }
 
   /**
    * Restarts requests that have been attempted to be performed previously and were cancelled when
@@ -155,7 +188,17 @@ constructor(
    * @see interrupt
    */
   suspend fun resume() = runCatching {
-    for (request in requestDao.selectAll()) {
+    val requests = journal.selectAll()
+    val forms =
+      requests.associateWith {
+        Json.decodeFromString(ListSerializer(SpooledPartKSerializer), it.form)
+      }
+    formSpool.sweep(forms.values.flatten())
+    for ((request, spooledForm) in forms) {
+      if (!formSpool.isAvailable(spooledForm)) {
+        journal.erase(request)
+        continue
+      }
       val route = { _: HostedURLBuilder -> URI(request.route) }
       val config: Configuration.Builder.() -> Unit = {
         headers {
@@ -168,9 +211,7 @@ constructor(
           onDelete = { delete(route, config) },
           onGet = { get(route, config) },
           onPost = {
-            val form = Json.decodeFromString(ListSerializer(PartDataKSerializer), request.form)
-            val isFormEmpty = form.isEmpty()
-            if (isFormEmpty) {
+            if (spooledForm.isEmpty()) {
               post(route) {
                 config()
                 parameters {
@@ -180,7 +221,7 @@ constructor(
                 }
               }
             } else {
-              post(route, form, config)
+              post(route, formSpool.load(spooledForm), config)
             }
           }
         )
@@ -190,24 +231,28 @@ constructor(
 
   /** Interrupts all of the ongoing requests. */
   fun interrupt() {
-    progress
-      .onEach { (request, deferred) -> deferred.cancel(InterruptionException(request)) }
-      .clear()
+    for ((id, ongoing) in progress) {
+      if (progress.remove(id, ongoing)) {
+        ongoing.deferred.cancel(InterruptionException(ongoing.request))
+      }
+    }
   }
 
   /**
-   * Persists the request intended to be performed in the lambda whose return is awaited in another
-   * [CoroutineScope]; then, removes the persisted information afterwards when it responds. The
-   * produced response is made alive for a given amount of time (specified by [timeToLive]),
-   * allowing for repeated calls to this method within that period to reuse and return the "cached"
-   * response instead of actually executing the [request] again.
+   * Journals the request intended to be performed in the lambda whose return is awaited in another
+   * [CoroutineScope] (unless it is a GET one, which is never journaled); then, erases the journaled
+   * information afterwards when it responds. The produced response is made alive for a given amount
+   * of time (specified by [timeToLive]), allowing for repeated calls to this method within that
+   * period to reuse and return the "cached" response instead of actually executing the [request]
+   * again.
    *
-   * In case the [request] gets interrupted, it will then be executed again when [resume] is called.
+   * In case a non-GET [request] gets interrupted, it will then be executed again when [resume] is
+   * called.
    *
    * @param methodName Name of the HTTP method that's equivalent to that of the request to be
    *   performed.
    * @param config [Requester.Configuration] with which the request will be configured.
-   * @param form [PartData] to be included as headers.
+   * @param form [SpooledPart]s that compose the body, released once the request is finished.
    * @param route Builds the route from the [baseURI] to which the request will be sent.
    * @param request Actual performance of the request to which the HTTP method refers.
    */
@@ -215,57 +260,73 @@ constructor(
   private suspend inline fun prepareForResumption(
     @Request.MethodName methodName: String,
     config: Configuration,
-    form: List<PartData>,
+    form: List<SpooledPart>,
     route: URI,
     crossinline request: suspend () -> Maybe<Exception, HttpResponse>
   ): Maybe<Exception, HttpResponse> {
     contract { callsInPlace(request, InvocationKind.AT_MOST_ONCE) }
-    return coroutineScope {
-      val entity =
-        retrieveOrCreateRequest(
-          methodName,
-          "$route",
-          config,
-          Json.encodeToString(ListSerializer(PartDataKSerializer), form)
-        )
-      requestDao.insert(entity)
-      val response = progress.computeIfAbsent(entity) { async { respond(entity, request) } }.await()
-      progress -= entity
-      requestDao.delete(entity)
-      Maybe.successful(response)
+    var isErased = false
+    try {
+      return coroutineScope {
+        val isJournaled = methodName != Request.MethodName.GET
+        val entity =
+          metrics.measure(route, JOURNALING_SPAN_NAME) {
+            retrieveOrCreateRequest(methodName, "$route", config, form, isJournaled).also {
+              if (isJournaled) {
+                journal.record(it)
+              }
+            }
+          }
+        val ongoing =
+          progress.computeIfAbsent(entity.id) {
+            Progress(entity, async { respond(entity, request) })
+          }
+        val response =
+          try {
+            ongoing.deferred.await()
+          } finally {
+            progress.remove(entity.id, ongoing)
+          }
+        if (isJournaled) {
+          metrics.measure(route, JOURNALING_SPAN_NAME) { journal.erase(entity) }
+        }
+        isErased = true
+        Maybe.successful(response)
+      }
+    } finally {
+      formSpool.release(form, isDisposable = isErased)
     }
   }
 
   /**
-   * Either retrieves a [Request] that has an ID that equals to that which is generated for the
-   * given characteristics or creates a new one.
+   * Either retrieves a journaled [Request] that has an ID that equals to that which is generated
+   * for the given characteristics or creates a new one.
    *
    * @param methodName Name of the HTTP method called on the [route].
    * @param route Specific, absolute resource on which the HTTP method is being called.
    * @param config [Requester.Configuration] with which the request will be configured.
-   * @param serializedForm Serialized version of multiple [PartData].
+   * @param form [SpooledPart]s that compose the body.
+   * @param isJournaled Whether the [Request] may have been journaled; if it may not, the journal
+   *   is not looked up.
    */
+  @Suppress("DiscouragedApi")
   private suspend fun retrieveOrCreateRequest(
     @Request.MethodName methodName: String,
     route: String,
     config: Configuration,
-    serializedForm: String
+    form: List<SpooledPart>,
+    isJournaled: Boolean
   ): Request {
-    val serializedHeaders = Json.encodeToString(StringValues.serializer(), config.headers)
-    val serializedParameters =
-      Json.encodeToString(
-        StringValues.serializer(),
-        if (config is Configuration.UrlEncoded) config.parameters else Parameters.Empty
-      )
-    val id =
-      Request.generateID(methodName, route, serializedHeaders, serializedParameters, serializedForm)
-    return requestDao.selectByID(id)
+    val parameters = if (config is Configuration.UrlEncoded) config.parameters else Parameters.Empty
+    val id = Request.generateID(methodName, route, config.headers, parameters, form)
+    return (if (isJournaled) journal.find(id) else null)
       ?: Request(
+        id,
         methodName,
         route,
-        serializedHeaders,
-        serializedParameters,
-        serializedForm,
+        Json.encodeToString(StringValues.serializer(), config.headers),
+        Json.encodeToString(StringValues.serializer(), parameters),
+        Json.encodeToString(ListSerializer(SpooledPartKSerializer), form),
         timestamp = elapsedTimeProvider.provide().inWholeMilliseconds
       )
   }
@@ -286,31 +347,28 @@ constructor(
     crossinline request: suspend () -> Maybe<Exception, HttpResponse>
   ): HttpResponse {
     contract { callsInPlace(request, InvocationKind.AT_MOST_ONCE) }
-    val reusedResponse = reuse[entity]
-    return if (reusedResponse == null || isResponseStale(entity)) {
-      val fetchedResponse = request().getValueOrThrow()
-      reuse[entity] = fetchedResponse
-      fetchedResponse
-    } else {
-      reusedResponse
-    }
-  }
-
-  /**
-   * Returns whether the response associated to the [request] is stale.
-   *
-   * @param request [Request] whose response's staleness will be checked.
-   */
-  private fun isResponseStale(request: Request): Boolean {
-    return elapsedTimeProvider.provide() - request.timestamp.milliseconds > timeToLive
+    return reuse.get(entity.id)
+      ?: request().getValueOrThrow().also { reuse.put(entity.id, it) }
   }
 
   companion object {
-    /** [Duration] for which a request is considered to be alive and its response can be reused. */
+    /** Name of the spans of the time spent looking up, recording and erasing journaled requests. */
+    private const val JOURNALING_SPAN_NAME = "journaling"
+
+    /** Name of the span of the time spent spooling binary parts of forms to files. */
+    private const val SPOOLING_SPAN_NAME = "spooling"
+
+    /**
+     * [Duration] for which a response, counted from the moment in which it is received, is
+     * considered to be alive and can be reused.
+     */
     @InternalRequesterApi @VisibleForTesting val timeToLive = 5.seconds
   }
 }
 
+/** Name of the directory, within that of the files of the application, of the [FormSpool]. */
+private const val FORM_SPOOL_DIRECTORY_NAME = "requests"
+
 /**
  * Returns a [ResumableRequester] based on the receiver [Requester].
  *
@@ -320,7 +378,8 @@ constructor(
 internal fun Requester<*>.resumable(): ResumableRequester {
   val context = Injector.get<Context>()
   val requestDao = MastodonDatabase.getInstance(context).requestDao
-  return resumable(ResumableRequester.ElapsedTimeProvider.system, requestDao)
+  val formSpool = FormSpool.getInstance(File(context.filesDir, FORM_SPOOL_DIRECTORY_NAME))
+  return resumable(ResumableRequester.ElapsedTimeProvider.system, requestDao, formSpool)
 }
 
 /**
@@ -329,12 +388,25 @@ internal fun Requester<*>.resumable(): ResumableRequester {
  * @property elapsedTimeProvider [ResumableRequester.ElapsedTimeProvider] with which each request
  *   will be timestamped.
  * @property requestDao [RequestDao] for performing read and write operations on [Request]s.
+ * @property formSpool [FormSpool] to which binary parts of forms are written.
  */
 internal fun Requester<*>.resumable(
   elapsedTimeProvider: ResumableRequester.ElapsedTimeProvider,
-  requestDao: RequestDao
+  requestDao: RequestDao,
+  formSpool: FormSpool
 ) =
   (this as? ResumableRequester)?.takeIf {
-    it.elapsedTimeProvider == elapsedTimeProvider && it.requestDao == requestDao
+    it.elapsedTimeProvider == elapsedTimeProvider &&
+      it.requestDao == requestDao &&
+      it.formSpool == formSpool
   }
-    ?: ResumableRequester(elapsedTimeProvider, requestDao, logger, baseURI, clientEngineFactory)
+    ?: ResumableRequester(
+      elapsedTimeProvider,
+      requestDao,
+      formSpool,
+      logger,
+      baseURI,
+      clientEngineFactory,
+      responseCache,
+      metricsSink
+    )
@@ -21,19 +21,24 @@ import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.PrimaryKey
 import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.headers.strings.serializer
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool.SpooledPart
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool.SpooledPartKSerializer
 import io.ktor.http.Headers
-import io.ktor.http.content.PartData
+import io.ktor.http.Parameters
 import io.ktor.util.StringValues
+import kotlinx.serialization.builtins.ListSerializer
+import kotlinx.serialization.json.Json
 
 /**
  * Persistable entity of an HTTP request.
  *
- * @property id Identifier generated by Room.
+ * @property id [RequestFingerprint] of the request, by which it is identified.
  * @property methodName Name of the HTTP method called on the [route].
  * @property route Specific resource on which the HTTP method is being called.
  * @property headers [String]-serialized form of the added [Headers].
  * @property parameters Serialized version of [StringValues] that have been added as parameters.
- * @property form Serialized version of multiple [PartData].
+ * @property form Serialized version of the [SpooledPart]s that compose the body.
  * @property timestamp Unix time in which the request was performed.
  * @throws IllegalStateException If the [methodName] isn't that of a supported method (that is,
  *   isn't one of the constants defined by [MethodName]).
@@ -44,7 +49,7 @@ internal data class Request
 @InternalRequesterApi
 @Throws(IllegalStateException::class)
 constructor(
-  @PrimaryKey val id: Int,
+  @PrimaryKey val id: Long,
   @ColumnInfo(name = "method_name") @MethodName val methodName: String,
   val route: String,
   val headers: String,
@@ -69,13 +74,13 @@ constructor(
   }
 
   /**
-   * Persistable structure of an HTTP request whose identifier is automatically generated by Room.
+   * Persistable structure of an HTTP request whose identifier is its [RequestFingerprint].
    *
    * @param methodName Name of the HTTP method called on the [route].
    * @param route Specific resource on which the HTTP method is being called.
-   * @param headers [String]-serialized form of the added [Headers].
-   * @param parameters Serialized version of [StringValues] that have been added as parameters.
-   * @param form Serialized version of multiple [PartData].
+   * @param headers [Headers] that have been added.
+   * @param parameters [Parameters] that have been added.
+   * @param form [SpooledPart]s that compose the body.
    * @param timestamp Unix time in which the request was performed.
    * @throws IllegalStateException If the [methodName] isn't that of a supported method (that is,
    *   isn't one of the constants defined by [MethodName]).
@@ -86,17 +91,17 @@ constructor(
   constructor(
     @MethodName methodName: String,
     route: String,
-    headers: String,
-    parameters: String,
-    form: String,
+    headers: Headers,
+    parameters: Parameters,
+    form: List<SpooledPart>,
     timestamp: Long
   ) : this(
     generateID(methodName, route, headers, parameters, form),
     methodName,
     route,
-    headers,
-    parameters,
-    form,
+    Json.encodeToString(StringValues.serializer(), headers),
+    Json.encodeToString(StringValues.serializer(), parameters),
+    Json.encodeToString(ListSerializer(SpooledPartKSerializer), form),
     timestamp
   )
 
@@ -131,19 +136,20 @@ constructor(
      *
      * @param methodName Name of the HTTP method called on the [route].
      * @param route Specific resource on which the HTTP method is being called.
-     * @param headers [String]-serialized form of the [Headers] to be added.
-     * @param parameters Serialized version of [StringValues] that have been added as parameters.
-     * @param form Serialized version of multiple [PartData].
+     * @param headers [StringValues] that have been added as headers.
+     * @param parameters [StringValues] that have been added as parameters.
+     * @param form [SpooledPart]s that compose the body.
+     * @see RequestFingerprint
      */
     @InternalRequesterApi
     fun generateID(
       @MethodName methodName: String,
       route: String,
-      headers: String,
-      parameters: String,
-      form: String
-    ): Int {
-      return methodName.plus(route).plus(headers).plus(parameters).plus(form).hashCode()
+      headers: StringValues,
+      parameters: StringValues,
+      form: List<SpooledPart>
+    ): Long {
+      return RequestFingerprint.of(methodName, route, headers, parameters, form)
     }
   }
 }
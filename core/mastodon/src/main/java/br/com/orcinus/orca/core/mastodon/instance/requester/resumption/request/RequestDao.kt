@@ -20,6 +20,7 @@ import androidx.room.Delete
 import androidx.room.Insert
 import androidx.room.OnConflictStrategy
 import androidx.room.Query
+import androidx.room.Transaction
 import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
 
 /** DAO by which [Request]-related read and write operations are performed. */
@@ -42,7 +43,7 @@ internal abstract class RequestDao {
    */
   @InternalRequesterApi
   @Query("SELECT * FROM requests WHERE id = :id")
-  abstract suspend fun selectByID(id: Int): Request?
+  abstract suspend fun selectByID(id: Long): Request?
 
   /**
    * Inserts the [request].
@@ -61,6 +62,36 @@ internal abstract class RequestDao {
    */
   @Delete @InternalRequesterApi abstract suspend fun delete(request: Request)
 
+  /**
+   * Inserts all of the [requests].
+   *
+   * @param requests [Request]s to be inserted.
+   */
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  @InternalRequesterApi
+  abstract suspend fun insertAll(requests: List<Request>)
+
+  /**
+   * Deletes all of the given inserted [requests].
+   *
+   * @param requests [Request]s to be deleted.
+   * @see insert
+   */
+  @Delete @InternalRequesterApi abstract suspend fun deleteAll(requests: List<Request>)
+
+  /**
+   * Inserts the [insertions] and deletes the [deletions] in a single transaction.
+   *
+   * @param insertions [Request]s to be inserted.
+   * @param deletions [Request]s to be deleted.
+   */
+  @InternalRequesterApi
+  @Transaction
+  open suspend fun apply(insertions: List<Request>, deletions: List<Request>) {
+    insertAll(insertions)
+    deleteAll(deletions)
+  }
+
   /**
    * Deletes all of the [Request]s that have been inserted.
    *
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool.SpooledPart
+import io.ktor.http.Headers
+import io.ktor.util.StringValues
+
+/**
+ * Computes 64-bit fingerprints of requests. Each one is computed directly over the method name,
+ * route, headers, parameters and form of the request, and none of them is first converted into
+ * an intermediate representation (such as JSON).
+ *
+ * [String]s are hashed char by char with FNV-1a, prefixed by their length. This way, sequences of
+ * [String]s that would be equal once concatenated (e.g., "/a" + "bc" and "/ab" + "c") result in
+ * distinct fingerprints. Each entry of a [StringValues] is hashed independently and the hashes
+ * are summed, so the order in which the entries were appended doesn't matter. Names of [Headers]
+ * are hashed in lowercase, since they're case-insensitive. The result goes through the finalizer
+ * of MurmurHash3, which spreads the influence of every input bit across the whole [Long].
+ *
+ * Parts of the form are fingerprinted as [SpooledPart]s. Binary ones are fingerprinted by their
+ * headers and by their contents, whose SHA-256 digest (computed as they were spooled) is combined
+ * byte by byte; this way, parts with equal headers but distinct contents (e.g., two videos sent
+ * under the same file name) result in distinct fingerprints.
+ */
+@InternalRequesterApi
+internal object RequestFingerprint {
+  /** Initial state of a 64-bit FNV-1a hash (`0xcbf29ce484222325`). */
+  private const val OFFSET_BASIS = -0x340d631b7bdddcdbL
+
+  /** Prime by which a 64-bit FNV-1a hash is multiplied after each unit is combined into it. */
+  private const val PRIME = 0x100000001b3L
+
+  /**
+   * Computes the fingerprint of a request.
+   *
+   * @param methodName Name of the HTTP method called on the [route].
+   * @param route Specific resource on which the HTTP method is being called.
+   * @param headers [StringValues] that have been added as headers.
+   * @param parameters [StringValues] that have been added as parameters.
+   * @param form [SpooledPart]s that compose the body.
+   */
+  fun of(
+    @Request.MethodName methodName: String,
+    route: String,
+    headers: StringValues,
+    parameters: StringValues,
+    form: List<SpooledPart>
+  ): Long {
+    var hash = combine(OFFSET_BASIS, methodName)
+    hash = combine(hash, route)
+    hash = combine(hash, headers)
+    hash = combine(hash, parameters)
+    hash = combine(hash, form.size.toLong())
+    for (part in form) {
+      hash = combine(hash, part)
+    }
+    return mix(hash)
+  }
+
+  /**
+   * Combines the kind, the headers and either the value or the contents of the [part] into the
+   * [hash].
+   *
+   * @param hash Hash into which the [part] is combined.
+   * @param part [SpooledPart] to be combined.
+   */
+  private fun combine(hash: Long, part: SpooledPart): Long {
+    return when (part) {
+      is SpooledPart.Value -> combine(combine(combine(hash, 0L), part.headers), part.value)
+      is SpooledPart.Binary ->
+        combineContents(combine(combine(hash, 1L), part.headers), part.digest)
+    }
+  }
+
+  /**
+   * Combines the contents of a binary part into the [hash] through each byte of their [digest].
+   *
+   * @param hash Hash into which the contents are combined.
+   * @param digest Hexadecimal SHA-256 digest of the contents.
+   */
+  private fun combineContents(hash: Long, digest: String): Long {
+    var result = combine(hash, digest.length / 2L)
+    for (index in 0 until digest.length - 1 step 2) {
+      val byte = Character.digit(digest[index], 16) shl 4 or Character.digit(digest[index + 1], 16)
+      result = (result xor byte.toLong()) * PRIME
+    }
+    return result
+  }
+
+  /**
+   * Combines the [values] into the [hash] independently of the order of their entries.
+   *
+   * @param hash Hash into which the [values] are combined.
+   * @param values [StringValues] to be combined.
+   */
+  private fun combine(hash: Long, values: StringValues): Long {
+    var sum = 0L
+    var count = 0L
+    values.forEach { name, entries ->
+      var entryHash = combine(OFFSET_BASIS, name, values.caseInsensitiveName)
+      entryHash = combine(entryHash, entries.size.toLong())
+      for (entry in entries) {
+        entryHash = combine(entryHash, entry)
+      }
+      sum += mix(entryHash)
+      count++
+    }
+    return combine(combine(hash, count), sum)
+  }
+
+  /**
+   * Combines the length and the chars of the [string] into the [hash].
+   *
+   * @param hash Hash into which the [string] is combined.
+   * @param string [String] to be combined.
+   * @param isCaseInsensitive Whether the chars should be combined in lowercase.
+   */
+  private fun combine(hash: Long, string: String, isCaseInsensitive: Boolean = false): Long {
+    var result = combine(hash, string.length.toLong())
+    for (char in string) {
+      val unit = if (isCaseInsensitive) char.lowercaseChar() else char
+      result = (result xor unit.code.toLong()) * PRIME
+    }
+    return result
+  }
+
+  /**
+   * Combines the [value] into the [hash].
+   *
+   * @param hash Hash into which the [value] is combined.
+   * @param value [Long] to be combined.
+   */
+  private fun combine(hash: Long, value: Long): Long {
+    return (hash xor mix(value)) * PRIME
+  }
+
+  /**
+   * Spreads the bits of the [hash] with the 64-bit finalizer of MurmurHash3.
+   *
+   * @param hash Hash whose bits are to be spread.
+   */
+  private fun mix(hash: Long): Long {
+    var result = hash xor (hash ushr 33)
+    result *= -0xae502812aa7333L
+    result = result xor (result ushr 33)
+    result *= -0x3b314601e57a13adL
+    return result xor (result ushr 33)
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request
+
+import android.content.ContentValues
+import android.database.sqlite.SQLiteDatabase
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.headers.form.PartDataKSerializer
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.headers.strings.serializer
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.headers.strings.toHeaders
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.headers.strings.toParameters
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool.SpooledPart
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool.SpooledPartKSerializer
+import io.ktor.http.content.PartData
+import io.ktor.util.StringValues
+import kotlinx.serialization.builtins.ListSerializer
+import kotlinx.serialization.json.Json
+
+/**
+ * [Migration] that replaces the IDs of journaled [Request]s with their [RequestFingerprint]s. Until
+ * then, a [Request]'s ID was the 32-bit hash code of its serialized characteristics. A [Request]
+ * whose ID no longer matches would never be found again, so it would be resumed on every launch.
+ *
+ * Forms, formerly serialized as whole [PartData], are rewritten as [SpooledPart]s. The contents
+ * of binary parts can't be spooled without the directory of the files; rows with such parts are
+ * dropped. Version 1 never journaled forms, so none of them should have any.
+ *
+ * All rows are read before any is rewritten. Otherwise, the new ID of one could replace the old
+ * ID of another that hasn't been migrated yet.
+ */
+internal object RequestIDMigration : Migration(startVersion = 1, endVersion = 2) {
+  override fun migrate(db: SupportSQLiteDatabase) {
+    val rows = mutableListOf<ContentValues>()
+    db.query("SELECT method_name, route, headers, parameters, form, timestamp FROM requests").use {
+      while (it.moveToNext()) {
+        val methodName = it.getString(0)
+        val route = it.getString(1)
+        val headers = it.getString(2)
+        val parameters = it.getString(3)
+        val form =
+          Json.decodeFromString(ListSerializer(PartDataKSerializer), it.getString(4)).map { part ->
+            (part as? PartData.FormItem)?.let { item ->
+              SpooledPart.Value(item.headers, item.value)
+            }
+          }
+        if (null in form) continue
+        val spooledForm = form.filterNotNull()
+        val id =
+          Request.generateID(
+            methodName,
+            route,
+            Json.decodeFromString(StringValues.serializer(), headers).toHeaders(),
+            Json.decodeFromString(StringValues.serializer(), parameters).toParameters(),
+            spooledForm
+          )
+        rows +=
+          ContentValues().apply {
+            put("id", id)
+            put("method_name", methodName)
+            put("route", route)
+            put("headers", headers)
+            put("parameters", parameters)
+            put("form", Json.encodeToString(ListSerializer(SpooledPartKSerializer), spooledForm))
+            put("timestamp", it.getLong(5))
+          }
+      }
+    }
+    db.execSQL("DELETE FROM requests")
+    for (row in rows) {
+      db.insert("requests", SQLiteDatabase.CONFLICT_REPLACE, row)
+    }
+  }
+}
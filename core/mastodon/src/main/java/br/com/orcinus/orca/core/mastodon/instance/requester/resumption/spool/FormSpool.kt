@@ -0,0 +1,266 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.ResumableRequester
+import io.ktor.http.Headers
+import io.ktor.http.content.PartData
+import io.ktor.utils.io.jvm.javaio.toInputStream
+import io.ktor.utils.io.streams.asInput
+import io.ktor.utils.io.streams.asStream
+import java.io.File
+import java.io.InputStream
+import java.security.DigestOutputStream
+import java.security.MessageDigest
+import java.util.Collections
+import java.util.WeakHashMap
+import java.util.concurrent.ConcurrentHashMap
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Content-addressed store to which the contents of binary [PartData] are written, allowing for
+ * requests with a `multipart/form-data` body to be journaled by a [ResumableRequester] as
+ * references to files rather than as the contents themselves.
+ *
+ * Each file is named after the SHA-256 digest of its contents, so parts with equal contents share
+ * a single file. The files referenced by requests that are in flight are counted; once a request
+ * completes, those that are referenced neither by another in-flight request nor by a journaled one
+ * are deleted. Those of interrupted requests are kept for the requests to be resumed, and those
+ * that are left referenced by no journaled request are deleted when [sweep] is called.
+ *
+ * [PartData] obtained through [load] read their contents directly from the files, which are never
+ * loaded into memory as a whole.
+ *
+ * @param directory Directory in which the files are stored.
+ */
+@InternalRequesterApi
+internal class FormSpool(private val directory: File) {
+  /**
+   * Lock by which access to the [referenceCounts], to the [journaledDigests] and to the
+   * [temporaryFiles] is synchronized.
+   */
+  private val lock = Any()
+
+  /** Amount of in-flight requests by which each file is referenced, associated to its name. */
+  private val referenceCounts = HashMap<String, Int>()
+
+  /**
+   * Names of the files that may be referenced by journaled requests: those of interrupted requests
+   * and those that were referenced by the journal when it was last swept. Such files are only ever
+   * deleted by [sweep], given that the spool cannot tell whether the journal still references them.
+   */
+  private val journaledDigests = HashSet<String>()
+
+  /** Files to which contents are currently being written. */
+  private val temporaryFiles = HashSet<File>()
+
+  /**
+   * [SpooledPart]s from which [PartData] have been loaded, associated to such [PartData]. Allows
+   * for [PartData] loaded for resumption not to be spooled again.
+   */
+  private val loaded = Collections.synchronizedMap(WeakHashMap<PartData, SpooledPart>())
+
+  /**
+   * Writes the contents of the binary parts of the [form] to files and references the written
+   * files as being used by an in-flight request. Each binary [PartData] that gets written is
+   * consumed and disposed.
+   *
+   * @param form [PartData] to be spooled.
+   * @return [SpooledPart]s referencing the [form], to be released when the request is finished.
+   * @see release
+   */
+  suspend fun spool(form: List<PartData>): List<SpooledPart> {
+    val spooled = ArrayList<SpooledPart>(form.size)
+    try {
+      for (part in form) {
+        spooled += spool(part)
+      }
+    } catch (exception: Throwable) {
+      release(spooled, isDisposable = true)
+      throw exception
+    }
+    return spooled
+  }
+
+  /**
+   * Converts the [form] into [PartData] whose binary contents are read from the files to which
+   * they've been written.
+   *
+   * @param form [SpooledPart]s to be converted.
+   */
+  fun load(form: List<SpooledPart>): List<PartData> {
+    return form.map { part ->
+      when (part) {
+        is SpooledPart.Value -> PartData.FormItem(part.value, dispose = {}, part.headers)
+        is SpooledPart.Binary -> {
+          val file = fileOf(part)
+          PartData.FileItem({ file.inputStream().asInput() }, dispose = {}, part.headers)
+        }
+      }.also { loaded[it] = part }
+    }
+  }
+
+  /**
+   * Returns whether the files referenced by each of the binary parts of the [form] exist.
+   *
+   * @param form [SpooledPart]s whose files are to be checked.
+   */
+  fun isAvailable(form: List<SpooledPart>): Boolean {
+    return form.all { it !is SpooledPart.Binary || fileOf(it).exists() }
+  }
+
+  /**
+   * Stops referencing the files of the binary parts of the [form] as being used by an in-flight
+   * request.
+   *
+   * @param form [SpooledPart]s that have been obtained through [spool].
+   * @param isDisposable Whether the request has been finished and its files can be deleted in
+   *   case they are referenced neither by another in-flight request nor by a journaled one. Should
+   *   be `false` if the request remains journaled.
+   */
+  fun release(form: List<SpooledPart>, isDisposable: Boolean) {
+    synchronized(lock) {
+      for (part in form) {
+        if (part !is SpooledPart.Binary) continue
+        if (!isDisposable) journaledDigests += part.digest
+        val count = referenceCounts[part.digest]?.dec() ?: continue
+        if (count > 0) {
+          referenceCounts[part.digest] = count
+        } else {
+          referenceCounts -= part.digest
+          if (isDisposable && part.digest !in journaledDigests) fileOf(part).delete()
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the files that are referenced neither by in-flight requests nor by [journaled] ones,
+   * as well as those that had been partially written when the process was last terminated. Files
+   * referenced by the [journaled] requests are, from then on, the only ones considered to be
+   * referenced by the journal.
+   *
+   * @param journaled [SpooledPart]s of the requests that are journaled.
+   */
+  fun sweep(journaled: List<SpooledPart>) {
+    val digests = journaled.mapNotNullTo(HashSet()) { (it as? SpooledPart.Binary)?.digest }
+    synchronized(lock) {
+      journaledDigests.clear()
+      journaledDigests += digests
+      directory.listFiles()?.forEach {
+        if (it !in temporaryFiles && it.name !in referenceCounts && it.name !in digests) {
+          it.delete()
+        }
+      }
+    }
+  }
+
+  /**
+   * Spools the [part], writing its contents to a file in case it is binary and hasn't been loaded
+   * from a file by this [FormSpool].
+   *
+   * @param part [PartData] to be spooled.
+   */
+  private suspend fun spool(part: PartData): SpooledPart {
+    loaded[part]?.let {
+      acquire(it)
+      return it
+    }
+    val spooled =
+      when (part) {
+        is PartData.FormItem -> SpooledPart.Value(part.headers, part.value)
+        is PartData.BinaryItem -> write(part.headers) { part.provider().asStream() }
+        is PartData.FileItem -> write(part.headers) { part.provider().asStream() }
+        is PartData.BinaryChannelItem -> write(part.headers) { part.provider().toInputStream() }
+      }
+    part.dispose()
+    return spooled
+  }
+
+  /**
+   * Writes the contents of a binary part to a file named after their digest and references the
+   * file as being used by an in-flight request.
+   *
+   * @param headers [Headers] of the part.
+   * @param open Opens the [InputStream] from which the contents are read.
+   */
+  private suspend fun write(headers: Headers, open: () -> InputStream): SpooledPart.Binary {
+    return withContext(Dispatchers.IO) {
+      directory.mkdirs()
+      val temporaryFile = File.createTempFile(TEMPORARY_FILE_PREFIX, null, directory)
+      synchronized(lock) { temporaryFiles += temporaryFile }
+      try {
+        val digest = MessageDigest.getInstance("SHA-256")
+        open().use { input ->
+          DigestOutputStream(temporaryFile.outputStream(), digest).use { input.copyTo(it) }
+        }
+        val part =
+          SpooledPart.Binary(headers, digest.digest().joinToString("") { "%02x".format(it) })
+        synchronized(lock) {
+          val file = fileOf(part)
+          if (!file.exists() && !temporaryFile.renameTo(file)) {
+            throw IllegalStateException("Could not move $temporaryFile to $file.")
+          }
+          referenceCounts.merge(part.digest, 1, Int::plus)
+        }
+        part
+      } finally {
+        synchronized(lock) { temporaryFiles -= temporaryFile }
+        temporaryFile.delete()
+      }
+    }
+  }
+
+  /**
+   * References the file of the [part], in case it is binary, as being used by an in-flight request.
+   *
+   * @param part [SpooledPart] whose file is to be referenced.
+   */
+  private fun acquire(part: SpooledPart) {
+    if (part is SpooledPart.Binary) {
+      synchronized(lock) { referenceCounts.merge(part.digest, 1, Int::plus) }
+    }
+  }
+
+  /**
+   * Obtains the file to which the contents of the [part] have been written.
+   *
+   * @param part [SpooledPart.Binary] whose file is to be obtained.
+   */
+  private fun fileOf(part: SpooledPart.Binary): File {
+    return File(directory, part.digest)
+  }
+
+  companion object {
+    /** Prefix of the name of a file to which contents are being written. */
+    private const val TEMPORARY_FILE_PREFIX = "spool"
+
+    /** [FormSpool]s that have been obtained, associated to their directories. */
+    private val instances = ConcurrentHashMap<File, FormSpool>()
+
+    /**
+     * Obtains the [FormSpool] whose files are stored in the [directory], creating it in case it
+     * hasn't been created yet. Files should be stored by a single [FormSpool] per directory, since
+     * each one counts the references to its own files.
+     *
+     * @param directory Directory in which the files are stored.
+     */
+    fun getInstance(directory: File): FormSpool {
+      return instances.computeIfAbsent(directory.absoluteFile, ::FormSpool)
+    }
+  }
+}
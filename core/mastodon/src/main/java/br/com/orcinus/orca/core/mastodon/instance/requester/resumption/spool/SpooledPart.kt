@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import io.ktor.http.Headers
+import io.ktor.http.content.PartData
+
+/**
+ * Reference to a [PartData] that has been spooled by a [FormSpool], which is what gets journaled
+ * in place of the [PartData] itself.
+ *
+ * @see SpooledPartKSerializer
+ */
+@InternalRequesterApi
+internal sealed class SpooledPart {
+  /** [Headers] of the [PartData]. */
+  abstract val headers: Headers
+
+  /**
+   * Reference to a [PartData.FormItem], whose value is held inline.
+   *
+   * @property headers [Headers] of the [PartData.FormItem].
+   * @property value Value of the [PartData.FormItem].
+   */
+  data class Value(override val headers: Headers, val value: String) : SpooledPart()
+
+  /**
+   * Reference to a binary [PartData], whose contents have been written to a file.
+   *
+   * @property headers [Headers] of the [PartData].
+   * @property digest Hexadecimal SHA-256 digest of the contents, by which the file to which they've
+   *   been written is named.
+   */
+  data class Binary(override val headers: Headers, val digest: String) : SpooledPart()
+}
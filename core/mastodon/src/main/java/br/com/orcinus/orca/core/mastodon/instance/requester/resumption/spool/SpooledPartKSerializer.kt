@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.headers.strings.serializer
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.headers.strings.toHeaders
+import io.ktor.http.Headers
+import io.ktor.util.StringValues
+import kotlinx.serialization.KSerializer
+import kotlinx.serialization.descriptors.buildClassSerialDescriptor
+import kotlinx.serialization.descriptors.element
+import kotlinx.serialization.encoding.Decoder
+import kotlinx.serialization.encoding.Encoder
+import kotlinx.serialization.encoding.decodeStructure
+import kotlinx.serialization.encoding.encodeStructure
+
+/** [KSerializer] for serializing and deserializing a [SpooledPart]. */
+@InternalRequesterApi
+internal object SpooledPartKSerializer : KSerializer<SpooledPart> {
+  override val descriptor =
+    buildClassSerialDescriptor(SpooledPartKSerializer::class.java.name) {
+      element("headers", StringValues.serializer().descriptor)
+      element<String>("value", isOptional = true)
+      element<String>("digest", isOptional = true)
+    }
+
+  override fun serialize(encoder: Encoder, value: SpooledPart) {
+    encoder.encodeStructure(descriptor) {
+      encodeSerializableElement(descriptor, index = 0, StringValues.serializer(), value.headers)
+      when (value) {
+        is SpooledPart.Value -> encodeStringElement(descriptor, index = 1, value.value)
+        is SpooledPart.Binary -> encodeStringElement(descriptor, index = 2, value.digest)
+      }
+    }
+  }
+
+  override fun deserialize(decoder: Decoder): SpooledPart {
+    return decoder.decodeStructure(descriptor) {
+      lateinit var headers: Headers
+      var value: String? = null
+      var digest: String? = null
+      while (true) {
+        when (val index = decodeElementIndex(descriptor)) {
+          0 ->
+            headers =
+              decodeSerializableElement(descriptor, index, StringValues.serializer()).toHeaders()
+          1 -> value = decodeStringElement(descriptor, index)
+          2 -> digest = decodeStringElement(descriptor, index)
+          else -> break
+        }
+      }
+      value?.let { SpooledPart.Value(headers, it) }
+        ?: SpooledPart.Binary(headers, checkNotNull(digest) { "Spooled part has no contents." })
+    }
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.scheduling
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import io.ktor.client.HttpClient
+import io.ktor.client.call.HttpClientCall
+import io.ktor.client.request.HttpRequestBuilder
+import io.ktor.client.statement.HttpResponse
+import io.ktor.http.HttpHeaders
+import io.ktor.http.HttpStatusCode
+import io.ktor.util.AttributeKey
+import java.time.Clock
+import java.time.Instant
+import java.time.ZonedDateTime
+import java.time.format.DateTimeFormatter
+import java.time.format.DateTimeParseException
+import kotlin.math.ceil
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.seconds
+import kotlin.time.TimeMark
+import kotlin.time.TimeSource
+import kotlin.time.toKotlinDuration
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+
+/**
+ * Token bucket by which requests to an instance are limited according to the budget that it
+ * advertises through the `X-RateLimit-Limit`, `X-RateLimit-Remaining` and `X-RateLimit-Reset`
+ * headers of its responses.
+ *
+ * Each request sent takes a token from the bucket, which is refilled when the instance's window
+ * resets. As the bucket empties, requests of lower [RequestPriority]s are delayed until the reset
+ * before those of higher ones are, so that some of the budget is always left for requests whose
+ * responses are awaited by the user. When the instance rejects a request with a 429 (Too Many
+ * Requests) status, all requests are held for as long as specified by its `Retry-After` header and
+ * the rejected one is then sent again.
+ *
+ * @property clock [Clock] by which the absolute times specified by the headers are compared.
+ * @property timeSource [TimeSource] by which the time until the reset is measured.
+ * @see budget
+ */
+@InternalRequesterApi
+internal class RateLimiter(
+  private val clock: Clock = Clock.systemUTC(),
+  private val timeSource: TimeSource = TimeSource.Monotonic
+) {
+  /** Lock by which access to the [budgetFlow] and to the [TimeMark]s is synchronized. */
+  private val lock = Any()
+
+  /** [TimeMark] of when the instance's window resets. */
+  private var resetMark: TimeMark? = null
+
+  /** [TimeMark] until which all requests are held, as specified by a `Retry-After` header. */
+  private var retryMark: TimeMark? = null
+
+  /** [MutableStateFlow] to which the current [Budget] is emitted. */
+  private val budgetFlow = MutableStateFlow<Budget?>(null)
+
+  /**
+   * [StateFlow] to which the current [Budget] is emitted, or `null` if the instance hasn't
+   * advertised it yet. Allows for requests of lower priorities to back off before they get
+   * delayed.
+   */
+  val budget = budgetFlow.asStateFlow()
+
+  /**
+   * Amount of requests that can be sent to an instance within its window.
+   *
+   * @property limit Maximum amount of requests within a window.
+   * @property remaining Amount of requests that can still be sent within the current window.
+   * @property resetTime [Instant] at which the current window resets.
+   */
+  data class Budget(val limit: Int, val remaining: Int, val resetTime: Instant?) {
+    /** Fraction of the [limit] that remains. */
+    val remainingFraction
+      get() = if (limit == 0) 0.0 else remaining.toDouble() / limit
+  }
+
+  /**
+   * Sends a request of the given [priority] once the budget allows for it, learning the budget
+   * from the response and sending it again if it has been rejected for exceeding the budget.
+   *
+   * @param priority [RequestPriority] of the request.
+   * @param request [HttpRequestBuilder] of the request.
+   * @param send Sends the given request.
+   */
+  suspend fun limit(
+    priority: RequestPriority,
+    request: HttpRequestBuilder,
+    send: suspend (HttpRequestBuilder) -> HttpClientCall
+  ): HttpClientCall {
+    var attempt = request
+    var retryCount = 0
+    while (true) {
+      acquire(priority)
+      val call = send(attempt)
+      learn(call.response)
+      if (call.response.status != HttpStatusCode.TooManyRequests || retryCount >= MAX_RETRY_COUNT) {
+        return call
+      }
+      attempt = HttpRequestBuilder().takeFrom(request)
+      retryCount++
+    }
+  }
+
+  /**
+   * Takes a token from the bucket, suspending while the budget doesn't allow for a request of the
+   * given [priority] to be sent.
+   *
+   * @param priority [RequestPriority] of the request.
+   */
+  private suspend fun acquire(priority: RequestPriority) {
+    while (true) {
+      val waitTime =
+        synchronized(lock) {
+          val waitTime = waitTimeFor(priority)
+          if (waitTime <= Duration.ZERO) {
+            budgetFlow.value?.let { budgetFlow.value = it.copy(remaining = it.remaining.dec()) }
+            return
+          }
+          waitTime
+        }
+      delay(waitTime)
+    }
+  }
+
+  /**
+   * Calculates for how long a request of the given [priority] should wait before being sent,
+   * refilling the bucket if the window has been reset. Should be called while locked.
+   *
+   * @param priority [RequestPriority] of the request.
+   */
+  private fun waitTimeFor(priority: RequestPriority): Duration {
+    retryMark?.let { mark ->
+      if (mark.hasPassedNow()) {
+        retryMark = null
+      } else {
+        return -mark.elapsedNow()
+      }
+    }
+    val budget = budgetFlow.value ?: return Duration.ZERO
+    val resetMark = resetMark ?: return Duration.ZERO
+    if (resetMark.hasPassedNow()) {
+      budgetFlow.value = budget.copy(remaining = budget.limit)
+      this.resetMark = null
+      return Duration.ZERO
+    }
+    val reservedCount = ceil(budget.limit * reservedFractionOf(priority)).toInt()
+    return if (budget.remaining > reservedCount) Duration.ZERO else -resetMark.elapsedNow()
+  }
+
+  /**
+   * Updates the budget according to the headers of the [response].
+   *
+   * @param response [HttpResponse] whose headers are read.
+   */
+  private fun learn(response: HttpResponse) {
+    val limit = response.headers[LIMIT_HEADER_NAME]?.toIntOrNull()
+    val remaining = response.headers[REMAINING_HEADER_NAME]?.toIntOrNull()
+    val resetTime = response.headers[RESET_HEADER_NAME]?.let(::parseInstant)
+    synchronized(lock) {
+      if (limit != null && remaining != null) {
+        budgetFlow.value = Budget(limit, remaining, resetTime)
+        resetMark = resetTime?.let { timeSource.markNow() + durationUntil(it) }
+      }
+      if (response.status == HttpStatusCode.TooManyRequests) {
+        budgetFlow.value?.let { budgetFlow.value = it.copy(remaining = 0) }
+        val retryAfter =
+          response.headers[HttpHeaders.RetryAfter]?.let(::parseRetryAfter)
+            ?: resetTime?.let(::durationUntil)
+            ?: DEFAULT_RETRY_AFTER
+        retryMark = timeSource.markNow() + retryAfter
+      }
+    }
+  }
+
+  /**
+   * Obtains the [Duration] from now until the given [instant], which is zero if it's in the past.
+   *
+   * @param instant [Instant] until which the [Duration] is obtained.
+   */
+  private fun durationUntil(instant: Instant): Duration {
+    return java.time.Duration.between(clock.instant(), instant)
+      .toKotlinDuration()
+      .coerceAtLeast(Duration.ZERO)
+  }
+
+  /**
+   * Parses the value of a `Retry-After` header, which is either an amount of seconds or an HTTP
+   * date.
+   *
+   * @param value Value to be parsed.
+   */
+  private fun parseRetryAfter(value: String): Duration? {
+    return value.toLongOrNull()?.seconds
+      ?: try {
+        durationUntil(ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant())
+      } catch (exception: DateTimeParseException) {
+        null
+      }
+  }
+
+  /**
+   * Parses an ISO 8601 [Instant], as specified by the `X-RateLimit-Reset` header.
+   *
+   * @param value Value to be parsed.
+   */
+  private fun parseInstant(value: String): Instant? {
+    return try {
+      Instant.parse(value)
+    } catch (exception: DateTimeParseException) {
+      null
+    }
+  }
+
+  companion object {
+    /** Name of the header that specifies the maximum amount of requests within a window. */
+    private const val LIMIT_HEADER_NAME = "X-RateLimit-Limit"
+
+    /** Name of the header that specifies the amount of requests remaining in the window. */
+    private const val REMAINING_HEADER_NAME = "X-RateLimit-Remaining"
+
+    /** Name of the header that specifies when the window resets. */
+    private const val RESET_HEADER_NAME = "X-RateLimit-Reset"
+
+    /** Maximum amount of times a request rejected for exceeding the budget is sent again. */
+    private const val MAX_RETRY_COUNT = 2
+
+    /** Amount of time for which requests are held when a rejection specifies none. */
+    private val DEFAULT_RETRY_AFTER = 500.milliseconds
+
+    /** [AttributeKey] by which the [RateLimiter] installed into an [HttpClient] is stored. */
+    val attributeKey = AttributeKey<RateLimiter>("RateLimiter")
+
+    /**
+     * Obtains the fraction of the limit that is reserved for requests of priorities higher than
+     * the given one.
+     *
+     * @param priority [RequestPriority] of the request.
+     */
+    private fun reservedFractionOf(priority: RequestPriority): Double {
+      return when (priority) {
+        RequestPriority.USER_VISIBLE -> 0.0
+        RequestPriority.PREFETCH -> .25
+        RequestPriority.BACKGROUND -> .5
+      }
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.scheduling
+
+import kotlin.coroutines.CoroutineContext
+
+/**
+ * Class of importance of a request, by which the [RequestScheduler] decides which ones are sent
+ * first when the amount of those in flight to a given host is capped. Requests are sent with the
+ * [RequestPriority] present in the [CoroutineContext] from which they are performed (e.g., by
+ * wrapping them in `withContext(RequestPriority.PREFETCH) { … }`), or [USER_VISIBLE] if absent.
+ *
+ * Entries are declared from the highest to the lowest priority.
+ */
+internal enum class RequestPriority : CoroutineContext.Element {
+  /** Priority of requests whose responses are awaited by the user. */
+  USER_VISIBLE,
+
+  /** Priority of requests whose responses are obtained in advance, before they are needed. */
+  PREFETCH,
+
+  /** Priority of requests whose responses are not directly related to what is being displayed. */
+  BACKGROUND;
+
+  override val key
+    get() = Key
+
+  /** [CoroutineContext.Key] by which a [RequestPriority] is obtained from a [CoroutineContext]. */
+  companion object Key : CoroutineContext.Key<RequestPriority>
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.scheduling
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.HttpClientRegistry
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.Measurement
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.MetricsRecorder
+import io.ktor.client.HttpClient
+import io.ktor.client.HttpClientConfig
+import io.ktor.client.call.HttpClientCall
+import io.ktor.client.call.save
+import io.ktor.client.plugins.HttpSend
+import io.ktor.client.plugins.plugin
+import io.ktor.client.request.HttpRequestBuilder
+import io.ktor.util.AttributeKey
+import java.util.PriorityQueue
+import kotlin.time.Duration
+import kotlin.time.TimeSource
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.update
+
+/**
+ * Caps the amount of requests that are in flight at once, queueing the excess ones and sending
+ * them by order of [RequestPriority] (and, among those of the same [RequestPriority], by order of
+ * arrival) as those in flight finish. A request is in flight from the moment it is sent until its
+ * response has been received in its entirety, body included.
+ *
+ * A number of slots ([reservedCount]) is reserved for [RequestPriority.USER_VISIBLE] requests,
+ * which also jump ahead of queued requests of lower priorities; this way, a request whose response
+ * is awaited by the user is never held back by a burst of prefetches or background requests.
+ *
+ * Because an [HttpClient] is shared by [HttpClientRegistry] among the requesters whose requests are
+ * sent to the same origin, installing a [RequestScheduler] into each created [HttpClient] caps the
+ * requests per host.
+ *
+ * @property maxInFlightCount Maximum amount of requests that can be in flight at once.
+ * @property reservedCount Amount of slots in which only [RequestPriority.USER_VISIBLE] requests can
+ *   be in flight.
+ * @property timeSource [TimeSource] by which the time spent by requests in the queue is measured.
+ * @throws IllegalArgumentException If the [maxInFlightCount] is not positive or the
+ *   [reservedCount] is not lesser than it.
+ * @see install
+ */
+@InternalRequesterApi
+internal class RequestScheduler(
+  private val maxInFlightCount: Int = DEFAULT_MAX_IN_FLIGHT_COUNT,
+  private val reservedCount: Int = DEFAULT_RESERVED_COUNT,
+  private val timeSource: TimeSource = TimeSource.Monotonic
+) {
+  /** Lock by which access to the [waiters] and to the [inFlightCount] is synchronized. */
+  private val lock = Any()
+
+  /** [Waiter]s of requests that are queued, ordered by priority and then by arrival. */
+  private val waiters = PriorityQueue(compareBy(Waiter::priority).thenBy(Waiter::sequenceNumber))
+
+  /** Sequence number to be assigned to the next [Waiter]. */
+  private var nextSequenceNumber = 0L
+
+  /** Amount of requests that are currently in flight. */
+  private var inFlightCount = 0
+
+  /** [MutableStateFlow] to which [Statistics] are emitted whenever a request is scheduled. */
+  private val statisticsFlow = MutableStateFlow(Statistics.empty)
+
+  /** [StateFlow] to which [Statistics] regarding the queue and scheduled requests are emitted. */
+  val statistics = statisticsFlow.asStateFlow()
+
+  /**
+   * Request that is waiting in the queue for a slot.
+   *
+   * @property priority [RequestPriority] of the request.
+   * @property sequenceNumber Order of arrival of the request.
+   */
+  private class Waiter(val priority: RequestPriority, val sequenceNumber: Long) {
+    /** [CompletableDeferred] that gets completed when the request is granted a slot. */
+    val slot = CompletableDeferred<Unit>()
+  }
+
+  /**
+   * Information about the queue and the requests that have been scheduled.
+   *
+   * @property queueDepth Amount of requests that are currently queued.
+   * @property inFlightCount Amount of requests that are currently in flight.
+   * @property scheduledCount Amount of requests that have been granted a slot.
+   * @property totalWaitTime Sum of the amounts of time spent by requests in the queue.
+   * @property maxWaitTime Longest amount of time spent by a request in the queue.
+   */
+  data class Statistics(
+    val queueDepth: Int,
+    val inFlightCount: Int,
+    val scheduledCount: Long,
+    val totalWaitTime: Duration,
+    val maxWaitTime: Duration
+  ) {
+    companion object {
+      /** [Statistics] of a [RequestScheduler] by which no request has been scheduled. */
+      val empty =
+        Statistics(
+          queueDepth = 0,
+          inFlightCount = 0,
+          scheduledCount = 0,
+          totalWaitTime = Duration.ZERO,
+          maxWaitTime = Duration.ZERO
+        )
+    }
+  }
+
+  init {
+    require(maxInFlightCount > 0) {
+      "Maximum in-flight count should be positive ($maxInFlightCount)."
+    }
+    require(reservedCount in 0 until maxInFlightCount) {
+      "Reserved count ($reservedCount) should be within 0 and $maxInFlightCount (exclusive)."
+    }
+  }
+
+  /**
+   * Performs the [operation] once a slot is available for a request of the given [priority].
+   *
+   * @param T Result of the [operation].
+   * @param priority [RequestPriority] of the request.
+   * @param operation Sends the request.
+   */
+  suspend fun <T> schedule(priority: RequestPriority, operation: suspend () -> T): T {
+    val mark = timeSource.markNow()
+    acquire(priority)
+    val waitTime = mark.elapsedNow()
+    statisticsFlow.update {
+      it.copy(
+        scheduledCount = it.scheduledCount.inc(),
+        totalWaitTime = it.totalWaitTime + waitTime,
+        maxWaitTime = maxOf(it.maxWaitTime, waitTime)
+      )
+    }
+    try {
+      return operation()
+    } finally {
+      release()
+    }
+  }
+
+  /**
+   * Installs this [RequestScheduler] into the [HttpClient] being configured, by which requests
+   * that are actually sent (that is, aren't served from a cache) are scheduled. The body of each
+   * response is read while its slot is still occupied, so that a slow download counts against the
+   * cap as much as a slow request; the [HttpClientCall] that proceeds is, therefore, a saved one.
+   *
+   * @param config Configuration of the [HttpClient] into which this [RequestScheduler] is
+   *   installed.
+   * @param rateLimiter [RateLimiter] by which requests are limited before being scheduled, so that
+   *   those held back by it don't occupy a slot while they wait.
+   * @see MetricsRecorder.install
+   */
+  fun install(config: HttpClientConfig<*>, rateLimiter: RateLimiter? = null) {
+    config.install(PLUGIN_KEY) {
+      attributes.put(attributeKey, this@RequestScheduler)
+      rateLimiter?.let { attributes.put(RateLimiter.attributeKey, it) }
+      plugin(HttpSend).intercept { request ->
+        val metricsRecorder = attributes.getOrNull(MetricsRecorder.attributeKey)
+        val priority = currentCoroutineContext()[RequestPriority] ?: RequestPriority.USER_VISIBLE
+        if (rateLimiter == null) {
+          schedule(priority, request, metricsRecorder) { execute(request).save() }
+        } else {
+          rateLimiter.limit(priority, request) { attempt ->
+            schedule(priority, attempt, metricsRecorder) { execute(attempt).save() }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Performs the [operation] once a slot is available for the [request], recording the time it
+   * has spent in the queue.
+   *
+   * @param T Result of the [operation].
+   * @param priority [RequestPriority] of the [request].
+   * @param request [HttpRequestBuilder] of the request.
+   * @param metricsRecorder [MetricsRecorder] by which the time spent in the queue is recorded.
+   * @param operation Sends the [request].
+   */
+  private suspend fun <T> schedule(
+    priority: RequestPriority,
+    request: HttpRequestBuilder,
+    metricsRecorder: MetricsRecorder?,
+    operation: suspend () -> T
+  ): T {
+    if (metricsRecorder == null) {
+      return schedule(priority, operation)
+    }
+    val mark = metricsRecorder.markNow()
+    return schedule(priority) {
+      metricsRecorder.recordLatency(request.url.encodedPath, Measurement.Phase.QUEUE, mark)
+      operation()
+    }
+  }
+
+  /**
+   * Occupies a slot for a request of the given [priority], suspending until one is available.
+   *
+   * @param priority [RequestPriority] of the request.
+   */
+  private suspend fun acquire(priority: RequestPriority) {
+    val waiter =
+      synchronized(lock) {
+        val isPreceded = waiters.peek()?.let { it.priority <= priority } ?: false
+        if (!isPreceded && isAdmissible(priority)) {
+          inFlightCount++
+          publish()
+          return
+        }
+        Waiter(priority, nextSequenceNumber++).also {
+          waiters += it
+          publish()
+        }
+      }
+    try {
+      waiter.slot.await()
+    } catch (exception: CancellationException) {
+      synchronized(lock) {
+        if (!waiters.remove(waiter)) {
+          inFlightCount--
+          dispatch()
+        }
+        publish()
+      }
+      throw exception
+    }
+  }
+
+  /** Frees the slot occupied by a request, granting it to the queued ones that are admissible. */
+  private fun release() {
+    synchronized(lock) {
+      inFlightCount--
+      dispatch()
+      publish()
+    }
+  }
+
+  /** Grants slots to the queued requests that are admissible. Should be called while locked. */
+  private fun dispatch() {
+    while (true) {
+      val waiter = waiters.peek()?.takeIf { isAdmissible(it.priority) } ?: break
+      waiters.poll()
+      inFlightCount++
+      waiter.slot.complete(Unit)
+    }
+  }
+
+  /**
+   * Returns whether a request of the given [priority] can be sent given the current
+   * [inFlightCount]. Should be called while locked.
+   *
+   * @param priority [RequestPriority] of the request.
+   */
+  private fun isAdmissible(priority: RequestPriority): Boolean {
+    val limit =
+      if (priority == RequestPriority.USER_VISIBLE) {
+        maxInFlightCount
+      } else {
+        maxInFlightCount - reservedCount
+      }
+    return inFlightCount < limit
+  }
+
+  /** Emits the current queue depth and in-flight count. Should be called while locked. */
+  private fun publish() {
+    statisticsFlow.update { it.copy(queueDepth = waiters.size, inFlightCount = inFlightCount) }
+  }
+
+  companion object {
+    /** Key under which a [RequestScheduler] is installed into an [HttpClient]. */
+    private const val PLUGIN_KEY = "RequestScheduler"
+
+    /** Default maximum amount of requests that can be in flight at once. */
+    const val DEFAULT_MAX_IN_FLIGHT_COUNT = 6
+
+    /** Default amount of slots reserved for [RequestPriority.USER_VISIBLE] requests. */
+    const val DEFAULT_RESERVED_COUNT = 1
+
+    /** [AttributeKey] by which the [RequestScheduler] installed into an [HttpClient] is stored. */
+    val attributeKey = AttributeKey<RequestScheduler>(PLUGIN_KEY)
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.upload
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.seconds
+import kotlin.time.DurationUnit
+import kotlin.time.TimeMark
+import kotlin.time.TimeSource
+import kotlinx.coroutines.delay
+
+/**
+ * Token bucket by which the rate at which bytes are uploaded is kept within a budget that is shared
+ * by all of the uploads that take from it.
+ *
+ * The bucket is refilled continuously at [bytesPerSecond] and holds at most a second's worth of
+ * bytes. Taking more bytes than are available puts the bucket into debt, and the taker is suspended
+ * until the debt would have been paid off; because later takers inherit the debt, concurrent
+ * uploads end up splitting the budget among themselves.
+ *
+ * @property bytesPerSecond Amount of bytes that can be uploaded per second.
+ * @property timeSource [TimeSource] by which the time between refills is measured.
+ * @throws IllegalArgumentException If the [bytesPerSecond] is not positive.
+ */
+@InternalRequesterApi
+internal class BandwidthBudget(
+  private val bytesPerSecond: Long,
+  private val timeSource: TimeSource = TimeSource.Monotonic
+) {
+  /** Lock by which access to the [availableByteCount] and to the [refillMark] is synchronized. */
+  private val lock = Any()
+
+  /** Amount of bytes that can be taken without waiting, which is negative when in debt. */
+  private var availableByteCount = bytesPerSecond.toDouble()
+
+  /** [TimeMark] of when the bucket was last refilled. */
+  private var refillMark = timeSource.markNow()
+
+  init {
+    require(bytesPerSecond > 0) { "Bytes per second should be positive ($bytesPerSecond)." }
+  }
+
+  /**
+   * Takes the given amount of bytes from the bucket, suspending until they're paid for in case
+   * there aren't enough available.
+   *
+   * @param byteCount Amount of bytes about to be uploaded.
+   */
+  suspend fun take(byteCount: Int) {
+    val wait =
+      synchronized(lock) {
+        val elapsedTime = refillMark.elapsedNow()
+        refillMark += elapsedTime
+        availableByteCount =
+          minOf(
+            bytesPerSecond.toDouble(),
+            availableByteCount + elapsedTime.toDouble(DurationUnit.SECONDS) * bytesPerSecond
+          )
+        availableByteCount -= byteCount
+        if (availableByteCount < 0) (-availableByteCount / bytesPerSecond).seconds
+        else Duration.ZERO
+      }
+    if (wait.isPositive()) {
+      delay(wait)
+    }
+  }
+}
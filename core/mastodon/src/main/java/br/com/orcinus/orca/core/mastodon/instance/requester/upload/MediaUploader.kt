@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.upload
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.ResumableRequester
+import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
+import io.ktor.client.request.setBody
+import io.ktor.http.content.OutgoingContent
+import io.ktor.http.content.PartData
+import java.net.URI
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.channelFlow
+
+/**
+ * Uploads media as `multipart/form-data` bodies, reporting the progress of each upload and keeping
+ * the combined rate of the uploads that share a [BandwidthBudget] within it. Independent uploads
+ * are performed concurrently when their [Flow]s are collected concurrently.
+ *
+ * Mastodon accepts media only as a single multipart body, and none of its endpoints reports how
+ * much of an interrupted body has been received; thus, uploads cannot be resumed from the offset
+ * at which they've been interrupted. When the [requester] is a [ResumableRequester], an
+ * interrupted upload is instead sent again in its entirety from the file to which its contents have
+ * been spooled, without the original source having to be read again.
+ *
+ * @property requester [Requester] by which the uploads are performed.
+ * @property budget [BandwidthBudget] from which the bytes of each upload are taken before they're
+ *   sent.
+ */
+internal class MediaUploader(
+  private val requester: Requester<*>,
+  private val budget: BandwidthBudget = sharedBudget
+) {
+  /**
+   * Uploads the [form] to the [route]. The returned [Flow] emits [Upload.InProgress] as each
+   * segment of the body is sent and [Upload.Done] once the server has responded, completing
+   * afterwards; the upload only starts when it's collected.
+   *
+   * @param route Builds the route from the base [URI] to which the [form] will be sent.
+   * @param form `multipart/form-data`-encoded parts to be uploaded.
+   */
+  fun upload(route: HostedURLBuilder.() -> URI, form: List<PartData>): Flow<Upload> {
+    return channelFlow {
+      val response =
+        requester
+          .post(
+            Requester.Configuration.build(Requester.Configuration.noOpBuild),
+            requester.absolute(route),
+            form
+          ) {
+            val content = body as OutgoingContent
+            setBody(
+              MeteredContent(content, budget) { sentByteCount ->
+                send(Upload.InProgress(sentByteCount, content.contentLength))
+              }
+            )
+          }
+          .getValueOrThrow()
+      send(Upload.Done(response))
+    }
+  }
+
+  companion object {
+    /** Default amount of bytes that can be uploaded per second by the [sharedBudget]. */
+    const val DEFAULT_BYTES_PER_SECOND = 2L * 1024 * 1024
+
+    /** [BandwidthBudget] shared by the [MediaUploader]s for which none has been specified. */
+    private val sharedBudget = BandwidthBudget(DEFAULT_BYTES_PER_SECOND)
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.upload
+
+import br.com.orcinus.orca.core.mastodon.instance.requester.InternalRequesterApi
+import io.ktor.http.content.OutgoingContent
+import io.ktor.utils.io.ByteReadChannel
+import io.ktor.utils.io.ByteWriteChannel
+import io.ktor.utils.io.writer
+import kotlinx.coroutines.coroutineScope
+
+/**
+ * [OutgoingContent] that writes the bytes of the [delegate] in segments, each of which is taken
+ * from the [budget] before it's written and reported to [onWrite] after it has been.
+ *
+ * @property delegate [OutgoingContent] whose bytes are written.
+ * @property budget [BandwidthBudget] from which each segment is taken before it's written.
+ * @property onWrite Listens to each segment having been written, receiving the amount of bytes that
+ *   have been written so far.
+ */
+@InternalRequesterApi
+internal class MeteredContent(
+  private val delegate: OutgoingContent,
+  private val budget: BandwidthBudget,
+  private val onWrite: suspend (writtenByteCount: Long) -> Unit
+) : OutgoingContent.WriteChannelContent() {
+  override val contentLength
+    get() = delegate.contentLength
+
+  override val contentType
+    get() = delegate.contentType
+
+  override val headers
+    get() = delegate.headers
+
+  override suspend fun writeTo(channel: ByteWriteChannel) {
+    coroutineScope {
+      val source =
+        when (delegate) {
+          is OutgoingContent.ByteArrayContent -> ByteReadChannel(delegate.bytes())
+          is OutgoingContent.ReadChannelContent -> delegate.readFrom()
+          is OutgoingContent.WriteChannelContent ->
+            writer { delegate.writeTo(this.channel) }.channel
+          is OutgoingContent.NoContent,
+          is OutgoingContent.ProtocolUpgrade -> ByteReadChannel.Empty
+        }
+      val buffer = ByteArray(SEGMENT_SIZE)
+      var writtenByteCount = 0L
+      while (true) {
+        val readByteCount = source.readAvailable(buffer)
+        if (readByteCount < 0) {
+          break
+        }
+        budget.take(readByteCount)
+        channel.writeFully(buffer, 0, readByteCount)
+        writtenByteCount += readByteCount
+        onWrite(writtenByteCount)
+      }
+    }
+  }
+
+  companion object {
+    /** Maximum amount of bytes that are read and written at once. */
+    private const val SEGMENT_SIZE = 16 * 1024
+  }
+}
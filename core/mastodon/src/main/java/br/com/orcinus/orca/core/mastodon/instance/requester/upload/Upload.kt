@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.upload
+
+import io.ktor.client.statement.HttpResponse
+
+/** Stage of an upload performed by a [MediaUploader]. */
+internal sealed class Upload {
+  /**
+   * Stage in which the body is being sent.
+   *
+   * @property sentByteCount Amount of bytes of the body that have been sent so far.
+   * @property totalByteCount Length of the body, or `null` if it is unknown.
+   */
+  data class InProgress(val sentByteCount: Long, val totalByteCount: Long?) : Upload()
+
+  /**
+   * Stage in which the body has been sent in its entirety and the server has responded.
+   *
+   * @property response [HttpResponse] that has been received.
+   */
+  data class Done(val response: HttpResponse) : Upload()
+}
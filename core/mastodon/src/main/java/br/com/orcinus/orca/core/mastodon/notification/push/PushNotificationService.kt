@@ -25,6 +25,7 @@ import androidx.lifecycle.Lifecycle
 import br.com.orcinus.orca.core.auth.actor.Actor
 import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
 import br.com.orcinus.orca.core.mastodon.instance.requester.authentication.authenticated
+import br.com.orcinus.orca.core.mastodon.instance.requester.scheduling.RequestPriority
 import br.com.orcinus.orca.core.mastodon.notification.InternalNotificationApi
 import br.com.orcinus.orca.core.mastodon.notification.push.web.WebPushClient
 import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
@@ -167,9 +168,12 @@ constructor(private val requester: Requester<*>, private val webPushClient: WebP
     }
   }
 
-  /** Subscribes to the receipt of updates from the Mastodon server. */
+  /**
+   * Subscribes to the receipt of updates from the Mastodon server, with a
+   * [RequestPriority.BACKGROUND] priority.
+   */
   private fun subscribe() {
-    coroutineScope.launch {
+    coroutineScope.launch(RequestPriority.BACKGROUND) {
       requester.authenticated().post(HostedURLBuilder::buildNotificationSubscriptionPushingRoute) {
         parameters { appendSubscriptionFormData(this) }
       }
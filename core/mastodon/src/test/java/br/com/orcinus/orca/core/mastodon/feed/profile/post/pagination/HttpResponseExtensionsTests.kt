@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.status.MastodonStatus
+import br.com.orcinus.orca.core.mastodon.instance.requester.ClientResponseProvider
+import br.com.orcinus.orca.core.mastodon.instance.requester.NoOpLogger
+import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
+import br.com.orcinus.orca.core.mastodon.instance.requester.RequesterTestScope
+import br.com.orcinus.orca.core.mastodon.instance.requester.httpClientEngineFactoryOf
+import io.ktor.client.engine.mock.respond
+import io.ktor.utils.io.ByteReadChannel
+import kotlin.test.Test
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import kotlinx.serialization.builtins.ListSerializer
+
+internal class HttpResponseExtensionsTests {
+  /** Synthetic page of statuses, as large as the maximum allowed by the API. */
+  private val page = List(PAGE_SIZE) { MastodonStatus.default.copy(id = "$it") }
+
+  /** JSON array of the statuses in the [page]. */
+  private val payload =
+    Requester.normalizedJson.encodeToString(ListSerializer(MastodonStatus.serializer()), page)
+
+  @Test
+  fun decodesEachElementOfAnArray() = runTest {
+    val statuses =
+      Requester<Exception>(
+          NoOpLogger,
+          RequesterTestScope.baseURI,
+          httpClientEngineFactoryOf(ClientResponseProvider { respond(payload) })
+        )
+        .get({ path("api").path("v1").path("timelines").path("home").build() })
+        .getValueOrThrow()
+        .bodyAsFlow(Requester.normalizedJson, MastodonStatus.serializer())
+        .toList()
+    assertThat(statuses).isEqualTo(page)
+  }
+
+  @Test
+  fun decodesEachElementOfAnArrayWhoseLengthIsNotDeclared() = runTest {
+    val statuses =
+      Requester<Exception>(
+          NoOpLogger,
+          RequesterTestScope.baseURI,
+          httpClientEngineFactoryOf(ClientResponseProvider { respond(ByteReadChannel(payload)) })
+        )
+        .get({ path("api").path("v1").path("timelines").path("home").build() })
+        .getValueOrThrow()
+        .bodyAsFlow(Requester.normalizedJson, MastodonStatus.serializer())
+        .toList()
+    assertThat(statuses).isEqualTo(page)
+  }
+
+  companion object {
+    /** Maximum amount of statuses in a page of a timeline. */
+    private const val PAGE_SIZE = 40
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination
+
+import br.com.orcinus.orca.core.auth.actor.Actor
+import br.com.orcinus.orca.core.feed.profile.post.Post
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor.PageCursorDao
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.type.KTypeCreator
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.type.kTypeCreatorOf
+import br.com.orcinus.orca.core.mastodon.instance.requester.NoOpLogger
+import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
+import br.com.orcinus.orca.core.mastodon.instance.requester.RequesterTestScope
+import br.com.orcinus.orca.core.sample.auth.SampleAuthorizer
+import br.com.orcinus.orca.core.sample.auth.actor.SampleActorProvider
+import br.com.orcinus.orca.core.sample.auth.actor.createSample
+import br.com.orcinus.orca.core.sample.image.AuthorImageSource
+import br.com.orcinus.orca.core.sample.test.image.NoOpSampleImageLoader
+import br.com.orcinus.orca.core.test.auth.AuthenticationLock
+import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
+import io.ktor.client.engine.HttpClientEngineFactory
+import io.ktor.client.engine.mock.MockEngine
+import io.ktor.client.engine.mock.MockEngineConfig
+import io.ktor.client.engine.mock.respond
+import io.ktor.http.HttpHeaders
+import io.ktor.http.LinkHeader
+import io.ktor.http.headersOf
+import io.ktor.http.toURI
+import java.net.URI
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.count
+import kotlinx.coroutines.job
+import kotlinx.coroutines.plus
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.test.testTimeSource
+
+/**
+ * Scope in which a [MastodonPostPaginator] paginates through pages that link to each other, whose
+ * requests are responded to by the instance after a [LATENCY], with a link to the page that
+ * succeeds the requested one.
+ *
+ * @property delegate [TestScope] in which the test is run.
+ * @property readAheadCount Amount of pages read ahead by the [paginator].
+ * @property pageCursorDao [PageCursorDao] by which the [paginator] indexes the routes of the pages.
+ */
+@OptIn(ExperimentalCoroutinesApi::class)
+internal class LinkedPaginationTestScope(
+  val delegate: TestScope,
+  private val readAheadCount: Int = 0,
+  private val pageCursorDao: PageCursorDao? = null
+) {
+  /** Routes to which requests have been sent, in the order in which they were sent. */
+  val requestedRoutes = mutableListOf<URI>()
+
+  /** Routes to which requests have been responded to, in the order of the responses. */
+  val respondedRoutes = mutableListOf<URI>()
+
+  /**
+   * Version of the timeline served by the instance, included in the routes it links to. Changing
+   * it simulates the publication of new [Post]s, which shifts the cursors of every page.
+   */
+  var generation = 0
+
+  /** [Job] of the [CoroutineScope] in which the [paginator] paginates. */
+  var paginatorJob = Job(delegate.coroutineContext.job)
+    private set
+
+  /** Route to which the request for the first page is sent. */
+  val initialRoute: URI =
+    HostedURLBuilder.from(RequesterTestScope.baseURI)
+      .path("api")
+      .path("v1")
+      .path("timelines")
+      .path("home")
+      .build()
+
+  /** [Requester] whose engine responds to requests in virtual time. */
+  private val requester =
+    Requester<Exception>(
+      NoOpLogger,
+      RequesterTestScope.baseURI,
+      object : HttpClientEngineFactory<MockEngineConfig> {
+        override fun create(block: MockEngineConfig.() -> Unit): MockEngine {
+          return MockEngine(
+            MockEngineConfig().apply {
+              dispatcher = StandardTestDispatcher(delegate.testScheduler)
+              addHandler { requestData ->
+                val route = requestData.url.toURI()
+                requestedRoutes += route
+                delay(LATENCY)
+                respondedRoutes += route
+                val page = requestData.url.parameters["page"]?.toInt() ?: 0
+                val next = LinkHeader("${createRouteAt(page + 1)}", LinkHeader.Rel.Next)
+                respond(content = "", headers = headersOf(HttpHeaders.Link, "$next"))
+              }
+              block()
+            }
+          )
+        }
+      }
+    )
+
+  /** [MastodonPostPaginator] being tested. */
+  private var paginator = createPaginator()
+
+  /**
+   * Paginates to the given [page], suspending until the [Post]s in all of the pages that are
+   * paginated through are received.
+   *
+   * @param page Page to which pagination is performed.
+   * @return Amount of pages whose [Post]s have been emitted.
+   */
+  suspend fun paginateToAndAwait(page: Int): Int {
+    return paginator.paginateTo(page).getValueOrThrow().count()
+  }
+
+  /**
+   * Measures the amount of time taken by the [pagination] to finish in virtual time.
+   *
+   * @param pagination Pagination to be measured.
+   */
+  suspend fun stallTimeOf(pagination: suspend () -> Unit): Duration {
+    val mark = delegate.testTimeSource.markNow()
+    pagination()
+    return mark.elapsedNow()
+  }
+
+  /**
+   * Creates the route linked as that of the given [page].
+   *
+   * @param page Page whose route is created.
+   */
+  fun createRouteAt(page: Int): URI =
+    HostedURLBuilder.from(RequesterTestScope.baseURI)
+      .path("next")
+      .query()
+      .parameter("page", "$page")
+      .parameter("generation", "$generation")
+      .build()
+
+  /**
+   * Simulates a restart of the application by cancelling the current [paginator] and replacing it
+   * by another one, which shares the [Requester] and the [PageCursorDao] with the former.
+   */
+  fun restart() {
+    paginatorJob.cancel()
+    paginatorJob = Job(delegate.coroutineContext.job)
+    paginator = createPaginator()
+  }
+
+  /** Creates a [MastodonPostPaginator] that paginates in the scope of the [paginatorJob]. */
+  private fun createPaginator(): MastodonPostPaginator<Any> {
+    return object :
+      MastodonPostPaginator<Any>(
+        AuthenticationLock(
+          SampleAuthorizer,
+          SampleActorProvider(
+            Actor.Authenticated.createSample(
+              NoOpSampleImageLoader.Provider.provide(AuthorImageSource.Default)
+            )
+          )
+        ),
+        delegate + paginatorJob,
+        readAheadCount
+      ),
+      KTypeCreator<Any> by kTypeCreatorOf() {
+      override val requester = this@LinkedPaginationTestScope.requester
+      override val pageCursorDao = this@LinkedPaginationTestScope.pageCursorDao
+
+      override fun HostedURLBuilder.buildInitialRoute() = initialRoute
+
+      override fun Any.toPosts() = emptyList<Post>()
+    }
+  }
+
+  companion object {
+    /** Amount of time taken by the instance to respond to a request. */
+    val LATENCY = 200.milliseconds
+  }
+}
+
+/**
+ * Runs a test in a [LinkedPaginationTestScope].
+ *
+ * @param readAheadCount Amount of pages read ahead by the [MastodonPostPaginator].
+ * @param pageCursorDao [PageCursorDao] by which the [MastodonPostPaginator] indexes the routes of
+ *   the pages.
+ * @param body Operation to be performed in the [LinkedPaginationTestScope].
+ */
+internal fun runLinkedPaginationTest(
+  readAheadCount: Int = 0,
+  pageCursorDao: PageCursorDao? = null,
+  body: suspend LinkedPaginationTestScope.() -> Unit
+) = runTest {
+  val scope = LinkedPaginationTestScope(this, readAheadCount, pageCursorDao)
+  try {
+    scope.body()
+  } finally {
+    scope.paginatorJob.cancel()
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination
+
+import assertk.assertThat
+import assertk.assertions.containsExactly
+import assertk.assertions.containsNone
+import assertk.assertions.hasSize
+import assertk.assertions.isEqualTo
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor.InMemoryPageCursorDao
+import kotlin.test.Test
+
+internal class MastodonPostPaginatorCursorTests {
+  @Test
+  fun requestsEveryPageUpToTheTargetOneAfterARestartWhenNotIndexing() = runLinkedPaginationTest {
+    paginateToAndAwait(8)
+    restart()
+    requestedRoutes.clear()
+    assertThat(paginateToAndAwait(8)).isEqualTo(9)
+    assertThat(requestedRoutes).hasSize(9)
+  }
+
+  @Test
+  fun requestsOnlyTheTargetPageAfterARestartWhenItHasBeenIndexed() =
+    runLinkedPaginationTest(pageCursorDao = InMemoryPageCursorDao()) {
+      paginateToAndAwait(8)
+      restart()
+      requestedRoutes.clear()
+      assertThat(paginateToAndAwait(8)).isEqualTo(1)
+      assertThat(requestedRoutes).containsExactly(createRouteAt(8))
+    }
+
+  @Test
+  fun startsFromTheClosestIndexedPageWhenTheTargetOneHasNotBeenIndexed() =
+    runLinkedPaginationTest(pageCursorDao = InMemoryPageCursorDao()) {
+      paginateToAndAwait(4)
+      restart()
+      requestedRoutes.clear()
+      assertThat(paginateToAndAwait(8)).isEqualTo(4)
+      assertThat(requestedRoutes)
+        .containsExactly(createRouteAt(5), createRouteAt(6), createRouteAt(7), createRouteAt(8))
+    }
+
+  @Test
+  fun rebuildsStaleCursorsWhenThePagesAreLinkedToOtherRoutes() =
+    runLinkedPaginationTest(pageCursorDao = InMemoryPageCursorDao()) {
+      paginateToAndAwait(8)
+      val staleRoutes = (1..8).map(::createRouteAt)
+      generation++
+      restart()
+      paginateToAndAwait(0)
+      requestedRoutes.clear()
+      paginateToAndAwait(8)
+      assertThat(requestedRoutes).containsNone(*staleRoutes.toTypedArray())
+      restart()
+      requestedRoutes.clear()
+      paginateToAndAwait(8)
+      assertThat(requestedRoutes).containsExactly(createRouteAt(8))
+    }
+}
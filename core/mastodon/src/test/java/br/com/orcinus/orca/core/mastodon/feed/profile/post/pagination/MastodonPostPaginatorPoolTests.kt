@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import assertk.assertions.isFalse
+import assertk.assertions.isNotSameInstanceAs
+import assertk.assertions.isSameInstanceAs
+import assertk.assertions.isTrue
+import assertk.assertions.isZero
+import assertk.assertions.prop
+import br.com.orcinus.orca.core.auth.SomeAuthenticationLock
+import br.com.orcinus.orca.core.feed.profile.post.Post
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.type.KTypeCreator
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.type.kTypeCreatorOf
+import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
+import br.com.orcinus.orca.core.mastodon.instance.requester.authentication.runAuthenticatedRequesterTest
+import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
+import kotlin.test.Test
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.job
+import kotlinx.coroutines.plus
+
+internal class MastodonPostPaginatorPoolTests {
+  @Test
+  fun doesNotCreatePaginatorsUntilTheyAreObtained() = runAuthenticatedRequesterTest { lock ->
+    var creationCount = 0
+    MastodonPostPaginatorPool(this) { _, paginatorScope ->
+      creationCount++
+      createPaginator(requester, lock, paginatorScope)
+    }
+    assertThat(creationCount).isZero()
+  }
+
+  @Test
+  fun reusesPooledPaginator() = runAuthenticatedRequesterTest { lock ->
+    val poolJob = Job(coroutineContext.job)
+    val pool =
+      MastodonPostPaginatorPool(this + poolJob) { _, paginatorScope ->
+        createPaginator(requester, lock, paginatorScope)
+      }
+    assertThat(pool.obtain("0")).isSameInstanceAs(pool.obtain("0"))
+    poolJob.cancel()
+  }
+
+  @Test
+  fun recreatesEvictedPaginator() = runAuthenticatedRequesterTest { lock ->
+    val poolJob = Job(coroutineContext.job)
+    val pool =
+      MastodonPostPaginatorPool(this + poolJob, maxSize = 1) { _, paginatorScope ->
+        createPaginator(requester, lock, paginatorScope)
+      }
+    val evictedPaginator = pool.obtain("0")
+    pool.obtain("1")
+    assertThat(pool.obtain("0")).isNotSameInstanceAs(evictedPaginator)
+    poolJob.cancel()
+  }
+
+  @Test
+  fun cancelsTheScopeOfTheLeastRecentlyObtainedPaginatorWhenEvictingIt() =
+    runAuthenticatedRequesterTest { lock ->
+      val poolJob = Job(coroutineContext.job)
+      val paginatorScopes = hashMapOf<String, CoroutineScope>()
+      val pool =
+        MastodonPostPaginatorPool(this + poolJob, maxSize = 2) { id, paginatorScope ->
+          paginatorScopes[id] = paginatorScope
+          createPaginator(requester, lock, paginatorScope)
+        }
+      pool.obtain("0")
+      pool.obtain("1")
+      pool.obtain("0")
+      pool.obtain("2")
+      assertThat(paginatorScopes.getValue("0").isActive).isTrue()
+      assertThat(paginatorScopes.getValue("1").isActive).isFalse()
+      assertThat(paginatorScopes.getValue("2").isActive).isTrue()
+      poolJob.cancel()
+    }
+
+  @Test
+  fun keepsTheAmountOfLivePaginatorsBoundedWhenObtainingThoseOfManyStructures() =
+    runAuthenticatedRequesterTest { lock ->
+      val poolJob = Job(coroutineContext.job)
+      val pool =
+        MastodonPostPaginatorPool(this + poolJob, maxSize = 8) { _, paginatorScope ->
+          createPaginator(requester, lock, paginatorScope)
+        }
+      repeat(1_024) { pool.obtain("$it") }
+      assertThat(pool).prop(MastodonPostPaginatorPool<*>::size).isEqualTo(8)
+      assertThat(poolJob.children.count()).isEqualTo(8)
+      poolJob.cancel()
+    }
+
+  @Test
+  fun cancelsAllPaginatorsWhenTheScopeIsCancelled() = runAuthenticatedRequesterTest { lock ->
+    val poolJob = Job(coroutineContext.job)
+    val pool =
+      MastodonPostPaginatorPool(this + poolJob) { _, paginatorScope ->
+        createPaginator(requester, lock, paginatorScope)
+      }
+    repeat(8) { pool.obtain("$it") }
+    poolJob.cancel()
+    assertThat(pool).prop(MastodonPostPaginatorPool<*>::size).isZero()
+    assertThat(poolJob.children.count()).isZero()
+  }
+
+  /**
+   * Creates a [MastodonPostPaginator] whose pagination results in no [Post]s.
+   *
+   * @param paginatorRequester [Requester] by which requests are performed.
+   * @param lock [SomeAuthenticationLock] by which requests are authenticated.
+   * @param coroutineScope [CoroutineScope] in which the [Post]s emitted upon pagination are shared.
+   */
+  private fun createPaginator(
+    paginatorRequester: Requester<*>,
+    lock: SomeAuthenticationLock,
+    coroutineScope: CoroutineScope
+  ): MastodonPostPaginator<Any> {
+    return object :
+      MastodonPostPaginator<Any>(lock, coroutineScope, readAheadCount = 0),
+      KTypeCreator<Any> by kTypeCreatorOf() {
+      override val requester = paginatorRequester
+
+      override fun HostedURLBuilder.buildInitialRoute() = build()
+
+      override fun Any.toPosts() = emptyList<Post>()
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination
+
+import assertk.assertThat
+import assertk.assertions.containsExactly
+import assertk.assertions.isEqualTo
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.LinkedPaginationTestScope.Companion.LATENCY
+import kotlin.test.Test
+import kotlin.time.Duration.Companion.milliseconds
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.test.advanceUntilIdle
+
+@OptIn(ExperimentalCoroutinesApi::class)
+internal class MastodonPostPaginatorReadAheadTests {
+  @Test
+  fun stallsForTheRefreshAndTheNextPageAtAPageBoundaryWhenNotReadingAhead() =
+    runLinkedPaginationTest(readAheadCount = 0) {
+      paginateToAndAwait(0)
+      delay(READING_TIME)
+      assertThat(stallTimeOf { paginateToAndAwait(1) }).isEqualTo(LATENCY * 2)
+    }
+
+  @Test
+  fun stallsOnlyForTheRefreshAtAPageBoundaryWhenReadingAhead() =
+    runLinkedPaginationTest(readAheadCount = 1) {
+      paginateToAndAwait(0)
+      delay(READING_TIME)
+      assertThat(stallTimeOf { paginateToAndAwait(1) }).isEqualTo(LATENCY)
+    }
+
+  @Test
+  fun addsOnlyTheRequestsForThePagesAheadToThoseOfPaginationWhenReadingAhead() {
+    fun requestCountOf(readAheadCount: Int): Int {
+      var requestCount = 0
+      runLinkedPaginationTest(readAheadCount) {
+        for (page in 0..2) {
+          paginateToAndAwait(page)
+          delay(READING_TIME)
+        }
+        requestCount = respondedRoutes.size
+      }
+      return requestCount
+    }
+
+    assertThat(requestCountOf(readAheadCount = 2)).isEqualTo(requestCountOf(readAheadCount = 0) + 2)
+  }
+
+  @Test
+  fun cancelsReadAheadWhenTheScopeIsCancelled() = runLinkedPaginationTest(readAheadCount = 1) {
+    paginateToAndAwait(0)
+    delay(LATENCY / 2)
+    paginatorJob.cancel()
+    delegate.advanceUntilIdle()
+    assertThat(requestedRoutes).containsExactly(initialRoute, createRouteAt(1))
+    assertThat(respondedRoutes).containsExactly(initialRoute)
+  }
+
+  companion object {
+    /** Amount of time spent by the user reading a page before reaching its end. */
+    private val READING_TIME = 1_000.milliseconds
+  }
+}
@@ -138,6 +138,9 @@ internal sealed class Routes {
  * offers facilities for performing pagination, providing responses to HTTP requests and counting
  * those sent to a specific route, which allows for ensuring behavior correctness of such class.
  *
+ * Pages are not read ahead, given that the routes linked in the responses are relative to the page
+ * at which the paginator is when they're sent rather than to that of the request.
+ *
  * @param authenticationLock [AuthenticationLock] that authenticates the HTTP requests performed
  *   upon pagination.
  * @property requesterScope [RequesterTestScope] in which the [Post]s of each page are shared. Also
@@ -149,7 +152,7 @@ internal sealed class MastodonPostPaginatorScope(
     RequesterTestScope<Requester<AuthenticationLock.FailedAuthenticationException>>,
   authenticationLock: SomeAuthenticationLock
 ) :
-  MastodonPostPaginator<Any>(authenticationLock, requesterScope),
+  MastodonPostPaginator<Any>(authenticationLock, requesterScope, readAheadCount = 0),
   KTypeCreator<Any> by kTypeCreatorOf(),
   CoroutineScope by requesterScope,
   AutoCloseable {
@@ -71,6 +71,14 @@ internal class MastodonPostPaginatorTests {
       .isEqualTo(3)
   }
 
+  @Test
+  fun countsPagesBetweenNonInitialPages() = runMastodonPostPaginatorTest {
+    assertThat(this)
+      .transform("countPagesSafely") { it.countPagesSafely(3, 5) }
+      .isSuccessful()
+      .isEqualTo(3)
+  }
+
   @Test
   fun failsWhenPaginatingToInvalidPage() = runMastodonPostPaginatorTest {
     assertThat(this)
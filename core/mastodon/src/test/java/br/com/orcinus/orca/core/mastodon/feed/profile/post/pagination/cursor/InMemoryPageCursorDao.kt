@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor
+
+/** [PageCursorDao] that inserts [PageCursor]s into and deletes them from memory. */
+internal class InMemoryPageCursorDao : PageCursorDao() {
+  /** Inserted [PageCursor]s to be selected or deleted. */
+  private val cursors = mutableListOf<PageCursor>()
+
+  override suspend fun select(owner: String, page: Int): PageCursor? {
+    return synchronized(cursors) { cursors.find { it.owner == owner && it.page == page } }
+  }
+
+  override suspend fun selectFloor(owner: String, page: Int): PageCursor? {
+    return synchronized(cursors) {
+      cursors.filter { it.owner == owner && it.page <= page }.maxByOrNull(PageCursor::page)
+    }
+  }
+
+  override suspend fun insert(cursor: PageCursor) {
+    synchronized(cursors) {
+      cursors.removeIf { it.owner == cursor.owner && it.page == cursor.page }
+      cursors.add(cursor)
+    }
+  }
+
+  override suspend fun deleteAfter(owner: String, page: Int) {
+    synchronized(cursors) { cursors.removeIf { it.owner == owner && it.page > page } }
+  }
+
+  override suspend fun touch(owner: String) {
+    synchronized(cursors) {
+      val lastAccess = cursors.maxOfOrNull(PageCursor::lastAccess)?.inc() ?: 1
+      cursors.replaceAll { if (it.owner == owner) it.copy(lastAccess = lastAccess) else it }
+    }
+  }
+
+  override suspend fun deleteLeastRecentlyAccessed(retainedOwnerCount: Int) {
+    synchronized(cursors) {
+      val retainedOwners =
+        cursors
+          .groupBy(PageCursor::owner)
+          .entries
+          .sortedByDescending { (_, cursors) -> cursors.maxOf(PageCursor::lastAccess) }
+          .take(retainedOwnerCount)
+          .mapTo(HashSet()) { (owner, _) -> owner }
+      cursors.removeIf { it.owner !in retainedOwners }
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.feed.profile.post.pagination.cursor
+
+import assertk.assertThat
+import assertk.assertions.isNotNull
+import assertk.assertions.isNull
+import kotlin.test.Test
+import kotlinx.coroutines.test.runTest
+
+internal class PageCursorDaoTests {
+  private val dao = InMemoryPageCursorDao()
+
+  @Test
+  fun keepsCursorsOfTheMostRecentlyAccessedPaginations() = runTest {
+    repeat(PageCursorDao.MAX_OWNER_COUNT) { index ->
+      dao.insert(PageCursor("$index", page = 0, route = "$index"))
+      dao.access("$index")
+    }
+    repeat(PageCursorDao.MAX_OWNER_COUNT) { assertThat(dao.select("$it", page = 0)).isNotNull() }
+  }
+
+  @Test
+  fun deletesCursorsOfTheLeastRecentlyAccessedPaginationWhenAnotherOneIsAccessed() = runTest {
+    repeat(PageCursorDao.MAX_OWNER_COUNT + 1) { index ->
+      dao.insert(PageCursor("$index", page = 0, route = "$index"))
+      dao.access("$index")
+    }
+    assertThat(dao.select("0", page = 0)).isNull()
+    assertThat(dao.select("1", page = 0)).isNotNull()
+  }
+
+  @Test
+  fun keepsCursorsOfAPaginationThatHasBeenAccessedAgain() = runTest {
+    repeat(PageCursorDao.MAX_OWNER_COUNT) { index ->
+      dao.insert(PageCursor("$index", page = 0, route = "$index"))
+      dao.access("$index")
+    }
+    dao.access("0")
+    dao.insert(PageCursor("${PageCursorDao.MAX_OWNER_COUNT}", page = 0, route = ""))
+    dao.access("${PageCursorDao.MAX_OWNER_COUNT}")
+    assertThat(dao.select("0", page = 0)).isNotNull()
+    assertThat(dao.select("1", page = 0)).isNull()
+  }
+}
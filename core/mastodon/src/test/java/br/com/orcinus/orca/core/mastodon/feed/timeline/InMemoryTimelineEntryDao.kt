@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.timeline
+
+/** [TimelineEntryDao] that inserts [TimelineEntry]s into and deletes them from memory. */
+internal class InMemoryTimelineEntryDao : TimelineEntryDao() {
+  /** Inserted [TimelineEntry]s to be selected, updated or deleted. */
+  private val entries = mutableListOf<TimelineEntry>()
+
+  override suspend fun selectNewest(owner: String, count: Int): List<TimelineEntry> {
+    return synchronized(entries) {
+      entries.filter { it.owner == owner }.sortedByDescending(TimelineEntry::sortKey).take(count)
+    }
+  }
+
+  override suspend fun select(owner: String, statusID: String): TimelineEntry? {
+    return synchronized(entries) { entries.find { it.owner == owner && it.statusID == statusID } }
+  }
+
+  override suspend fun selectNextOlder(owner: String, sortKey: String): TimelineEntry? {
+    return synchronized(entries) {
+      entries
+        .filter { it.owner == owner && it.sortKey < sortKey }
+        .maxByOrNull(TimelineEntry::sortKey)
+    }
+  }
+
+  override suspend fun insertAll(entries: List<TimelineEntry>) {
+    synchronized(this.entries) {
+      for (entry in entries) {
+        this.entries.removeIf { it.owner == entry.owner && it.statusID == entry.statusID }
+        this.entries.add(entry)
+      }
+    }
+  }
+
+  override suspend fun closeGap(owner: String, statusID: String) {
+    synchronized(entries) {
+      entries.replaceAll {
+        if (it.owner == owner && it.statusID == statusID) it.copy(isFollowedByGap = false) else it
+      }
+    }
+  }
+
+  override suspend fun deleteBetween(owner: String, oldestSortKey: String, newestSortKey: String) {
+    synchronized(entries) {
+      entries.removeIf { it.owner == owner && it.sortKey in oldestSortKey..newestSortKey }
+    }
+  }
+
+  override suspend fun trim(owner: String, count: Int) {
+    synchronized(entries) {
+      val keptEntries =
+        entries.filter { it.owner == owner }.sortedByDescending(TimelineEntry::sortKey).take(count)
+      entries.removeIf { it.owner == owner && it !in keptEntries }
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.feed.timeline
+
+import assertk.assertThat
+import assertk.assertions.containsExactly
+import assertk.assertions.isEmpty
+import assertk.assertions.isEqualTo
+import br.com.orcinus.orca.core.mastodon.feed.profile.account.MastodonAccount
+import br.com.orcinus.orca.core.mastodon.feed.profile.post.status.MastodonStatus
+import kotlin.test.Test
+import kotlinx.coroutines.test.runTest
+
+internal class TimelineEntryDaoTests {
+  @Test
+  fun selectsNoWindowWhenNothingHasBeenMerged() = runTest {
+    assertThat(InMemoryTimelineEntryDao().selectWindowIDs()).isEmpty()
+  }
+
+  @Test
+  fun selectsEveryStatusWhenPagesAreContiguous() = runTest {
+    val dao = InMemoryTimelineEntryDao()
+    dao.mergePage("9", "8", "7")
+    dao.mergePage("6", "5", "4", precedingStatusID = "7")
+    assertThat(dao.selectWindowIDs()).containsExactly("9", "8", "7", "6", "5", "4")
+  }
+
+  @Test
+  fun cutsWindowAtGapBetweenNonContiguousPages() = runTest {
+    val dao = InMemoryTimelineEntryDao()
+    dao.mergePage("6", "5", "4")
+    dao.mergePage("12", "11", "10")
+    assertThat(dao.selectWindowIDs()).containsExactly("12", "11", "10")
+  }
+
+  @Test
+  fun fillsGapAsTheLinkedPagesAreMerged() = runTest {
+    val dao = InMemoryTimelineEntryDao()
+    dao.mergePage("6", "5", "4")
+    dao.mergePage("12", "11", "10")
+    dao.mergePage("9", "8", "7", precedingStatusID = "10")
+    assertThat(dao.selectWindowIDs()).containsExactly("12", "11", "10", "9", "8", "7")
+    dao.mergePage("6", "5", "4", precedingStatusID = "7")
+    assertThat(dao.selectWindowIDs())
+      .containsExactly("12", "11", "10", "9", "8", "7", "6", "5", "4")
+  }
+
+  @Test
+  fun keepsWindowWhenNewerPageOverlapsIt() = runTest {
+    val dao = InMemoryTimelineEntryDao()
+    dao.mergePage("6", "5", "4")
+    dao.mergePage("8", "7", "6")
+    assertThat(dao.selectWindowIDs()).containsExactly("8", "7", "6", "5", "4")
+  }
+
+  @Test
+  fun removesStatusesThatAreNoLongerInTheRangeOfAPage() = runTest {
+    val dao = InMemoryTimelineEntryDao()
+    dao.mergePage("9", "8", "7")
+    dao.mergePage("9", "7")
+    assertThat(dao.selectWindowIDs()).containsExactly("9", "7")
+  }
+
+  @Test
+  fun ordersStatusesWhoseIDsAreOfDistinctLengthsChronologically() = runTest {
+    val dao = InMemoryTimelineEntryDao()
+    dao.mergePage("100", "99", "10", "9")
+    assertThat(dao.selectWindowIDs()).containsExactly("100", "99", "10", "9")
+  }
+
+  @Test
+  fun trimsOldestStatusesWhenExceedingMaximumCount() = runTest {
+    val dao = InMemoryTimelineEntryDao()
+    dao.mergePage("9", "8", "7", maxCount = 2)
+    assertThat(dao.selectWindowIDs()).containsExactly("9", "8")
+  }
+
+  @Test
+  fun separatesTimelinesOfDistinctOwners() = runTest {
+    val dao = InMemoryTimelineEntryDao()
+    dao.mergePage("9", "8")
+    dao.merge(owner = "other", listOf(statusOf("7")), precedingStatusID = null, maxCount = 8)
+    assertThat(dao.selectWindowIDs()).containsExactly("9", "8")
+    assertThat(dao.selectWindow("other", count = 8).map(TimelineEntry::statusID))
+      .containsExactly("7")
+  }
+
+  @Test
+  fun restoresMergedStatus() = runTest {
+    val dao = InMemoryTimelineEntryDao()
+    val status = statusOf("9")
+    dao.merge(OWNER, listOf(status), precedingStatusID = null, maxCount = 8)
+    assertThat(dao.selectWindow(OWNER, count = 1).single().toStatus()).isEqualTo(status)
+  }
+
+  companion object {
+    /** ID of the owner of the timeline into which pages are merged by default. */
+    private const val OWNER = "owner"
+
+    /**
+     * Merges a page of [MastodonStatus]es into the timeline of the [OWNER].
+     *
+     * @param statusIDs IDs of the [MastodonStatus]es of the page, from the newest to the oldest
+     *   one.
+     * @param precedingStatusID ID of the oldest [MastodonStatus] of the page that links to this
+     *   one.
+     * @param maxCount Maximum amount of [TimelineEntry]s to be kept.
+     */
+    private suspend fun TimelineEntryDao.mergePage(
+      vararg statusIDs: String,
+      precedingStatusID: String? = null,
+      maxCount: Int = 64
+    ) = merge(OWNER, statusIDs.map(::statusOf), precedingStatusID, maxCount)
+
+    /** Selects the IDs of the [MastodonStatus]es in the window of the timeline of the [OWNER]. */
+    private suspend fun TimelineEntryDao.selectWindowIDs() =
+      selectWindow(OWNER, count = 64).map(TimelineEntry::statusID)
+
+    /**
+     * Creates a [MastodonStatus].
+     *
+     * @param id ID of the [MastodonStatus] to be created.
+     */
+    private fun statusOf(id: String) =
+      MastodonStatus(
+        id,
+        createdAt = "2025-01-01T00:00:00Z",
+        MastodonAccount(
+          id = "0",
+          username = "orca",
+          acct = "orca@orca.orcinus.com.br",
+          uri = "https://orca.orcinus.com.br/@orca",
+          displayName = "Orca",
+          locked = false,
+          note = "",
+          avatar = "https://orca.orcinus.com.br/@orca/avatar",
+          followersCount = 0,
+          followingCount = 0
+        ),
+        reblogsCount = 0,
+        favouritesCount = 0,
+        repliesCount = 0,
+        uri = "https://orca.orcinus.com.br/@orca/$id",
+        reblog = null,
+        card = null,
+        content = "",
+        mediaAttachments = emptyList(),
+        favourited = null,
+        reblogged = null
+      )
+  }
+}
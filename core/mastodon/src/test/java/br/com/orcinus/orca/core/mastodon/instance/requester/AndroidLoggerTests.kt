@@ -25,6 +25,8 @@ import io.ktor.client.statement.HttpResponse
 import io.ktor.http.HttpStatusCode
 import io.mockk.coVerify
 import io.mockk.mockkStatic
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
 import kotlinx.coroutines.test.runTest
 import org.junit.Test
 import org.junit.runner.RunWith
@@ -32,6 +34,18 @@ import org.robolectric.RobolectricTestRunner
 
 @RunWith(RobolectricTestRunner::class)
 internal class AndroidLoggerTests {
+  private val policy = Logger.Android.policy
+
+  @BeforeTest
+  fun setUp() {
+    Logger.Android.policy = Logger.Policy.verbose
+  }
+
+  @AfterTest
+  fun tearDown() {
+    Logger.Android.policy = policy
+  }
+
   @Test
   fun infoCallsAndroidLogI() {
     lateinit var response: HttpResponse
@@ -0,0 +1,225 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester
+
+import assertk.all
+import assertk.assertThat
+import assertk.assertions.containsOnly
+import assertk.assertions.isEqualTo
+import assertk.assertions.isNotSameInstanceAs
+import assertk.assertions.isSameInstanceAs
+import assertk.assertions.key
+import assertk.assertions.prop
+import br.com.orcinus.orca.core.auth.actor.Actor
+import br.com.orcinus.orca.core.mastodon.instance.requester.authentication.authenticated
+import br.com.orcinus.orca.core.mastodon.instance.requester.cache.ResponseCache
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.InMemoryMetricsSink
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.Measurement
+import br.com.orcinus.orca.core.mastodon.instance.requester.metrics.MetricsSnapshot
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.resumable
+import br.com.orcinus.orca.core.sample.auth.SampleAuthenticationLock
+import br.com.orcinus.orca.core.sample.auth.SampleAuthenticator
+import br.com.orcinus.orca.core.sample.auth.SampleAuthorizer
+import br.com.orcinus.orca.core.sample.auth.actor.SampleActorProvider
+import br.com.orcinus.orca.ext.uri.URIBuilder
+import io.ktor.client.engine.HttpClientEngine
+import io.ktor.client.engine.HttpClientEngineFactory
+import io.ktor.client.engine.mock.MockEngine
+import io.ktor.client.engine.mock.MockEngineConfig
+import io.ktor.client.engine.mock.respondError
+import io.ktor.client.engine.mock.respondOk
+import io.ktor.http.HttpStatusCode
+import kotlin.io.path.createTempDirectory
+import kotlin.test.Test
+import kotlinx.coroutines.test.runTest
+
+internal class HttpClientRegistryTests {
+  private val lock =
+    SampleAuthenticationLock(
+      SampleAuthorizer,
+      SampleAuthenticator(),
+      SampleActorProvider(Actor.Unauthenticated)
+    )
+
+  private class CountingHttpClientEngineFactory : HttpClientEngineFactory<MockEngineConfig> {
+    var creationCount = 0
+      private set
+
+    override fun create(block: MockEngineConfig.() -> Unit): HttpClientEngine {
+      creationCount++
+      return MockEngine { respondOk() }.apply { config.block() }
+    }
+  }
+
+  @Test
+  fun obtainsTheSameClientForRequestersOfTheSameOrigin() {
+    val clientEngineFactory = CountingHttpClientEngineFactory()
+    val requester =
+      Requester<Exception>(
+        NoOpLogger,
+        URIBuilder.url().scheme("https").host("orca.orcinus.com.br").path("app").build(),
+        clientEngineFactory
+      )
+    val anotherRequester =
+      Requester<Exception>(
+        NoOpLogger,
+        URIBuilder.url().scheme("https").host("orca.orcinus.com.br").path("api").build(),
+        clientEngineFactory
+      )
+    assertThat(anotherRequester.client).isSameInstanceAs(requester.client)
+  }
+
+  @Test
+  fun obtainsDistinctClientsForRequestersOfDistinctOrigins() {
+    val clientEngineFactory = CountingHttpClientEngineFactory()
+    val requester =
+      Requester<Exception>(
+        NoOpLogger,
+        URIBuilder.url().scheme("https").host("orca.orcinus.com.br").build(),
+        clientEngineFactory
+      )
+    val anotherRequester =
+      Requester<Exception>(
+        NoOpLogger,
+        URIBuilder.url().scheme("https").host("mastodon.social").build(),
+        clientEngineFactory
+      )
+    assertThat(anotherRequester.client).isNotSameInstanceAs(requester.client)
+  }
+
+  @Test
+  fun obtainsDistinctClientsForRequestersOfTheSameOriginWithDistinctResponseCaches() {
+    val directory = createTempDirectory().toFile()
+    try {
+      val clientEngineFactory = CountingHttpClientEngineFactory()
+      val requester =
+        Requester<Exception>(NoOpLogger, RequesterTestScope.baseURI, clientEngineFactory)
+      val cachingRequester =
+        Requester<Exception>(
+          NoOpLogger,
+          RequesterTestScope.baseURI,
+          clientEngineFactory,
+          ResponseCache(directory)
+        )
+      assertThat(cachingRequester.client).isNotSameInstanceAs(requester.client)
+    } finally {
+      directory.deleteRecursively()
+    }
+  }
+
+  @Test
+  fun sharesClientWithRequestersDecoratingOneWithAResponseCache() = runTest {
+    val directory = createTempDirectory().toFile()
+    try {
+      val requester =
+        Requester<Exception>(
+          NoOpLogger,
+          RequesterTestScope.baseURI,
+          CountingHttpClientEngineFactory(),
+          ResponseCache(directory)
+        )
+      assertThat(requester.authenticated(lock).client).isSameInstanceAs(requester.client)
+      assertThat(requester.resumable(this).client).isSameInstanceAs(requester.client)
+    } finally {
+      directory.deleteRecursively()
+    }
+  }
+
+  @Test
+  fun sharesClientWithDecoratedRequesters() = runRequesterTest {
+    assertThat(requester.authenticated(lock).client).isSameInstanceAs(requester.client)
+    assertThat(requester.resumable(delegate).client).isSameInstanceAs(requester.client)
+  }
+
+  @Test
+  fun createsASingleEngineForRequestsPerformedByRepeatedlyDecoratedRequesters() {
+    val clientEngineFactory = CountingHttpClientEngineFactory()
+    val requester =
+      Requester<Exception>(NoOpLogger, RequesterTestScope.baseURI, clientEngineFactory)
+    runTest {
+      repeat(256) {
+        requester.authenticated(lock).client
+        requester.resumable(this).get { path("api").path("v1").path("resource").build() }
+      }
+    }
+    assertThat(clientEngineFactory.creationCount).isEqualTo(1)
+  }
+
+  @Test
+  fun measuresEachAttemptOfARetriedRequestOnItsOwn() = runTest {
+    val sink = InMemoryMetricsSink()
+    var attemptCount = 0
+    Requester<Exception>(
+        NoOpLogger,
+        RequesterTestScope.baseURI,
+        httpClientEngineFactoryOf(
+          ClientResponseProvider {
+            if (attemptCount++ == 0) {
+              respondError(HttpStatusCode.ServiceUnavailable)
+            } else {
+              respondOk()
+            }
+          }
+        ),
+        metricsSink = sink
+      )
+      .get({ path("api").path("v1").path("resource").build() })
+    assertThat(sink.snapshot().routes).key(ROUTE).all {
+      prop(MetricsSnapshot.Route::latencies)
+        .key(Measurement.Phase.FIRST_BYTE)
+        .prop(MetricsSnapshot.Distribution::count)
+        .isEqualTo(2L)
+      prop(MetricsSnapshot.Route::statusCounts)
+        .containsOnly(
+          HttpStatusCode.ServiceUnavailable.value to 1L,
+          HttpStatusCode.OK.value to 1L
+        )
+    }
+  }
+
+  @Test
+  fun schedulesEachAttemptOfARetriedRequestOnItsOwn() = runTest {
+    val sink = InMemoryMetricsSink()
+    var attemptCount = 0
+    Requester<Exception>(
+        NoOpLogger,
+        RequesterTestScope.baseURI,
+        httpClientEngineFactoryOf(
+          ClientResponseProvider {
+            if (attemptCount++ == 0) {
+              respondError(HttpStatusCode.ServiceUnavailable)
+            } else {
+              respondOk()
+            }
+          }
+        ),
+        metricsSink = sink
+      )
+      .get({ path("api").path("v1").path("resource").build() })
+    assertThat(sink.snapshot().routes).key(ROUTE).all {
+      prop(MetricsSnapshot.Route::retryCount).isEqualTo(1L)
+      prop(MetricsSnapshot.Route::latencies)
+        .key(Measurement.Phase.QUEUE)
+        .prop(MetricsSnapshot.Distribution::count)
+        .isEqualTo(2L)
+    }
+  }
+
+  companion object {
+    /** Template of the route to which requests are sent. */
+    private val ROUTE = "${RequesterTestScope.baseURI.path}/api/v1/resource"
+  }
+}
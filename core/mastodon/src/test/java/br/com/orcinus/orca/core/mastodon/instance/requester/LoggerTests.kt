@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester
+
+import assertk.assertThat
+import assertk.assertions.contains
+import assertk.assertions.doesNotContain
+import assertk.assertions.endsWith
+import assertk.assertions.hasSize
+import assertk.assertions.isEmpty
+import assertk.assertions.single
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.mock.respondOk
+import io.ktor.client.request.forms.submitForm
+import io.ktor.client.request.get
+import io.ktor.http.parametersOf
+import kotlin.test.Test
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.test.runTest
+
+internal class LoggerTests {
+  private class RecordingLogger(policy: Policy) : Logger() {
+    val messages = MutableStateFlow(emptyList<String>())
+
+    init {
+      this.policy = policy
+    }
+
+    override fun info(info: String) {
+      messages.update { it + info }
+    }
+
+    override fun error(error: String) {
+      messages.update { it + error }
+    }
+  }
+
+  @Test
+  fun logsNothingWhenOff() = runTest {
+    val logger = RecordingLogger(Logger.Policy.off)
+    HttpClient(httpClientEngineFactoryOf { respondOk(BODY) }) { logger.start(this) }
+      .get("/api/v1/resource")
+    assertThat(logger.messages.value).isEmpty()
+  }
+
+  @Test
+  fun logsMetadataWithoutBodyAtHeadersLevel() = runTest {
+    val logger = RecordingLogger(Logger.Policy(Logger.Level.HEADERS))
+    HttpClient(httpClientEngineFactoryOf { respondOk(BODY) }) { logger.start(this) }
+      .get("/api/v1/resource")
+    assertThat(logger.messages.value).single().doesNotContain(BODY)
+  }
+
+  @Test
+  fun doesNotLogFormParameters() = runTest {
+    val logger = RecordingLogger(Logger.Policy(Logger.Level.HEADERS))
+    HttpClient(httpClientEngineFactoryOf { respondOk(BODY) }) { logger.start(this) }
+      .submitForm("/oauth/token", parametersOf("client_secret", SECRET))
+    assertThat(logger.messages.value).single().doesNotContain(SECRET)
+  }
+
+  @Test
+  fun logsBodyAtBodiesLevel() = runTest {
+    val logger = RecordingLogger(Logger.Policy(Logger.Level.BODIES))
+    HttpClient(httpClientEngineFactoryOf { respondOk(BODY) }) { logger.start(this) }
+      .get("/api/v1/resource")
+    assertThat(logger.messages.first(List<String>::isNotEmpty)).single().contains(BODY)
+  }
+
+  @Test
+  fun truncatesBodyThatExceedsMaximumByteCount() = runTest {
+    val logger = RecordingLogger(Logger.Policy(Logger.Level.BODIES, maxBodyByteCount = 5))
+    HttpClient(httpClientEngineFactoryOf { respondOk(BODY) }) { logger.start(this) }
+      .get("/api/v1/resource")
+    assertThat(logger.messages.first(List<String>::isNotEmpty))
+      .single()
+      .endsWith("${BODY.take(5)}… (truncated)")
+  }
+
+  @Test
+  fun doesNotTruncateBodyWhoseLengthEqualsMaximumByteCount() = runTest {
+    val maxBodyByteCount = BODY.encodeToByteArray().size.toLong()
+    val logger = RecordingLogger(Logger.Policy(Logger.Level.BODIES, maxBodyByteCount))
+    HttpClient(httpClientEngineFactoryOf { respondOk(BODY) }) { logger.start(this) }
+      .get("/api/v1/resource")
+    assertThat(logger.messages.first(List<String>::isNotEmpty)).single().endsWith(BODY)
+  }
+
+  @Test
+  fun samplesBodiesPerRoute() = runTest {
+    val logger =
+      RecordingLogger(
+        Logger.Policy(
+          Logger.Level.BODIES,
+          bodySamplingRate = 1.0,
+          routeBodySamplingRates = mapOf("/api/v1/timelines" to 0.0)
+        )
+      )
+    val client = HttpClient(httpClientEngineFactoryOf { respondOk(BODY) }) { logger.start(this) }
+    client.get("/api/v1/timelines/home")
+    assertThat(logger.messages.value).single().doesNotContain(BODY)
+    client.get("/api/v1/statuses/0")
+    assertThat(logger.messages.first { it.size == 2 }).hasSize(2)
+    assertThat(logger.messages.value[1]).contains(BODY)
+  }
+
+  companion object {
+    private const val BODY = "Hello, world!"
+    private const val SECRET = "🔑"
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import io.ktor.client.engine.HttpClientEngineFactory
+import io.ktor.client.engine.mock.MockEngine
+import io.ktor.client.engine.mock.MockEngineConfig
+import io.ktor.client.engine.mock.respondOk
+import kotlin.test.Test
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.test.testTimeSource
+
+@OptIn(ExperimentalCoroutinesApi::class)
+internal class RequesterPrewarmingTests {
+  @Test
+  fun takesAsLongAsTheConnectionSetupToGetTheFirstPageWhenNotPrewarmed() {
+    assertThat(timeToFirstPageOf(isPrewarmed = false)).isEqualTo(CONNECTION_SETUP_TIME)
+  }
+
+  @Test
+  fun takesOnlyWhatIsLeftOfTheConnectionSetupToGetTheFirstPageWhenPrewarmed() {
+    assertThat(timeToFirstPageOf(isPrewarmed = true))
+      .isEqualTo(CONNECTION_SETUP_TIME - LAUNCH_TIME)
+  }
+
+  @Test
+  fun doesNotDelayTheFirstPageWhenPrewarmedForLongerThanTheConnectionSetup() {
+    assertThat(timeToFirstPageOf(isPrewarmed = true, launchTime = CONNECTION_SETUP_TIME * 2))
+      .isEqualTo(Duration.ZERO)
+  }
+
+  /**
+   * Measures the amount of time taken to obtain the first page after the app has launched, whose
+   * requests are sent to an instance to which a connection is set up once, upon the first request.
+   *
+   * @param isPrewarmed Whether the connection is prewarmed when the app starts launching.
+   * @param launchTime Amount of time taken for the layout to be inflated and for authentication to
+   *   be unlocked, after which the first page is requested.
+   */
+  private fun timeToFirstPageOf(
+    isPrewarmed: Boolean,
+    launchTime: Duration = LAUNCH_TIME
+  ): Duration {
+    lateinit var timeToFirstPage: Duration
+    runTest {
+      val connectionLock = Mutex()
+      var isConnected = false
+      val clientEngineFactory =
+        object : HttpClientEngineFactory<MockEngineConfig> {
+          override fun create(block: MockEngineConfig.() -> Unit): MockEngine {
+            return MockEngine(
+              MockEngineConfig().apply {
+                dispatcher = StandardTestDispatcher(testScheduler)
+                addHandler {
+                  connectionLock.withLock {
+                    if (!isConnected) {
+                      delay(CONNECTION_SETUP_TIME)
+                      isConnected = true
+                    }
+                  }
+                  respondOk()
+                }
+                block()
+              }
+            )
+          }
+        }
+      val requester =
+        Requester<Exception>(NoOpLogger, RequesterTestScope.baseURI, clientEngineFactory)
+      if (isPrewarmed) requester.prewarm(this)
+      delay(launchTime)
+      val mark = testTimeSource.markNow()
+      requester.get({ path("api").path("v1").path("timelines").path("home").build() })
+      timeToFirstPage = mark.elapsedNow()
+    }
+    return timeToFirstPage
+  }
+
+  companion object {
+    /** Amount of time taken to resolve the host and to perform the TCP and TLS handshakes. */
+    private val CONNECTION_SETUP_TIME = 300.milliseconds
+
+    /** Default amount of time taken by the app to launch. */
+    private val LAUNCH_TIME = 200.milliseconds
+  }
+}
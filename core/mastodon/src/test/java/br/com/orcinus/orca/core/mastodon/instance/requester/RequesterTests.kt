@@ -18,7 +18,9 @@ package br.com.orcinus.orca.core.mastodon.instance.requester
 import assertk.assertThat
 import assertk.assertions.isEmpty
 import assertk.assertions.isEqualTo
+import assertk.assertions.isZero
 import assertk.coroutines.assertions.suspendCall
+import br.com.orcinus.orca.core.mastodon.instance.requester.resilience.RetryPolicy
 import br.com.orcinus.orca.ext.uri.url.HostedURLBuilder
 import br.com.orcinus.orca.std.func.test.monad.isSuccessful
 import io.ktor.client.statement.HttpResponse
@@ -62,7 +64,19 @@ internal class RequesterTests {
   }
 
   @Test
-  fun retriesPostTwiceAfterFailure() {
-    assertThat(retryCountOf { requester.post(route) }).isEqualTo(2)
+  fun doesNotRetryPostAfterFailure() {
+    assertThat(retryCountOf { requester.post(route) }).isZero()
+  }
+
+  @Test
+  fun retriesPostWithIdempotencyKeyTwiceAfterFailure() {
+    assertThat(
+        retryCountOf {
+          requester.post(route) {
+            headers { append(RetryPolicy.IDEMPOTENCY_KEY_HEADER_NAME, "0") }
+          }
+        }
+      )
+      .isEqualTo(2)
   }
 }
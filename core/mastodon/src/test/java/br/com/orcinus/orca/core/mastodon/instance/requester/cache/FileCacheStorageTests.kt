@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.cache
+
+import assertk.all
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import assertk.assertions.isLessThanOrEqualTo
+import assertk.assertions.isNotNull
+import assertk.assertions.isNull
+import assertk.assertions.prop
+import io.ktor.client.plugins.cache.storage.CachedResponseData
+import io.ktor.http.HttpProtocolVersion
+import io.ktor.http.HttpStatusCode
+import io.ktor.http.Url
+import io.ktor.http.headersOf
+import io.ktor.util.date.GMTDate
+import kotlin.io.path.createTempDirectory
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlinx.coroutines.test.runTest
+
+internal class FileCacheStorageTests {
+  /** Directory to which responses are written. */
+  private val directory = createTempDirectory().toFile()
+
+  @AfterTest
+  fun tearDown() {
+    directory.deleteRecursively()
+  }
+
+  @Test
+  fun readsWrittenResponse() = runTest {
+    val url = Url("https://orca.orcinus.com.br/api/v1/instance")
+    val data = dataOf(url, byteCount = 8)
+    FileCacheStorage(directory, maxByteCount = Long.MAX_VALUE).store(url, data)
+    assertThat(FileCacheStorage(directory, maxByteCount = Long.MAX_VALUE).find(url, emptyMap()))
+      .isNotNull()
+      .all {
+        isEqualTo(data)
+        prop(CachedResponseData::body).transform("size") { it.size }.isEqualTo(8)
+        prop(CachedResponseData::headers).transform("ETag") { it["ETag"] }.isEqualTo("\"🐋\"")
+      }
+  }
+
+  @Test
+  fun keepsVariantsOfTheSameUrl() = runTest {
+    val url = Url("https://orca.orcinus.com.br/api/v1/instance")
+    val storage = FileCacheStorage(directory, maxByteCount = Long.MAX_VALUE)
+    storage.store(url, dataOf(url, byteCount = 8, varyKeys = mapOf("Accept" to "text/html")))
+    storage.store(url, dataOf(url, byteCount = 8, varyKeys = mapOf("Accept" to "text/plain")))
+    assertThat(storage.findAll(url).size).isEqualTo(2)
+  }
+
+  @Test
+  fun evictsLeastRecentlyUsedResponseWhenExceedingMaxByteCount() = runTest {
+    val urls = List(3) { Url("https://orca.orcinus.com.br/api/v1/accounts/$it") }
+    val storage = FileCacheStorage(directory, maxByteCount = 2_048)
+    storage.store(urls[0], dataOf(urls[0], byteCount = 768))
+    storage.store(urls[1], dataOf(urls[1], byteCount = 768))
+    storage.find(urls[0], emptyMap())
+    storage.store(urls[2], dataOf(urls[2], byteCount = 768))
+    assertThat(storage.find(urls[0], emptyMap())).isNotNull()
+    assertThat(storage.find(urls[1], emptyMap())).isNull()
+    assertThat(storage.find(urls[2], emptyMap())).isNotNull()
+    assertThat(storage).prop(FileCacheStorage::byteCount).isLessThanOrEqualTo(2_048)
+  }
+
+  /**
+   * Creates [CachedResponseData] whose body is [byteCount] bytes long.
+   *
+   * @param url [Url] to which the response has been received.
+   * @param byteCount Length of the body.
+   * @param varyKeys Values of the headers by which the response varies.
+   */
+  private fun dataOf(
+    url: Url,
+    byteCount: Int,
+    varyKeys: Map<String, String> = emptyMap()
+  ): CachedResponseData {
+    return CachedResponseData(
+      url,
+      HttpStatusCode.OK,
+      requestTime = GMTDate(0),
+      responseTime = GMTDate(0),
+      HttpProtocolVersion.HTTP_1_1,
+      expires = GMTDate(0),
+      headers = headersOf("ETag", "\"🐋\""),
+      varyKeys,
+      body = ByteArray(byteCount)
+    )
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.cache
+
+import assertk.assertThat
+import assertk.assertions.containsExactly
+import assertk.assertions.isEqualTo
+import assertk.assertions.prop
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.mock.MockEngine
+import io.ktor.client.engine.mock.MockRequestHandleScope
+import io.ktor.client.engine.mock.respond
+import io.ktor.client.request.HttpRequestData
+import io.ktor.client.request.HttpResponseData
+import io.ktor.client.request.get
+import io.ktor.client.statement.bodyAsText
+import io.ktor.http.HttpHeaders
+import io.ktor.http.HttpStatusCode
+import io.ktor.http.headersOf
+import kotlin.io.path.createTempDirectory
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlinx.coroutines.test.runTest
+
+internal class ResponseCacheTests {
+  /** Directory in which responses are written. */
+  private val directory = createTempDirectory().toFile()
+
+  @AfterTest
+  fun tearDown() {
+    directory.deleteRecursively()
+  }
+
+  @Test
+  fun servesFreshResponseWithoutSendingARequest() = runTest {
+    val cache = ResponseCache(directory)
+    val engine = MockEngine {
+      respond("🐋", headers = headersOf(HttpHeaders.CacheControl, "max-age=60"))
+    }
+    HttpClient(engine) { cache.install(this) }
+      .use { client ->
+        repeat(2) { assertThat(client.get(URL).bodyAsText()).isEqualTo("🐋") }
+      }
+    assertThat(engine.requestHistory.size).isEqualTo(1)
+    assertThat(cache)
+      .prop(ResponseCache::statistics)
+      .prop("value") { it.value }
+      .isEqualTo(ResponseCache.Statistics(hitCount = 1, revalidationCount = 0))
+  }
+
+  @Test
+  fun revalidatesStaleResponseWithETagAndServesItsBodyFromTheDisk() = runTest {
+    val cache = ResponseCache(directory)
+    val engine = MockEngine { request ->
+      respondConditionally(request, validator = HttpHeaders.ETag to "\"🐋\"")
+    }
+    HttpClient(engine) { cache.install(this) }
+      .use { client ->
+        repeat(2) { assertThat(client.get(URL).bodyAsText()).isEqualTo("🐋") }
+      }
+    assertThat(engine.requestHistory.map { it.headers[HttpHeaders.IfNoneMatch] })
+      .containsExactly(null, "\"🐋\"")
+    assertThat(cache)
+      .prop(ResponseCache::statistics)
+      .prop("value") { it.value }
+      .isEqualTo(ResponseCache.Statistics(hitCount = 1, revalidationCount = 1))
+  }
+
+  @Test
+  fun revalidatesStaleResponseWithLastModified() = runTest {
+    val lastModified = "Wed, 21 Oct 2015 07:28:00 GMT"
+    val cache = ResponseCache(directory)
+    val engine = MockEngine { request ->
+      respondConditionally(request, validator = HttpHeaders.LastModified to lastModified)
+    }
+    HttpClient(engine) { cache.install(this) }.use { client -> repeat(2) { client.get(URL) } }
+    assertThat(engine.requestHistory.map { it.headers[HttpHeaders.IfModifiedSince] })
+      .containsExactly(null, lastModified)
+  }
+
+  @Test
+  fun servesResponseWrittenByAnotherInstance() = runTest {
+    val engine = MockEngine { request ->
+      respondConditionally(request, validator = HttpHeaders.ETag to "\"🐋\"")
+    }
+    HttpClient(engine) { ResponseCache(directory).install(this) }.use { it.get(URL) }
+    HttpClient(engine) { ResponseCache(directory).install(this) }
+      .use { client -> assertThat(client.get(URL).bodyAsText()).isEqualTo("🐋") }
+    assertThat(engine.requestHistory.last().headers[HttpHeaders.IfNoneMatch]).isEqualTo("\"🐋\"")
+  }
+
+  /**
+   * Responds with a 304 (Not Modified) status in case the [request] is conditional; otherwise,
+   * responds with a body that should always be revalidated.
+   *
+   * @param request [HttpRequestData] to which the response is sent.
+   * @param validator Name and value of the header by which the response is validated.
+   */
+  private fun MockRequestHandleScope.respondConditionally(
+    request: HttpRequestData,
+    validator: Pair<String, String>
+  ): HttpResponseData {
+    val (validatorName, validatorValue) = validator
+    val isConditional =
+      request.headers[HttpHeaders.IfNoneMatch] == validatorValue ||
+        request.headers[HttpHeaders.IfModifiedSince] == validatorValue
+    val headers =
+      headersOf(
+        HttpHeaders.CacheControl to listOf("no-cache"),
+        validatorName to listOf(validatorValue)
+      )
+    return if (isConditional) {
+      respond("", HttpStatusCode.NotModified, headers)
+    } else {
+      respond("🐋", headers = headers)
+    }
+  }
+
+  companion object {
+    /** URL to which requests are sent. */
+    private const val URL = "https://orca.orcinus.com.br/api/v1/accounts/1"
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.metrics
+
+import assertk.all
+import assertk.assertThat
+import assertk.assertions.contains
+import assertk.assertions.isEmpty
+import assertk.assertions.isEqualTo
+import assertk.assertions.isNotNull
+import assertk.assertions.key
+import assertk.assertions.prop
+import kotlin.test.Test
+import kotlin.time.Duration.Companion.milliseconds
+import kotlinx.serialization.json.Json
+
+internal class InMemoryMetricsSinkTests {
+  private val sink = InMemoryMetricsSink()
+
+  @Test
+  fun aggregatesLatenciesOfTheSamePhase() {
+    sink.record(Measurement.Latency(ROUTE, Measurement.Phase.FIRST_BYTE, 20.milliseconds))
+    sink.record(Measurement.Latency(ROUTE, Measurement.Phase.FIRST_BYTE, 40.milliseconds))
+    assertThat(sink.snapshot().routes[ROUTE]?.latencies?.get(Measurement.Phase.FIRST_BYTE))
+      .isNotNull()
+      .all {
+        prop(MetricsSnapshot.Distribution::count).isEqualTo(2)
+        prop(MetricsSnapshot.Distribution::meanInMilliseconds).isEqualTo(30.0)
+        prop(MetricsSnapshot.Distribution::maxInMilliseconds).isEqualTo(40.0)
+      }
+  }
+
+  @Test
+  fun estimatesPercentilesAsUpperBoundsOfBuckets() {
+    repeat(9) { sink.record(Measurement.Span(ROUTE, SPAN_NAME, 3.milliseconds)) }
+    sink.record(Measurement.Span(ROUTE, SPAN_NAME, 700.milliseconds))
+    val distribution = sink.snapshot().routes[ROUTE]?.spans?.get(SPAN_NAME)
+    assertThat(distribution?.percentileInMilliseconds(.5)).isEqualTo(5.0)
+    assertThat(distribution?.percentileInMilliseconds(.99)).isEqualTo(700.0)
+  }
+
+  @Test
+  fun sumsTransferredBytes() {
+    sink.record(Measurement.Transfer(ROUTE, sentByteCount = 64, receivedByteCount = 0))
+    sink.record(Measurement.Transfer(ROUTE, sentByteCount = 0, receivedByteCount = 1_024))
+    sink.record(Measurement.Transfer(ROUTE, sentByteCount = 0, receivedByteCount = 512))
+    assertThat(sink.snapshot().routes[ROUTE]).isNotNull().all {
+      prop(MetricsSnapshot.Route::sentByteCount).isEqualTo(64)
+      prop(MetricsSnapshot.Route::receivedByteCount).isEqualTo(1_536)
+    }
+  }
+
+  @Test
+  fun countsStatusesAndRetries() {
+    sink.record(Measurement.Status(ROUTE, 503))
+    sink.record(Measurement.Retry(ROUTE))
+    sink.record(Measurement.Status(ROUTE, 200))
+    sink.record(Measurement.Status(ROUTE, 200))
+    assertThat(sink.snapshot().routes[ROUTE]).isNotNull().all {
+      prop(MetricsSnapshot.Route::statusCounts).isEqualTo(mapOf(503 to 1L, 200 to 2L))
+      prop(MetricsSnapshot.Route::retryCount).isEqualTo(1)
+    }
+  }
+
+  @Test
+  fun keepsRoutesApart() {
+    sink.record(Measurement.Retry(ROUTE))
+    sink.record(Measurement.Retry("/api/v1/timelines/home"))
+    assertThat(sink.snapshot().routes).all {
+      key(ROUTE).prop(MetricsSnapshot.Route::retryCount).isEqualTo(1)
+      key("/api/v1/timelines/home").prop(MetricsSnapshot.Route::retryCount).isEqualTo(1)
+    }
+  }
+
+  @Test
+  fun exportsSnapshotAsJson() {
+    sink.record(Measurement.Latency(ROUTE, Measurement.Phase.BODY, 8.milliseconds))
+    sink.record(Measurement.Status(ROUTE, 200))
+    val export = sink.export()
+    assertThat(export).contains(ROUTE)
+    assertThat(Json.decodeFromString(MetricsSnapshot.serializer(), export))
+      .isEqualTo(sink.snapshot())
+  }
+
+  @Test
+  fun clears() {
+    sink.record(Measurement.Retry(ROUTE))
+    sink.clear()
+    assertThat(sink.snapshot().routes).isEmpty()
+  }
+
+  companion object {
+    /** Template of the route whose metrics are recorded. */
+    private const val ROUTE = "/api/v1/statuses/:id"
+
+    /** Name of the span whose durations are recorded. */
+    private const val SPAN_NAME = "journaling"
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.metrics
+
+import assertk.all
+import assertk.assertThat
+import assertk.assertions.containsOnly
+import assertk.assertions.isEqualTo
+import assertk.assertions.isNotNull
+import assertk.assertions.key
+import assertk.assertions.prop
+import br.com.orcinus.orca.core.mastodon.instance.requester.ClientResponseProvider
+import br.com.orcinus.orca.core.mastodon.instance.requester.NoOpLogger
+import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
+import br.com.orcinus.orca.core.mastodon.instance.requester.RequesterTestScope
+import br.com.orcinus.orca.core.mastodon.instance.requester.httpClientEngineFactoryOf
+import io.ktor.client.engine.mock.respond
+import io.ktor.http.HttpStatusCode
+import io.ktor.http.Parameters
+import io.ktor.http.formUrlEncode
+import io.ktor.utils.io.ByteReadChannel
+import kotlin.test.Test
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.TestTimeSource
+import kotlinx.coroutines.test.runTest
+
+internal class MetricsRecorderTests {
+  private val sink = InMemoryMetricsSink()
+  private val requester =
+    Requester<Exception>(
+      NoOpLogger,
+      RequesterTestScope.baseURI,
+      httpClientEngineFactoryOf(
+        ClientResponseProvider { respond(BODY, HttpStatusCode.Created) }
+      ),
+      metricsSink = sink
+    )
+
+  @Test
+  fun recordsEachPhaseOfARequestUnderTheTemplateOfItsRoute() = runTest {
+    requester.get({ path("api").path("v1").path("statuses").path("1").build() })
+    requester.get({ path("api").path("v1").path("statuses").path("2").build() })
+    assertThat(sink.snapshot().routes).key(ROUTE).all {
+      prop(MetricsSnapshot.Route::latencies)
+        .transform("counts") { latencies ->
+          latencies.mapValues { (_, distribution) -> distribution.count }
+        }
+        .containsOnly(
+          Measurement.Phase.QUEUE to 2L,
+          Measurement.Phase.FIRST_BYTE to 2L,
+          Measurement.Phase.BODY to 2L
+        )
+      prop(MetricsSnapshot.Route::statusCounts).containsOnly(HttpStatusCode.Created.value to 2L)
+      prop(MetricsSnapshot.Route::receivedByteCount).isEqualTo(BODY.length * 2L)
+    }
+  }
+
+  @Test
+  fun recordsReceivedBytesOfBodyWhoseLengthIsNotDeclared() = runTest {
+    val sink = InMemoryMetricsSink()
+    Requester<Exception>(
+        NoOpLogger,
+        RequesterTestScope.baseURI,
+        httpClientEngineFactoryOf(ClientResponseProvider { respond(ByteReadChannel(BODY)) }),
+        metricsSink = sink
+      )
+      .get({ path("api").path("v1").path("statuses").path("1").build() })
+      .getValueOrThrow()
+    assertThat(sink.snapshot().routes)
+      .key(ROUTE)
+      .prop(MetricsSnapshot.Route::receivedByteCount)
+      .isEqualTo(BODY.length.toLong())
+  }
+
+  @Test
+  fun recordsSentBytes() = runTest {
+    val form = Parameters.build { append("status", "Hello, world!") }
+    requester.post({ path("api").path("v1").path("statuses").build() }) {
+      parameters { appendAll(form) }
+    }
+    assertThat(sink.snapshot().routes)
+      .key("${RequesterTestScope.baseURI.path}/api/v1/statuses")
+      .prop(MetricsSnapshot.Route::sentByteCount)
+      .isEqualTo(form.formUrlEncode().length.toLong())
+  }
+
+  @Test
+  fun measuresSpans() = runTest {
+    val timeSource = TestTimeSource()
+    val recorder = MetricsRecorder(sink, timeSource)
+    recorder.measure(RequesterTestScope.baseURI.resolve("statuses/3"), SPAN_NAME) {
+      timeSource += 8.milliseconds
+    }
+    assertThat(sink.snapshot().routes["${RequesterTestScope.baseURI.path}/statuses/:id"])
+      .isNotNull()
+      .prop(MetricsSnapshot.Route::spans)
+      .key(SPAN_NAME)
+      .prop(MetricsSnapshot.Distribution::maxInMilliseconds)
+      .isEqualTo(8.0)
+  }
+
+  companion object {
+    /** Body of the responses. */
+    private const val BODY = "{\"id\": \"1\"}"
+
+    /** Name of the span that is measured. */
+    private const val SPAN_NAME = "journaling"
+
+    /** Template of the route to which requests are sent. */
+    private val ROUTE = "${RequesterTestScope.baseURI.path}/api/v1/statuses/:id"
+  }
+}
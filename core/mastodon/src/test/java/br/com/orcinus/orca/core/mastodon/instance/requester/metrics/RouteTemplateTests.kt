@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.metrics
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import kotlin.test.Test
+
+internal class RouteTemplateTests {
+  @Test
+  fun keepsPathWithoutIdentifyingSegments() {
+    assertThat(RouteTemplate.of("/api/v1/timelines/home")).isEqualTo("/api/v1/timelines/home")
+  }
+
+  @Test
+  fun replacesNumericSegments() {
+    assertThat(RouteTemplate.of("/api/v1/statuses/109876543210/favourite"))
+      .isEqualTo("/api/v1/statuses/:id/favourite")
+  }
+
+  @Test
+  fun replacesLongHexadecimalSegments() {
+    assertThat(RouteTemplate.of("/api/v1/media/0f8fad5b-d9cb-469f-a165-70867728950e"))
+      .isEqualTo("/api/v1/media/:id")
+  }
+
+  @Test
+  fun keepsShortHexadecimalSegments() {
+    assertThat(RouteTemplate.of("/api/v1/accounts/cafe")).isEqualTo("/api/v1/accounts/cafe")
+  }
+
+  @Test
+  fun keepsVersionSegments() {
+    assertThat(RouteTemplate.of("/api/v2/search")).isEqualTo("/api/v2/search")
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resilience
+
+import assertk.assertFailure
+import assertk.assertThat
+import assertk.assertions.containsExactly
+import assertk.assertions.isEqualTo
+import assertk.assertions.isInstanceOf
+import assertk.assertions.prop
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.mock.MockEngine
+import io.ktor.client.engine.mock.respond
+import io.ktor.client.request.get
+import io.ktor.http.HttpStatusCode
+import java.io.IOException
+import kotlin.test.Test
+import kotlin.time.Duration.Companion.seconds
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.UnconfinedTestDispatcher
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.test.testTimeSource
+
+@OptIn(ExperimentalCoroutinesApi::class)
+internal class CircuitBreakerTests {
+  @Test
+  fun opensAfterConsecutiveFailures() = runTest {
+    val circuitBreaker = CircuitBreaker(failureThreshold = 2, timeSource = testTimeSource)
+    repeat(2) { circuitBreaker.fail() }
+    assertThat(circuitBreaker.state.value).isEqualTo(CircuitBreaker.State.OPEN)
+  }
+
+  @Test
+  fun staysClosedWhenFailuresAreInterleavedWithSuccesses() = runTest {
+    val circuitBreaker = CircuitBreaker(failureThreshold = 2, timeSource = testTimeSource)
+    repeat(4) {
+      circuitBreaker.fail()
+      circuitBreaker.succeed()
+    }
+    assertThat(circuitBreaker.state.value).isEqualTo(CircuitBreaker.State.CLOSED)
+  }
+
+  @Test
+  fun countsIOExceptionsAsFailures() = runTest {
+    val circuitBreaker = CircuitBreaker(failureThreshold = 1, timeSource = testTimeSource)
+    assertFailure { circuitBreaker.guard({ throw IOException() }) { _: Unit -> false } }
+      .isInstanceOf<IOException>()
+    assertThat(circuitBreaker.state.value).isEqualTo(CircuitBreaker.State.OPEN)
+  }
+
+  @Test
+  fun failsFastWithoutPerformingOperationsWhileOpen() = runTest {
+    val circuitBreaker =
+      CircuitBreaker(failureThreshold = 1, openDuration = 8.seconds, testTimeSource)
+    circuitBreaker.fail()
+    var performanceCount = 0
+    delay(2.seconds)
+    assertFailure { circuitBreaker.guard({ performanceCount++ }) { false } }
+      .isInstanceOf<CircuitBreaker.OpenCircuitException>()
+      .prop(CircuitBreaker.OpenCircuitException::remainingTime)
+      .isEqualTo(6.seconds)
+    assertThat(performanceCount).isEqualTo(0)
+  }
+
+  @Test
+  fun closesWhenTrialSucceedsAfterOpenDuration() = runTest {
+    val circuitBreaker =
+      CircuitBreaker(failureThreshold = 1, openDuration = 8.seconds, testTimeSource)
+    circuitBreaker.fail()
+    delay(8.seconds)
+    circuitBreaker.succeed()
+    assertThat(circuitBreaker.state.value).isEqualTo(CircuitBreaker.State.CLOSED)
+  }
+
+  @Test
+  fun reopensWhenTrialFailsAfterOpenDuration() = runTest {
+    val circuitBreaker =
+      CircuitBreaker(failureThreshold = 1, openDuration = 8.seconds, testTimeSource)
+    circuitBreaker.fail()
+    delay(8.seconds)
+    circuitBreaker.fail()
+    assertThat(circuitBreaker.state.value).isEqualTo(CircuitBreaker.State.OPEN)
+  }
+
+  @Test
+  fun letsASingleTrialThroughWhileHalfOpen() = runTest {
+    val circuitBreaker =
+      CircuitBreaker(failureThreshold = 1, openDuration = 8.seconds, testTimeSource)
+    circuitBreaker.fail()
+    delay(8.seconds)
+    launch { circuitBreaker.guard({ delay(1.seconds) }) { false } }
+    testScheduler.runCurrent()
+    assertThat(circuitBreaker.state.value).isEqualTo(CircuitBreaker.State.HALF_OPEN)
+    assertFailure { circuitBreaker.succeed() }.isInstanceOf<CircuitBreaker.OpenCircuitException>()
+  }
+
+  @Test
+  fun emitsTransitions() = runTest {
+    val circuitBreaker =
+      CircuitBreaker(failureThreshold = 1, openDuration = 8.seconds, testTimeSource)
+    val transitions = mutableListOf<CircuitBreaker.Transition>()
+    val collection =
+      launch(UnconfinedTestDispatcher(testScheduler)) {
+        circuitBreaker.transitions.toList(transitions)
+      }
+    circuitBreaker.fail()
+    delay(8.seconds)
+    circuitBreaker.fail()
+    delay(8.seconds)
+    circuitBreaker.succeed()
+    collection.cancel()
+    assertThat(transitions)
+      .containsExactly(
+        CircuitBreaker.Transition(CircuitBreaker.State.CLOSED, CircuitBreaker.State.OPEN),
+        CircuitBreaker.Transition(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN),
+        CircuitBreaker.Transition(CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.OPEN),
+        CircuitBreaker.Transition(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN),
+        CircuitBreaker.Transition(CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED)
+      )
+  }
+
+  @Test
+  fun failsFastWhenInstalledAndInstanceIsUnhealthy() = runTest {
+    val circuitBreaker = CircuitBreaker(failureThreshold = 2, timeSource = testTimeSource)
+    var requestCount = 0
+    val engine = MockEngine {
+      requestCount++
+      respond("", HttpStatusCode.ServiceUnavailable)
+    }
+    HttpClient(engine) { circuitBreaker.install(this) }
+      .use { client ->
+        repeat(2) { client.get(URL) }
+        assertFailure { client.get(URL) }.isInstanceOf<CircuitBreaker.OpenCircuitException>()
+      }
+    assertThat(requestCount).isEqualTo(2)
+  }
+
+  /** Performs an operation that fails through this [CircuitBreaker]. */
+  private suspend fun CircuitBreaker.fail() {
+    guard({}) { true }
+  }
+
+  /** Performs an operation that succeeds through this [CircuitBreaker]. */
+  private suspend fun CircuitBreaker.succeed() {
+    guard({}) { false }
+  }
+
+  companion object {
+    /** URL to which requests are sent. */
+    private const val URL = "https://orcinus.com.br"
+  }
+}
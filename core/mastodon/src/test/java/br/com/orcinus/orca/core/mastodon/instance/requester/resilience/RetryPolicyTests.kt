@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resilience
+
+import assertk.assertThat
+import assertk.assertions.isBetween
+import assertk.assertions.isEqualTo
+import assertk.assertions.isFalse
+import assertk.assertions.isTrue
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.mock.MockEngine
+import io.ktor.client.engine.mock.respond
+import io.ktor.client.plugins.HttpSend
+import io.ktor.client.plugins.plugin
+import io.ktor.client.request.HttpRequestBuilder
+import io.ktor.client.request.get
+import io.ktor.client.request.header
+import io.ktor.client.request.post
+import io.ktor.http.HttpMethod
+import io.ktor.http.HttpStatusCode
+import kotlin.random.Random
+import kotlin.test.Test
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.seconds
+import kotlinx.coroutines.test.runTest
+
+internal class RetryPolicyTests {
+  @Test
+  fun retriesIdempotentMethods() {
+    val retryPolicy = RetryPolicy()
+    for (method in idempotentMethods) {
+      assertThat(retryPolicy.isRetryable(HttpRequestBuilder().apply { this.method = method }))
+        .isTrue()
+    }
+  }
+
+  @Test
+  fun doesNotRetryPost() {
+    assertThat(RetryPolicy().isRetryable(HttpRequestBuilder().apply { method = HttpMethod.Post }))
+      .isFalse()
+  }
+
+  @Test
+  fun retriesPostWithIdempotencyKey() {
+    assertThat(
+        RetryPolicy()
+          .isRetryable(
+            HttpRequestBuilder().apply {
+              method = HttpMethod.Post
+              header(RetryPolicy.IDEMPOTENCY_KEY_HEADER_NAME, "0")
+            }
+          )
+      )
+      .isTrue()
+  }
+
+  @Test
+  fun keepsDelaysWithinBounds() {
+    val retryPolicy =
+      RetryPolicy(baseDelay = 100.milliseconds, maxDelay = 2.seconds, random = Random(seed = 0))
+    var delay = Duration.ZERO
+    repeat(1_024) {
+      val previousDelay = delay
+      delay = retryPolicy.delayAfter(previousDelay)
+      assertThat(delay)
+        .isBetween(100.milliseconds, (previousDelay * 3).coerceIn(100.milliseconds, 2.seconds))
+    }
+  }
+
+  @Test
+  fun decorrelatesDelays() {
+    val delays =
+      List(64) { seed ->
+        RetryPolicy(baseDelay = 100.milliseconds, maxDelay = 2.seconds, random = Random(seed))
+          .delayAfter(1.seconds)
+      }
+    assertThat(delays.distinct().size > delays.size / 2).isTrue()
+  }
+
+  @Test
+  fun sendsFailedGetAgain() = runTest {
+    assertThat(attemptCountOf { it.get(URL) }).isEqualTo(3)
+  }
+
+  @Test
+  fun doesNotSendFailedPostAgain() = runTest {
+    assertThat(attemptCountOf { it.post(URL) }).isEqualTo(1)
+  }
+
+  @Test
+  fun stopsRetryingWhenNotAllowedTo() = runTest {
+    var attemptCount = 0
+    val engine = MockEngine {
+      attemptCount++
+      respond("", HttpStatusCode.BadGateway)
+    }
+    HttpClient(engine).use { client ->
+      client.plugin(HttpSend).intercept { request ->
+        RetryPolicy().retry(request, canRetry = { false }) { execute(it) }
+      }
+      client.get(URL)
+    }
+    assertThat(attemptCount).isEqualTo(1)
+  }
+
+  /**
+   * Counts the attempts made to send a request that keeps failing with a server error.
+   *
+   * @param request Sends the request through the given [HttpClient].
+   */
+  private suspend fun attemptCountOf(request: suspend (HttpClient) -> Unit): Int {
+    var attemptCount = 0
+    val engine = MockEngine {
+      attemptCount++
+      respond("", HttpStatusCode.BadGateway)
+    }
+    HttpClient(engine).use { client ->
+      client.plugin(HttpSend).intercept { request ->
+        RetryPolicy().retry(request) { execute(it) }
+      }
+      request(client)
+    }
+    return attemptCount
+  }
+
+  companion object {
+    /** URL to which requests are sent. */
+    private const val URL = "https://orcinus.com.br"
+
+    /** [HttpMethod]s that are defined by HTTP as idempotent. */
+    private val idempotentMethods =
+      listOf(HttpMethod.Get, HttpMethod.Head, HttpMethod.Options, HttpMethod.Put, HttpMethod.Delete)
+  }
+}
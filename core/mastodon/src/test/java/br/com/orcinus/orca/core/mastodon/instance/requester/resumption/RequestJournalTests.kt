@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption
+
+import assertk.assertFailure
+import assertk.assertThat
+import assertk.assertions.containsExactly
+import assertk.assertions.isEmpty
+import assertk.assertions.isEqualTo
+import assertk.assertions.isInstanceOf
+import assertk.assertions.isZero
+import assertk.assertions.prop
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.Request
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.memory.InMemoryRequestDao
+import io.ktor.http.Headers
+import io.ktor.http.Parameters
+import java.io.IOException
+import kotlin.test.Test
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.seconds
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+
+internal class RequestJournalTests {
+  @Test
+  fun coalescesRecordsIntoASingleBatch() = runTest {
+    val requestDao = InMemoryRequestDao()
+    val journal = RequestJournal(requestDao, window = Duration.INFINITE)
+    val requests = List(64, ::requestTo)
+    for (request in requests) journal.record(request)
+    journal.flush()
+    assertThat(requestDao).prop(InMemoryRequestDao::batchCount).isEqualTo(1)
+    assertThat(requestDao.selectAll()).containsExactly(*requests.toTypedArray())
+  }
+
+  @Test
+  fun doesNotWriteRequestErasedBeforeBeingFlushed() = runTest {
+    val requestDao = InMemoryRequestDao()
+    val journal = RequestJournal(requestDao, window = Duration.INFINITE)
+    val request = requestTo(0)
+    journal.record(request)
+    journal.erase(request)
+    journal.flush()
+    assertThat(requestDao).prop(InMemoryRequestDao::operationCount).isZero()
+  }
+
+  @Test
+  fun deletesRequestErasedAfterBeingFlushed() = runTest {
+    val requestDao = InMemoryRequestDao()
+    val journal = RequestJournal(requestDao, window = Duration.INFINITE)
+    val request = requestTo(0)
+    journal.record(request)
+    journal.flush()
+    journal.erase(request)
+    journal.flush()
+    assertThat(requestDao.selectAll()).isEmpty()
+  }
+
+  @Test
+  fun commitsDeletionAfterTheInsertionThatHasBeenFlushedBeforeIt() = runTest {
+    val requestDao = InMemoryRequestDao()
+    val journal = RequestJournal(requestDao, window = Duration.INFINITE)
+    val request = requestTo(0)
+    journal.record(request)
+    requestDao.onApply = { delay(1.seconds) }
+    val insertion = launch { journal.flush() }
+    runCurrent()
+    requestDao.onApply = {}
+    journal.erase(request)
+    journal.flush()
+    insertion.join()
+    assertThat(requestDao.selectAll()).isEmpty()
+  }
+
+  @Test
+  fun keepsRequestsPendingWhenWriteFails() = runTest {
+    val requestDao = InMemoryRequestDao()
+    val journal = RequestJournal(requestDao, window = Duration.INFINITE)
+    val request = requestTo(0)
+    journal.record(request)
+    requestDao.onApply = { throw IOException() }
+    assertFailure { journal.flush() }.isInstanceOf<IOException>()
+    requestDao.onApply = {}
+    journal.flush()
+    assertThat(requestDao.selectAll()).containsExactly(request)
+  }
+
+  @Test
+  fun doesNotWriteRequestErasedWhileItsInsertionFails() = runTest {
+    val requestDao = InMemoryRequestDao()
+    val journal = RequestJournal(requestDao, window = Duration.INFINITE)
+    val request = requestTo(0)
+    journal.record(request)
+    requestDao.onApply = {
+      journal.erase(request)
+      throw IOException()
+    }
+    assertFailure { journal.flush() }.isInstanceOf<IOException>()
+    requestDao.onApply = {}
+    journal.flush()
+    assertThat(requestDao).prop(InMemoryRequestDao::batchCount).isZero()
+  }
+
+  @Test
+  fun findsPendingRequest() = runTest {
+    val requestDao = InMemoryRequestDao()
+    val journal = RequestJournal(requestDao, window = Duration.INFINITE)
+    val request = requestTo(0)
+    journal.record(request)
+    assertThat(journal.find(request.id)).isEqualTo(request)
+  }
+
+  /**
+   * Creates a POST [Request] to a resource identified by the given [index].
+   *
+   * @param index Index of the resource to which the [Request] is sent.
+   */
+  private fun requestTo(index: Int): Request {
+    return Request(
+      Request.MethodName.POST,
+      "/api/v1/resources/$index",
+      Headers.Empty,
+      Parameters.Empty,
+      form = emptyList(),
+      timestamp = 0
+    )
+  }
+}
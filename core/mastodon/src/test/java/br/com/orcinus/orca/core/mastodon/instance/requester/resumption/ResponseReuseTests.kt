@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import assertk.assertions.isLessThanOrEqualTo
+import assertk.assertions.isNotNull
+import assertk.assertions.isNull
+import assertk.assertions.isSameInstanceAs
+import assertk.assertions.isZero
+import assertk.assertions.prop
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.mock.MockEngine
+import io.ktor.client.engine.mock.respond
+import io.ktor.client.request.get
+import io.ktor.client.statement.HttpResponse
+import io.ktor.http.HttpHeaders
+import io.ktor.http.headersOf
+import kotlin.test.Test
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.seconds
+import kotlinx.coroutines.test.runTest
+
+internal class ResponseReuseTests {
+  /** Elapsed time provided to the [ResponseReuse]s. */
+  private var elapsedTime = Duration.ZERO
+
+  @Test
+  fun reusesAliveResponse() = runTest {
+    val reuse = ResponseReuse({ elapsedTime }, timeToLive = 5.seconds)
+    val response = responseOf(byteCount = 8)
+    reuse.put(0, response)
+    elapsedTime = 5.seconds
+    assertThat(reuse.get(0)).isSameInstanceAs(response)
+  }
+
+  @Test
+  fun doesNotReuseResponseAfterItsTimeToLiveHasPassedSinceItsReceipt() = runTest {
+    val reuse = ResponseReuse({ elapsedTime }, timeToLive = 5.seconds)
+    elapsedTime = 10.seconds
+    reuse.put(0, responseOf(byteCount = 8))
+    elapsedTime = 16.seconds
+    assertThat(reuse.get(0)).isNull()
+    assertThat(reuse).prop(ResponseReuse::byteCount).isZero()
+  }
+
+  @Test
+  fun evictsLeastRecentlyReusedResponseWhenExceedingMaxEntryCount() = runTest {
+    val reuse = ResponseReuse({ elapsedTime }, timeToLive = 5.seconds, maxEntryCount = 2)
+    reuse.put(0, responseOf(byteCount = 8))
+    reuse.put(1, responseOf(byteCount = 8))
+    reuse.get(0)
+    reuse.put(2, responseOf(byteCount = 8))
+    assertThat(reuse.get(0)).isNotNull()
+    assertThat(reuse.get(1)).isNull()
+    assertThat(reuse.get(2)).isNotNull()
+  }
+
+  @Test
+  fun evictsLeastRecentlyReusedResponseWhenExceedingMaxByteCount() = runTest {
+    val reuse = ResponseReuse({ elapsedTime }, timeToLive = 5.seconds, maxByteCount = 16)
+    reuse.put(0, responseOf(byteCount = 8))
+    reuse.put(1, responseOf(byteCount = 8))
+    reuse.put(2, responseOf(byteCount = 8))
+    assertThat(reuse.get(0)).isNull()
+    assertThat(reuse).prop(ResponseReuse::byteCount).isEqualTo(16)
+  }
+
+  @Test
+  fun doesNotHoldResponseLongerThanMaxByteCount() = runTest {
+    val reuse = ResponseReuse({ elapsedTime }, timeToLive = 5.seconds, maxByteCount = 4)
+    reuse.put(0, responseOf(byteCount = 8))
+    assertThat(reuse.get(0)).isNull()
+  }
+
+  @Test
+  fun countsBytesOfResponseWhoseContentLengthIsNotDeclared() = runTest {
+    val reuse = ResponseReuse({ elapsedTime }, timeToLive = 1.seconds)
+    reuse.put(0, responseOf(byteCount = 8, isContentLengthDeclared = false))
+    assertThat(reuse).prop(ResponseReuse::byteCount).isEqualTo(8L)
+  }
+
+  @Test
+  fun remainsBoundedWhenHoldingResponsesContinuously() = runTest {
+    val reuse = ResponseReuse({ elapsedTime }, timeToLive = 5.seconds, maxEntryCount = 32)
+    val response = responseOf(byteCount = 8)
+    repeat(4_096) { reuse.put(it.toLong(), response) }
+    assertThat(reuse).prop(ResponseReuse::size).isLessThanOrEqualTo(32)
+    assertThat(reuse).prop(ResponseReuse::byteCount).isLessThanOrEqualTo(32L * 8)
+  }
+
+  /**
+   * Receives an [HttpResponse] whose content is [byteCount] bytes long.
+   *
+   * @param byteCount Length of the content.
+   * @param isContentLengthDeclared Whether the `Content-Length` header is included.
+   */
+  private suspend fun responseOf(
+    byteCount: Int,
+    isContentLengthDeclared: Boolean = true
+  ): HttpResponse {
+    val headers =
+      if (isContentLengthDeclared) {
+        headersOf(HttpHeaders.ContentLength, "$byteCount")
+      } else {
+        headersOf()
+      }
+    val engine = MockEngine { respond(ByteArray(byteCount), headers = headers) }
+    return HttpClient(engine).use { it.get("https://orca.orcinus.com.br") }
+  }
+}
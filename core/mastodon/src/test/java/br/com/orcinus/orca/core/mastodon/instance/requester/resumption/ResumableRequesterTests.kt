@@ -18,33 +18,52 @@ package br.com.orcinus.orca.core.mastodon.instance.requester.resumption
 import assertk.all
 import assertk.assertFailure
 import assertk.assertThat
+import assertk.assertions.isEmpty
 import assertk.assertions.isEqualTo
 import assertk.assertions.isInstanceOf
+import assertk.assertions.isNotNull
 import assertk.assertions.isNotSameInstanceAs
 import assertk.assertions.isSameInstanceAs
+import assertk.assertions.isZero
 import assertk.assertions.prop
+import br.com.orcinus.orca.core.mastodon.instance.requester.CountingClientResponseProvider
 import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
 import br.com.orcinus.orca.core.mastodon.instance.requester.RequesterTestScope
 import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.memory.InMemoryRequestDao
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool.FormSpool
 import br.com.orcinus.orca.core.mastodon.instance.requester.runRequesterTest
 import br.com.orcinus.orca.std.injector.module.Module
+import io.ktor.client.engine.mock.respondOk
 import io.ktor.client.request.forms.formData
+import io.ktor.http.Headers
+import io.ktor.http.HttpHeaders
+import io.ktor.http.content.PartData
+import kotlin.io.path.createTempDirectory
+import kotlin.test.AfterTest
 import kotlin.test.Test
 import kotlin.time.Duration
 import kotlin.time.Duration.Companion.nanoseconds
 import kotlinx.coroutines.delay
 
 internal class ResumableRequesterTests {
+  private val formSpoolDirectory = createTempDirectory().toFile()
+  private val formSpool = FormSpool(formSpoolDirectory)
+
+  @AfterTest
+  fun tearDown() {
+    formSpoolDirectory.deleteRecursively()
+  }
+
   @Test
   fun returnsADistinctRequesterWhenConvertedWhileAlreadyBeingAResumableOneAndWithADistinctElapsedTimeProviderAndTheSameRequestDao() =
     runRequesterTest {
       val requestDao = InMemoryRequestDao()
       val firstElapsedTimeProvider = ResumableRequester.ElapsedTimeProvider(Duration::ZERO)
-      val resumableRequester = requester.resumable(firstElapsedTimeProvider, requestDao)
+      val resumableRequester = requester.resumable(firstElapsedTimeProvider, requestDao, formSpool)
       val anotherElapsedTimeProvider = ResumableRequester.ElapsedTimeProvider(Duration::ZERO)
       assertThat(this)
         .prop(RequesterTestScope<Requester<*>>::requester)
-        .transform("resumable") { it.resumable(anotherElapsedTimeProvider, requestDao) }
+        .transform("resumable") { it.resumable(anotherElapsedTimeProvider, requestDao, formSpool) }
         .isNotSameInstanceAs(resumableRequester)
     }
 
@@ -53,11 +72,11 @@ internal class ResumableRequesterTests {
     runRequesterTest {
       val firstRequestDao = InMemoryRequestDao()
       val elapsedTimeProvider = ResumableRequester.ElapsedTimeProvider(Duration::ZERO)
-      val resumableRequester = requester.resumable(elapsedTimeProvider, firstRequestDao)
+      val resumableRequester = requester.resumable(elapsedTimeProvider, firstRequestDao, formSpool)
       val anotherRequestDao = InMemoryRequestDao()
       assertThat(this)
         .prop(RequesterTestScope<Requester<*>>::requester)
-        .transform("resumable") { it.resumable(elapsedTimeProvider, anotherRequestDao) }
+        .transform("resumable") { it.resumable(elapsedTimeProvider, anotherRequestDao, formSpool) }
         .isNotSameInstanceAs(resumableRequester)
     }
 
@@ -68,11 +87,11 @@ internal class ResumableRequesterTests {
       val requestDao = InMemoryRequestDao()
       assertThat(this)
         .prop(RequesterTestScope<Requester<*>>::requester)
-        .transform("resumable") { it.resumable(elapsedTimeProvider, requestDao) }
+        .transform("resumable") { it.resumable(elapsedTimeProvider, requestDao, formSpool) }
         .all {
           given { firstRequester ->
             transform("resumable") { secondRequester ->
-                secondRequester.resumable(elapsedTimeProvider, requestDao)
+                secondRequester.resumable(elapsedTimeProvider, requestDao, formSpool)
               }
               .isSameInstanceAs(firstRequester)
           }
@@ -92,8 +111,12 @@ internal class ResumableRequesterTests {
   }
 
   @Test
-  fun resumesResumableGetRequestWhenItIsInterrupted() {
-    assertThat(resumptionCountOf { requester.get(route) }).isEqualTo(1)
+  fun doesNotJournalGetRequests() = runRequesterTest {
+    val requestDao = InMemoryRequestDao()
+    val elapsedTimeProvider = ResumableRequester.ElapsedTimeProvider(Duration::ZERO)
+    val requester = requester.resumable(elapsedTimeProvider, requestDao, formSpool)
+    repeat(256) { requester.get(route).getValueOrThrow() }
+    assertThat(requestDao).prop(InMemoryRequestDao::operationCount).isZero()
   }
 
   @Test
@@ -106,6 +129,67 @@ internal class ResumableRequesterTests {
     assertThat(resumptionCountOf { requester.post(route, formData()) }).isEqualTo(1)
   }
 
+  @Test
+  fun resumesResumablePostRequestWithBinaryPartsWhenItIsInterrupted() {
+    assertThat(
+        resumptionCountOf {
+          requester.post(
+            route,
+            formData {
+              append(
+                "file",
+                byteArrayOf(0x0, 0x1, 0x2),
+                Headers.build { append(HttpHeaders.ContentType, "video/mp4") }
+              )
+            }
+          )
+        }
+      )
+      .isEqualTo(1)
+  }
+
+  @Test
+  fun deletesSpooledBinaryPartsOfFinishedPostRequest() = runRequesterTest {
+    val elapsedTimeProvider = ResumableRequester.ElapsedTimeProvider(Duration::ZERO)
+    val requester = requester.resumable(elapsedTimeProvider, InMemoryRequestDao(), formSpool)
+    requester
+      .post(
+        route,
+        formData {
+          append(
+            "file",
+            byteArrayOf(0x0, 0x1, 0x2),
+            Headers.build { append(HttpHeaders.ContentType, "video/mp4") }
+          )
+        }
+      )
+      .getValueOrThrow()
+    assertThat(formSpoolDirectory.listFiles()).isNotNull().isEmpty()
+  }
+
+  @Test
+  fun sendsRequestAgainAfterItsPreviousAttemptHasFailed() {
+    var hasFailed = false
+    val clientResponseProvider = CountingClientResponseProvider {
+      if (hasFailed) {
+        respondOk()
+      } else {
+        hasFailed = true
+        throw IllegalStateException()
+      }
+    }
+    runRequesterTest(clientResponseProvider) {
+      val requester = requester.resumable(delegate)
+      try {
+        assertFailure { requester.get(route) }.isInstanceOf<IllegalStateException>()
+        requester.get(route).getValueOrThrow()
+      } finally {
+        requester.interrupt()
+      }
+    }
+    assertThat(clientResponseProvider.count).isEqualTo(2)
+  }
+
   @Test
   fun reusesDeleteRequest() {
     assertThat(
@@ -139,6 +223,17 @@ internal class ResumableRequesterTests {
       .isEqualTo(1)
   }
 
+  @Test
+  fun doesNotReusePostRequestWithBinaryPartWhoseContentsAreDistinct() {
+    assertThat(
+        responseCountOf {
+          requester.post(route, binaryFormOf(byteArrayOf(0x0))).getValueOrThrow()
+          requester.post(route, binaryFormOf(byteArrayOf(0x1)))
+        }
+      )
+      .isEqualTo(2)
+  }
+
   @Test
   fun stalesGetRequestAfterItsTimeToLiveHasPassed() {
     assertThat(
@@ -174,4 +269,15 @@ internal class ResumableRequesterTests {
       )
       .isEqualTo(2)
   }
+
+  /**
+   * Creates a form with a single binary part whose headers are always the same.
+   *
+   * @param contents Contents of the binary part.
+   */
+  private fun binaryFormOf(contents: ByteArray): List<PartData> {
+    return formData {
+      append("file", contents, Headers.build { append(HttpHeaders.ContentType, "video/mp4") })
+    }
+  }
 }
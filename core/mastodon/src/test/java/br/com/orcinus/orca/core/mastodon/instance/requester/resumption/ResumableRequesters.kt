@@ -17,6 +17,8 @@ package br.com.orcinus.orca.core.mastodon.instance.requester.resumption
 
 import br.com.orcinus.orca.core.mastodon.instance.requester.Requester
 import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.memory.InMemoryRequestDao
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool.FormSpool
+import kotlin.io.path.createTempDirectory
 import kotlin.time.Duration.Companion.milliseconds
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.test.TestScope
@@ -30,5 +32,6 @@ import kotlinx.coroutines.test.currentTime
 internal fun Requester<*>.resumable(coroutineScope: TestScope) =
   resumable(
     { @OptIn(ExperimentalCoroutinesApi::class) coroutineScope.currentTime.milliseconds },
-    InMemoryRequestDao()
+    InMemoryRequestDao(),
+    FormSpool(createTempDirectory().toFile())
   )
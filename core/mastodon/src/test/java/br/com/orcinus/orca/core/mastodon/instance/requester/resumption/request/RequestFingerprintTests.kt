@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request
+
+import assertk.assertThat
+import assertk.assertions.hasSize
+import assertk.assertions.isEqualTo
+import assertk.assertions.isNotEqualTo
+import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool.SpooledPart
+import io.ktor.http.Headers
+import io.ktor.http.HttpHeaders
+import io.ktor.http.Parameters
+import kotlin.test.Test
+
+internal class RequestFingerprintTests {
+  @Test
+  fun isInsensitiveToTheOrderOfHeaders() {
+    assertThat(
+        fingerprintOf(
+          headers =
+            Headers.build {
+              append(HttpHeaders.Accept, "application/json")
+              append(HttpHeaders.Authorization, "Bearer 🐋")
+            }
+        )
+      )
+      .isEqualTo(
+        fingerprintOf(
+          headers =
+            Headers.build {
+              append(HttpHeaders.Authorization, "Bearer 🐋")
+              append(HttpHeaders.Accept, "application/json")
+            }
+        )
+      )
+  }
+
+  @Test
+  fun isInsensitiveToTheCaseOfHeaderNames() {
+    assertThat(fingerprintOf(headers = Headers.build { append("Accept", "*/*") }))
+      .isEqualTo(fingerprintOf(headers = Headers.build { append("accept", "*/*") }))
+  }
+
+  @Test
+  fun isSensitiveToTheCaseOfParameterNames() {
+    assertThat(fingerprintOf(parameters = Parameters.build { append("Status", "🐋") }))
+      .isNotEqualTo(fingerprintOf(parameters = Parameters.build { append("status", "🐋") }))
+  }
+
+  @Test
+  fun distinguishesStringsThatWouldBeEqualOnceConcatenated() {
+    assertThat(fingerprintOf(parameters = Parameters.build { append("ab", "c") }))
+      .isNotEqualTo(fingerprintOf(parameters = Parameters.build { append("a", "bc") }))
+  }
+
+  @Test
+  fun distinguishesRoutesWhoseHashCodesCollide() {
+    assertThat("Aa".hashCode()).isEqualTo("BB".hashCode())
+    assertThat(fingerprintOf(route = "/api/v1/Aa"))
+      .isNotEqualTo(fingerprintOf(route = "/api/v1/BB"))
+  }
+
+  @Test
+  fun distinguishesFormValues() {
+    assertThat(fingerprintOf(form = listOf(SpooledPart.Value(Headers.Empty, "🐋"))))
+      .isNotEqualTo(fingerprintOf(form = listOf(SpooledPart.Value(Headers.Empty, "🐬"))))
+  }
+
+  @Test
+  fun distinguishesBinaryContents() {
+    assertThat(fingerprintOf(form = listOf(SpooledPart.Binary(Headers.Empty, "00"))))
+      .isNotEqualTo(fingerprintOf(form = listOf(SpooledPart.Binary(Headers.Empty, "ff"))))
+  }
+
+  @Test
+  fun distinguishesBinaryContentsOfPartsWithEqualHeaders() {
+    val headers =
+      Headers.build {
+        append(HttpHeaders.ContentDisposition, "form-data; name=\"file\"; filename=\"🐋.mp4\"")
+      }
+    assertThat(fingerprintOf(form = listOf(SpooledPart.Binary(headers, "00".repeat(32)))))
+      .isNotEqualTo(fingerprintOf(form = listOf(SpooledPart.Binary(headers, "01".repeat(32)))))
+  }
+
+  @Test
+  fun isInsensitiveToTheCaseOfDigestsOfBinaryContents() {
+    assertThat(fingerprintOf(form = listOf(SpooledPart.Binary(Headers.Empty, "ab".repeat(32)))))
+      .isEqualTo(fingerprintOf(form = listOf(SpooledPart.Binary(Headers.Empty, "AB".repeat(32)))))
+  }
+
+  @Test
+  fun distinguishesValuesFromBinaryContents() {
+    assertThat(fingerprintOf(form = listOf(SpooledPart.Value(Headers.Empty, "00"))))
+      .isNotEqualTo(fingerprintOf(form = listOf(SpooledPart.Binary(Headers.Empty, "00"))))
+  }
+
+  @Test
+  fun producesNoCollisionsAmongDistinctRequests() {
+    val fingerprints = HashSet<Long>()
+    for (index in 0 until 1 shl 17) {
+      fingerprints +=
+        fingerprintOf(
+          route = "/api/v1/statuses/${index / 4}",
+          parameters = Parameters.build { append("visibility", "${index % 4}") }
+        )
+    }
+    assertThat(fingerprints).hasSize(1 shl 17)
+  }
+
+  /**
+   * Computes the fingerprint of a POST request.
+   *
+   * @param route Specific resource to which the request is sent.
+   * @param headers [Headers] that have been added.
+   * @param parameters [Parameters] that have been added.
+   * @param form [SpooledPart]s that compose the body.
+   */
+  private fun fingerprintOf(
+    route: String = "/api/v1/statuses",
+    headers: Headers = Headers.Empty,
+    parameters: Parameters = Parameters.Empty,
+    form: List<SpooledPart> = emptyList()
+  ): Long {
+    return RequestFingerprint.of(Request.MethodName.POST, route, headers, parameters, form)
+  }
+}
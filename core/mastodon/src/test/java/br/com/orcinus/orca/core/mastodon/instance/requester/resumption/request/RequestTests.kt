@@ -18,15 +18,9 @@ package br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request
 import assertk.assertThat
 import assertk.assertions.isNotEqualTo
 import assertk.assertions.isTrue
-import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.headers.form.PartDataKSerializer
-import br.com.orcinus.orca.core.mastodon.instance.requester.resumption.request.headers.strings.serializer
-import io.ktor.client.request.forms.formData
 import io.ktor.http.Headers
 import io.ktor.http.Parameters
-import io.ktor.util.StringValues
 import kotlin.test.Test
-import kotlinx.serialization.builtins.ListSerializer
-import kotlinx.serialization.json.Json
 
 internal class RequestTests {
   @Test
@@ -36,9 +30,9 @@ internal class RequestTests {
           Request.generateID(
             Request.MethodName.GET,
             "/api/v1/resource",
-            Json.encodeToString(StringValues.serializer(), Headers.Empty),
-            Json.encodeToString(StringValues.serializer(), Parameters.Empty),
-            Json.encodeToString(ListSerializer(PartDataKSerializer), formData())
+            Headers.Empty,
+            Parameters.Empty,
+            form = emptyList()
           )
         }
       )
@@ -51,18 +45,18 @@ internal class RequestTests {
         Request.generateID(
           Request.MethodName.GET,
           "/api/v1/resource",
-          Json.encodeToString(StringValues.serializer(), Headers.Empty),
-          Json.encodeToString(StringValues.serializer(), Parameters.Empty),
-          Json.encodeToString(ListSerializer(PartDataKSerializer), formData())
+          Headers.Empty,
+          Parameters.Empty,
+          form = emptyList()
         )
       )
       .isNotEqualTo(
         Request.generateID(
           Request.MethodName.GET,
           "/api/v2/resource",
-          Json.encodeToString(StringValues.serializer(), Headers.Empty),
-          Json.encodeToString(StringValues.serializer(), Parameters.Empty),
-          Json.encodeToString(ListSerializer(PartDataKSerializer), formData())
+          Headers.Empty,
+          Parameters.Empty,
+          form = emptyList()
         )
       )
   }
@@ -72,9 +66,9 @@ internal class RequestTests {
     Request(
       methodName = "🇮🇹",
       "/api/v1/resource",
-      Json.encodeToString(StringValues.serializer(), Headers.Empty),
-      Json.encodeToString(StringValues.serializer(), Parameters.Empty),
-      Json.encodeToString(ListSerializer(PartDataKSerializer), formData()),
+      Headers.Empty,
+      Parameters.Empty,
+      form = emptyList(),
       timestamp = 0
     )
   }
@@ -85,9 +79,9 @@ internal class RequestTests {
     Request(
         Request.MethodName.DELETE,
         "/api/v1/resource",
-        Json.encodeToString(StringValues.serializer(), Headers.Empty),
-        Json.encodeToString(StringValues.serializer(), Parameters.Empty),
-        Json.encodeToString(ListSerializer(PartDataKSerializer), formData()),
+        Headers.Empty,
+        Parameters.Empty,
+        form = emptyList(),
         timestamp = 0
       )
       .fold(onDelete = { hasDeleteLambdaBeenInvoked = true }, onGet = {}, onPost = {})
@@ -100,9 +94,9 @@ internal class RequestTests {
     Request(
         Request.MethodName.GET,
         "/api/v1/resource",
-        Json.encodeToString(StringValues.serializer(), Headers.Empty),
-        Json.encodeToString(StringValues.serializer(), Parameters.Empty),
-        Json.encodeToString(ListSerializer(PartDataKSerializer), formData()),
+        Headers.Empty,
+        Parameters.Empty,
+        form = emptyList(),
         timestamp = 0
       )
       .fold(onDelete = {}, onGet = { hasGetLambdaBeenInvoked = true }, onPost = {})
@@ -115,9 +109,9 @@ internal class RequestTests {
     Request(
         Request.MethodName.POST,
         "/api/v1/resource",
-        Json.encodeToString(StringValues.serializer(), Headers.Empty),
-        Json.encodeToString(StringValues.serializer(), Parameters.Empty),
-        Json.encodeToString(ListSerializer(PartDataKSerializer), formData()),
+        Headers.Empty,
+        Parameters.Empty,
+        form = emptyList(),
         timestamp = 0
       )
       .fold(onDelete = {}, onGet = {}, onPost = { hasPostLambdaBeenInvoked = true })
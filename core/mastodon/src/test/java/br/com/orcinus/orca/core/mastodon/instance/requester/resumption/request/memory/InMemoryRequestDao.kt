@@ -1,5 +1,5 @@
 /*
- * Copyright © 2024 Orcinus
+ * Copyright © 2024–2025 Orcinus
  *
  * This program is free software: you can redistribute it and/or modify it under the terms of the
  * GNU General Public License as published by the Free Software Foundation, either version 3 of the
@@ -23,23 +23,66 @@ internal class InMemoryRequestDao : RequestDao() {
   /** Inserted [Request]s to be retrieved or deleted. */
   private val requests = mutableListOf<Request>()
 
+  /** Amount of operations that have been performed on this [InMemoryRequestDao]. */
+  @Volatile
+  var operationCount = 0
+    private set
+
+  /** Amount of times insertions and deletions have been applied in a single batch. */
+  @Volatile
+  var batchCount = 0
+    private set
+
+  /**
+   * Callback called before insertions and deletions are applied in a single batch, which can
+   * suspend or throw for delayed or failed writes to be simulated.
+   */
+  @Volatile var onApply: suspend () -> Unit = {}
+
   override suspend fun selectAll(): List<Request> {
-    return requests.toList()
+    return count { requests.toList() }
   }
 
-  override suspend fun selectByID(id: Int): Request? {
-    return requests.find { it.id == id }
+  override suspend fun selectByID(id: Long): Request? {
+    return count { requests.find { it.id == id } }
   }
 
   override suspend fun insert(request: Request) {
-    requests.add(request)
+    count { requests.add(request) }
   }
 
   override suspend fun delete(request: Request) {
-    requests.remove(request)
+    count { requests.remove(request) }
+  }
+
+  override suspend fun insertAll(requests: List<Request>) {
+    count { this.requests.addAll(requests) }
+  }
+
+  override suspend fun deleteAll(requests: List<Request>) {
+    count { this.requests.removeAll(requests) }
+  }
+
+  override suspend fun apply(insertions: List<Request>, deletions: List<Request>) {
+    onApply()
+    synchronized(requests) { batchCount++ }
+    super.apply(insertions, deletions)
   }
 
   override suspend fun clear() {
-    requests.clear()
+    synchronized(requests) { requests.clear() }
+  }
+
+  /**
+   * Performs the [operation] while synchronized and increments the [operationCount].
+   *
+   * @param T Result of the [operation].
+   * @param operation Operation to be performed on the [requests].
+   */
+  private inline fun <T> count(operation: () -> T): T {
+    return synchronized(requests) {
+      operationCount++
+      operation()
+    }
   }
 }
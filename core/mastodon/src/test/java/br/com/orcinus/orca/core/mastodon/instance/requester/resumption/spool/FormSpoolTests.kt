@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool
+
+import assertk.assertThat
+import assertk.assertions.containsOnly
+import assertk.assertions.isEmpty
+import assertk.assertions.isEqualTo
+import assertk.assertions.isFalse
+import assertk.assertions.isInstanceOf
+import assertk.assertions.isNotNull
+import assertk.assertions.prop
+import io.ktor.client.request.forms.formData
+import io.ktor.http.Headers
+import io.ktor.http.HttpHeaders
+import io.ktor.http.content.PartData
+import io.ktor.utils.io.core.readBytes
+import java.security.MessageDigest
+import kotlin.io.path.createTempDirectory
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlinx.coroutines.test.runTest
+
+internal class FormSpoolTests {
+  private val directory = createTempDirectory().toFile()
+  private val spool = FormSpool(directory)
+
+  @AfterTest
+  fun tearDown() {
+    directory.deleteRecursively()
+  }
+
+  @Test
+  fun keepsValuesInline() = runTest {
+    assertThat(spool.spool(formData { append("status", "🐋") }).single())
+      .isInstanceOf<SpooledPart.Value>()
+      .prop(SpooledPart.Value::value)
+      .isEqualTo("🐋")
+    assertThat(directory.listFiles()).isNotNull().isEmpty()
+  }
+
+  @Test
+  fun writesBinaryContentsToFileNamedAfterTheirDigest() = runTest {
+    val contents = byteArrayOf(0x0, 0x1, 0x2)
+    assertThat(spool.spool(binaryFormOf(contents)).single())
+      .isInstanceOf<SpooledPart.Binary>()
+      .prop(SpooledPart.Binary::digest)
+      .isEqualTo(digestOf(contents))
+    assertThat(directory.list()).isNotNull().containsOnly(digestOf(contents))
+  }
+
+  @Test
+  fun sharesFileAmongPartsWithEqualContents() = runTest {
+    val contents = byteArrayOf(0x0, 0x1, 0x2)
+    spool.spool(binaryFormOf(contents))
+    spool.spool(binaryFormOf(contents))
+    assertThat(directory.list()).isNotNull().containsOnly(digestOf(contents))
+  }
+
+  @Test
+  fun loadsPartWhoseContentsAreReadFromFile() = runTest {
+    val contents = byteArrayOf(0x0, 0x1, 0x2)
+    val part = spool.load(spool.spool(binaryFormOf(contents))).single()
+    assertThat(part)
+      .isInstanceOf<PartData.FileItem>()
+      .transform("contents") { it.provider().readBytes() }
+      .isEqualTo(contents)
+  }
+
+  @Test
+  fun doesNotWriteLoadedPartAgain() = runTest {
+    val spooledForm = spool.spool(binaryFormOf(byteArrayOf(0x0)))
+    directory.resolve(spooledForm.filterIsInstance<SpooledPart.Binary>().single().digest).delete()
+    assertThat(spool.spool(spool.load(spooledForm))).isEqualTo(spooledForm)
+    assertThat(directory.listFiles()).isNotNull().isEmpty()
+  }
+
+  @Test
+  fun deletesFileWhenReleasedAfterTheRequestHasFinished() = runTest {
+    spool.release(spool.spool(binaryFormOf(byteArrayOf(0x0))), isDisposable = true)
+    assertThat(directory.listFiles()).isNotNull().isEmpty()
+  }
+
+  @Test
+  fun keepsFileWhenReleasedWhileTheRequestIsJournaled() = runTest {
+    val contents = byteArrayOf(0x0)
+    spool.release(spool.spool(binaryFormOf(contents)), isDisposable = false)
+    assertThat(directory.list()).isNotNull().containsOnly(digestOf(contents))
+  }
+
+  @Test
+  fun keepsFileWhileItIsReferencedByAnotherRequest() = runTest {
+    val contents = byteArrayOf(0x0)
+    spool.spool(binaryFormOf(contents))
+    spool.release(spool.spool(binaryFormOf(contents)), isDisposable = true)
+    assertThat(directory.list()).isNotNull().containsOnly(digestOf(contents))
+  }
+
+  @Test
+  fun keepsFileWhenReleasedAfterTheRequestHasFinishedWhileItIsReferencedByAnInterruptedOne() =
+    runTest {
+      val contents = byteArrayOf(0x0)
+      spool.release(spool.spool(binaryFormOf(contents)), isDisposable = false)
+      spool.release(spool.spool(binaryFormOf(contents)), isDisposable = true)
+      assertThat(directory.list()).isNotNull().containsOnly(digestOf(contents))
+    }
+
+  @Test
+  fun keepsFileWhenReleasedAfterTheRequestHasFinishedWhileItIsReferencedByASweptJournal() =
+    runTest {
+      val contents = byteArrayOf(0x0)
+      val journaledForm = spool.spool(binaryFormOf(contents))
+      spool.release(journaledForm, isDisposable = false)
+      val relaunchedSpool = FormSpool(directory)
+      relaunchedSpool.sweep(journaledForm)
+      relaunchedSpool.release(relaunchedSpool.spool(binaryFormOf(contents)), isDisposable = true)
+      assertThat(directory.list()).isNotNull().containsOnly(digestOf(contents))
+    }
+
+  @Test
+  fun deletesFileWhenReleasedAfterTheRequestHasFinishedOnceTheJournalNoLongerReferencesIt() =
+    runTest {
+      val contents = byteArrayOf(0x0)
+      spool.release(spool.spool(binaryFormOf(contents)), isDisposable = false)
+      val spooledForm = spool.spool(binaryFormOf(contents))
+      spool.sweep(journaled = emptyList())
+      spool.release(spooledForm, isDisposable = true)
+      assertThat(directory.listFiles()).isNotNull().isEmpty()
+    }
+
+  @Test
+  fun sweepsFilesReferencedNeitherByInFlightNorByJournaledRequests() = runTest {
+    val inFlight = byteArrayOf(0x0)
+    val journaled = byteArrayOf(0x1)
+    spool.spool(binaryFormOf(inFlight))
+    val journaledForm = spool.spool(binaryFormOf(journaled))
+    spool.release(journaledForm, isDisposable = false)
+    spool.release(spool.spool(binaryFormOf(byteArrayOf(0x2))), isDisposable = false)
+    directory.resolve("spool0.tmp").createNewFile()
+    spool.sweep(journaledForm)
+    assertThat(directory.list()).isNotNull().containsOnly(digestOf(inFlight), digestOf(journaled))
+  }
+
+  @Test
+  fun reportsUnavailabilityOfDeletedFiles() = runTest {
+    val spooledForm = spool.spool(binaryFormOf(byteArrayOf(0x0)))
+    spool.release(spooledForm, isDisposable = true)
+    assertThat(spool.isAvailable(spooledForm)).isFalse()
+  }
+
+  /**
+   * Creates a form with a single binary part.
+   *
+   * @param contents Contents of the binary part.
+   */
+  private fun binaryFormOf(contents: ByteArray): List<PartData> {
+    return formData {
+      append("file", contents, Headers.build { append(HttpHeaders.ContentType, "video/mp4") })
+    }
+  }
+
+  /**
+   * Computes the hexadecimal SHA-256 digest of the [contents].
+   *
+   * @param contents Contents whose digest is to be computed.
+   */
+  private fun digestOf(contents: ByteArray): String {
+    return MessageDigest.getInstance("SHA-256").digest(contents).joinToString("") {
+      "%02x".format(it)
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.resumption.spool
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import io.ktor.http.Headers
+import io.ktor.http.HttpHeaders
+import kotlin.test.Test
+import kotlinx.serialization.json.Json
+
+internal class SpooledPartKSerializerTests {
+  @Test
+  fun serializesAndDeserializesValue() {
+    val part =
+      SpooledPart.Value(
+        Headers.build { append(HttpHeaders.ContentDisposition, "form-data; name=status") },
+        "🐋"
+      )
+    assertThat(
+        Json.decodeFromString(
+          SpooledPartKSerializer,
+          Json.encodeToString(SpooledPartKSerializer, part)
+        )
+      )
+      .isEqualTo(part)
+  }
+
+  @Test
+  fun serializesAndDeserializesBinary() {
+    val part =
+      SpooledPart.Binary(
+        Headers.build { append(HttpHeaders.ContentType, "video/mp4") },
+        "6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d"
+      )
+    assertThat(
+        Json.decodeFromString(
+          SpooledPartKSerializer,
+          Json.encodeToString(SpooledPartKSerializer, part)
+        )
+      )
+      .isEqualTo(part)
+  }
+}
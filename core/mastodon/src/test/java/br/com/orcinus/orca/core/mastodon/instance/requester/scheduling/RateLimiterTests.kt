@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.scheduling
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.mock.MockEngine
+import io.ktor.client.engine.mock.respond
+import io.ktor.client.request.get
+import io.ktor.http.HttpHeaders
+import io.ktor.http.HttpStatusCode
+import io.ktor.http.headersOf
+import java.time.Clock
+import java.time.Instant
+import java.time.ZoneOffset
+import kotlin.test.Test
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.Duration.Companion.seconds
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.currentTime
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.test.testTimeSource
+import kotlinx.coroutines.withContext
+
+@OptIn(ExperimentalCoroutinesApi::class)
+internal class RateLimiterTests {
+  /** [Clock] whose current [Instant] is the Unix epoch. */
+  private val clock = Clock.fixed(Instant.EPOCH, ZoneOffset.UTC)
+
+  /** [Instant] at which the window of the instance resets. */
+  private val resetTime = Instant.EPOCH.plusSeconds(60)
+
+  @Test
+  fun learnsBudgetFromHeaders() = runTest {
+    val rateLimiter = RateLimiter(clock, testTimeSource)
+    clientOf(rateLimiter, remaining = 299).use { it.get(URL) }
+    assertThat(rateLimiter.budget.value)
+      .isEqualTo(RateLimiter.Budget(limit = 300, remaining = 299, resetTime))
+  }
+
+  @Test
+  fun delaysPrefetchUntilResetWhenBudgetRunsLow() = runTest {
+    val rateLimiter = RateLimiter(clock, testTimeSource)
+    clientOf(rateLimiter, remaining = 75).use { client ->
+      client.get(URL)
+      withContext(RequestPriority.PREFETCH) { client.get(URL) }
+    }
+    assertThat(currentTime).isEqualTo(1.minutes.inWholeMilliseconds)
+  }
+
+  @Test
+  fun doesNotDelayUserVisibleRequestWhenBudgetRunsLow() = runTest {
+    val rateLimiter = RateLimiter(clock, testTimeSource)
+    clientOf(rateLimiter, remaining = 1).use { client -> repeat(2) { client.get(URL) } }
+    assertThat(currentTime).isEqualTo(0)
+  }
+
+  @Test
+  fun sendsRejectedRequestAgainAfterRetryAfter() = runTest {
+    val rateLimiter = RateLimiter(clock, testTimeSource)
+    var isRejected = true
+    val engine = MockEngine {
+      if (isRejected) {
+        isRejected = false
+        respond(
+          "",
+          HttpStatusCode.TooManyRequests,
+          headersOf(HttpHeaders.RetryAfter, "${3.seconds.inWholeSeconds}")
+        )
+      } else {
+        respond("")
+      }
+    }
+    val status =
+      HttpClient(engine) { RequestScheduler().install(this, rateLimiter) }
+        .use { it.get(URL).status }
+    assertThat(status).isEqualTo(HttpStatusCode.OK)
+    assertThat(engine.requestHistory.size).isEqualTo(2)
+    assertThat(currentTime).isEqualTo(3.seconds.inWholeMilliseconds)
+  }
+
+  /**
+   * Creates an [HttpClient] whose responses advertise a budget of 300 requests.
+   *
+   * @param rateLimiter [RateLimiter] to be installed.
+   * @param remaining Amount of requests that remain in the budget.
+   */
+  private fun clientOf(rateLimiter: RateLimiter, remaining: Int): HttpClient {
+    val engine = MockEngine {
+      respond(
+        "",
+        headers =
+          headersOf(
+            "X-RateLimit-Limit" to listOf("300"),
+            "X-RateLimit-Remaining" to listOf("$remaining"),
+            "X-RateLimit-Reset" to listOf("$resetTime")
+          )
+      )
+    }
+    return HttpClient(engine) { RequestScheduler().install(this, rateLimiter) }
+  }
+
+  companion object {
+    /** URL to which requests are sent. */
+    private const val URL = "https://orca.orcinus.com.br/api/v1/timelines/home"
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.core.mastodon.instance.requester.scheduling
+
+import assertk.Assert
+import assertk.all
+import assertk.assertThat
+import assertk.assertions.containsExactly
+import assertk.assertions.isEqualTo
+import assertk.assertions.prop
+import io.ktor.client.HttpClient
+import io.ktor.client.engine.mock.MockEngine
+import io.ktor.client.engine.mock.MockEngineConfig
+import io.ktor.client.engine.mock.respond
+import io.ktor.client.request.get
+import io.ktor.utils.io.ByteChannel
+import io.ktor.utils.io.close
+import kotlin.test.Test
+import kotlin.time.Duration.Companion.seconds
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.test.testTimeSource
+
+internal class RequestSchedulerTests {
+  @Test
+  fun capsInFlightRequests() = runTest {
+    val scheduler = RequestScheduler(maxInFlightCount = 2, reservedCount = 0)
+    val gate = CompletableDeferred<Unit>()
+    repeat(4) { launch { scheduler.schedule(RequestPriority.USER_VISIBLE) { gate.await() } } }
+    runCurrent()
+    assertThat(scheduler.statistics.value).hasCounts(queueDepth = 2, inFlightCount = 2)
+    gate.complete(Unit)
+    runCurrent()
+    assertThat(scheduler.statistics.value).hasCounts(queueDepth = 0, inFlightCount = 0)
+  }
+
+  @Test
+  fun sendsUserVisibleRequestAheadOfQueuedPrefetches() = runTest {
+    val scheduler = RequestScheduler(maxInFlightCount = 1, reservedCount = 0)
+    val gate = CompletableDeferred<Unit>()
+    val sent = mutableListOf<String>()
+    launch { scheduler.schedule(RequestPriority.USER_VISIBLE) { gate.await() } }
+    runCurrent()
+    launch { scheduler.schedule(RequestPriority.PREFETCH) { sent += "prefetch" } }
+    launch { scheduler.schedule(RequestPriority.BACKGROUND) { sent += "background" } }
+    launch { scheduler.schedule(RequestPriority.USER_VISIBLE) { sent += "timeline" } }
+    runCurrent()
+    gate.complete(Unit)
+    runCurrent()
+    assertThat(sent).containsExactly("timeline", "prefetch", "background")
+  }
+
+  @Test
+  fun sendsUserVisibleRequestImmediatelyWhileUnreservedSlotsAreOccupied() = runTest {
+    val scheduler = RequestScheduler(maxInFlightCount = 2, reservedCount = 1)
+    val gate = CompletableDeferred<Unit>()
+    val sent = mutableListOf<String>()
+    repeat(8) { launch { scheduler.schedule(RequestPriority.PREFETCH) { gate.await() } } }
+    runCurrent()
+    launch { scheduler.schedule(RequestPriority.USER_VISIBLE) { sent += "timeline" } }
+    runCurrent()
+    assertThat(sent).containsExactly("timeline")
+    assertThat(scheduler.statistics.value).hasCounts(queueDepth = 7, inFlightCount = 1)
+    gate.complete(Unit)
+  }
+
+  @Test
+  fun releasesSlotOfCancelledQueuedRequest() = runTest {
+    val scheduler = RequestScheduler(maxInFlightCount = 1, reservedCount = 0)
+    val gate = CompletableDeferred<Unit>()
+    launch { scheduler.schedule(RequestPriority.USER_VISIBLE) { gate.await() } }
+    val queuedJob = launch { scheduler.schedule(RequestPriority.USER_VISIBLE) {} }
+    runCurrent()
+    queuedJob.cancel()
+    runCurrent()
+    assertThat(scheduler.statistics.value).hasCounts(queueDepth = 0, inFlightCount = 1)
+    gate.complete(Unit)
+  }
+
+  @Test
+  fun holdsSlotUntilResponseBodyHasBeenReceived() = runTest {
+    val scheduler = RequestScheduler(maxInFlightCount = 1, reservedCount = 0)
+    val body = ByteChannel()
+    val clientEngine =
+      MockEngine(
+        MockEngineConfig().apply {
+          dispatcher = StandardTestDispatcher(testScheduler)
+          addHandler { respond(body) }
+        }
+      )
+    HttpClient(clientEngine) { scheduler.install(this) }
+      .use { client ->
+        launch { client.get("https://orca.orcinus.com.br") }
+        runCurrent()
+        assertThat(scheduler.statistics.value).hasCounts(queueDepth = 0, inFlightCount = 1)
+        body.close()
+        runCurrent()
+        assertThat(scheduler.statistics.value).hasCounts(queueDepth = 0, inFlightCount = 0)
+      }
+  }
+
+  @Test
+  fun measuresTimeSpentInTheQueue() = runTest {
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val scheduler = RequestScheduler(maxInFlightCount = 1, reservedCount = 0, testTimeSource)
+    launch { scheduler.schedule(RequestPriority.USER_VISIBLE) { delay(2.seconds) } }
+    launch { scheduler.schedule(RequestPriority.PREFETCH) {} }
+    testScheduler.advanceUntilIdle()
+    assertThat(scheduler)
+      .prop(RequestScheduler::statistics)
+      .prop("value") { it.value }
+      .all {
+        prop(RequestScheduler.Statistics::scheduledCount).isEqualTo(2)
+        prop(RequestScheduler.Statistics::totalWaitTime).isEqualTo(2.seconds)
+        prop(RequestScheduler.Statistics::maxWaitTime).isEqualTo(2.seconds)
+      }
+  }
+
+  /**
+   * Asserts that the queue depth and the in-flight count equal the given ones.
+   *
+   * @param queueDepth Expected amount of queued requests.
+   * @param inFlightCount Expected amount of requests in flight.
+   */
+  private fun Assert<RequestScheduler.Statistics>.hasCounts(queueDepth: Int, inFlightCount: Int) {
+    prop(RequestScheduler.Statistics::queueDepth).isEqualTo(queueDepth)
+    prop(RequestScheduler.Statistics::inFlightCount).isEqualTo(inFlightCount)
+  }
+}
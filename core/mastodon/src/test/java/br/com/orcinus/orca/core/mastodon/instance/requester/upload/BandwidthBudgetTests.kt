@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.upload
+
+import assertk.assertFailure
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import assertk.assertions.isInstanceOf
+import kotlin.test.Test
+import kotlin.time.Duration.Companion.seconds
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.joinAll
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.currentTime
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.test.testTimeSource
+
+@OptIn(ExperimentalCoroutinesApi::class)
+internal class BandwidthBudgetTests {
+  @Test
+  fun throwsWhenBytesPerSecondIsNotPositive() {
+    assertFailure { BandwidthBudget(bytesPerSecond = 0) }
+      .isInstanceOf<IllegalArgumentException>()
+  }
+
+  @Test
+  fun doesNotWaitWhileWithinBudget() = runTest {
+    BandwidthBudget(BYTES_PER_SECOND, testTimeSource).take(BYTES_PER_SECOND.toInt())
+    assertThat(currentTime).isEqualTo(0)
+  }
+
+  @Test
+  fun waitsUntilDebtIsPaidOff() = runTest {
+    val budget = BandwidthBudget(BYTES_PER_SECOND, testTimeSource)
+    repeat(3) { budget.take(BYTES_PER_SECOND.toInt()) }
+    assertThat(currentTime).isEqualTo(2.seconds.inWholeMilliseconds)
+  }
+
+  @Test
+  fun splitsBudgetAmongConcurrentTakers() = runTest {
+    val budget = BandwidthBudget(BYTES_PER_SECOND, testTimeSource)
+    List(4) {
+        launch { repeat(4) { budget.take((BYTES_PER_SECOND / 4).toInt()) } }
+      }
+      .joinAll()
+    assertThat(currentTime).isEqualTo(3.seconds.inWholeMilliseconds)
+  }
+
+  companion object {
+    /** Amount of bytes that can be uploaded per second. */
+    private const val BYTES_PER_SECOND = 1024L
+  }
+}
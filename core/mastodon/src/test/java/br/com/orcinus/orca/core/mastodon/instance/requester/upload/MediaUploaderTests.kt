@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.upload
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import assertk.assertions.isInstanceOf
+import assertk.assertions.isNotEmpty
+import br.com.orcinus.orca.core.mastodon.instance.requester.ClientResponseProvider
+import br.com.orcinus.orca.core.mastodon.instance.requester.runRequesterTest
+import io.ktor.client.engine.mock.respondOk
+import io.ktor.client.engine.mock.toByteArray
+import io.ktor.client.request.forms.formData
+import kotlin.random.Random
+import kotlin.test.Test
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.flow.filterIsInstance
+import kotlinx.coroutines.flow.toList
+
+internal class MediaUploaderTests {
+  @Test
+  fun reportsProgressUntilTheBodyHasBeenSentAndThenCompletes() {
+    var receivedByteCount = 0
+    val clientResponseProvider = ClientResponseProvider {
+      receivedByteCount = it.body.toByteArray().size
+      respondOk()
+    }
+    runRequesterTest(clientResponseProvider) {
+      val uploads =
+        MediaUploader(requester, BandwidthBudget(Long.MAX_VALUE))
+          .upload(route, formData { append("file", Random.nextBytes(BYTE_COUNT)) })
+          .toList()
+      assertThat(uploads.last()).isInstanceOf<Upload.Done>()
+      val sentByteCounts =
+        uploads.filterIsInstance<Upload.InProgress>().map(Upload.InProgress::sentByteCount)
+      assertThat(sentByteCounts).isNotEmpty()
+      assertThat(sentByteCounts).isEqualTo(sentByteCounts.sorted())
+      assertThat(sentByteCounts.last()).isEqualTo(receivedByteCount.toLong())
+    }
+  }
+
+  @Test
+  fun performsIndependentUploadsConcurrently() {
+    val clientResponseProvider = ClientResponseProvider {
+      it.body.toByteArray()
+      respondOk()
+    }
+    runRequesterTest(clientResponseProvider) {
+      val uploader = MediaUploader(requester, BandwidthBudget(Long.MAX_VALUE))
+      val uploads =
+        List(4) {
+            async {
+              uploader.upload(route, formData { append("file", Random.nextBytes(BYTE_COUNT)) })
+                .filterIsInstance<Upload.Done>()
+                .toList()
+            }
+          }
+          .awaitAll()
+      for (upload in uploads) {
+        assertThat(upload.size).isEqualTo(1)
+      }
+    }
+  }
+
+  companion object {
+    /** Amount of bytes of each uploaded file. */
+    private const val BYTE_COUNT = 64 * 1024
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.mastodon.instance.requester.upload
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import io.ktor.http.content.ByteArrayContent
+import io.ktor.http.content.OutgoingContent
+import io.ktor.util.toByteArray
+import io.ktor.utils.io.ByteChannel
+import io.ktor.utils.io.ByteWriteChannel
+import io.ktor.utils.io.close
+import kotlin.random.Random
+import kotlin.test.Test
+import kotlin.time.Duration.Companion.seconds
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.currentTime
+import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.test.testTimeSource
+
+@OptIn(ExperimentalCoroutinesApi::class)
+internal class MeteredContentTests {
+  private val bytes = Random.nextBytes(BYTE_COUNT)
+
+  @Test
+  fun writesBytesOfByteArrayContent() = runTest {
+    val content = MeteredContent(ByteArrayContent(bytes), BandwidthBudget(Long.MAX_VALUE)) {}
+    assertThat(writtenBytesOf(content)).isEqualTo(bytes)
+  }
+
+  @Test
+  fun writesBytesOfWriteChannelContent() = runTest {
+    val delegate =
+      object : OutgoingContent.WriteChannelContent() {
+        override suspend fun writeTo(channel: ByteWriteChannel) {
+          channel.writeFully(bytes, 0, bytes.size)
+        }
+      }
+    val content = MeteredContent(delegate, BandwidthBudget(Long.MAX_VALUE)) {}
+    assertThat(writtenBytesOf(content)).isEqualTo(bytes)
+  }
+
+  @Test
+  fun reportsAmountOfWrittenBytes() = runTest {
+    val writtenByteCounts = mutableListOf<Long>()
+    val content =
+      MeteredContent(ByteArrayContent(bytes), BandwidthBudget(Long.MAX_VALUE)) {
+        writtenByteCounts += it
+      }
+    writtenBytesOf(content)
+    assertThat(writtenByteCounts).isEqualTo(writtenByteCounts.sorted())
+    assertThat(writtenByteCounts.last()).isEqualTo(BYTE_COUNT.toLong())
+  }
+
+  @Test
+  fun writesWithinBudget() = runTest {
+    val budget = BandwidthBudget(bytesPerSecond = BYTE_COUNT / 4L, testTimeSource)
+    writtenBytesOf(MeteredContent(ByteArrayContent(bytes), budget) {})
+    assertThat(currentTime).isEqualTo(3.seconds.inWholeMilliseconds)
+  }
+
+  /**
+   * Writes the [content] into a channel and reads all of the bytes that have been written.
+   *
+   * @param content [MeteredContent] to be written.
+   */
+  private suspend fun CoroutineScope.writtenBytesOf(content: MeteredContent): ByteArray {
+    val channel = ByteChannel()
+    launch {
+      content.writeTo(channel)
+      channel.close()
+    }
+    return channel.toByteArray()
+  }
+
+  companion object {
+    /** Amount of bytes of the content. */
+    private const val BYTE_COUNT = 64 * 1024
+  }
+}
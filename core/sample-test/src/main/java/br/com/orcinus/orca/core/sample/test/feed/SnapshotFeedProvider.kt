@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+package br.com.orcinus.orca.core.sample.test.feed
+
+import br.com.orcinus.orca.core.feed.FeedProvider
+import br.com.orcinus.orca.core.feed.profile.post.Post
+import br.com.orcinus.orca.core.sample.feed.profile.post.content.SampleTermMuter
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flowOf
+
+/**
+ * [FeedProvider] whose first page is composed of the snapshots emitted to the [snapshotsFlow]; the
+ * other pages are empty.
+ *
+ * @property snapshotsFlow [Flow] to which snapshots of the [Post]s at the first page are emitted.
+ */
+class SnapshotFeedProvider(private val snapshotsFlow: Flow<List<Post>>) : FeedProvider() {
+  override val termMuter = SampleTermMuter()
+
+  override suspend fun onProvision(page: Int): Flow<List<Post>> {
+    return if (page == 0) snapshotsFlow else flowOf(emptyList())
+  }
+}
@@ -30,7 +30,8 @@ abstract class FeedProvider @InternalCoreApi constructor() {
   protected abstract val termMuter: TermMuter
 
   /**
-   * Provides the feed of the current [Actor].
+   * Provides the feed of the current [Actor]. Each [List] emitted to the returned [Flow] is a
+   * snapshot of the [Post]s at the [page], which replaces the one emitted before it.
    *
    * @param page Page at which the emitted [Post]s are in the feed.
    */
@@ -43,6 +44,8 @@ abstract class FeedProvider @InternalCoreApi constructor() {
    * Callback called whenever the feed of the current [Actor] is requested to be provided.
    *
    * @param page Valid page at which the emitted [Post]s are in the feed.
+   * @return [Flow] to which snapshots of the [Post]s at the [page] are emitted, each replacing the
+   *   previous one.
    */
   protected abstract suspend fun onProvision(page: Int): Flow<List<Post>>
 }
@@ -18,9 +18,12 @@ package br.com.orcinus.orca.ext.coroutines
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.combine
 import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.flatMapLatest
 import kotlinx.coroutines.flow.flattenMerge
+import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.merge
 import kotlinx.coroutines.flow.onEach
@@ -74,6 +77,33 @@ fun <I, O, K> Flow<Collection<I>>.flatMapEach(
     .distinctUntilChanged()
 }
 
+/**
+ * Maps each element of the latest emitted [Collection] to the resulting [Flow] of [transform],
+ * combining them into an up-to-date [List] that gets emitted each time any of these [Flow]s receive
+ * an emission. Differently from [flatMapEach], each emitted [Collection] replaces the previous one:
+ * the [Flow]s of the elements of the previous [Collection] are cancelled, and elements that are no
+ * longer in the emitted [Collection] are dropped from the [List].
+ *
+ * @param key Provides the value by which each element should be compared when replaced.
+ * @param transform Transformation to be made to the currently iterated element.
+ */
+@OptIn(ExperimentalCoroutinesApi::class)
+fun <I, O, K> Flow<Collection<I>>.flatMapEachLatest(
+  key: (O) -> K,
+  transform: suspend (I) -> Flow<O>
+): Flow<List<O>> {
+  return flatMapLatest { elements ->
+      if (elements.isEmpty()) {
+        flowOf(emptyList())
+      } else {
+        combine(elements.map { element -> transform(element) }) { transformed ->
+          transformed.associateByTo(LinkedHashMap(), key).values.toList()
+        }
+      }
+    }
+    .distinctUntilChanged()
+}
+
 /**
  * Maps each element of the emitted [Collection]s to the result of [transform].
  *
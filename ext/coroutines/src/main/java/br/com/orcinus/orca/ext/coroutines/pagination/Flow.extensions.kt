@@ -18,7 +18,10 @@ package br.com.orcinus.orca.ext.coroutines.pagination
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.drop
 import kotlinx.coroutines.flow.flatMapMerge
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.runningFold
 import kotlinx.coroutines.flow.runningReduce
 
 /**
@@ -38,3 +41,30 @@ fun <T> Flow<Int>.paginate(pagination: suspend (index: Int) -> Flow<Iterable<T>>
     accumulator + posts
   } as Flow<List<T>>
 }
+
+/**
+ * Combines index-based [Flow]s of snapshots into one. Differently from [paginate], each [Iterable]
+ * emitted by the [Flow] of an index replaces the one that it has previously emitted instead of
+ * being appended to it, which allows for the elements related to an index to be updated (or
+ * reordered) after they have been emitted.
+ *
+ * @param T Contained element of each snapshot.
+ * @param pagination Returns a [Flow] that emits snapshots of the values related to the given index,
+ *   each of which replaces the previous one; the latest snapshots of all indices are, then, emitted
+ *   to the resulting [Flow] in the order of their indices.
+ */
+@OptIn(ExperimentalCoroutinesApi::class)
+fun <T> Flow<Int>.paginateSnapshots(
+  pagination: suspend (index: Int) -> Flow<Iterable<T>>
+): Flow<List<T>> {
+  return distinctUntilChanged()
+    .flatMapMerge { index -> pagination(index).map { snapshot -> index to snapshot } }
+    .runningFold(sortedMapOf<Int, Iterable<T>>()) { snapshots, (index, snapshot) ->
+      sortedMapOf<Int, Iterable<T>>().apply {
+        putAll(snapshots)
+        put(index, snapshot)
+      }
+    }
+    .drop(1)
+    .map { snapshots -> snapshots.values.flatten() }
+}
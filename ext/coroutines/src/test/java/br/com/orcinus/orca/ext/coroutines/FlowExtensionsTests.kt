@@ -63,6 +63,20 @@ internal class FlowExtensionsTests {
     }
   }
 
+  @Test
+  fun flatMapsEachOfTheLatestCollection() {
+    val elementsFlow = MutableStateFlow(listOf(2, 4))
+    runTest {
+      elementsFlow
+        .flatMapEachLatest(key = { it }) { flowOf(it * it) }
+        .test {
+          assertThat(awaitItem()).containsExactly(4, 16)
+          elementsFlow.value = listOf(16, 2)
+          assertThat(awaitItem()).containsExactly(256, 4)
+        }
+    }
+  }
+
   @Test
   fun mapsEach() {
     runTest {
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.ext.coroutines.pagination
+
+import app.cash.turbine.test
+import assertk.assertThat
+import assertk.assertions.containsExactly
+import kotlin.test.Test
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+
+internal class FlowExtensionsTests {
+  @Test
+  fun replacesPreviousSnapshotOfAnIndex() {
+    runTest {
+      flowOf(0)
+        .paginateSnapshots { flowOf(listOf(2), listOf(1, 2)) }
+        .test {
+          assertThat(awaitItem()).containsExactly(2)
+          assertThat(awaitItem()).containsExactly(1, 2)
+          awaitComplete()
+        }
+    }
+  }
+
+  @Test
+  fun ordersSnapshotsByTheirIndices() {
+    runTest {
+      assertThat(flowOf(1, 0).paginateSnapshots { flowOf(listOf(it)) }.toList().last())
+        .containsExactly(0, 1)
+    }
+  }
+}
@@ -41,7 +41,7 @@ internal constructor(
    *
    * @see parameter
    */
-  private val query = hashMapOf<String, String>()
+  private val query = linkedMapOf<String, List<String>>()
 
   override fun equals(other: Any?): Boolean {
     return other is SegmentedURLBuilder &&
@@ -61,13 +61,28 @@ internal constructor(
    * @param value Information to be associated to the [key] in the query.
    */
   fun parameter(key: String, value: String): SegmentedURLBuilder {
-    query[key] = value
+    query[key] = listOf(value)
+    return this
+  }
+
+  /**
+   * Appends a query parameter to the URL [URI] to be built once for each of the [values], as is
+   * done for array parameters (e. g., `id[]=1&id[]=2`).
+   *
+   * @param key Identifier of the [values].
+   * @param values Pieces of information to be associated to the [key] in the query.
+   */
+  fun parameter(key: String, values: List<String>): SegmentedURLBuilder {
+    query[key] = values.toList()
     return this
   }
 
   /** Builds a URL [URI] with the specified components. */
   fun build(): URI {
-    val query = query.map { (key, value) -> "$key=$value" }.joinToString(separator = "&")
+    val query =
+      query
+        .flatMap { (key, values) -> values.map { value -> "$key=$value" } }
+        .joinToString(separator = "&")
     val fragment = null
     return URI(scheme, host, path, query, fragment)
   }
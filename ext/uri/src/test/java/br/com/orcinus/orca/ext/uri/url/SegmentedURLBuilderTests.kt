@@ -45,4 +45,24 @@ internal class SegmentedURLBuilderTests {
         )
       )
   }
+
+  @Test
+  fun appendsArrayParameter() {
+    assertThat(
+        URIBuilder.url()
+          .scheme("https")
+          .host("mastodon.social")
+          .path("api")
+          .path("v1")
+          .path("statuses")
+          .query()
+          .parameter("id[]", listOf("112276588128366269", "112276666465473478"))
+          .build()
+      )
+      .isEqualTo(
+        URI(
+          "https://mastodon.social/api/v1/statuses?id[]=112276588128366269&id[]=112276666465473478"
+        )
+      )
+  }
 }
@@ -30,10 +30,10 @@ import br.com.orcinus.orca.core.feed.profile.post.PostProvider
 import br.com.orcinus.orca.core.feed.profile.search.ProfileSearchResult
 import br.com.orcinus.orca.core.feed.profile.search.ProfileSearcher
 import br.com.orcinus.orca.ext.coroutines.await
-import br.com.orcinus.orca.ext.coroutines.flatMapEach
+import br.com.orcinus.orca.ext.coroutines.flatMapEachLatest
 import br.com.orcinus.orca.ext.coroutines.notifier.notifierFlow
 import br.com.orcinus.orca.ext.coroutines.notifier.notify
-import br.com.orcinus.orca.ext.coroutines.pagination.paginate
+import br.com.orcinus.orca.ext.coroutines.pagination.paginateSnapshots
 import br.com.orcinus.orca.ext.intents.share
 import br.com.orcinus.orca.platform.autos.theme.AutosTheme
 import com.jeanbarrossilva.loadable.list.flow.listLoadableFlow
@@ -85,8 +85,8 @@ constructor(
   val postPreviewsLoadableFlow = listLoadableFlow {
     indexFlow
       .combine(postPreviewsLoadableNotifierFlow) { index, _ -> index }
-      .paginate { feedProvider.provide(page = it).getValueOrThrow() }
-      .flatMapEach(key = PostPreview::id) {
+      .paginateSnapshots { feedProvider.provide(page = it).getValueOrThrow() }
+      .flatMapEachLatest(key = PostPreview::id) {
         it.toPostPreviewFlow(colors, onLinkClick, onThumbnailClickListener)
       }
       .map(List<PostPreview>::toSerializableList)
@@ -15,20 +15,34 @@
 
 package br.com.orcinus.orca.feature.feed
 
+import android.app.Application
+import androidx.lifecycle.viewModelScope
+import androidx.test.core.app.ApplicationProvider
 import app.cash.turbine.test
 import assertk.assertThat
 import assertk.assertions.containsExactly
 import assertk.assertions.isNotEqualTo
 import assertk.assertions.prop
+import br.com.orcinus.orca.composite.timeline.post.PostPreview
+import br.com.orcinus.orca.composite.timeline.post.figure.gallery.disposition.Disposition
 import br.com.orcinus.orca.composite.timeline.stat.details.StatsDetails
 import br.com.orcinus.orca.core.feed.profile.account.Account
+import br.com.orcinus.orca.core.feed.profile.post.Post
 import br.com.orcinus.orca.core.feed.profile.search.ProfileSearchResult
 import br.com.orcinus.orca.core.sample.feed.profile.account.sample
+import br.com.orcinus.orca.core.sample.instance.SampleInstance
+import br.com.orcinus.orca.core.sample.test.feed.SnapshotFeedProvider
+import br.com.orcinus.orca.platform.core.image.sample
 import br.com.orcinus.orca.platform.core.sample
+import br.com.orcinus.orca.std.image.compose.ComposableImageLoader
 import com.jeanbarrossilva.loadable.list.ListLoadable
 import kotlin.test.Test
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.filterIsInstance
 import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.test.runTest
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
 
@@ -45,6 +59,45 @@ internal class FeedViewModelTests {
     }
   }
 
+  @Test
+  fun replacesRestoredPostPreviewsWithThoseOfTheReceivedFirstPage() {
+    runTest {
+      val application = ApplicationProvider.getApplicationContext<Application>()
+      val instance =
+        SampleInstance.Builder.create(ComposableImageLoader.Provider.sample)
+          .withDefaultProfiles()
+          .withDefaultPosts()
+          .build()
+      val posts = instance.postProvider.provideAllCurrent().take(4)
+      val restored = posts.drop(1)
+      val received = posts.dropLast(1)
+      val snapshotsFlow = MutableStateFlow(restored)
+      val viewModel =
+        FeedViewModel(
+          application,
+          coroutineContext,
+          instance.profileSearcher,
+          SnapshotFeedProvider(snapshotsFlow),
+          instance.postProvider,
+          onLinkClick = {},
+          Disposition.OnThumbnailClickListener.empty
+        )
+      try {
+        viewModel.postPreviewsLoadableFlow
+          .filterIsInstance<ListLoadable.Populated<PostPreview>>()
+          .map { postPreviewsLoadable -> postPreviewsLoadable.content.map(PostPreview::id) }
+          .distinctUntilChanged()
+          .test {
+            assertThat(awaitItem()).containsExactly(*restored.map(Post::id).toTypedArray())
+            snapshotsFlow.value = received
+            assertThat(awaitItem()).containsExactly(*received.map(Post::id).toTypedArray())
+          }
+      } finally {
+        viewModel.viewModelScope.cancel()
+      }
+    }
+  }
+
   @Test
   fun emitsToPostPreviewLoadableFlowWhenFavoritingOrUnfavoritingAPost() {
     runFeedViewModelTest {
@@ -16,17 +16,55 @@
 package br.com.orcinus.orca.platform.cache
 
 import android.content.Context
+import androidx.room.withTransaction
+import androidx.sqlite.db.SupportSQLiteDatabase
 import br.com.orcinus.orca.platform.cache.database.Access
 import br.com.orcinus.orca.platform.cache.database.AccessDao
 import br.com.orcinus.orca.platform.cache.database.CacheDatabase
 import kotlin.time.Duration
+import kotlin.time.Duration.Companion.hours
 import kotlin.time.Duration.Companion.milliseconds
 import kotlin.time.Duration.Companion.minutes
 import kotlin.time.Duration.Companion.seconds
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
 
 /**
  * Decides whether values should be fetched or have their cached version retrieved.
  *
+ * Values that have been recently accessed are also held in a bounded, in-memory tier (whose size is
+ * determined by [memoryCapacity] and [sizeOf]), from which they are obtained without the
+ * [CacheDatabase] or the [storage] being read while they are either idle or alive. Whether a value
+ * that is not in memory is idle or alive is determined by a single query to the [CacheDatabase].
+ * Idle accesses to values (that is, reads) are persisted lazily, in batches.
+ *
+ * Concurrent requests for a value that is not in memory are coalesced: only one of them consults
+ * the [CacheDatabase] and, if needed, fetches and stores the value, while the others wait for and
+ * share its result (or the exception with which it failed).
+ *
+ * Failures to fetch a value are recorded as tombstones, which cause the same failure to be rethrown
+ * without fetching being reattempted for [timeToTombstone], with such time backing off
+ * exponentially while consecutive fetches fail.
+ *
+ * Stored values are removed by a background sweeper, which periodically evicts those that have
+ * expired and, in case the [evictionPolicy] is exceeded, those that have been read the least
+ * recently, reclaiming the space they occupied.
+ *
  * @param context [Context] through which an instance of the underlying [CacheDatabase] will be
  *   obtained.
  * @param name Identifier for this [Cache].
@@ -36,7 +74,7 @@ abstract class Cache<T> internal constructor(context: Context, name: String) {
   private val database
     get() = databaseProvider.provide()
 
-  /** [AccessDao] from which living and idling [Access]es are read and written to. */
+  /** [AccessDao] from which [Access]es are read and written to. */
   private val accessDao
     get() = database.accessDao
 
@@ -44,6 +82,51 @@ abstract class Cache<T> internal constructor(context: Context, name: String) {
   private val elapsedTime
     get() = elapsedTimeProvider.provide()
 
+  /** [MemoryTier] in which values that have been recently accessed are held. */
+  private val memoryTier by lazy { MemoryTier<T>(memoryCapacity, ::sizeOf) }
+
+  /**
+   * [SingleFlight] by which concurrent obtainances of values that are not in memory are
+   * deduplicated, preventing the same value from being fetched and stored more than once at a
+   * time.
+   */
+  private val singleFlight = SingleFlight<T>()
+
+  /** [Tombstones] by which failures to fetch values are recorded. */
+  private val tombstones by lazy { Tombstones(timeToTombstone, maxTimeToTombstone) }
+
+  /** [CoroutineScope] in which the sweeper runs. */
+  private val sweepingScope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+  /**
+   * [Job] of the sweeper, which is launched once a value is first stored.
+   *
+   * @see sweepInterval
+   */
+  private val sweeper by lazy {
+    sweepingScope.launch {
+      while (true) {
+        delay(sweepInterval)
+        try {
+          sweep()
+        } catch (exception: CancellationException) {
+          throw exception
+        } catch (exception: Exception) {
+          // The failed sweep will be retried when the next interval elapses.
+        }
+      }
+    }
+  }
+
+  /** [Mutex] that prevents sweeps from being performed concurrently. */
+  private val sweepMutex = Mutex()
+
+  /** [MutableStateFlow] to which [Statistics] are emitted whenever a value is obtained. */
+  private val statisticsFlow = MutableStateFlow(Statistics.empty)
+
+  /** [StateFlow] to which [Statistics] regarding the obtainance of values are emitted. */
+  val statistics = statisticsFlow.asStateFlow()
+
   /** [CacheDatabase.Provider] by which a [CacheDatabase] will be provided. */
   internal open val databaseProvider = CacheDatabase.Provider { CacheDatabase.of(context, name) }
 
@@ -65,6 +148,107 @@ abstract class Cache<T> internal constructor(context: Context, name: String) {
   /** Time-to-live is similar to [timeToIdle], but only considers write operations. */
   protected open val timeToLive: Duration = 30.seconds
 
+  /**
+   * Maximum size of the in-memory tier, measured in the unit returned by [sizeOf]. By default, it
+   * is the maximum amount of values that can be held in memory at once.
+   */
+  protected open val memoryCapacity: Int = DEFAULT_MEMORY_CAPACITY
+
+  /**
+   * Amount of idle accesses to values held in memory that, once reached, causes all of those that
+   * are pending to be persisted at once.
+   */
+  protected open val idleAccessFlushThreshold: Int = DEFAULT_IDLE_ACCESS_FLUSH_THRESHOLD
+
+  /**
+   * Time during which a value that has failed to be fetched is not fetched again, with the
+   * [Exception] of the failure being rethrown instead. Doubles at each consecutive failure, up to
+   * [maxTimeToTombstone].
+   */
+  protected open val timeToTombstone: Duration = 5.seconds
+
+  /** Maximum time during which a value that has failed to be fetched is not fetched again. */
+  protected open val maxTimeToTombstone: Duration = 5.minutes
+
+  /** [EvictionPolicy] by which the amount of values that are stored is bounded. */
+  protected open val evictionPolicy = EvictionPolicy.unbounded
+
+  /**
+   * Interval between the sweeps performed in the background. An infinite one disables the sweeper,
+   * in which case sweeps are only performed when requested through [sweep].
+   */
+  protected open val sweepInterval: Duration = DEFAULT_SWEEP_INTERVAL
+
+  /**
+   * Counts of how values have been obtained and evicted.
+   *
+   * @property memoryHitCount Amount of times a value was obtained from memory.
+   * @property storageHitCount Amount of times a value was retrieved from the [storage].
+   * @property missCount Amount of times a value had to be fetched through the [fetcher].
+   * @property evictionCount Amount of values that have been evicted by sweeps.
+   * @property reclaimedByteCount Sum of the sizes of the values that have been evicted, in bytes,
+   *   as measured by [byteCountOf].
+   * @property vacuumedByteCount Amount of bytes by which the [CacheDatabase] file has shrunk due to
+   *   sweeps.
+   * @property tombstoneCount Amount of times a failure to fetch a value has been recorded.
+   * @property tombstoneHitCount Amount of times a value was not fetched because it had failed
+   *   recently, with the recorded failure being rethrown instead.
+   */
+  data class Statistics(
+    val memoryHitCount: Long,
+    val storageHitCount: Long,
+    val missCount: Long,
+    val evictionCount: Long = 0,
+    val reclaimedByteCount: Long = 0,
+    val vacuumedByteCount: Long = 0,
+    val tombstoneCount: Long = 0,
+    val tombstoneHitCount: Long = 0
+  ) {
+    /** Amount of times a value has been requested to be obtained. */
+    val requestCount
+      get() = memoryHitCount + storageHitCount + missCount
+
+    /** Ratio of requests that were answered from memory to the total amount of requests. */
+    val memoryHitRatio
+      get() = if (requestCount == 0L) 0.0 else memoryHitCount.toDouble() / requestCount
+
+    /**
+     * Ratio of requests that were answered without fetching (that is, either from memory or from
+     * the [storage]) to the total amount of requests.
+     */
+    val hitRatio
+      get() =
+        if (requestCount == 0L) 0.0
+        else (memoryHitCount + storageHitCount).toDouble() / requestCount
+
+    companion object {
+      /** [Statistics] of a [Cache] from which no value has been obtained. */
+      val empty = Statistics(memoryHitCount = 0, storageHitCount = 0, missCount = 0)
+    }
+  }
+
+  /**
+   * Result of a single sweep.
+   *
+   * @property expiredCount Amount of values that have been evicted because they were neither idle
+   *   nor alive.
+   * @property overflowCount Amount of values that have been evicted because the [evictionPolicy]
+   *   was exceeded.
+   * @property reclaimedByteCount Sum of the sizes of the evicted values, in bytes, as measured by
+   *   [byteCountOf].
+   * @property vacuumedByteCount Amount of bytes by which the [CacheDatabase] file has shrunk.
+   */
+  data class Sweep(
+    val expiredCount: Int,
+    val overflowCount: Int,
+    val reclaimedByteCount: Long,
+    val vacuumedByteCount: Long
+  ) {
+    /** Amount of values that have been evicted. */
+    val evictionCount
+      get() = expiredCount + overflowCount
+  }
+
   /** Provides the amount of time that has passed through [provide]. */
   internal fun interface ElapsedTimeProvider {
     /** Provides the amount of time that has passed. */
@@ -77,62 +261,249 @@ abstract class Cache<T> internal constructor(context: Context, name: String) {
   }
 
   /**
-   * Gets the value bound to the given [key] either by retrieving it from the [storage] if it's been
-   * cached or fetches it through the [fetcher] if it hasn't, respecting both the [timeToIdle] and
-   * the [timeToLive].
+   * Gets the value bound to the given [key] either by obtaining it from memory or retrieving it
+   * from the [storage] if it's been cached or fetches it through the [fetcher] if it hasn't,
+   * respecting both the [timeToIdle] and the [timeToLive].
    *
    * @param key Unique identifier to which the value to be obtained is associated to.
    */
   suspend fun get(key: String): T {
-    val isActive = isIdle(key) || isAlive(key)
-    return if (isActive) retrieve(key) else remember(key)
+    val memoryEntry = obtainFromMemory(key)
+    return if (memoryEntry != null) {
+      memoryEntry.value
+    } else {
+      singleFlight.run(key) { obtainFromDatabase(key) }
+    }
+  }
+
+  /**
+   * Returns a [Flow] to which the value bound to the given [key] is emitted in a
+   * stale-while-revalidate fashion: in case it has been cached, it is emitted immediately (from
+   * memory or from the [storage]) even if it has expired; then, if it is no longer alive (that is,
+   * its [timeToLive] has elapsed), it is revalidated once through the [fetcher] and emitted again
+   * only if the revalidated value is not equivalent to the cached one, as determined by the
+   * [storage] according to the way in which each of them would be stored. Values that have not
+   * been cached are fetched and emitted once.
+   *
+   * Revalidations are coalesced with concurrent obtainances of the same value, and a failed
+   * revalidation does not cause the [Flow] to fail, given that the cached value has already been
+   * emitted.
+   *
+   * @param key Unique identifier to which the value to be observed is associated.
+   */
+  fun observe(key: String): Flow<T> {
+    return flow {
+      val cachedEntry = obtainCached(key)
+      if (cachedEntry == null) {
+        emit(get(key))
+        return@flow
+      }
+      emit(cachedEntry.value)
+      if (elapsedTime - cachedEntry.aliveTime < timeToLive) {
+        return@flow
+      }
+      val revalidatedValue =
+        try {
+          singleFlight.run(key) { remember(key) }
+        } catch (exception: CancellationException) {
+          throw exception
+        } catch (exception: Exception) {
+          return@flow
+        }
+      if (!storage.areEquivalent(key, revalidatedValue, cachedEntry.value)) {
+        emit(revalidatedValue)
+      }
+    }
+  }
+
+  /**
+   * Gets the values bound to each of the given [keys], in a batch. Those that are in memory are
+   * obtained from there; the remaining ones are split into active (either idle or alive) and
+   * inactive ones with a single query per batch of keys, after which the active ones are retrieved
+   * from the [storage] all at once and the inactive ones are fetched all at once through the
+   * [fetcher] and stored in a single operation.
+   *
+   * @param keys Unique identifiers to which the values to be obtained are associated.
+   * @return Values associated to their keys, in the order in which the latter have been given. Keys
+   *   whose values have failed to be fetched recently (and, thus, have a live tombstone) or have
+   *   not been returned by the [fetcher] are absent.
+   * @throws Exception If fetching the values that had to be fetched fails entirely, in which case
+   *   none of them is returned (not even those obtained from memory or retrieved from the
+   *   [storage]) and the failure is recorded as the tombstone of each.
+   * @see Storage.onGetAll
+   * @see Fetcher.onFetchAll
+   * @see Storage.onStoreAll
+   */
+  suspend fun getAll(keys: List<String>): Map<String, T> {
+    val distinctKeys = keys.distinct()
+    val values = HashMap<String, T>(distinctKeys.size)
+    val remainingKeys = ArrayList<String>(distinctKeys.size)
+    for (key in distinctKeys) {
+      val memoryEntry = obtainFromMemory(key)
+      if (memoryEntry != null) values[key] = memoryEntry.value else remainingKeys += key
+    }
+    if (remainingKeys.isNotEmpty()) {
+      val now = elapsedTime
+      val activeAccesses =
+        remainingKeys
+          .chunked(MAX_KEYS_PER_QUERY)
+          .flatMap { accessDao.selectAll(it) }
+          .filter { isActive(it, now) }
+      val activeKeys = activeAccesses.mapTo(HashSet(activeAccesses.size), Access::key)
+      values += retrieveAll(activeAccesses, now)
+      values += rememberAll(remainingKeys.filterNot(activeKeys::contains))
+    }
+    return buildMap(distinctKeys.size) {
+      for (key in distinctKeys) {
+        if (key in values) {
+          @Suppress("UNCHECKED_CAST") put(key, values[key] as T)
+        }
+      }
+    }
+  }
+
+  /**
+   * Measures the size of the [value] in the unit in which the [memoryCapacity] is defined. Returns
+   * 1 by default, making the [memoryCapacity] the maximum amount of values held in memory.
+   *
+   * @param key Unique identifier of the [value].
+   * @param value Value whose size will be measured.
+   */
+  protected open fun sizeOf(key: String, value: T): Int {
+    return 1
+  }
+
+  /**
+   * Evicts the values that have expired and, in case the [evictionPolicy] is exceeded afterwards,
+   * those that have been read the least recently until it is respected, in batches; then, returns
+   * the freed pages of the [CacheDatabase] to the file system. Tombstones that have not been live
+   * for longer than [maxTimeToTombstone] are also forgotten.
+   *
+   * @return [Sweep] describing what has been evicted and reclaimed.
+   */
+  suspend fun sweep(): Sweep {
+    return sweepMutex.withLock {
+      flushIdleAccesses()
+      tombstones.prune(elapsedTime)
+      val expired = evictExpired()
+      val overflow = evictOverflow()
+      val reclaimedByteCount =
+        expired.sumOf(Access::byteCount) + overflow.sumOf(Access::byteCount)
+      val sweep = Sweep(expired.size, overflow.size, reclaimedByteCount, vacuum())
+      statisticsFlow.update {
+        it.copy(
+          evictionCount = it.evictionCount + sweep.evictionCount,
+          reclaimedByteCount = it.reclaimedByteCount + sweep.reclaimedByteCount,
+          vacuumedByteCount = it.vacuumedByteCount + sweep.vacuumedByteCount
+        )
+      }
+      sweep
+    }
+  }
+
+  /**
+   * Measures the size of the [value] in bytes for the [evictionPolicy] to be applied. Returns 0 by
+   * default, making only [EvictionPolicy.maxEntryCount] effective.
+   *
+   * @param key Unique identifier of the [value].
+   * @param value Value whose size will be measured.
+   */
+  protected open fun byteCountOf(key: String, value: T): Long {
+    return 0
   }
 
   /** Removes all [Access]es and stored values and closes the [database]. */
   internal suspend fun terminate() {
+    sweepingScope.cancel()
+    flushIdleAccesses()
+    memoryTier.clear()
+    tombstones.clear()
     storage.clear()
     database.clearAllTables()
     database.close()
   }
 
   /**
-   * Returns whether the value associated to the given [key] is idle.
+   * Obtains the [MemoryTier.Entry] associated to the [key] from the [memoryTier] in case it is held
+   * there and its value is either idle or alive, marking it as idle.
    *
-   * @param key Unique identifier of the value.
-   * @see timeToIdle
+   * @param key Unique identifier of the value to be obtained.
+   * @return The [MemoryTier.Entry] held in memory or `null` if there is not an active one.
    */
-  private suspend fun isIdle(key: String): Boolean {
-    return storage.contains(key) && getTimeSinceLastAccessTo(key, Access.Type.IDLE) < timeToIdle
+  private suspend fun obtainFromMemory(key: String): MemoryTier.Entry<T>? {
+    val entry = memoryTier.get(key) ?: return null
+    val now = elapsedTime
+    if (!isActive(entry.idleTime, entry.aliveTime, now)) {
+      return null
+    }
+    markAsIdle(key, entry, now)
+    statisticsFlow.update { it.copy(memoryHitCount = it.memoryHitCount.inc()) }
+    return entry
   }
 
   /**
-   * Returns whether the value associated to the given [key] is alive.
+   * Obtains the [MemoryTier.Entry] of the value associated to the [key] either from the
+   * [memoryTier] or by retrieving it from the [storage], regardless of whether it is still idle or
+   * alive.
    *
-   * @param key Unique identifier of the value.
-   * @see timeToLive
+   * @param key Unique identifier of the value to be obtained.
+   * @return The [MemoryTier.Entry] or `null` if the value has not been cached.
    */
-  private suspend fun isAlive(key: String): Boolean {
-    return storage.contains(key) && getTimeSinceLastAccessTo(key, Access.Type.ALIVE) < timeToLive
+  private suspend fun obtainCached(key: String): MemoryTier.Entry<T>? {
+    val now = elapsedTime
+    val memoryEntry = memoryTier.get(key)
+    if (memoryEntry != null) {
+      markAsIdle(key, memoryEntry, now)
+      statisticsFlow.update { it.copy(memoryHitCount = it.memoryHitCount.inc()) }
+      return memoryEntry
+    }
+    return accessDao.select(key)?.let { retrieve(it, now) }
   }
 
   /**
-   * Gets the amount of time that has passed since the value associated to the [key] was accessed.
+   * Either retrieves the value associated to the [key] from the [storage] or fetches it, depending
+   * on whether it is idle or alive according to its [Access], which is read in a single query.
    *
-   * @param key Unique identifier of the value that has been accessed.
-   * @param type [Access.Type] that indicates how the value was accessed.
+   * @param key Unique identifier of the value to be obtained.
    */
-  private suspend fun getTimeSinceLastAccessTo(key: String, type: Access.Type): Duration {
-    return elapsedTime - accessDao.select(key, type).time.milliseconds
+  private suspend fun obtainFromDatabase(key: String): T {
+    val now = elapsedTime
+    val access = accessDao.select(key)
+    return if (access != null && isActive(access, now)) {
+      retrieve(access, now).value
+    } else {
+      remember(key)
+    }
   }
 
   /**
-   * Marks the value to which the [key] is associated as idle and gets its previously stored value.
+   * Persists the idle accesses to values that have not yet been written to the [database] in a
+   * single batch.
+   */
+  private suspend fun flushIdleAccesses() {
+    if (memoryTier.pendingIdleAccessCount == 0) {
+      return
+    }
+    val idleTimes =
+      memoryTier.drainPendingIdleAccesses().map { (key, time) ->
+        Access.IdleTime(key, time.inWholeMilliseconds)
+      }
+    accessDao.updateIdleTimes(idleTimes)
+  }
+
+  /**
+   * Retrieves the previously stored value to which the [access] refers and marks it as idle.
    *
-   * @param key Unique identifier of the value to be retrieved.
+   * @param access [Access] of the value to be retrieved.
+   * @param now Time that had been elapsed when the value was requested.
+   * @return [MemoryTier.Entry] in which the retrieved value is held.
    */
-  private suspend fun retrieve(key: String): T {
-    markAsIdle(key)
-    return storage.get(key)
+  private suspend fun retrieve(access: Access, now: Duration): MemoryTier.Entry<T> {
+    val value = storage.get(access.key)
+    val entry = memoryTier.put(access.key, value, access.aliveTime.milliseconds, idleTime = now)
+    markAsIdle(access.key, entry, now)
+    statisticsFlow.update { it.copy(storageHitCount = it.storageHitCount.inc()) }
+    return entry
   }
 
   /**
@@ -141,40 +512,311 @@ abstract class Cache<T> internal constructor(context: Context, name: String) {
    *
    * @param key Unique identifier of the value to be fetched and stored.
    * @return Value that's been fetched/stored.
-   * @see markAsIdle
-   * @see markAsAlive
+   * @throws Exception If the value has failed to be fetched, either now or previously (in which
+   *   case its [Tombstones.Tombstone] is still live).
    */
   private suspend fun remember(key: String): T {
-    val value = fetcher.fetch(key)
+    val value = fetchOrBury(key)
     storage.store(key, value)
-    markAsAlive(key)
-    markAsIdle(key)
+    val time = elapsedTime
+    val accessTime = time.inWholeMilliseconds
+    accessDao.insert(Access(key, accessTime, accessTime, byteCountOf(key, value)))
+    startSweeper()
+    memoryTier.put(key, value, aliveTime = time, idleTime = time)
+    statisticsFlow.update { it.copy(missCount = it.missCount.inc()) }
     return value
   }
 
   /**
-   * Adds an alive access keyed as [key], bound to the current [elapsedTime].
+   * Retrieves the previously stored values to which the [accesses] refer in a single operation and
+   * marks them as idle.
    *
-   * @param key Unique identifier of the value to be marked as idle.
-   * @see timeToLive
+   * @param accesses [Access]es of the values to be retrieved.
+   * @param now Time that had been elapsed when the values were requested.
+   */
+  private suspend fun retrieveAll(accesses: List<Access>, now: Duration): Map<String, T> {
+    if (accesses.isEmpty()) {
+      return emptyMap()
+    }
+    val values = storage.getAll(accesses.map(Access::key))
+    for (access in accesses) {
+      val entry =
+        memoryTier.put(access.key, values.getValue(access.key), access.aliveTime.milliseconds, now)
+      markAsIdle(access.key, entry, now)
+    }
+    statisticsFlow.update { it.copy(storageHitCount = it.storageHitCount + accesses.size) }
+    return values
+  }
+
+  /**
+   * Fetches the values associated to the given [keys] all at once and stores them in a single
+   * operation, marking them as both idle and alive.
+   *
+   * @param keys Unique identifiers of the values to be fetched and stored.
+   * @return Values that have been fetched/stored.
+   */
+  private suspend fun rememberAll(keys: List<String>): Map<String, T> {
+    if (keys.isEmpty()) {
+      return emptyMap()
+    }
+    val values = fetchAllOrBury(keys)
+    if (values.isEmpty()) {
+      return emptyMap()
+    }
+    storage.storeAll(values)
+    val time = elapsedTime
+    val accessTime = time.inWholeMilliseconds
+    accessDao.insertAll(
+      values.map { (key, value) -> Access(key, accessTime, accessTime, byteCountOf(key, value)) }
+    )
+    startSweeper()
+    for ((key, value) in values) {
+      memoryTier.put(key, value, aliveTime = time, idleTime = time)
+    }
+    statisticsFlow.update { it.copy(missCount = it.missCount + values.size) }
+    return values
+  }
+
+  /**
+   * Fetches the value associated to the given [key] unless it has a live [Tombstones.Tombstone],
+   * in which case the [Exception] with which it failed last is rethrown. Failures are recorded as
+   * [Tombstones.Tombstone]s, and successes reset their backoff.
+   *
+   * @param key Unique identifier of the value to be fetched.
+   * @throws Exception If the value fails to be fetched or has a live [Tombstones.Tombstone].
+   */
+  private suspend fun fetchOrBury(key: String): T {
+    tombstones.getLive(key, elapsedTime)?.let { tombstone ->
+      statisticsFlow.update { it.copy(tombstoneHitCount = it.tombstoneHitCount.inc()) }
+      throw tombstone.exception
+    }
+    return try {
+      fetcher.fetch(key).also { tombstones.remove(key) }
+    } catch (exception: CancellationException) {
+      throw exception
+    } catch (exception: Exception) {
+      bury(key, exception)
+      throw exception
+    }
+  }
+
+  /**
+   * Fetches the values associated to the given [keys] that do not have a live
+   * [Tombstones.Tombstone] all at once. Keys whose values are not fetched are recorded as
+   * [Tombstones.Tombstone]s, as are all of them in case the fetch fails entirely.
+   *
+   * @param keys Unique identifiers of the values to be fetched.
+   * @return Values that have been fetched associated to their keys.
+   * @throws Exception If fetching the values fails entirely.
+   */
+  private suspend fun fetchAllOrBury(keys: List<String>): Map<String, T> {
+    val now = elapsedTime
+    val (buriedKeys, fetchableKeys) = keys.partition { tombstones.getLive(it, now) != null }
+    if (buriedKeys.isNotEmpty()) {
+      statisticsFlow.update { it.copy(tombstoneHitCount = it.tombstoneHitCount + buriedKeys.size) }
+    }
+    if (fetchableKeys.isEmpty()) {
+      return emptyMap()
+    }
+    val values =
+      try {
+        fetcher.fetchAll(fetchableKeys)
+      } catch (exception: CancellationException) {
+        throw exception
+      } catch (exception: Exception) {
+        for (key in fetchableKeys) {
+          bury(key, exception)
+        }
+        throw exception
+      }
+    for (key in fetchableKeys) {
+      if (key in values) {
+        tombstones.remove(key)
+      } else {
+        bury(key, NoSuchElementException("No value associated to \"$key\" has been fetched."))
+      }
+    }
+    return values
+  }
+
+  /**
+   * Records a failure to fetch the value associated to the [key] as a [Tombstones.Tombstone].
+   *
+   * @param key Unique identifier of the value that failed to be fetched.
+   * @param exception [Exception] with which fetching the value has failed.
    */
-  private suspend fun markAsAlive(key: String) {
-    val access = Access(key, Access.Type.ALIVE, elapsedTime.inWholeMilliseconds)
-    accessDao.insert(access)
+  private fun bury(key: String, exception: Exception) {
+    tombstones.bury(key, exception, elapsedTime)
+    statisticsFlow.update { it.copy(tombstoneCount = it.tombstoneCount.inc()) }
   }
 
   /**
-   * Adds an idle access keyed as [key], bound to the current [elapsedTime].
+   * Marks the value held in the [entry] as idle, scheduling the persistence of such idle access and
+   * persisting all pending ones in case the [idleAccessFlushThreshold] has been reached.
    *
    * @param key Unique identifier of the value to be marked as idle.
+   * @param entry [MemoryTier.Entry] in which the value is held.
+   * @param time Time that had been elapsed when the value was accessed.
    * @see timeToIdle
    */
-  private suspend fun markAsIdle(key: String) {
-    val access = Access(key, Access.Type.IDLE, elapsedTime.inWholeMilliseconds)
-    accessDao.insert(access)
+  private suspend fun markAsIdle(key: String, entry: MemoryTier.Entry<T>, time: Duration) {
+    memoryTier.markAsIdle(key, entry, time)
+    if (memoryTier.pendingIdleAccessCount >= idleAccessFlushThreshold) {
+      flushIdleAccesses()
+    }
+  }
+
+  /** Launches the [sweeper] in case it has not yet been launched and is not disabled. */
+  private fun startSweeper() {
+    if (sweepInterval.isFinite()) {
+      sweeper.start()
+    }
+  }
+
+  /**
+   * Evicts the values that are neither idle nor alive anymore.
+   *
+   * @return [Access]es of the evicted values.
+   */
+  private suspend fun evictExpired(): List<Access> {
+    val now = elapsedTime
+    val idleTime = (now - timeToIdle).inWholeMilliseconds
+    val aliveTime = (now - timeToLive).inWholeMilliseconds
+    val evicted = ArrayList<Access>()
+    do {
+      val batch = accessDao.selectExpired(idleTime, aliveTime, limit = SWEEP_BATCH_SIZE)
+      evict(batch)
+      evicted += batch
+    } while (batch.size == SWEEP_BATCH_SIZE)
+    return evicted
+  }
+
+  /**
+   * Evicts the values that have been read the least recently until the [evictionPolicy] is
+   * respected.
+   *
+   * @return [Access]es of the evicted values.
+   */
+  private suspend fun evictOverflow(): List<Access> {
+    var entryCount = accessDao.count()
+    var byteCount = accessDao.sumByteCount()
+    val evicted = ArrayList<Access>()
+    while (evictionPolicy.isExceededBy(entryCount, byteCount)) {
+      val batch = ArrayList<Access>(SWEEP_BATCH_SIZE)
+      for (access in accessDao.selectLeastRecentlyIdle(limit = SWEEP_BATCH_SIZE)) {
+        if (!evictionPolicy.isExceededBy(entryCount, byteCount)) {
+          break
+        }
+        batch += access
+        entryCount--
+        byteCount -= access.byteCount
+      }
+      if (batch.isEmpty()) {
+        break
+      }
+      evict(batch)
+      evicted += batch
+    }
+    return evicted
+  }
+
+  /**
+   * Removes the values to which the [accesses] refer from memory, from the [storage] and from the
+   * [CacheDatabase]. [Access]es are deleted first and in a single transaction, so that a value is
+   * never deemed stored after it has been removed.
+   *
+   * @param accesses [Access]es of the values to be evicted.
+   */
+  private suspend fun evict(accesses: List<Access>) {
+    if (accesses.isEmpty()) {
+      return
+    }
+    val keys = accesses.map(Access::key)
+    database.withTransaction { accessDao.deleteAll(keys) }
+    for (key in keys) {
+      memoryTier.remove(key)
+    }
+    storage.removeAll(keys)
+  }
+
+  /**
+   * Returns the free pages of the [CacheDatabase] to the file system through SQLite's incremental
+   * vacuum.
+   *
+   * @return Amount of bytes by which the file has shrunk.
+   */
+  private suspend fun vacuum(): Long {
+    return withContext(Dispatchers.IO) {
+      val writableDatabase = database.openHelper.writableDatabase
+      val pageSize = writableDatabase.queryLong("PRAGMA page_size")
+      val previousFreePageCount = writableDatabase.queryLong("PRAGMA freelist_count")
+      writableDatabase.query("PRAGMA incremental_vacuum").use { cursor ->
+        @Suppress("ControlFlowWithEmptyBody") while (cursor.moveToNext()) {}
+      }
+      (previousFreePageCount - writableDatabase.queryLong("PRAGMA freelist_count")) * pageSize
+    }
+  }
+
+  /**
+   * Performs the [query] and returns the [Long] in the first column of its first row, or 0 if it
+   * yields no rows.
+   *
+   * @param query SQL query to be performed.
+   */
+  private fun SupportSQLiteDatabase.queryLong(query: String): Long {
+    return query(query).use { if (it.moveToFirst()) it.getLong(0) else 0 }
+  }
+
+  /**
+   * Returns whether the value to which the [access] refers is either idle or alive. Considers idle
+   * accesses that have not yet been persisted.
+   *
+   * @param access [Access] of the value.
+   * @param now Time that has been elapsed.
+   */
+  private fun isActive(access: Access, now: Duration): Boolean {
+    val persistedIdleTime = access.idleTime.milliseconds
+    val pendingIdleTime = memoryTier.getPendingIdleTime(access.key)
+    val idleTime =
+      if (pendingIdleTime == null) persistedIdleTime else maxOf(persistedIdleTime, pendingIdleTime)
+    return isActive(idleTime, access.aliveTime.milliseconds, now)
+  }
+
+  /**
+   * Returns whether a value is either idle or alive.
+   *
+   * @param idleTime Time that had been elapsed when the value was last read or written.
+   * @param aliveTime Time that had been elapsed when the value was last written.
+   * @param now Time that has been elapsed.
+   * @see timeToIdle
+   * @see timeToLive
+   */
+  private fun isActive(idleTime: Duration, aliveTime: Duration, now: Duration): Boolean {
+    return now - idleTime < timeToIdle || now - aliveTime < timeToLive
   }
 
   companion object {
+    /** Default maximum amount of values held in memory by a [Cache]. */
+    const val DEFAULT_MEMORY_CAPACITY = 128
+
+    /**
+     * Default amount of pending idle accesses to values held in memory after which they are
+     * persisted.
+     */
+    internal const val DEFAULT_IDLE_ACCESS_FLUSH_THRESHOLD = 32
+
+    /** Default interval between the sweeps performed in the background by a [Cache]. */
+    val DEFAULT_SWEEP_INTERVAL = 1.hours
+
+    /** Maximum amount of values evicted in a single transaction during a sweep. */
+    private const val SWEEP_BATCH_SIZE = 256
+
+    /**
+     * Maximum amount of keys bound to a single query, kept below SQLite's default limit of host
+     * parameters.
+     */
+    private const val MAX_KEYS_PER_QUERY = 512
+
     /**
      * Creates a [Cache].
      *
@@ -184,11 +826,22 @@ abstract class Cache<T> internal constructor(context: Context, name: String) {
      * @param fetcher [Fetcher] through which values will be obtained from their source (normally
      *   the network).
      * @param storage [Storage] for fetched values to be stored in and retrieved from.
+     * @param memoryCapacity Maximum amount of values to be held in memory at once.
+     * @param evictionPolicy [EvictionPolicy] by which the amount of stored values is bounded.
      */
-    fun <T> of(context: Context, name: String, fetcher: Fetcher<T>, storage: Storage<T>): Cache<T> {
+    fun <T> of(
+      context: Context,
+      name: String,
+      fetcher: Fetcher<T>,
+      storage: Storage<T>,
+      memoryCapacity: Int = DEFAULT_MEMORY_CAPACITY,
+      evictionPolicy: EvictionPolicy = EvictionPolicy.unbounded
+    ): Cache<T> {
       return object : Cache<T>(context, name) {
         override val fetcher = fetcher
         override val storage = storage
+        override val memoryCapacity = memoryCapacity
+        override val evictionPolicy = evictionPolicy
       }
     }
   }
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.platform.cache
+
+/**
+ * Bounds on how much a [Cache] is allowed to keep stored. Whenever any of them is exceeded, the
+ * values that have been read the least recently are evicted by the [Cache]'s sweeper until all of
+ * them are respected again.
+ *
+ * @property maxEntryCount Maximum amount of values that can be stored at once.
+ * @property maxByteCount Maximum sum of the sizes of the stored values, in bytes, as measured by
+ *   [Cache.byteCountOf].
+ * @throws IllegalArgumentException If either bound is negative.
+ */
+data class EvictionPolicy(
+  val maxEntryCount: Int = Int.MAX_VALUE,
+  val maxByteCount: Long = Long.MAX_VALUE
+) {
+  init {
+    require(maxEntryCount >= 0) { "Maximum entry count cannot be negative ($maxEntryCount)." }
+    require(maxByteCount >= 0) { "Maximum byte count cannot be negative ($maxByteCount)." }
+  }
+
+  /**
+   * Returns whether a [Cache] whose stored values amount to the given counts exceeds any of the
+   * bounds of this [EvictionPolicy].
+   *
+   * @param entryCount Amount of values that are stored.
+   * @param byteCount Sum of the sizes of the stored values, in bytes.
+   */
+  internal fun isExceededBy(entryCount: Int, byteCount: Long): Boolean {
+    return entryCount > maxEntryCount || byteCount > maxByteCount
+  }
+
+  companion object {
+    /** [EvictionPolicy] by which values are only evicted once they expire. */
+    val unbounded = EvictionPolicy()
+  }
+}
@@ -15,7 +15,10 @@
 
 package br.com.orcinus.orca.platform.cache
 
-/** Fetches values from an external source (normally the network) through [onFetch]. */
+/**
+ * Fetches values from an external source (normally the network) through [onFetch] or, for multiple
+ * ones at once, [onFetchAll].
+ */
 abstract class Fetcher<T> {
   /**
    * Fetches a value associated to the given [key].
@@ -27,10 +30,35 @@ abstract class Fetcher<T> {
     return onFetch(key)
   }
 
+  /**
+   * Fetches the values associated to the given [keys].
+   *
+   * @param keys Unique identifiers of the values to be fetched.
+   * @return Fetched values associated to their respective keys.
+   */
+  @JvmName("fetchAll")
+  internal suspend fun fetchAll(keys: List<String>): Map<String, T> {
+    return if (keys.isEmpty()) emptyMap() else onFetchAll(keys)
+  }
+
   /**
    * Fetches a value associated to the given [key].
    *
    * @param key Unique identifier of the value to be fetched.
    */
   protected abstract suspend fun onFetch(key: String): T
+
+  /**
+   * Fetches the values associated to the given [keys]. By default, fetches each of them
+   * individually through [onFetch]; should be overridden when the source allows for multiple values
+   * to be obtained at once.
+   *
+   * Keys whose values could not be found may be absent from the returned [Map].
+   *
+   * @param keys Unique identifiers of the values to be fetched.
+   * @return Fetched values associated to their respective keys.
+   */
+  protected open suspend fun onFetchAll(keys: List<String>): Map<String, T> {
+    return keys.associateWith { onFetch(it) }
+  }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.platform.cache
+
+import android.util.LruCache
+import java.util.concurrent.ConcurrentHashMap
+import kotlin.time.Duration
+
+/**
+ * Bounded, least-recently-used tier in which values are kept in memory, allowing for those that
+ * have been recently accessed to be obtained without any I/O being performed.
+ *
+ * Idle accesses registered while a value is in memory are not persisted immediately; rather, they
+ * are held as pending until [drainPendingIdleAccesses] is called, which allows for them to be
+ * written in a single batch.
+ *
+ * @param T Value to be held.
+ * @param capacity Maximum size of this [MemoryTier], measured in the unit returned by [sizeOf].
+ * @param sizeOf Measures the size of a value associated to the given key.
+ * @throws IllegalArgumentException If the [capacity] is not positive.
+ */
+internal class MemoryTier<T>(capacity: Int, private val sizeOf: (key: String, value: T) -> Int) {
+  /** Times at which values have been idly accessed and that have not yet been persisted. */
+  private val pendingIdleAccesses = ConcurrentHashMap<String, Duration>()
+
+  /** [LruCache] by which the [Entry]s are held. */
+  private val entries =
+    object : LruCache<String, Entry<T>>(capacity) {
+      override fun sizeOf(key: String, value: Entry<T>): Int {
+        return this@MemoryTier.sizeOf(key, value.value)
+      }
+    }
+
+  /** Amount of idle accesses that are yet to be persisted. */
+  val pendingIdleAccessCount
+    get() = pendingIdleAccesses.size
+
+  /**
+   * Value held in memory alongside the times at which it was last accessed.
+   *
+   * @property value Value that has been either fetched or retrieved from the storage.
+   * @property aliveTime Time that had been elapsed when the value was last written.
+   * @property idleTime Time that had been elapsed when the value was last read or written.
+   */
+  class Entry<T>(val value: T, val aliveTime: Duration, idleTime: Duration) {
+    /** Time that had been elapsed when the value was last read or written. */
+    @Volatile
+    var idleTime = idleTime
+      internal set
+  }
+
+  /**
+   * Gets the [Entry] associated to the given [key], if it is being held.
+   *
+   * @param key Unique identifier of the value.
+   */
+  fun get(key: String): Entry<T>? {
+    return entries.get(key)
+  }
+
+  /**
+   * Holds the [value], associating it to the [key].
+   *
+   * @param key Unique identifier of the [value].
+   * @param value Value to be held.
+   * @param aliveTime Time that had been elapsed when the [value] was last written.
+   * @param idleTime Time that had been elapsed when the [value] was last read or written.
+   * @return [Entry] in which the [value] is held.
+   */
+  fun put(key: String, value: T, aliveTime: Duration, idleTime: Duration): Entry<T> {
+    return Entry(value, aliveTime, idleTime).also { entries.put(key, it) }
+  }
+
+  /**
+   * Gets the time at which the value associated to the [key] has been idly accessed, in case such
+   * access has not yet been persisted.
+   *
+   * @param key Unique identifier of the value.
+   */
+  fun getPendingIdleTime(key: String): Duration? {
+    return pendingIdleAccesses[key]
+  }
+
+  /**
+   * Updates the idle time of the [Entry] associated to the [key] and schedules its persistence.
+   *
+   * @param key Unique identifier of the value that has been read.
+   * @param entry [Entry] that has been read.
+   * @param time Time that had been elapsed when the value was read.
+   * @see drainPendingIdleAccesses
+   */
+  fun markAsIdle(key: String, entry: Entry<T>, time: Duration) {
+    entry.idleTime = time
+    pendingIdleAccesses[key] = time
+  }
+
+  /** Removes and returns the idle accesses that have been registered but not yet persisted. */
+  fun drainPendingIdleAccesses(): Map<String, Duration> {
+    val drained = HashMap<String, Duration>(pendingIdleAccesses.size)
+    for (key in pendingIdleAccesses.keys) {
+      pendingIdleAccesses.remove(key)?.let { drained[key] = it }
+    }
+    return drained
+  }
+
+  /**
+   * Stops holding the value associated to the [key].
+   *
+   * @param key Unique identifier of the value to be removed.
+   */
+  fun remove(key: String) {
+    entries.remove(key)
+    pendingIdleAccesses.remove(key)
+  }
+
+  /** Stops holding all values and discards pending idle accesses. */
+  fun clear() {
+    entries.evictAll()
+    pendingIdleAccesses.clear()
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.platform.cache
+
+import java.util.concurrent.ConcurrentHashMap
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
+
+/**
+ * Deduplicates concurrent operations that are keyed equally, making it so that only one of them is
+ * actually performed at a time for a given key while the others wait for (and share) its result.
+ *
+ * Whichever caller is the first to request the operation for a key to be run becomes its leader and
+ * runs it in its own coroutine; callers that request it while it is still ongoing suspend until it
+ * completes, and then obtain either the same value or the same [Throwable] with which it has
+ * failed. In case the leader gets cancelled, however, waiters do not fail: one of them becomes the
+ * new leader and runs the operation again.
+ *
+ * @param T Result of an operation.
+ */
+internal class SingleFlight<T> {
+  /** Ongoing operations associated to their keys. */
+  private val flights = ConcurrentHashMap<String, CompletableDeferred<T>>()
+
+  /**
+   * Runs the [operation] if there isn't one already ongoing for the given [key]; otherwise, waits
+   * for the current one to finish and returns its result.
+   *
+   * @param key Unique identifier of the operation.
+   * @param operation Operation to be run in case this call is the leader for the [key].
+   */
+  suspend fun run(key: String, operation: suspend () -> T): T {
+    while (true) {
+      val flight = CompletableDeferred<T>()
+      val ongoingFlight = flights.putIfAbsent(key, flight)
+      if (ongoingFlight != null) {
+        try {
+          return ongoingFlight.await()
+        } catch (exception: CancellationException) {
+          currentCoroutineContext().ensureActive()
+          continue
+        }
+      }
+      try {
+        return operation().also(flight::complete)
+      } catch (throwable: Throwable) {
+        flight.completeExceptionally(throwable)
+        throw throwable
+      } finally {
+        flights.remove(key, flight)
+      }
+    }
+  }
+}
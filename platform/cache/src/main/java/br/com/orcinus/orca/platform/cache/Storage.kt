@@ -28,6 +28,18 @@ abstract class Storage<T> {
     onStore(key, value)
   }
 
+  /**
+   * Stores each of the [values], associating them to their respective keys.
+   *
+   * @param values Values to be stored associated to their unique identifiers.
+   */
+  @JvmName("storeAll")
+  internal suspend fun storeAll(values: Map<String, T>) {
+    if (values.isNotEmpty()) {
+      onStoreAll(values)
+    }
+  }
+
   /**
    * Returns whether a value associated to the [key] has been stored.
    *
@@ -47,6 +59,16 @@ abstract class Storage<T> {
     return onGet(key)
   }
 
+  /**
+   * Gets the values that have been stored and are associated to the given [keys].
+   *
+   * @param keys Unique identifiers of the values to be obtained.
+   */
+  @JvmName("getAll")
+  internal suspend fun getAll(keys: List<String>): Map<String, T> {
+    return if (keys.isEmpty()) emptyMap() else onGetAll(keys)
+  }
+
   /**
    * Removes the value that has been stored and is associated to the given [key].
    *
@@ -56,11 +78,36 @@ abstract class Storage<T> {
     onRemove(key)
   }
 
+  /**
+   * Removes the values that have been stored and are associated to the given [keys].
+   *
+   * @param keys Unique identifiers of the values to be removed.
+   */
+  @JvmName("removeAll")
+  internal suspend fun removeAll(keys: List<String>) {
+    if (keys.isNotEmpty()) {
+      onRemoveAll(keys)
+    }
+  }
+
   /** Removes all stored values. */
   internal suspend fun clear() {
     onClear()
   }
 
+  /**
+   * Returns whether the [value] and the [other] one are equivalent, that is, whether they would be
+   * stored in the same way.
+   *
+   * @param key Unique identifier with which both values are associated.
+   * @param value Value to be compared to the [other] one.
+   * @param other Value to which the [value] is compared.
+   * @see onRepresent
+   */
+  internal fun areEquivalent(key: String, value: T, other: T): Boolean {
+    return onRepresent(key, value) == onRepresent(key, other)
+  }
+
   /**
    * Operation to be performed whenever the [value] is requested to be stored while associated to
    * the given [key].
@@ -70,6 +117,19 @@ abstract class Storage<T> {
    */
   protected abstract suspend fun onStore(key: String, value: T)
 
+  /**
+   * Operation to be performed whenever multiple [values] are requested to be stored at once. By
+   * default, stores each of them individually through [onStore]; should be overridden for them to
+   * be written in a single transaction.
+   *
+   * @param values Values to be stored associated to their unique identifiers.
+   */
+  protected open suspend fun onStoreAll(values: Map<String, T>) {
+    for ((key, value) in values) {
+      onStore(key, value)
+    }
+  }
+
   /**
    * Returns whether a value associated to the [key] has been stored.
    *
@@ -77,6 +137,18 @@ abstract class Storage<T> {
    */
   protected abstract suspend fun onContains(key: String): Boolean
 
+  /**
+   * Represents the [value] as it would be stored, for it to be compared to other ones structurally.
+   * By default, the [value] itself is its representation, which makes values that are equal to each
+   * other equivalent; should be overridden in case [T] does not implement structural equality.
+   *
+   * @param key Unique identifier with which the [value] is associated.
+   * @param value Value to be represented.
+   */
+  protected open fun onRepresent(key: String, value: T): Any? {
+    return value
+  }
+
   /**
    * Gets the value that has been stored and is associated to the given [key].
    *
@@ -84,6 +156,17 @@ abstract class Storage<T> {
    */
   protected abstract suspend fun onGet(key: String): T
 
+  /**
+   * Gets the values that have been stored and are associated to the given [keys]. By default,
+   * gets each of them individually through [onGet]; should be overridden for them to be read (and
+   * whatever they depend on to be resolved) all at once.
+   *
+   * @param keys Unique identifiers of the values to be obtained.
+   */
+  protected open suspend fun onGetAll(keys: List<String>): Map<String, T> {
+    return keys.associateWith { onGet(it) }
+  }
+
   /**
    * Removes the value that has been stored and is associated to the given [key].
    *
@@ -91,6 +174,19 @@ abstract class Storage<T> {
    */
   protected abstract suspend fun onRemove(key: String)
 
+  /**
+   * Operation to be performed whenever multiple values are requested to be removed at once. By
+   * default, removes each of them individually through [onRemove]; should be overridden for them
+   * to be deleted in a single transaction.
+   *
+   * @param keys Unique identifiers of the values to be removed.
+   */
+  protected open suspend fun onRemoveAll(keys: List<String>) {
+    for (key in keys) {
+      onRemove(key)
+    }
+  }
+
   /** Removes all stored values. */
   protected abstract suspend fun onClear()
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2025 Orcinus
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See
+ * the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see https://www.gnu.org/licenses.
+ */
+
+package br.com.orcinus.orca.platform.cache
+
+import java.util.concurrent.ConcurrentHashMap
+import kotlin.time.Duration
+
+/**
+ * Records failures to fetch values as [Tombstone]s, which prevent them from being fetched again
+ * while they are live. Consecutive failures for the same key back off exponentially: the time
+ * during which a [Tombstone] is live doubles at each one, starting at [baseTimeToLive] and up to
+ * [maxTimeToLive].
+ *
+ * @param baseTimeToLive Time during which the [Tombstone] of a key that failed once is live.
+ * @param maxTimeToLive Maximum time during which a [Tombstone] can be live.
+ */
+internal class Tombstones(
+  private val baseTimeToLive: Duration,
+  private val maxTimeToLive: Duration
+) {
+  /** [Tombstone]s associated to the keys of the values that failed to be fetched. */
+  private val tombstones = ConcurrentHashMap<String, Tombstone>()
+
+  /**
+   * Record of a failure to fetch a value.
+   *
+   * @property exception [Exception] with which fetching the value has failed.
+   * @property failureCount Amount of consecutive times fetching the value has failed.
+   * @property expirationTime Time after which fetching the value can be reattempted.
+   */
+  class Tombstone(val exception: Exception, val failureCount: Int, val expirationTime: Duration)
+
+  /**
+   * Gets the [Tombstone] associated to the [key] in case it is still live.
+   *
+   * @param key Unique identifier of the value.
+   * @param now Time that has been elapsed.
+   */
+  fun getLive(key: String, now: Duration): Tombstone? {
+    return tombstones[key]?.takeIf { now < it.expirationTime }
+  }
+
+  /**
+   * Records a failure to fetch the value associated to the [key], backing off exponentially in
+   * case it has failed before.
+   *
+   * @param key Unique identifier of the value that failed to be fetched.
+   * @param exception [Exception] with which fetching the value has failed.
+   * @param now Time that had been elapsed when fetching the value failed.
+   * @return The recorded [Tombstone].
+   */
+  fun bury(key: String, exception: Exception, now: Duration): Tombstone {
+    return tombstones.compute(key) { _, previous ->
+      val failureCount = previous?.failureCount?.inc() ?: 1
+      val multiplier = 1 shl (failureCount - 1).coerceAtMost(MAX_BACKOFF_EXPONENT)
+      val timeToLive = (baseTimeToLive * multiplier).coerceAtMost(maxTimeToLive)
+      Tombstone(exception, failureCount, expirationTime = now + timeToLive)
+    }!!
+  }
+
+  /**
+   * Removes the [Tombstone] of the value associated to the [key], resetting its backoff. Should
+   * be called once such value is fetched successfully.
+   *
+   * @param key Unique identifier of the value.
+   */
+  fun remove(key: String) {
+    tombstones.remove(key)
+  }
+
+  /**
+   * Removes the [Tombstone]s that have not been live for longer than the [maxTimeToLive], whose
+   * failures are then considered to be forgotten.
+   *
+   * @param now Time that has been elapsed.
+   * @return Amount of [Tombstone]s that have been removed.
+   */
+  fun prune(now: Duration): Int {
+    var prunedCount = 0
+    for ((key, tombstone) in tombstones) {
+      if (now - tombstone.expirationTime >= maxTimeToLive && tombstones.remove(key, tombstone)) {
+        prunedCount++
+      }
+    }
+    return prunedCount
+  }
+
+  /** Removes all [Tombstone]s. */
+  fun clear() {
+    tombstones.clear()
+  }
+
+  companion object {
+    /** Maximum exponent of the backoff, which prevents the multiplier from overflowing. */
+    private const val MAX_BACKOFF_EXPONENT = 30
+  }
+}
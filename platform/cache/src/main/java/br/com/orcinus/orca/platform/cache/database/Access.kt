@@ -15,31 +15,33 @@
 
 package br.com.orcinus.orca.platform.cache.database
 
-import androidx.annotation.Discouraged
+import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
+import br.com.orcinus.orca.platform.cache.Cache
 
 /**
- * Holds the [key] to which a value has been associated and the moment in which it was last
- * accessed.
+ * Holds the [key] to which a value has been associated and the moments in which it was last read
+ * and written, allowing for whether it is either idle or alive to be determined by a single query.
  *
- * @param key Unique identifier of the stored value.
- * @param type [Type] that indicates how the value was accessed.
- * @param time Time that's been elapsed when the access occurred.
+ * @property key Unique identifier of the stored value.
+ * @property idleTime Time that had been elapsed when the value was last read or written.
+ * @property aliveTime Time that had been elapsed when the value was last written.
+ * @property byteCount Size of the stored value, in bytes, as measured by the [Cache].
  */
-@Entity(tableName = "accesses")
-internal data class Access(val key: String, val type: Type, val time: Long) {
-  /** Unique identifier composed by the [key] and the [type]. */
-  @PrimaryKey
-  var id = "$type:$key"
-    @Discouraged(message = "ID should not be changed manually.") set
-
-  /** Indicates how a value was accessed. */
-  enum class Type {
-    /** Indicates that a value was written and read. */
-    IDLE,
-
-    /** Indicates that a value was written (created or updated). */
-    ALIVE
-  }
+@Entity(tableName = "accesses", indices = [Index("idle_time")])
+internal data class Access(
+  @PrimaryKey val key: String,
+  @ColumnInfo(name = "idle_time") val idleTime: Long,
+  @ColumnInfo(name = "alive_time") val aliveTime: Long,
+  @ColumnInfo(name = "byte_count", defaultValue = "0") val byteCount: Long = 0
+) {
+  /**
+   * Partial [Access] by which only the time at which a value was last read is updated.
+   *
+   * @property key Unique identifier of the stored value.
+   * @property idleTime Time that had been elapsed when the value was last read.
+   */
+  data class IdleTime(val key: String, @ColumnInfo(name = "idle_time") val idleTime: Long)
 }
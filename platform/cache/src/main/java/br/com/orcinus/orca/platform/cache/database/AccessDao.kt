@@ -19,18 +19,52 @@ import androidx.room.Dao
 import androidx.room.Insert
 import androidx.room.OnConflictStrategy
 import androidx.room.Query
+import androidx.room.Update
 
 /** Data access object for reading and writing [Access]es. */
 @Dao
 internal interface AccessDao {
   /**
-   * Selects the [Access] that matches the given [key] and [type].
+   * Selects the [Access] of the value to which the [key] is associated.
    *
    * @param key Unique identifier to which the stored value is associated.
-   * @param type [Access.Type] of the [Access] to be selected.
+   * @return The [Access], or `null` if no value has been stored under the [key].
    */
-  @Query("SELECT * FROM accesses WHERE `key` = :key AND type = :type")
-  suspend fun select(key: String, type: Access.Type): Access
+  @Query("SELECT * FROM accesses WHERE `key` = :key") suspend fun select(key: String): Access?
+
+  /**
+   * Selects the [Access]es of the values to which the [keys] are associated.
+   *
+   * @param keys Unique identifiers to which the stored values are associated.
+   */
+  @Query("SELECT * FROM accesses WHERE `key` IN (:keys)")
+  suspend fun selectAll(keys: List<String>): List<Access>
+
+  /**
+   * Selects [Access]es of values that are neither idle nor alive anymore.
+   *
+   * @param idleTime Time before which (inclusively) the values must have been last read.
+   * @param aliveTime Time before which (inclusively) the values must have been last written.
+   * @param limit Maximum amount of [Access]es to be selected.
+   */
+  @Query(
+    "SELECT * FROM accesses WHERE idle_time <= :idleTime AND alive_time <= :aliveTime LIMIT :limit"
+  )
+  suspend fun selectExpired(idleTime: Long, aliveTime: Long, limit: Int): List<Access>
+
+  /**
+   * Selects the [Access]es of the values that have been read the least recently.
+   *
+   * @param limit Maximum amount of [Access]es to be selected.
+   */
+  @Query("SELECT * FROM accesses ORDER BY idle_time ASC LIMIT :limit")
+  suspend fun selectLeastRecentlyIdle(limit: Int): List<Access>
+
+  /** Counts all of the [Access]es, which is the amount of values that are stored. */
+  @Query("SELECT COUNT(*) FROM accesses") suspend fun count(): Int
+
+  /** Sums the sizes, in bytes, of all of the stored values. */
+  @Query("SELECT COALESCE(SUM(byte_count), 0) FROM accesses") suspend fun sumByteCount(): Long
 
   /**
    * Inserts the [access].
@@ -38,4 +72,26 @@ internal interface AccessDao {
    * @param access [Access] to be inserted.
    */
   @Insert(onConflict = OnConflictStrategy.REPLACE) suspend fun insert(access: Access)
+
+  /**
+   * Inserts all of the [accesses] in a single transaction.
+   *
+   * @param accesses [Access]es to be inserted.
+   */
+  @Insert(onConflict = OnConflictStrategy.REPLACE) suspend fun insertAll(accesses: List<Access>)
+
+  /**
+   * Updates the times at which the values have been last read in a single transaction, leaving
+   * those at which they have been written untouched.
+   *
+   * @param idleTimes [Access.IdleTime]s to be written.
+   */
+  @Update(entity = Access::class) suspend fun updateIdleTimes(idleTimes: List<Access.IdleTime>)
+
+  /**
+   * Deletes the [Access]es of the values to which the [keys] are associated.
+   *
+   * @param keys Unique identifiers to which the stored values are associated.
+   */
+  @Query("DELETE FROM accesses WHERE `key` IN (:keys)") suspend fun deleteAll(keys: List<String>)
 }
@@ -19,10 +19,11 @@ import android.content.Context
 import androidx.room.Database
 import androidx.room.Room
 import androidx.room.RoomDatabase
+import androidx.sqlite.db.SupportSQLiteDatabase
 import br.com.orcinus.orca.platform.cache.Cache
 
 /** [RoomDatabase] from which [Cache]-related entities are read and written to. */
-@Database(entities = [Access::class], version = 1)
+@Database(entities = [Access::class], version = 3)
 internal abstract class CacheDatabase : RoomDatabase() {
   /** [AccessDao] that performs [Access]-related operations. */
   abstract val accessDao: AccessDao
@@ -33,7 +34,28 @@ internal abstract class CacheDatabase : RoomDatabase() {
     fun provide(): CacheDatabase
   }
 
+  /**
+   * [RoomDatabase.Callback] that enables incremental vacuum on a [CacheDatabase], which allows for
+   * the pages freed by evictions to be returned to the file system without the whole file having
+   * to be rebuilt.
+   */
+  private object IncrementalVacuumEnabler : Callback() {
+    override fun onOpen(db: SupportSQLiteDatabase) {
+      val isEnabled =
+        db.query("PRAGMA auto_vacuum").use {
+          it.moveToFirst() && it.getInt(0) == AUTO_VACUUM_INCREMENTAL
+        }
+      if (!isEnabled) {
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL")
+        db.execSQL("VACUUM")
+      }
+    }
+  }
+
   companion object {
+    /** Value of SQLite's `auto_vacuum` pragma by which incremental vacuum is denoted. */
+    private const val AUTO_VACUUM_INCREMENTAL = 2
+
     /** [CacheDatabase]s associated to their respective file name. */
     private val instantiation = HashMap<String, CacheDatabase>()
 
@@ -45,7 +67,10 @@ internal abstract class CacheDatabase : RoomDatabase() {
      */
     fun of(context: Context, name: String): CacheDatabase {
       return instantiation.getOrPut(name) {
-        Room.databaseBuilder(context, CacheDatabase::class.java, name).build()
+        Room.databaseBuilder(context, CacheDatabase::class.java, name)
+          .fallbackToDestructiveMigration()
+          .addCallback(IncrementalVacuumEnabler)
+          .build()
       }
     }
   }
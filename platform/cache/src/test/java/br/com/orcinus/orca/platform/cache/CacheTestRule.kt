@@ -19,18 +19,35 @@ import androidx.room.Room
 import androidx.test.platform.app.InstrumentationRegistry
 import br.com.orcinus.orca.platform.cache.database.CacheDatabase
 import br.com.orcinus.orca.platform.cache.memory.InMemoryCache
+import java.util.Collections
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.test.TestScope
 import org.junit.rules.ExternalResource
 
 internal class CacheTestRule(private val coroutineScope: TestScope) : ExternalResource() {
   private lateinit var database: CacheDatabase
+  private val executedQueries = Collections.synchronizedList(ArrayList<String>())
 
   val cache = InMemoryCache(coroutineScope.testScheduler, ::database)
 
   override fun before() {
     val context = InstrumentationRegistry.getInstrumentation().context
-    database = Room.databaseBuilder(context, CacheDatabase::class.java, InMemoryCache.NAME).build()
+    database =
+      Room.databaseBuilder(context, CacheDatabase::class.java, InMemoryCache.NAME)
+        .setQueryCallback({ query, _ -> executedQueries.add(query) }, Runnable::run)
+        .build()
+  }
+
+  fun countExecutedAccessQueries(statement: String = ""): Int {
+    return synchronized(executedQueries) {
+      executedQueries.count {
+        it.trimStart().startsWith(statement, ignoreCase = true) && "accesses" in it
+      }
+    }
+  }
+
+  fun clearExecutedQueries() {
+    executedQueries.clear()
   }
 
   override fun after() {
@@ -22,9 +22,15 @@ import io.mockk.spyk
 import kotlin.coroutines.Continuation
 import kotlin.test.Test
 import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
 import kotlin.time.Duration.Companion.days
 import kotlin.time.Duration.Companion.hours
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.Duration.Companion.seconds
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.flow.toList
 import kotlinx.coroutines.test.TestScope
 import kotlinx.coroutines.test.UnconfinedTestDispatcher
 import kotlinx.coroutines.test.advanceTimeBy
@@ -66,6 +72,62 @@ internal class CacheTests {
     }
   }
 
+  @Test
+  fun fetchesOnceWhenValueIsObtainedConcurrently() {
+    val fetcher = spyk(InMemoryFetcher(latency = 1.seconds))
+    val storage = spyk(InMemoryStorage())
+    val cache = cacheRule.cache.storingInto(storage).fetchingWith(fetcher)
+    coroutineScope.runTest {
+      val values = List(8) { async { cache.get("0") } }.awaitAll()
+      assertEquals(List(8) { InMemoryFetcher.FETCHED.first() }, values)
+      coVerify(exactly = 1) { InMemoryFetcher::fetch.call(fetcher, "0", any<Continuation<Unit>>()) }
+      coVerify(exactly = 1) {
+        InMemoryStorage::store.call(
+          storage,
+          "0",
+          InMemoryFetcher.FETCHED.first(),
+          any<Continuation<Unit>>()
+        )
+      }
+    }
+  }
+
+  @Test
+  fun fetchesInactiveValuesInASingleBatchWhenObtainingMultipleOnes() {
+    val fetcher = spyk(InMemoryFetcher())
+    val storage = spyk(InMemoryStorage())
+    val cache = cacheRule.cache.storingInto(storage).fetchingWith(fetcher)
+    coroutineScope.runTest {
+      cache.get("0")
+      assertEquals(mapOf("0" to 'H', "1" to 'e', "2" to 'l'), cache.getAll(listOf("0", "1", "2")))
+      coVerify(exactly = 1) {
+        InMemoryFetcher::fetchAll.call(fetcher, listOf("1", "2"), any<Continuation<Unit>>())
+      }
+      coVerify(exactly = 1) {
+        InMemoryStorage::storeAll.call(
+          storage,
+          mapOf("1" to 'e', "2" to 'l'),
+          any<Continuation<Unit>>()
+        )
+      }
+    }
+  }
+
+  @Test
+  fun retrievesActiveValuesFromStorageInASingleBatchWhenObtainingMultipleOnes() {
+    val storage = spyk(InMemoryStorage())
+    val cache = cacheRule.cache.storingInto(storage).idlingFor(1.days).holdingInMemoryAtMost(1)
+    coroutineScope.runTest {
+      cache.get("0")
+      cache.get("1")
+      cache.get("2")
+      assertEquals(mapOf("0" to 'H', "1" to 'e'), cache.getAll(listOf("0", "1")))
+      coVerify(exactly = 1) {
+        InMemoryStorage::getAll.call(storage, listOf("0", "1"), any<Continuation<Unit>>())
+      }
+    }
+  }
+
   @Test
   fun remembersValueWhenItIsObtainedForTheFirstTime() {
     val storage = InMemoryStorage()
@@ -76,7 +138,7 @@ internal class CacheTests {
   }
 
   @Test
-  fun obtainsRememberedValueWhenItIsReadBeforeTimeToIdle() {
+  fun obtainsRememberedValueFromMemoryWhenItIsReadBeforeTimeToIdle() {
     val fetcher = spyk(InMemoryFetcher())
     val storage = spyk(InMemoryStorage())
     val cache =
@@ -86,7 +148,7 @@ internal class CacheTests {
       @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(23.hours)
       cache.get("0")
       coVerify(exactly = 1) { InMemoryFetcher::fetch.call(fetcher, "0", any<Continuation<Unit>>()) }
-      coVerify(exactly = 1) { InMemoryStorage::get.call(storage, "0", any<Continuation<Unit>>()) }
+      coVerify(exactly = 0) { InMemoryStorage::get.call(storage, "0", any<Continuation<Unit>>()) }
     }
   }
 
@@ -112,7 +174,7 @@ internal class CacheTests {
   }
 
   @Test
-  fun obtainsRememberedValueWhenItIsReadBeforeTimeToLive() {
+  fun obtainsRememberedValueFromMemoryWhenItIsReadBeforeTimeToLive() {
     val fetcher = spyk(InMemoryFetcher())
     val storage = spyk(InMemoryStorage())
     val cache = cacheRule.cache.storingInto(storage).fetchingWith(fetcher).livingFor(1.days)
@@ -121,10 +183,69 @@ internal class CacheTests {
       @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(23.hours)
       cache.get("0")
       coVerify(exactly = 1) { InMemoryFetcher::fetch.call(fetcher, "0", any<Continuation<Unit>>()) }
+      coVerify(exactly = 0) { InMemoryStorage::get.call(storage, "0", any<Continuation<Unit>>()) }
+    }
+  }
+
+  @Test
+  fun retrievesRememberedValueFromStorageWhenItHasBeenEvictedFromMemory() {
+    val fetcher = spyk(InMemoryFetcher())
+    val storage = spyk(InMemoryStorage())
+    val cache =
+      cacheRule.cache
+        .storingInto(storage)
+        .fetchingWith(fetcher)
+        .idlingFor(1.days)
+        .holdingInMemoryAtMost(1)
+    coroutineScope.runTest {
+      cache.get("0")
+      cache.get("1")
+      cache.get("0")
+      coVerify(exactly = 1) { InMemoryFetcher::fetch.call(fetcher, "0", any<Continuation<Unit>>()) }
       coVerify(exactly = 1) { InMemoryStorage::get.call(storage, "0", any<Continuation<Unit>>()) }
     }
   }
 
+  @Test
+  fun readsAccessOfValueInASingleQueryWhenItIsRetrievedFromStorage() {
+    val cache = cacheRule.cache.idlingFor(1.days).holdingInMemoryAtMost(1)
+    coroutineScope.runTest {
+      cache.get("0")
+      cache.get("1")
+      cacheRule.clearExecutedQueries()
+      cache.get("0")
+      assertEquals(1, cacheRule.countExecutedAccessQueries("SELECT"))
+      assertEquals(0, cacheRule.countExecutedAccessQueries("INSERT"))
+      assertEquals(0, cacheRule.countExecutedAccessQueries("UPDATE"))
+    }
+  }
+
+  @Test
+  fun performsNoQueryWhenValueIsObtainedFromMemory() {
+    val cache = cacheRule.cache.idlingFor(1.days)
+    coroutineScope.runTest {
+      cache.get("0")
+      cacheRule.clearExecutedQueries()
+      repeat(Cache.DEFAULT_IDLE_ACCESS_FLUSH_THRESHOLD - 1) { cache.get("0") }
+      assertEquals(0, cacheRule.countExecutedAccessQueries())
+    }
+  }
+
+  @Test
+  fun countsHitsAndMisses() {
+    val cache = cacheRule.cache.idlingFor(1.days).holdingInMemoryAtMost(1)
+    coroutineScope.runTest {
+      cache.get("0")
+      cache.get("0")
+      cache.get("1")
+      cache.get("0")
+      assertEquals(
+        Cache.Statistics(memoryHitCount = 1, storageHitCount = 1, missCount = 2),
+        cache.statistics.value
+      )
+    }
+  }
+
   @Test
   fun remembersValueAgainWhenItIsObtainedAfterTimeToLive() {
     val fetcher = spyk(InMemoryFetcher())
@@ -145,4 +266,182 @@ internal class CacheTests {
       }
     }
   }
+
+  @Test
+  fun evictsExpiredValuesWhenSweeping() {
+    val fetcher = spyk(InMemoryFetcher())
+    val storage = spyk(InMemoryStorage())
+    val cache =
+      cacheRule.cache
+        .storingInto(storage)
+        .fetchingWith(fetcher)
+        .idlingFor(1.minutes)
+        .livingFor(1.minutes)
+    coroutineScope.runTest {
+      cache.get("0")
+      cache.get("1")
+      @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(2.minutes)
+      assertEquals(2, cache.sweep().expiredCount)
+      assertEquals(2, cache.statistics.value.evictionCount)
+      coVerify(exactly = 1) {
+        InMemoryStorage::removeAll.call(storage, any<List<String>>(), any<Continuation<Unit>>())
+      }
+      cache.get("0")
+      coVerify(exactly = 2) { InMemoryFetcher::fetch.call(fetcher, "0", any<Continuation<Unit>>()) }
+    }
+  }
+
+  @Test
+  fun keepsActiveValuesWhenSweeping() {
+    val storage = spyk(InMemoryStorage())
+    val cache = cacheRule.cache.storingInto(storage).idlingFor(1.days)
+    coroutineScope.runTest {
+      cache.get("0")
+      assertEquals(0, cache.sweep().evictionCount)
+      coVerify(exactly = 0) {
+        InMemoryStorage::removeAll.call(storage, any<List<String>>(), any<Continuation<Unit>>())
+      }
+    }
+  }
+
+  @Test
+  fun evictsLeastRecentlyReadValuesWhenEvictionPolicyIsExceeded() {
+    val storage = spyk(InMemoryStorage())
+    val cache =
+      cacheRule.cache
+        .storingInto(storage)
+        .idlingFor(1.days)
+        .evictingBy(EvictionPolicy(maxEntryCount = 2))
+    coroutineScope.runTest {
+      cache.get("0")
+      @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(1.seconds)
+      cache.get("1")
+      @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(1.seconds)
+      cache.get("2")
+      @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(1.seconds)
+      cache.get("0")
+      assertEquals(1, cache.sweep().overflowCount)
+      coVerify(exactly = 1) {
+        InMemoryStorage::removeAll.call(storage, listOf("1"), any<Continuation<Unit>>())
+      }
+    }
+  }
+
+  @Test
+  fun emitsCachedValueWithoutRevalidatingItWhenItIsObservedBeforeTimeToLive() {
+    val fetcher = spyk(InMemoryFetcher())
+    val cache = cacheRule.cache.fetchingWith(fetcher).livingFor(1.days)
+    coroutineScope.runTest {
+      cache.get("0")
+      assertEquals(listOf(InMemoryFetcher.FETCHED.first()), cache.observe("0").toList())
+      coVerify(exactly = 1) { InMemoryFetcher::fetch.call(fetcher, "0", any<Continuation<Unit>>()) }
+    }
+  }
+
+  @Test
+  fun emitsCachedValueOnceWhenItIsObservedAfterTimeToLiveAndRevalidatedValueIsEqual() {
+    val fetcher = spyk(InMemoryFetcher())
+    val cache = cacheRule.cache.fetchingWith(fetcher).idlingFor(1.days).livingFor(1.seconds)
+    coroutineScope.runTest {
+      cache.get("0")
+      @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(2.seconds)
+      assertEquals(listOf(InMemoryFetcher.FETCHED.first()), cache.observe("0").toList())
+      coVerify(exactly = 2) { InMemoryFetcher::fetch.call(fetcher, "0", any<Continuation<Unit>>()) }
+    }
+  }
+
+  @Test
+  fun emitsExpiredCachedValueAndThenRevalidatedOneWhenItHasChanged() {
+    val cache = cacheRule.cache.idlingFor(1.seconds).livingFor(1.seconds)
+    coroutineScope.runTest {
+      cache.get("0")
+      @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(2.seconds)
+      cache.fetchingWith(InMemoryFetcher(source = "Goodbye"))
+      assertEquals(listOf('H', 'G'), cache.observe("0").toList())
+      assertEquals('G', cache.get("0"))
+    }
+  }
+
+  @Test
+  fun emitsCachedValueOnceWhenItIsObservedAfterTimeToLiveAndRevalidatedValueIsEquivalent() {
+    val cache =
+      cacheRule.cache
+        .storingInto(InMemoryStorage(represent = Char::lowercaseChar))
+        .idlingFor(1.seconds)
+        .livingFor(1.seconds)
+    coroutineScope.runTest {
+      cache.get("0")
+      @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(2.seconds)
+      cache.fetchingWith(InMemoryFetcher(source = "hello"))
+      assertEquals(listOf('H'), cache.observe("0").toList())
+    }
+  }
+
+  @Test
+  fun fetchesValueWhenItIsObservedForTheFirstTime() {
+    val fetcher = spyk(InMemoryFetcher())
+    val cache = cacheRule.cache.fetchingWith(fetcher)
+    coroutineScope.runTest {
+      assertEquals(listOf(InMemoryFetcher.FETCHED.first()), cache.observe("0").toList())
+      coVerify(exactly = 1) { InMemoryFetcher::fetch.call(fetcher, "0", any<Continuation<Unit>>()) }
+    }
+  }
+
+  @Test
+  fun rethrowsFailureWithoutFetchingAgainWhileTombstoneIsLive() {
+    val fetcher = spyk(InMemoryFetcher())
+    val cache = cacheRule.cache.fetchingWith(fetcher)
+    coroutineScope.runTest {
+      assertFailsWith<IndexOutOfBoundsException> { cache.get("64") }
+      assertFailsWith<IndexOutOfBoundsException> { cache.get("64") }
+      coVerify(exactly = 1) {
+        InMemoryFetcher::fetch.call(fetcher, "64", any<Continuation<Unit>>())
+      }
+      assertEquals(1, cache.statistics.value.tombstoneCount)
+      assertEquals(1, cache.statistics.value.tombstoneHitCount)
+    }
+  }
+
+  @Test
+  fun backsOffExponentiallyWhileFetchesFail() {
+    val fetcher = spyk(InMemoryFetcher())
+    val cache = cacheRule.cache.fetchingWith(fetcher)
+    coroutineScope.runTest {
+      assertFailsWith<IndexOutOfBoundsException> { cache.get("64") }
+      @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(6.seconds)
+      assertFailsWith<IndexOutOfBoundsException> { cache.get("64") }
+      @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(6.seconds)
+      assertFailsWith<IndexOutOfBoundsException> { cache.get("64") }
+      coVerify(exactly = 2) {
+        InMemoryFetcher::fetch.call(fetcher, "64", any<Continuation<Unit>>())
+      }
+      @OptIn(ExperimentalCoroutinesApi::class) advanceTimeBy(5.seconds)
+      assertFailsWith<IndexOutOfBoundsException> { cache.get("64") }
+      coVerify(exactly = 3) {
+        InMemoryFetcher::fetch.call(fetcher, "64", any<Continuation<Unit>>())
+      }
+    }
+  }
+
+  @Test
+  fun omitsValuesWithLiveTombstonesWhenObtainingMultipleOnes() {
+    val fetcher = spyk(InMemoryFetcher())
+    val cache = cacheRule.cache.fetchingWith(fetcher)
+    coroutineScope.runTest {
+      assertFailsWith<IndexOutOfBoundsException> { cache.get("64") }
+      assertEquals(mapOf("0" to InMemoryFetcher.FETCHED.first()), cache.getAll(listOf("0", "64")))
+      coVerify(exactly = 1) {
+        InMemoryFetcher::fetchAll.call(fetcher, listOf("0"), any<Continuation<Unit>>())
+      }
+    }
+  }
+
+  @Test
+  fun throwsWhenFetchingMultipleValuesFailsEntirely() {
+    val cache = cacheRule.cache
+    coroutineScope.runTest {
+      assertFailsWith<IndexOutOfBoundsException> { cache.getAll(listOf("0", "64")) }
+      assertFailsWith<IndexOutOfBoundsException> { cache.get("0") }
+    }
+  }
 }
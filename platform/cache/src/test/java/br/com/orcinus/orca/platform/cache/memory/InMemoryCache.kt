@@ -17,6 +17,7 @@ package br.com.orcinus.orca.platform.cache.memory
 
 import androidx.test.platform.app.InstrumentationRegistry
 import br.com.orcinus.orca.platform.cache.Cache
+import br.com.orcinus.orca.platform.cache.EvictionPolicy
 import br.com.orcinus.orca.platform.cache.database.CacheDatabase
 import kotlin.time.Duration
 import kotlin.time.Duration.Companion.days
@@ -41,6 +42,14 @@ internal class InMemoryCache(
   override var timeToLive = 30.minutes
     private set
 
+  override var memoryCapacity = DEFAULT_MEMORY_CAPACITY
+    private set
+
+  override var evictionPolicy = EvictionPolicy.unbounded
+    private set
+
+  override val sweepInterval = Duration.INFINITE
+
   override val elapsedTimeProvider = ElapsedTimeProvider {
     @OptIn(ExperimentalCoroutinesApi::class) coroutineScheduler.currentTime.milliseconds
   }
@@ -61,6 +70,14 @@ internal class InMemoryCache(
     return apply { this.timeToLive = timeToLive }
   }
 
+  fun holdingInMemoryAtMost(memoryCapacity: Int): InMemoryCache {
+    return apply { this.memoryCapacity = memoryCapacity }
+  }
+
+  fun evictingBy(evictionPolicy: EvictionPolicy): InMemoryCache {
+    return apply { this.evictionPolicy = evictionPolicy }
+  }
+
   companion object {
     const val NAME = "test-cache"
   }
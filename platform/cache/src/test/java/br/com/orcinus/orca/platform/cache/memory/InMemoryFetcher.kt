@@ -16,10 +16,16 @@
 package br.com.orcinus.orca.platform.cache.memory
 
 import br.com.orcinus.orca.platform.cache.Fetcher
+import kotlin.time.Duration
+import kotlinx.coroutines.delay
 
-internal class InMemoryFetcher : Fetcher<Char>() {
+internal class InMemoryFetcher(
+  private val latency: Duration = Duration.ZERO,
+  private val source: String = FETCHED
+) : Fetcher<Char>() {
   override suspend fun onFetch(key: String): Char {
-    return FETCHED[key.toInt()]
+    delay(latency)
+    return source[key.toInt()]
   }
 
   companion object {
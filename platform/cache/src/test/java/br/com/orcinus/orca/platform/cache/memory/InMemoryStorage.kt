@@ -17,31 +17,30 @@ package br.com.orcinus.orca.platform.cache.memory
 
 import br.com.orcinus.orca.platform.cache.Storage
 
-internal class InMemoryStorage : Storage<Char>() {
-  private var stored = ""
+internal class InMemoryStorage(private val represent: (Char) -> Any? = { it }) : Storage<Char>() {
+  private val stored = HashMap<String, Char>()
 
   override suspend fun onStore(key: String, value: Char) {
-    val index = key.toInt()
-    stored = buildString {
-      append(stored)
-      insert(index, value)
-    }
+    stored[key] = value
   }
 
   override suspend fun onContains(key: String): Boolean {
-    return stored.isNotEmpty() && key.toInt() in 0..stored.lastIndex
+    return key in stored
+  }
+
+  override fun onRepresent(key: String, value: Char): Any? {
+    return represent(value)
   }
 
   override suspend fun onGet(key: String): Char {
-    return stored[key.toInt()]
+    return stored.getValue(key)
   }
 
   override suspend fun onRemove(key: String) {
-    val index = key.toInt()
-    stored = stored.substring(0..index) + stored.substring(index.inc()..stored.length)
+    stored.remove(key)
   }
 
   override suspend fun onClear() {
-    stored = ""
+    stored.clear()
   }
 }